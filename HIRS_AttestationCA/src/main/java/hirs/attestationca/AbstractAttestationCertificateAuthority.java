@@ -47,7 +47,7 @@ import hirs.structs.elements.tpm.IdentityRequest;
 import hirs.structs.elements.tpm.SymmetricKey;
 import hirs.structs.elements.tpm.SymmetricKeyParams;
 import hirs.tpm.eventlog.TCGEventLog;
-import hirs.tpm.eventlog.TpmPcrEvent;
+import hirs.tpm.eventlog.TCGEventLogCursor;
 import hirs.utils.HexUtils;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.lang3.ArrayUtils;
@@ -110,6 +110,11 @@ import java.util.regex.Pattern;
 /**
  * Provides base implementation of common tasks of an ACA that are required for attestation of an
  * Identity Request.
+ * <p>
+ * This class is thread-safe. All of its fields are fixed at construction and anything specific to
+ * a single request (certificate validity, TPM quote) is carried in a {@link ProvisioningContext}
+ * that is passed between the processing steps, so a single instance may serve concurrent
+ * provisioning requests.
  */
 public abstract class AbstractAttestationCertificateAuthority
                                                     implements AttestationCertificateAuthority {
@@ -173,9 +178,9 @@ public abstract class AbstractAttestationCertificateAuthority
 
     /**
      * Container wired application configuration property identifying the number of days that
-     * certificates issued by this ACA are valid for.
+     * certificates issued by this ACA are valid for, unless overridden by the supply chain policy.
      */
-    private Integer validDays = 1;
+    private final int validDays;
 
     private final ComponentResultManager componentResultManager;
     private final CertificateManager certificateManager;
@@ -185,8 +190,13 @@ public abstract class AbstractAttestationCertificateAuthority
     private final DBManager<TPM2ProvisionerState> tpm2ProvisionerStateDBManager;
     private final ReferenceDigestManager referenceDigestManager;
     private final ReferenceEventManager referenceEventManager;
-    private String tpmQuoteHash = "";
-    private String tpmQuoteSignature = "";
+
+    /**
+     * Identity claims processed by the first pass of the TPM 2.0 handshake, so that the
+     * certificate request does not need to parse and resolve them again.
+     */
+    private final IdentityClaimCache identityClaimCache =
+            new IdentityClaimCache(this::loadIdentityClaim);
 
     /**
      * Constructor.
@@ -380,18 +390,14 @@ public abstract class AbstractAttestationCertificateAuthority
 
         // generate the identity credential
         LOG.debug("generating credential from identity proof");
-        // check the policy set valid date
-        SupplyChainPolicy scp = this.supplyChainValidationService.getPolicy();
-        if (scp != null) {
-            this.validDays = Integer.parseInt(scp.getValidityDays());
-        }
+        ProvisioningContext context = createProvisioningContext();
         // transform the public key struct into a public key
         PublicKey publicKey = assemblePublicKey(proof.getIdentityKey().getStorePubKey().getKey());
         X509Certificate credential = generateCredential(publicKey, endorsementCredential,
                 platformCredentials, device.getDeviceInfo()
                         .getNetworkInfo()
                         .getIpAddress()
-                        .getHostName());
+                        .getHostName(), context);
 
         // generate the attestation using the credential and the key for this session
         LOG.debug("generating symmetric response");
@@ -415,8 +421,7 @@ public abstract class AbstractAttestationCertificateAuthority
      * Basic implementation of the ACA processIdentityClaimTpm2 method. Parses the claim,
      * stores the device info, performs supply chain validation, generates a nonce,
      * and wraps that nonce with the make credential process before returning it to the client.
-     *            attCert.setPcrValues(pcrValues);
-
+     *
      * @param identityClaim the request to process, cannot be null
      * @return an identity claim response for the specified request containing a wrapped blob
      */
@@ -437,9 +442,20 @@ public abstract class AbstractAttestationCertificateAuthority
         // and later tpm20MakeCredential function
         RSAPublicKey ekPub = parsePublicKey(claim.getEkPublicArea().toByteArray());
         AppraisalStatus.Status validationResult = AppraisalStatus.Status.FAIL;
+        // the claim carries no TPM quote, that arrives with the certificate request
+        ProvisioningContext context = new ProvisioningContext(validDays);
+        EndorsementCredential endorsementCredential = null;
+        Set<PlatformCredential> platformCredentials = new HashSet<>();
 
         try {
-            validationResult = doSupplyChainValidation(claim, ekPub);
+            // attempt to find an endorsement credential to validate
+            endorsementCredential = parseEcFromIdentityClaim(claim, ekPub);
+
+            // attempt to find platform credentials to validate
+            platformCredentials = parsePcsFromIdentityClaim(claim, endorsementCredential);
+
+            validationResult = doSupplyChainValidation(claim, endorsementCredential,
+                    platformCredentials, context);
         } catch (Exception ex) {
             for (StackTraceElement ste : ex.getStackTrace()) {
                 LOG.error(ste.toString());
@@ -458,7 +474,10 @@ public abstract class AbstractAttestationCertificateAuthority
             LOG.info("Sending nonce: " + strNonce);
             LOG.info("Persisting claim of length: " + identityClaim.length);
 
-            tpm2ProvisionerStateDBManager.save(new TPM2ProvisionerState(nonce, identityClaim));
+            TPM2ProvisionerState provisionerState = tpm2ProvisionerStateDBManager.save(
+                    new TPM2ProvisionerState(nonce, identityClaim));
+            identityClaimCache.put(new IdentityClaimCache.Entry(provisionerState, claim,
+                    ekPub, akPub, endorsementCredential, platformCredentials));
 
             if (scp != null && scp.isIgnoreImaEnabled()) {
                 pcrQuoteMask = PCR_QUOTE_MASK.replace("10,", "");
@@ -487,36 +506,35 @@ public abstract class AbstractAttestationCertificateAuthority
      * Performs supply chain validation.
      *
      * @param claim the identity claim
-     * @param ekPub the public endorsement key
+     * @param endorsementCredential the endorsement credential found for the claim, may be null
+     * @param platformCredentials the platform credentials found for the claim
+     * @param context the context of the request being processed
      * @return the {@link AppraisalStatus} of the supply chain validation
      */
     private AppraisalStatus.Status doSupplyChainValidation(
-            final ProvisionerTpm2.IdentityClaim claim, final PublicKey ekPub) {
-        // attempt to find an endorsement credential to validate
-        EndorsementCredential endorsementCredential = parseEcFromIdentityClaim(claim, ekPub);
-
-        // attempt to find platform credentials to validate
-        Set<PlatformCredential> platformCredentials = parsePcsFromIdentityClaim(claim,
-                endorsementCredential);
-
+            final ProvisionerTpm2.IdentityClaim claim,
+            final EndorsementCredential endorsementCredential,
+            final Set<PlatformCredential> platformCredentials,
+            final ProvisioningContext context) {
         // Parse and save device info
-        Device device = processDeviceInfo(claim);
+        Device device = processDeviceInfo(claim, context);
 
         // There are situations in which the claim is sent with no PCs
         // or a PC from the tpm which will be deprecated
         // this is to check what is in the platform object and pull
         // additional information from the DB if information exists
+        Set<PlatformCredential> validatedCredentials = new HashSet<>(platformCredentials);
         if (platformCredentials.size() == 1) {
             for (PlatformCredential pc : platformCredentials) {
                 if (pc != null && pc.getPlatformSerial() != null) {
-                    platformCredentials.addAll(PlatformCredential.select(this.certificateManager)
+                    validatedCredentials.addAll(PlatformCredential.select(this.certificateManager)
                             .byBoardSerialNumber(pc.getPlatformSerial()).getCertificates());
                 }
             }
         }
         // perform supply chain validation
         SupplyChainValidationSummary summary = supplyChainValidationService.validateSupplyChain(
-                endorsementCredential, platformCredentials, device);
+                endorsementCredential, validatedCredentials, device);
         device.setSummaryId(summary.getId().toString());
         // update the validation result in the device
         AppraisalStatus.Status validationResult = summary.getOverallValidationResult();
@@ -580,39 +598,30 @@ public abstract class AbstractAttestationCertificateAuthority
                     "Could not deserialize Protobuf Certificate Request object.", ipbe);
         }
 
-        // attempt to retrieve provisioner state based on nonce in request
-        TPM2ProvisionerState tpm2ProvisionerState = getTpm2ProvisionerState(request);
-        if (tpm2ProvisionerState != null) {
-            // Reparse Identity Claim to gather necessary components
-            byte[] identityClaim = tpm2ProvisionerState.getIdentityClaim();
-            ProvisionerTpm2.IdentityClaim claim = parseIdentityClaim(identityClaim);
-
-            // Get endorsement public key
-            RSAPublicKey ekPub = parsePublicKey(claim.getEkPublicArea().toByteArray());
-
-            // Get attestation public key
-            RSAPublicKey akPub = parsePublicKey(claim.getAkPublicArea().toByteArray());
-
-            // Get Endorsement Credential if it exists or was uploaded
-            EndorsementCredential endorsementCredential = parseEcFromIdentityClaim(claim, ekPub);
-
-            // Get Platform Credentials if they exist or were uploaded
-            Set<PlatformCredential> platformCredentials = parsePcsFromIdentityClaim(claim,
-                    endorsementCredential);
+        // attempt to retrieve the claim processed for the nonce in request
+        IdentityClaimCache.Entry processedClaim = null;
+        if (request.hasNonce()) {
+            processedClaim = identityClaimCache.get(request.getNonce().toByteArray());
+        }
+        if (processedClaim != null) {
+            TPM2ProvisionerState tpm2ProvisionerState = processedClaim.getProvisionerState();
+            ProvisionerTpm2.IdentityClaim claim = processedClaim.getClaim();
+            RSAPublicKey akPub = processedClaim.getAkPub();
+            EndorsementCredential endorsementCredential =
+                    processedClaim.getEndorsementCredential();
+            Set<PlatformCredential> platformCredentials =
+                    processedClaim.getPlatformCredentials();
 
             // Get device name and device
             String deviceName = claim.getDv().getNw().getHostname();
             Device device = deviceManager.getDevice(deviceName);
             // check the policy set valid date
-            SupplyChainPolicy scp = this.supplyChainValidationService.getPolicy();
-            if (scp != null) {
-                this.validDays = Integer.parseInt(scp.getValidityDays());
-            }
+            ProvisioningContext context = createProvisioningContext();
 
             // Parse through the Provisioner supplied TPM Quote and pcr values
             // these fields are optional
             if (request.getQuote() != null && !request.getQuote().isEmpty()) {
-                parseTPMQuote(request.getQuote().toStringUtf8());
+                context = parseTPMQuote(request.getQuote().toStringUtf8(), context);
                 TPMInfo savedInfo = device.getDeviceInfo().getTPMInfo();
                 TPMInfo tpmInfo = new TPMInfo(savedInfo.getTPMMake(),
                         savedInfo.getTPMVersionMajor(),
@@ -620,8 +629,8 @@ public abstract class AbstractAttestationCertificateAuthority
                         savedInfo.getTPMVersionRevMajor(),
                         savedInfo.getTPMVersionRevMinor(),
                         savedInfo.getPcrValues(),
-                        this.tpmQuoteHash.getBytes(StandardCharsets.UTF_8),
-                        this.tpmQuoteSignature.getBytes(StandardCharsets.UTF_8));
+                        context.getTpmQuoteHash().getBytes(StandardCharsets.UTF_8),
+                        context.getTpmQuoteSignature().getBytes(StandardCharsets.UTF_8));
 
                 DeviceInfoReport dvReport = new DeviceInfoReport(
                         device.getDeviceInfo().getNetworkInfo(),
@@ -636,12 +645,13 @@ public abstract class AbstractAttestationCertificateAuthority
             if (validationResult == AppraisalStatus.Status.PASS) {
                 // Create signed, attestation certificate
                 X509Certificate attestationCertificate = generateCredential(akPub,
-                        endorsementCredential, platformCredentials, deviceName);
+                        endorsementCredential, platformCredentials, deviceName, context);
                 byte[] derEncodedAttestationCertificate = getDerEncodedCertificate(
                         attestationCertificate);
 
                 // We validated the nonce and made use of the identity claim so state can be deleted
                 tpm2ProvisionerStateDBManager.delete(tpm2ProvisionerState);
+                identityClaimCache.invalidate(tpm2ProvisionerState.getNonce());
 
                 // Package the signed certificate into a response
                 ByteString certificateBytes = ByteString
@@ -672,25 +682,42 @@ public abstract class AbstractAttestationCertificateAuthority
         }
     }
 
+    /**
+     * Creates the context for a request that issues a certificate. The number of days the
+     * certificate is valid comes from the supply chain policy, if one is set.
+     *
+     * @return the context of the request being processed
+     */
+    private ProvisioningContext createProvisioningContext() {
+        SupplyChainPolicy scp = this.supplyChainValidationService.getPolicy();
+        if (scp != null) {
+            return new ProvisioningContext(Integer.parseInt(scp.getValidityDays()));
+        }
+        return new ProvisioningContext(validDays);
+    }
+
     /**
      * This method takes the provided TPM Quote and splits it between the PCR
      * quote and the signature hash.
      * @param tpmQuote contains hash values for the quote and the signature
+     * @param context the context of the request being processed
+     * @return a copy of the context carrying the quote, or the given context if
+     * there is no quote
      */
-    private boolean parseTPMQuote(final String tpmQuote) {
-        boolean success = false;
-        if (tpmQuote != null) {
-            String[] lines = tpmQuote.split(":");
-            if (lines[1].contains("signature")) {
-                this.tpmQuoteHash = lines[1].replace("signature", "").trim();
-            } else {
-                this.tpmQuoteHash = lines[1].trim();
-            }
-            this.tpmQuoteSignature = lines[2].trim();
-            success = true;
+    private ProvisioningContext parseTPMQuote(final String tpmQuote,
+                                              final ProvisioningContext context) {
+        if (tpmQuote == null) {
+            return context;
         }
 
-        return success;
+        String[] lines = tpmQuote.split(":");
+        String quoteHash;
+        if (lines[1].contains("signature")) {
+            quoteHash = lines[1].replace("signature", "").trim();
+        } else {
+            quoteHash = lines[1].trim();
+        }
+        return context.withTpmQuote(quoteHash, lines[2].trim());
     }
 
     /**
@@ -739,10 +766,12 @@ public abstract class AbstractAttestationCertificateAuthority
     /**
      * Converts a protobuf DeviceInfo object to a HIRS Utils DeviceInfoReport object.
      * @param claim the protobuf serialized identity claim containing the device info
+     * @param context the context of the request being processed
      * @return a HIRS Utils DeviceInfoReport representation of device info
      */
     @SuppressWarnings("methodlength")
-    private DeviceInfoReport parseDeviceInfo(final ProvisionerTpm2.IdentityClaim claim)
+    private DeviceInfoReport parseDeviceInfo(final ProvisionerTpm2.IdentityClaim claim,
+                                             final ProvisioningContext context)
             throws NoSuchAlgorithmException {
         ProvisionerTpm2.DeviceInfo dv = claim.getDv();
         String pcrValues = "";
@@ -998,8 +1027,8 @@ public abstract class AbstractAttestationCertificateAuthority
                 (short) 0,
                 (short) 0,
                 pcrValues.getBytes(StandardCharsets.UTF_8),
-                this.tpmQuoteHash.getBytes(StandardCharsets.UTF_8),
-                this.tpmQuoteSignature.getBytes(StandardCharsets.UTF_8));
+                context.getTpmQuoteHash().getBytes(StandardCharsets.UTF_8),
+                context.getTpmQuoteSignature().getBytes(StandardCharsets.UTF_8));
 
         // Create final report
         DeviceInfoReport dvReport = new DeviceInfoReport(nw, os, fw, hw, tpm,
@@ -1010,7 +1039,6 @@ public abstract class AbstractAttestationCertificateAuthority
     }
 
     private boolean generateDigestRecords(final String manufacturer, final String model) {
-        List<ReferenceDigestValue> rdValues = new LinkedList<>();
         SupportReferenceManifest baseSupportRim = null;
         List<SupportReferenceManifest> supplementalRims = new ArrayList<>();
         List<SupportReferenceManifest> patchRims = new ArrayList<>();
@@ -1039,56 +1067,39 @@ public abstract class AbstractAttestationCertificateAuthority
         if (baseSupportRim != null
                 && referenceEventManager.getValuesByRimId(baseSupportRim).isEmpty()) {
             try {
-                TCGEventLog logProcessor = new TCGEventLog(baseSupportRim.getRimBytes());
-                ReferenceDigestValue rdv;
-                for (TpmPcrEvent tpe : logProcessor.getEventList()) {
-                    rdv = new ReferenceDigestValue(baseSupportRim.getAssociatedRim(),
-                            baseSupportRim.getId(), manufacturer, model, tpe.getPcrIndex(),
-                            tpe.getEventDigestStr(), tpe.getEventTypeStr(),
-                            false, false, true, tpe.getEventContent());
-                    rdValues.add(rdv);
-                }
-
                 // since I have the base already I don't have to care about the backward
-                // linkage
-                for (SupportReferenceManifest supplemental : supplementalRims) {
-                    logProcessor = new TCGEventLog(supplemental.getRimBytes());
-                    for (TpmPcrEvent tpe : logProcessor.getEventList()) {
-                        // all RDVs will have the same base rim
-                        rdv = new ReferenceDigestValue(baseSupportRim.getAssociatedRim(),
-                                supplemental.getId(), manufacturer, model, tpe.getPcrIndex(),
-                                tpe.getEventDigestStr(), tpe.getEventTypeStr(),
-                                false, false, true, tpe.getEventContent());
-                        rdValues.add(rdv);
+                // linkage, all RDVs will have the same base rim
+                List<SupportReferenceManifest> eventRims = new ArrayList<>();
+                eventRims.add(baseSupportRim);
+                eventRims.addAll(supplementalRims);
+                for (SupportReferenceManifest eventRim : eventRims) {
+                    List<ReferenceDigestValue> rdValues = new ArrayList<>();
+                    TCGEventLogCursor logProcessor =
+                            new TCGEventLogCursor(eventRim.getRimBytes());
+                    while (logProcessor.next()) {
+                        rdValues.add(new ReferenceDigestValue(
+                                baseSupportRim.getAssociatedRim(),
+                                eventRim.getId(), manufacturer, model,
+                                logProcessor.getPcrIndex(), logProcessor.getEventDigestStr(),
+                                logProcessor.getEventTypeStr(),
+                                false, false, true, logProcessor.getEventContent()));
                     }
-                }
 
-                // Save all supplemental values
-                ReferenceDigestValue tempRdv;
-                for (ReferenceDigestValue subRdv : rdValues) {
-                    // check if the value already exists
-                    if (digestValueMap.containsKey(subRdv.getDigestValue())) {
-                        tempRdv = digestValueMap.get(subRdv.getDigestValue());
-                        if (tempRdv.getPcrIndex() != subRdv.getPcrIndex()
-                                && !tempRdv.getEventType().equals(subRdv.getEventType())) {
-                            referenceEventManager.saveValue(subRdv);
-                        } else {
-                            // will this be a problem down the line?
-                            referenceEventManager.updateEvent(subRdv);
-                        }
-                    } else {
-                        referenceEventManager.saveValue(subRdv);
+                    // one transaction per RIM, with the values inserted in JDBC batches
+                    referenceEventManager.saveValues(rdValues);
+                    for (ReferenceDigestValue rdv : rdValues) {
+                        digestValueMap.put(rdv.getDigestValue(), rdv);
                     }
-                    digestValueMap.put(subRdv.getDigestValue(), subRdv);
                 }
 
                 // if a patch value doesn't exist, error?
                 ReferenceDigestValue dbRdv;
                 String patchedValue;
                 for (SupportReferenceManifest patch : patchRims) {
-                    logProcessor = new TCGEventLog(patch.getRimBytes());
-                    for (TpmPcrEvent tpe : logProcessor.getEventList()) {
-                        patchedValue = tpe.getEventDigestStr();
+                    TCGEventLogCursor logProcessor =
+                            new TCGEventLogCursor(patch.getRimBytes());
+                    while (logProcessor.next()) {
+                        patchedValue = logProcessor.getEventDigestStr();
                         dbRdv = digestValueMap.get(patchedValue);
 
                         if (dbRdv == null) {
@@ -1102,10 +1113,6 @@ public abstract class AbstractAttestationCertificateAuthority
                         }
                     }
                 }
-            } catch (CertificateException cEx) {
-                LOG.error(cEx);
-            } catch (NoSuchAlgorithmException noSaEx) {
-                LOG.error(noSaEx);
             } catch (IOException ioEx) {
                 LOG.error(ioEx);
             }
@@ -1114,11 +1121,12 @@ public abstract class AbstractAttestationCertificateAuthority
         return true;
     }
 
-    private Device processDeviceInfo(final ProvisionerTpm2.IdentityClaim claim) {
+    private Device processDeviceInfo(final ProvisionerTpm2.IdentityClaim claim,
+                                     final ProvisioningContext context) {
         DeviceInfoReport deviceInfoReport = null;
 
         try {
-            deviceInfoReport = parseDeviceInfo(claim);
+            deviceInfoReport = parseDeviceInfo(claim, context);
         } catch (NoSuchAlgorithmException noSaEx) {
             LOG.error(noSaEx);
         }
@@ -1483,16 +1491,19 @@ public abstract class AbstractAttestationCertificateAuthority
      *            the set of platform credentials
      * @param deviceName
      *            The host name used in the subject alternative name
+     * @param context
+     *            the context of the request being processed
      * @return identity credential
      */
     X509Certificate generateCredential(final PublicKey publicKey,
                                        final EndorsementCredential endorsementCredential,
                                        final Set<PlatformCredential> platformCredentials,
-                                       final String deviceName) {
+                                       final String deviceName,
+                                       final ProvisioningContext context) {
         try {
             // have the certificate expire in the configured number of days
             Calendar expiry = Calendar.getInstance();
-            expiry.add(Calendar.DAY_OF_YEAR, validDays);
+            expiry.add(Calendar.DAY_OF_YEAR, context.getValidDays());
 
             X500Name issuer =
                     new X500Name(acaCertificate.getSubjectX500Principal().getName());
@@ -1796,20 +1807,26 @@ public abstract class AbstractAttestationCertificateAuthority
     }
 
     /**
-     * Helper method to unwrap the certificate request sent by the client and verify the
-     * provided nonce.
+     * Helper method to rebuild the identity claim processed for a nonce from the persisted
+     * {@link TPM2ProvisionerState}, when it is no longer cached.
      *
-     * @param request Client Certificate Request containing nonce to complete identity claim
-     * @return the {@link TPM2ProvisionerState} if valid nonce provided / null, otherwise
+     * @param nonce the nonce from the certificate request
+     * @return the processed identity claim, or null if the nonce is unknown
      */
-    private TPM2ProvisionerState getTpm2ProvisionerState(
-            final ProvisionerTpm2.CertificateRequest request) {
-        if (request.hasNonce()) {
-            byte[] nonce = request.getNonce().toByteArray();
-            return TPM2ProvisionerState.getTPM2ProvisionerState(tpm2ProvisionerStateDBManager,
-                    nonce);
+    private IdentityClaimCache.Entry loadIdentityClaim(final byte[] nonce) {
+        TPM2ProvisionerState tpm2ProvisionerState = TPM2ProvisionerState
+                .getTPM2ProvisionerState(tpm2ProvisionerStateDBManager, nonce);
+        if (tpm2ProvisionerState == null) {
+            return null;
         }
-        return null;
+        // Reparse Identity Claim to gather necessary components
+        ProvisionerTpm2.IdentityClaim claim = parseIdentityClaim(
+                tpm2ProvisionerState.getIdentityClaim());
+        RSAPublicKey ekPub = parsePublicKey(claim.getEkPublicArea().toByteArray());
+        EndorsementCredential endorsementCredential = parseEcFromIdentityClaim(claim, ekPub);
+        return new IdentityClaimCache.Entry(tpm2ProvisionerState, claim, ekPub,
+                parsePublicKey(claim.getAkPublicArea().toByteArray()), endorsementCredential,
+                parsePcsFromIdentityClaim(claim, endorsementCredential));
     }
 
     /**
@@ -0,0 +1,199 @@
+package hirs.attestationca;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hirs.attestationca.configuration.provisionerTpm2.ProvisionerTpm2;
+import hirs.data.persist.certificate.EndorsementCredential;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.persist.TPM2ProvisionerState;
+import hirs.utils.HexUtils;
+
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded, in-memory cache of the identity claims processed by the first pass of the TPM 2.0
+ * provisioning handshake, keyed by the nonce sent back to the provisioner. The certificate
+ * request of the second pass can then pick up the parsed claim, keys and credentials instead of
+ * parsing and resolving them again.
+ * <p>
+ * The cache is only an optimization. Entries expire after a fixed time and may be evicted at any
+ * point, so on a miss the claim is rebuilt by a loader, from the {@link TPM2ProvisionerState}
+ * persisted in the database.
+ */
+final class IdentityClaimCache {
+
+    /**
+     * The default maximum number of claims held.
+     */
+    static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+    /**
+     * The default number of minutes a claim is held.
+     */
+    static final long DEFAULT_EXPIRY_MINUTES = 5;
+
+    private final Cache<String, Entry> claims;
+    private final Function<byte[], Entry> loader;
+
+    /**
+     * Constructor for a cache with the default size and expiry.
+     *
+     * @param loader rebuilds the processed claim for a nonce that is not cached, returning null
+     *               if the nonce is unknown
+     */
+    IdentityClaimCache(final Function<byte[], Entry> loader) {
+        this(loader, DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRY_MINUTES, TimeUnit.MINUTES,
+                Ticker.systemTicker());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param loader rebuilds the processed claim for a nonce that is not cached, returning null
+     *               if the nonce is unknown
+     * @param maximumSize the maximum number of claims held
+     * @param expiry the time after which a claim is dropped
+     * @param unit the unit of the expiry
+     * @param ticker the time source used to expire claims
+     */
+    IdentityClaimCache(final Function<byte[], Entry> loader, final long maximumSize,
+                       final long expiry, final TimeUnit unit, final Ticker ticker) {
+        this.loader = loader;
+        claims = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expiry, unit)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Caches a processed identity claim.
+     *
+     * @param entry the processed claim
+     */
+    void put(final Entry entry) {
+        claims.put(key(entry.getProvisionerState().getNonce()), entry);
+    }
+
+    /**
+     * Looks up the processed identity claim for a nonce. If it is not (or no longer) cached, e.g.
+     * after a restart, it is rebuilt by the loader. A rebuilt claim is not cached, as the
+     * certificate request it is rebuilt for is the last use of the claim.
+     *
+     * @param nonce the nonce from the certificate request
+     * @return the processed claim, or null if the nonce is unknown
+     */
+    Entry get(final byte[] nonce) {
+        Entry entry = claims.getIfPresent(key(nonce));
+        if (entry == null) {
+            entry = loader.apply(nonce);
+        }
+        return entry;
+    }
+
+    /**
+     * Drops the processed identity claim for a nonce, if it is cached.
+     *
+     * @param nonce the nonce of the claim
+     */
+    void invalidate(final byte[] nonce) {
+        claims.invalidate(key(nonce));
+    }
+
+    /**
+     * @return the number of claims currently held
+     */
+    long size() {
+        claims.cleanUp();
+        return claims.size();
+    }
+
+    private static String key(final byte[] nonce) {
+        return HexUtils.byteArrayToHexString(nonce);
+    }
+
+    /**
+     * An identity claim along with everything resolved from it during the first pass.
+     */
+    static final class Entry {
+
+        private final TPM2ProvisionerState provisionerState;
+        private final ProvisionerTpm2.IdentityClaim claim;
+        private final RSAPublicKey ekPub;
+        private final RSAPublicKey akPub;
+        private final EndorsementCredential endorsementCredential;
+        private final Set<PlatformCredential> platformCredentials;
+
+        /**
+         * Constructor.
+         *
+         * @param provisionerState the persisted state of the handshake
+         * @param claim the parsed identity claim
+         * @param ekPub the endorsement public key
+         * @param akPub the attestation public key
+         * @param endorsementCredential the endorsement credential, may be null
+         * @param platformCredentials the platform credentials
+         */
+        Entry(final TPM2ProvisionerState provisionerState,
+              final ProvisionerTpm2.IdentityClaim claim,
+              final RSAPublicKey ekPub, final RSAPublicKey akPub,
+              final EndorsementCredential endorsementCredential,
+              final Set<PlatformCredential> platformCredentials) {
+            this.provisionerState = provisionerState;
+            this.claim = claim;
+            this.ekPub = ekPub;
+            this.akPub = akPub;
+            this.endorsementCredential = endorsementCredential;
+            this.platformCredentials = Collections.unmodifiableSet(
+                    new HashSet<>(platformCredentials));
+        }
+
+        /**
+         * @return the persisted state of the handshake
+         */
+        TPM2ProvisionerState getProvisionerState() {
+            return provisionerState;
+        }
+
+        /**
+         * @return the parsed identity claim
+         */
+        ProvisionerTpm2.IdentityClaim getClaim() {
+            return claim;
+        }
+
+        /**
+         * @return the endorsement public key
+         */
+        RSAPublicKey getEkPub() {
+            return ekPub;
+        }
+
+        /**
+         * @return the attestation public key
+         */
+        RSAPublicKey getAkPub() {
+            return akPub;
+        }
+
+        /**
+         * @return the endorsement credential, or null if none was found
+         */
+        EndorsementCredential getEndorsementCredential() {
+            return endorsementCredential;
+        }
+
+        /**
+         * @return a modifiable copy of the platform credentials
+         */
+        Set<PlatformCredential> getPlatformCredentials() {
+            return new HashSet<>(platformCredentials);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package hirs.attestationca;
+
+/**
+ * Immutable, request-scoped state for a single provisioning request. An instance is created
+ * at the start of each request and handed down through the processing steps of
+ * {@link AbstractAttestationCertificateAuthority}, so that nothing specific to one request
+ * is ever stored on the (shared) certificate authority itself.
+ */
+final class ProvisioningContext {
+
+    private final int validDays;
+    private final String tpmQuoteHash;
+    private final String tpmQuoteSignature;
+
+    /**
+     * Constructor for a context that does not (yet) carry a TPM quote.
+     *
+     * @param validDays the number of days certificates issued for this request are valid
+     */
+    ProvisioningContext(final int validDays) {
+        this(validDays, "", "");
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param validDays the number of days certificates issued for this request are valid
+     * @param tpmQuoteHash the quote hash supplied by the provisioner
+     * @param tpmQuoteSignature the quote signature supplied by the provisioner
+     */
+    ProvisioningContext(final int validDays, final String tpmQuoteHash,
+                        final String tpmQuoteSignature) {
+        if (tpmQuoteHash == null || tpmQuoteSignature == null) {
+            throw new IllegalArgumentException("TPM quote values cannot be null");
+        }
+        this.validDays = validDays;
+        this.tpmQuoteHash = tpmQuoteHash;
+        this.tpmQuoteSignature = tpmQuoteSignature;
+    }
+
+    /**
+     * @return the number of days certificates issued for this request are valid
+     */
+    int getValidDays() {
+        return validDays;
+    }
+
+    /**
+     * @return the quote hash supplied by the provisioner, or an empty string
+     */
+    String getTpmQuoteHash() {
+        return tpmQuoteHash;
+    }
+
+    /**
+     * @return the quote signature supplied by the provisioner, or an empty string
+     */
+    String getTpmQuoteSignature() {
+        return tpmQuoteSignature;
+    }
+
+    /**
+     * Returns a copy of this context carrying the given TPM quote.
+     *
+     * @param quoteHash the quote hash supplied by the provisioner
+     * @param quoteSignature the quote signature supplied by the provisioner
+     * @return a new context with the quote values set
+     */
+    ProvisioningContext withTpmQuote(final String quoteHash, final String quoteSignature) {
+        return new ProvisioningContext(validDays, quoteHash, quoteSignature);
+    }
+}
@@ -0,0 +1,131 @@
+package hirs.attestationca.service;
+
+import hirs.data.persist.BaseReferenceManifest;
+import hirs.data.persist.ReferenceDigestValue;
+import hirs.data.persist.SupportReferenceManifest;
+import hirs.persist.ReferenceEventManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the firmware baseline of each platform manufacturer and model in memory, so that
+ * validating the firmware of a device does not recalculate the expected PCR values of the
+ * support RIM and reload the reference digest values of the base RIM every time.
+ * <p>
+ * A baseline is rebuilt when the base or support RIM of the platform is replaced, or when the
+ * {@link ReferenceEventManager#getValuesVersion(UUID) version} of the base RIM's digest values
+ * changes, i.e. whenever a RIM upload or delete adds, associates or archives digest values, no
+ * matter through which application. Baselines can also be dropped explicitly.
+ */
+public final class FirmwareBaselineCache {
+
+    private final ReferenceEventManager referenceEventManager;
+    private final ConcurrentMap<List<String>, Baseline> baselines = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param referenceEventManager the manager storing the reference digest values
+     */
+    public FirmwareBaselineCache(final ReferenceEventManager referenceEventManager) {
+        this.referenceEventManager = referenceEventManager;
+    }
+
+    /**
+     * Returns the baseline of the given platform, rebuilding it first if the RIMs or their
+     * digest values changed since it was built.
+     *
+     * @param manufacturer the platform manufacturer
+     * @param model the platform model
+     * @param baseRim the base RIM of the platform
+     * @param supportRim the support RIM referenced by the base RIM
+     * @return the current baseline
+     */
+    public Baseline getBaseline(final String manufacturer, final String model,
+                                final BaseReferenceManifest baseRim,
+                                final SupportReferenceManifest supportRim) {
+        List<String> key = Arrays.asList(manufacturer, model);
+        String version = referenceEventManager.getValuesVersion(baseRim.getId());
+        Baseline current = baselines.get(key);
+        if (current == null || !current.isBuiltFrom(baseRim, supportRim, version)) {
+            Map<String, ReferenceDigestValue> digestIndex = new HashMap<>();
+            for (ReferenceDigestValue rdv : referenceEventManager.getValuesByRimId(baseRim)) {
+                digestIndex.put(rdv.getDigestValue(), rdv);
+            }
+            current = new Baseline(baseRim.getId(), supportRim.getHexDecHash(), version,
+                    supportRim.getExpectedPCRList(), digestIndex);
+            baselines.put(key, current);
+        }
+        return current;
+    }
+
+    /**
+     * Drops the baseline of the given platform, if any.
+     *
+     * @param manufacturer the platform manufacturer
+     * @param model the platform model
+     */
+    public void invalidate(final String manufacturer, final String model) {
+        baselines.remove(Arrays.asList(manufacturer, model));
+    }
+
+    /**
+     * Drops all baselines.
+     */
+    public void invalidateAll() {
+        baselines.clear();
+    }
+
+    /**
+     * The expected PCR values and reference digest values of a platform, as derived from its
+     * RIMs at one point in time.
+     */
+    public static final class Baseline {
+
+        private final UUID baseRimId;
+        private final String supportRimHash;
+        private final String version;
+        private final String[] expectedPcrValues;
+        private final Map<String, ReferenceDigestValue> digestIndex;
+
+        private Baseline(final UUID baseRimId, final String supportRimHash,
+                         final String version, final String[] expectedPcrValues,
+                         final Map<String, ReferenceDigestValue> digestIndex) {
+            this.baseRimId = baseRimId;
+            this.supportRimHash = supportRimHash;
+            this.version = version;
+            this.expectedPcrValues = expectedPcrValues;
+            this.digestIndex = Collections.unmodifiableMap(digestIndex);
+        }
+
+        private boolean isBuiltFrom(final BaseReferenceManifest baseRim,
+                                    final SupportReferenceManifest supportRim,
+                                    final String currentVersion) {
+            return Objects.equals(baseRimId, baseRim.getId())
+                    && Objects.equals(supportRimHash, supportRim.getHexDecHash())
+                    && Objects.equals(version, currentVersion);
+        }
+
+        /**
+         * @return a copy of the PCR values expected from the support RIM's event log
+         */
+        public String[] getExpectedPcrValues() {
+            return expectedPcrValues.clone();
+        }
+
+        /**
+         * @return the reference digest values of the base RIM, keyed by digest
+         */
+        public Map<String, ReferenceDigestValue> getDigestIndex() {
+            return digestIndex;
+        }
+    }
+}
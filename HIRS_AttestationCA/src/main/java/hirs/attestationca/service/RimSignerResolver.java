@@ -0,0 +1,103 @@
+package hirs.attestationca.service;
+
+import hirs.data.persist.BaseReferenceManifest;
+import hirs.data.persist.ParsedSwidTag;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.utils.ReferenceManifestValidator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.util.encoders.DecoderException;
+
+import java.io.ByteArrayInputStream;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Finds the CA credential a base RIM was signed with. The signing key is identified once from
+ * the RIM's signature, either by the subject key identifier held in its key name or by the
+ * public key of its embedded certificate, and looked up in a {@link TrustAnchorIndex}, so that
+ * the signature is only checked against the credentials holding that key rather than against
+ * every stored CA credential.
+ */
+public final class RimSignerResolver {
+
+    private static final Logger LOGGER = LogManager.getLogger(RimSignerResolver.class);
+
+    private final TrustAnchorIndex trustAnchorIndex;
+
+    /**
+     * Constructor.
+     *
+     * @param trustAnchorIndex the index of the stored CA credentials
+     */
+    public RimSignerResolver(final TrustAnchorIndex trustAnchorIndex) {
+        this.trustAnchorIndex = trustAnchorIndex;
+    }
+
+    /**
+     * Checks the signature of a base RIM against the stored CA credentials holding the key
+     * named by the signature. The result of the check is kept by the validator, as with
+     * {@link ReferenceManifestValidator#validateXmlSignature(CertificateAuthorityCredential)}.
+     *
+     * @param baseRim the base RIM
+     * @param validator the validator the base RIM was set on
+     * @return the credential the signature was validated with, the first credential holding
+     * the signing key if the signature is invalid, or null if no stored credential holds the
+     * signing key
+     */
+    public CertificateAuthorityCredential resolve(final BaseReferenceManifest baseRim,
+                                                  final ReferenceManifestValidator validator) {
+        Collection<CertificateAuthorityCredential> candidates = getCandidates(baseRim);
+        CertificateAuthorityCredential signingCert = null;
+        for (CertificateAuthorityCredential candidate : candidates) {
+            if (validator.validateXmlSignature(candidate)) {
+                return candidate;
+            }
+            if (signingCert == null) {
+                signingCert = candidate;
+            }
+        }
+        return signingCert;
+    }
+
+    private Collection<CertificateAuthorityCredential> getCandidates(
+            final BaseReferenceManifest baseRim) {
+        ParsedSwidTag swidTag = baseRim.getSwidTag();
+        if (swidTag == null || !swidTag.isSigned()) {
+            return Collections.emptySet();
+        }
+
+        byte[] embeddedCertificate = swidTag.getEmbeddedCertificate();
+        if (embeddedCertificate != null) {
+            try {
+                X509Certificate certificate = (X509Certificate) CertificateFactory
+                        .getInstance("X.509").generateCertificate(
+                                new ByteArrayInputStream(embeddedCertificate));
+                return trustAnchorIndex.getSnapshot().getByPublicKey(
+                        certificate.getPublicKey().getEncoded());
+            } catch (CertificateException e) {
+                LOGGER.warn("Unable to parse the certificate embedded in base RIM "
+                        + baseRim.getId() + ": " + e.getMessage());
+                return Collections.emptySet();
+            }
+        }
+
+        String keyName = swidTag.getKeyName();
+        if (keyName != null) {
+            try {
+                CertificateAuthorityCredential credential = trustAnchorIndex.getSnapshot()
+                        .getBySubjectKeyIdentifier(keyName.trim());
+                if (credential != null) {
+                    return Collections.singleton(credential);
+                }
+            } catch (DecoderException e) {
+                LOGGER.warn("Key name of base RIM " + baseRim.getId()
+                        + " is not a subject key identifier: " + keyName);
+            }
+        }
+        return Collections.emptySet();
+    }
+}
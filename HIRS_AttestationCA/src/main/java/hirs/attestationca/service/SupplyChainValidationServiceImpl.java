@@ -9,7 +9,6 @@ import hirs.data.persist.Device;
 import hirs.data.persist.DeviceInfoReport;
 import hirs.data.persist.EventLogMeasurements;
 import hirs.data.persist.PCRPolicy;
-import hirs.data.persist.ReferenceDigestValue;
 import hirs.data.persist.ReferenceManifest;
 import hirs.data.persist.SupplyChainPolicy;
 import hirs.data.persist.SupplyChainValidation;
@@ -32,9 +31,8 @@ import hirs.persist.PolicyManager;
 import hirs.persist.ReferenceDigestManager;
 import hirs.persist.ReferenceEventManager;
 import hirs.persist.ReferenceManifestManager;
-import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCursor;
 import hirs.tpm.eventlog.TpmPcrEvent;
-import hirs.utils.BouncyCastleUtils;
 import hirs.utils.ReferenceManifestValidator;
 import hirs.validation.CredentialValidator;
 import hirs.validation.SupplyChainCredentialValidator;
@@ -42,7 +40,6 @@ import hirs.validation.SupplyChainValidatorException;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.util.encoders.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Service;
@@ -53,9 +50,7 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -87,6 +82,9 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
     private ComponentResultManager componentResultManager;
     private CredentialValidator supplyChainCredentialValidator;
     private CrudManager<SupplyChainValidationSummary> supplyChainValidatorSummaryManager;
+    private TrustAnchorIndex trustAnchorIndex;
+    private FirmwareBaselineCache firmwareBaselineCache;
+    private RimSignerResolver rimSignerResolver;
 
     private static final Logger LOGGER
             = LogManager.getLogger(SupplyChainValidationServiceImpl.class);
@@ -99,6 +97,8 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
      */
     public SupplyChainValidationServiceImpl(final CertificateManager certificateManager) {
         this.certificateManager = certificateManager;
+        this.trustAnchorIndex = new TrustAnchorIndex(certificateManager);
+        this.rimSignerResolver = new RimSignerResolver(trustAnchorIndex);
     }
 
     /**
@@ -128,12 +128,15 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
         this.policyManager = policyManager;
         this.appraiserManager = appraiserManager;
         this.certificateManager = certificateManager;
+        this.trustAnchorIndex = new TrustAnchorIndex(certificateManager);
+        this.rimSignerResolver = new RimSignerResolver(trustAnchorIndex);
         this.componentResultManager = componentResultManager;
         this.referenceManifestManager = referenceManifestManager;
         this.supplyChainValidatorSummaryManager = supplyChainValidatorSummaryManager;
         this.supplyChainCredentialValidator = supplyChainCredentialValidator;
         this.referenceDigestManager = referenceDigestManager;
         this.referenceEventManager = referenceEventManager;
+        this.firmwareBaselineCache = new FirmwareBaselineCache(referenceEventManager);
     }
 
     /**
@@ -438,29 +441,23 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
             referenceManifestValidator.setRim(baseReferenceManifest);
 
             //Validate signing cert
-            Set<CertificateAuthorityCredential> allCerts =
-                    CertificateAuthorityCredential.select(certificateManager).getCertificates();
-            CertificateAuthorityCredential signingCert = null;
-            for (CertificateAuthorityCredential cert : allCerts) {
-                signingCert = cert;
-                KeyStore keyStore = getCaChain(signingCert);
-                if (referenceManifestValidator.validateXmlSignature(signingCert)) {
-                    try {
-                        if (!SupplyChainCredentialValidator.verifyCertificate(
-                                signingCert.getX509Certificate(), keyStore)) {
-                            passed = false;
-                            fwStatus = new AppraisalStatus(FAIL,
-                                    "Firmware validation failed: invalid certificate path.");
-                            validationObject = baseReferenceManifest;
-                        }
-                    } catch (IOException e) {
-                        LOGGER.error("Error getting X509 cert from manager: " + e.getMessage());
-                    } catch (SupplyChainValidatorException e) {
-                        LOGGER.error("Error validating cert against keystore: " + e.getMessage());
+            CertificateAuthorityCredential signingCert = rimSignerResolver.resolve(
+                    (BaseReferenceManifest) baseReferenceManifest, referenceManifestValidator);
+            if (signingCert != null && referenceManifestValidator.isSignatureValid()) {
+                try {
+                    if (!SupplyChainCredentialValidator.verifyCertificate(
+                            signingCert.getX509Certificate(), getCaChain(signingCert))) {
+                        passed = false;
                         fwStatus = new AppraisalStatus(FAIL,
                                 "Firmware validation failed: invalid certificate path.");
+                        validationObject = baseReferenceManifest;
                     }
-                    break;
+                } catch (IOException e) {
+                    LOGGER.error("Error getting X509 cert from manager: " + e.getMessage());
+                } catch (SupplyChainValidatorException e) {
+                    LOGGER.error("Error validating cert against keystore: " + e.getMessage());
+                    fwStatus = new AppraisalStatus(FAIL,
+                            "Firmware validation failed: invalid certificate path.");
                 }
             }
 
@@ -501,17 +498,11 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
             }
 
             if (passed) {
-                TCGEventLog logProcessor;
-                try {
-                    logProcessor = new TCGEventLog(supportReferenceManifest.getRimBytes());
-                    baseline = logProcessor.getExpectedPCRValues();
-                } catch (CertificateException cEx) {
-                    LOGGER.error(cEx);
-                } catch (NoSuchAlgorithmException noSaEx) {
-                    LOGGER.error(noSaEx);
-                } catch (IOException ioEx) {
-                    LOGGER.error(ioEx);
-                }
+                FirmwareBaselineCache.Baseline firmwareBaseline =
+                        firmwareBaselineCache.getBaseline(manufacturer, model,
+                                baseReferenceManifest,
+                                (SupportReferenceManifest) supportReferenceManifest);
+                baseline = firmwareBaseline.getExpectedPcrValues();
 
                 // part 1 of firmware validation check: PCR baseline match
                 pcrPolicy.setBaselinePcrs(baseline);
@@ -536,28 +527,19 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
                         // part 2 of firmware validation check: bios measurements
                         // vs baseline tcg event log
                         // find the measurement
-                        TCGEventLog tcgMeasurementLog;
                         LinkedList<TpmPcrEvent> tpmPcrEvents = new LinkedList<>();
-                        List<ReferenceDigestValue> eventValue;
-                        HashMap<String, ReferenceDigestValue> eventValueMap = new HashMap<>();
-                        try {
-                            if (measurement.getPlatformManufacturer().equals(manufacturer)) {
-                                tcgMeasurementLog = new TCGEventLog(measurement.getRimBytes());
-                                eventValue = this.referenceEventManager
-                                        .getValuesByRimId(baseReferenceManifest);
-                                for (ReferenceDigestValue rdv : eventValue) {
-                                    eventValueMap.put(rdv.getDigestValue(), rdv);
-                                }
-
+                        if (measurement.getPlatformManufacturer().equals(manufacturer)) {
+                            try (TCGEventLogCursor tcgMeasurementLog =
+                                    new TCGEventLogCursor(measurement.getRimBytes())) {
                                 tpmPcrEvents.addAll(pcrPolicy.validateTpmEvents(
-                                        tcgMeasurementLog, eventValueMap));
+                                        tcgMeasurementLog, firmwareBaseline.getDigestIndex()));
+                            } catch (CertificateException cEx) {
+                                LOGGER.error(cEx);
+                            } catch (NoSuchAlgorithmException noSaEx) {
+                                LOGGER.error(noSaEx);
+                            } catch (IOException ioEx) {
+                                LOGGER.error(ioEx);
                             }
-                        } catch (CertificateException cEx) {
-                            LOGGER.error(cEx);
-                        } catch (NoSuchAlgorithmException noSaEx) {
-                            LOGGER.error(noSaEx);
-                        } catch (IOException ioEx) {
-                            LOGGER.error(ioEx);
                         }
 
                         if (!tpmPcrEvents.isEmpty()) {
@@ -877,6 +859,9 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
      * single trust chain for the queried certificate, but is guaranteed to
      * include the trust chain if it exists in this class' CertificateManager.
      * Returns the certificate authority credentials in a KeyStore.
+     * <p>
+     * The chain is assembled from the in-memory {@link TrustAnchorIndex}, and the returned
+     * KeyStore may be shared with other callers, so it must not be modified.
      *
      * @param credential the credential whose CA chain should be retrieved
      * @return A keystore containing all relevant CA credentials to the given
@@ -885,97 +870,13 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
     public KeyStore getCaChain(final Certificate credential) {
         KeyStore caKeyStore = null;
         try {
-            caKeyStore = caCertSetToKeystore(getCaChainRec(credential, Collections.emptySet()));
+            caKeyStore = trustAnchorIndex.getCaChain(credential);
         } catch (KeyStoreException | IOException e) {
             LOGGER.error("Unable to assemble CA keystore", e);
         }
         return caKeyStore;
     }
 
-    /**
-     * This is a recursive method which is used to retrieve the entire CA chain
-     * (up to a trusted self-signed certificate) for the given certificate. This
-     * method will look up CA certificates that have a matching issuer
-     * organization as the given certificate, and will perform that operation
-     * recursively until all certificates for all relevant organizations have
-     * been retrieved. For that reason, the returned set of certificates may be
-     * larger than the the single trust chain for the queried certificate, but
-     * is guaranteed to include the trust chain if it exists in this class'
-     * CertificateManager.
-     * <p>
-     * Implementation notes: 1. Queries for CA certs with a subject org matching
-     * the given (argument's) issuer org 2. Add that org to
-     * queriedOrganizations, so we don't search for that organization again 3.
-     * For each returned CA cert, add that cert to the result set, and recurse
-     * with that as the argument (to go up the chain), if and only if we haven't
-     * already queried for that organization (which prevents infinite loops on
-     * certs with an identical subject and issuer org)
-     *
-     * @param credential                the credential whose CA chain should be retrieved
-     * @param previouslyQueriedSubjects a list of organizations to refrain
-     *                                  from querying
-     * @return a Set containing all relevant CA credentials to the given
-     * certificate's organization
-     */
-    private Set<CertificateAuthorityCredential> getCaChainRec(
-            final Certificate credential,
-            final Set<String> previouslyQueriedSubjects) {
-        CertificateAuthorityCredential skiCA = null;
-        Set<CertificateAuthorityCredential> certAuthsWithMatchingIssuer = new HashSet<>();
-        if (credential.getAuthKeyId() != null
-                && !credential.getAuthKeyId().isEmpty()) {
-            byte[] bytes = Hex.decode(credential.getAuthKeyId());
-            skiCA = CertificateAuthorityCredential
-                    .select(certificateManager)
-                    .bySubjectKeyIdentifier(bytes).getCertificate();
-        }
-
-        if (skiCA == null) {
-            if (credential.getIssuerSorted() == null
-                    || credential.getIssuerSorted().isEmpty()) {
-                certAuthsWithMatchingIssuer = CertificateAuthorityCredential
-                        .select(certificateManager)
-                        .bySubject(credential.getIssuer())
-                        .getCertificates();
-            } else {
-                //Get certificates by subject organization
-                certAuthsWithMatchingIssuer = CertificateAuthorityCredential
-                        .select(certificateManager)
-                        .bySubjectSorted(credential.getIssuerSorted())
-                        .getCertificates();
-            }
-        } else {
-            certAuthsWithMatchingIssuer.add(skiCA);
-        }
-        Set<String> queriedOrganizations = new HashSet<>(previouslyQueriedSubjects);
-        queriedOrganizations.add(credential.getIssuer());
-
-        HashSet<CertificateAuthorityCredential> caCreds = new HashSet<>();
-        for (CertificateAuthorityCredential cred : certAuthsWithMatchingIssuer) {
-            caCreds.add(cred);
-            if (!BouncyCastleUtils.x500NameCompare(cred.getIssuer(),
-                    cred.getSubject())) {
-                caCreds.addAll(getCaChainRec(cred, queriedOrganizations));
-            }
-        }
-        return caCreds;
-    }
-
-    private KeyStore caCertSetToKeystore(final Set<CertificateAuthorityCredential> certs)
-            throws KeyStoreException, IOException {
-        KeyStore keyStore = KeyStore.getInstance("JKS");
-        try {
-            keyStore.load(null, "".toCharArray());
-            for (Certificate cert : certs) {
-                keyStore.setCertificateEntry(cert.getId().toString(), cert.getX509Certificate());
-            }
-        } catch (IOException | CertificateException | NoSuchAlgorithmException e) {
-            throw new IOException("Could not create and populate keystore", e);
-        }
-
-        return keyStore;
-    }
-
     private boolean checkForMultipleBaseCredentials(final String platformSerialNumber) {
         boolean multiple = false;
         PlatformCredential baseCredential = null;
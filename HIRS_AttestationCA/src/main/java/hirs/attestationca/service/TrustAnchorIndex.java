@@ -0,0 +1,260 @@
+package hirs.attestationca.service;
+
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.persist.CertificateManager;
+import hirs.utils.BouncyCastleUtils;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the certificate authority credentials stored by a {@link CertificateManager} in memory,
+ * indexed by subject key identifier, subject and sorted subject, so that CA chains can be
+ * assembled without querying the database once per chain level.
+ * <p>
+ * The credentials are held in an immutable snapshot that is replaced as a whole whenever the
+ * {@link CertificateManager#getCertificateAuthorityVersion() version} of the stored credentials
+ * changes, i.e. whenever a CA credential is uploaded, archived, restored or deleted, no matter
+ * through which application. Readers never block each other or a rebuild.
+ */
+public final class TrustAnchorIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(TrustAnchorIndex.class);
+
+    private final CertificateManager certificateManager;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructor.
+     *
+     * @param certificateManager the manager storing the CA credentials
+     */
+    public TrustAnchorIndex(final CertificateManager certificateManager) {
+        this.certificateManager = certificateManager;
+    }
+
+    /**
+     * Returns the snapshot of the currently stored CA credentials, rebuilding it first if the
+     * credentials changed since it was taken.
+     *
+     * @return the current snapshot
+     */
+    public Snapshot getSnapshot() {
+        String version = certificateManager.getCertificateAuthorityVersion();
+        Snapshot current = snapshot;
+        if (current == null || !Objects.equals(current.version, version)) {
+            current = new Snapshot(version,
+                    CertificateAuthorityCredential.select(certificateManager).getCertificates());
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Retrieves the CA chain of the given certificate. Looks up the CA credentials matching the
+     * certificate's authority key identifier or, failing that, its issuer, and does the same for
+     * each credential found until self-signed credentials are reached. The returned key store
+     * may hold more than the single trust chain of the certificate, but is guaranteed to include
+     * that chain if all of its CA credentials are stored.
+     * <p>
+     * Key stores are shared between callers for as long as the stored CA credentials do not
+     * change, so the returned key store must not be modified.
+     *
+     * @param credential the credential whose CA chain should be retrieved
+     * @return a key store containing the CA credentials relevant to the given certificate
+     * @throws KeyStoreException if the key store cannot be created
+     * @throws IOException if a CA credential cannot be added to the key store
+     */
+    public KeyStore getCaChain(final Certificate credential)
+            throws KeyStoreException, IOException {
+        return getSnapshot().getCaChain(credential);
+    }
+
+    /**
+     * An immutable view of the CA credentials stored at one point in time.
+     */
+    public static final class Snapshot {
+
+        private final String version;
+        private final Map<String, CertificateAuthorityCredential> bySubjectKeyIdentifier;
+        private final Map<String, Set<CertificateAuthorityCredential>> bySubject;
+        private final Map<String, Set<CertificateAuthorityCredential>> bySubjectSorted;
+        private final Map<String, Set<CertificateAuthorityCredential>> byPublicKey;
+        private final Set<CertificateAuthorityCredential> selfSigned;
+        private final ConcurrentMap<String, KeyStore> caChains = new ConcurrentHashMap<>();
+
+        private Snapshot(final String version,
+                         final Set<CertificateAuthorityCredential> credentials) {
+            this.version = version;
+            Map<String, CertificateAuthorityCredential> skiIndex = new HashMap<>();
+            Map<String, Set<CertificateAuthorityCredential>> subjectIndex = new HashMap<>();
+            Map<String, Set<CertificateAuthorityCredential>> subjectSortedIndex = new HashMap<>();
+            Map<String, Set<CertificateAuthorityCredential>> publicKeyIndex = new HashMap<>();
+            Set<CertificateAuthorityCredential> selfSignedCredentials = new HashSet<>();
+
+            for (CertificateAuthorityCredential credential : credentials) {
+                try {
+                    // parse once, the parsed certificate is kept by the credential
+                    credential.getX509Certificate();
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to parse CA credential " + credential.getId(), e);
+                }
+                byte[] subjectKeyIdentifier = credential.getSubjectKeyIdentifier();
+                if (subjectKeyIdentifier != null) {
+                    skiIndex.putIfAbsent(Hex.toHexString(subjectKeyIdentifier), credential);
+                }
+                if (credential.getSubject() != null) {
+                    subjectIndex.computeIfAbsent(credential.getSubject(),
+                            key -> new LinkedHashSet<>()).add(credential);
+                }
+                if (credential.getSubjectSorted() != null) {
+                    subjectSortedIndex.computeIfAbsent(credential.getSubjectSorted(),
+                            key -> new LinkedHashSet<>()).add(credential);
+                }
+                byte[] encodedPublicKey = credential.getEncodedPublicKey();
+                if (encodedPublicKey != null) {
+                    publicKeyIndex.computeIfAbsent(DigestUtils.sha256Hex(encodedPublicKey),
+                            key -> new LinkedHashSet<>()).add(credential);
+                }
+                if (credential.getIssuer() != null && credential.getSubject() != null
+                        && BouncyCastleUtils.x500NameCompare(credential.getIssuer(),
+                        credential.getSubject())) {
+                    selfSignedCredentials.add(credential);
+                }
+            }
+
+            this.bySubjectKeyIdentifier = Collections.unmodifiableMap(skiIndex);
+            this.bySubject = Collections.unmodifiableMap(subjectIndex);
+            this.bySubjectSorted = Collections.unmodifiableMap(subjectSortedIndex);
+            this.byPublicKey = Collections.unmodifiableMap(publicKeyIndex);
+            this.selfSigned = Collections.unmodifiableSet(selfSignedCredentials);
+        }
+
+        /**
+         * @param subjectKeyIdentifier the hex encoded subject key identifier
+         * @return the CA credential with the given subject key identifier, or null
+         */
+        public CertificateAuthorityCredential getBySubjectKeyIdentifier(
+                final String subjectKeyIdentifier) {
+            return bySubjectKeyIdentifier.get(Hex.toHexString(Hex.decode(subjectKeyIdentifier)));
+        }
+
+        /**
+         * @param subject the subject
+         * @return the CA credentials with the given subject, possibly empty
+         */
+        public Set<CertificateAuthorityCredential> getBySubject(final String subject) {
+            return bySubject.getOrDefault(subject, Collections.emptySet());
+        }
+
+        /**
+         * @param subjectSorted the sorted subject
+         * @return the CA credentials with the given sorted subject, possibly empty
+         */
+        public Set<CertificateAuthorityCredential> getBySubjectSorted(
+                final String subjectSorted) {
+            return bySubjectSorted.getOrDefault(subjectSorted, Collections.emptySet());
+        }
+
+        /**
+         * @param encodedPublicKey the encoded public key
+         * @return the CA credentials with the given public key, possibly empty
+         */
+        public Set<CertificateAuthorityCredential> getByPublicKey(final byte[] encodedPublicKey) {
+            return byPublicKey.getOrDefault(DigestUtils.sha256Hex(encodedPublicKey),
+                    Collections.emptySet());
+        }
+
+        /**
+         * Retrieves the CA chain of the given certificate from this snapshot.
+         *
+         * @param credential the credential whose CA chain should be retrieved
+         * @return a key store containing the CA credentials relevant to the given certificate
+         * @throws KeyStoreException if the key store cannot be created
+         * @throws IOException if a CA credential cannot be added to the key store
+         * @see TrustAnchorIndex#getCaChain(Certificate)
+         */
+        public KeyStore getCaChain(final Certificate credential)
+                throws KeyStoreException, IOException {
+            // the chain only depends on the attributes naming the issuer
+            String key = credential.getAuthKeyId() + '\n' + credential.getIssuerSorted()
+                    + '\n' + credential.getIssuer();
+            KeyStore keyStore = caChains.get(key);
+            if (keyStore == null) {
+                keyStore = toKeyStore(getCaCredentials(credential));
+                caChains.putIfAbsent(key, keyStore);
+            }
+            return keyStore;
+        }
+
+        /**
+         * Collects the CA credentials of the given certificate's chain by walking from the
+         * certificate up to the self-signed credentials.
+         *
+         * @param credential the credential whose CA chain should be retrieved
+         * @return the CA credentials relevant to the given certificate
+         */
+        public Set<CertificateAuthorityCredential> getCaCredentials(
+                final Certificate credential) {
+            Set<CertificateAuthorityCredential> caCredentials = new LinkedHashSet<>();
+            Deque<CertificateAuthorityCredential> pending = new ArrayDeque<>(
+                    getIssuers(credential));
+            while (!pending.isEmpty()) {
+                CertificateAuthorityCredential caCredential = pending.pop();
+                // a credential already seen has had its issuers queued already
+                if (caCredentials.add(caCredential) && !selfSigned.contains(caCredential)) {
+                    pending.addAll(getIssuers(caCredential));
+                }
+            }
+            return caCredentials;
+        }
+
+        private Set<CertificateAuthorityCredential> getIssuers(final Certificate credential) {
+            if (credential.getAuthKeyId() != null && !credential.getAuthKeyId().isEmpty()) {
+                CertificateAuthorityCredential skiCa =
+                        getBySubjectKeyIdentifier(credential.getAuthKeyId());
+                if (skiCa != null) {
+                    return Collections.singleton(skiCa);
+                }
+            }
+            if (credential.getIssuerSorted() == null || credential.getIssuerSorted().isEmpty()) {
+                return getBySubject(credential.getIssuer());
+            }
+            return getBySubjectSorted(credential.getIssuerSorted());
+        }
+
+        private static KeyStore toKeyStore(final Set<CertificateAuthorityCredential> certs)
+                throws KeyStoreException, IOException {
+            KeyStore keyStore = KeyStore.getInstance("JKS");
+            try {
+                keyStore.load(null, "".toCharArray());
+                for (Certificate cert : certs) {
+                    keyStore.setCertificateEntry(cert.getId().toString(),
+                            cert.getX509Certificate());
+                }
+            } catch (IOException | CertificateException | NoSuchAlgorithmException e) {
+                throw new IOException("Could not create and populate keystore", e);
+            }
+            return keyStore;
+        }
+    }
+}
@@ -594,7 +594,6 @@ public class AbstractAttestationCertificateAuthorityTest {
         X509Certificate acaCertificate = mock(X509Certificate.class);
 
         // assign ACA fields
-        ReflectionTestUtils.setField(aca, "validDays", validDays);
         ReflectionTestUtils.setField(aca, "acaCertificate", acaCertificate);
 
         // prepare identity proof interactions
@@ -608,7 +607,7 @@ public class AbstractAttestationCertificateAuthorityTest {
         X509Certificate certificate = aca.generateCredential(keyPair.getPublic(),
                 null,
                 new HashSet<PlatformCredential>(),
-                "exampleIdLabel");
+                "exampleIdLabel", new ProvisioningContext(validDays));
 
         // grab the modulus from the generate certificate
         byte[] resultMod = ((RSAPublicKey) certificate.getPublicKey()).getModulus().toByteArray();
@@ -0,0 +1,148 @@
+package hirs.attestationca;
+
+import com.google.common.base.Ticker;
+import hirs.attestationca.configuration.provisionerTpm2.ProvisionerTpm2;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.persist.TPM2ProvisionerState;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Tests for {@link IdentityClaimCache}.
+ */
+public class IdentityClaimCacheTest {
+
+    private static final long MAXIMUM_SIZE = 3;
+    private static final long EXPIRY_MINUTES = 5;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Map<String, IdentityClaimCache.Entry> persisted = new HashMap<>();
+    private IdentityClaimCache cache;
+
+    /**
+     * Creates a cache whose clock and persisted claims are controlled by the test.
+     */
+    @BeforeMethod
+    public void setup() {
+        nanos.set(0);
+        persisted.clear();
+        cache = new IdentityClaimCache(nonce -> persisted.get(Arrays.toString(nonce)),
+                MAXIMUM_SIZE, EXPIRY_MINUTES, TimeUnit.MINUTES,
+                new Ticker() {
+                    @Override
+                    public long read() {
+                        return nanos.get();
+                    }
+                });
+    }
+
+    /**
+     * Tests that a cached claim is found by its nonce, and only by its nonce.
+     */
+    @Test
+    public void testGet() {
+        IdentityClaimCache.Entry entry = createEntry(nonce(1));
+        cache.put(entry);
+
+        assertSame(cache.get(nonce(1)), entry);
+        assertNull(cache.get(nonce(2)));
+    }
+
+    /**
+     * Tests that a claim which is not cached is rebuilt by the loader, and that the rebuilt claim
+     * is not cached.
+     */
+    @Test
+    public void testGetLoadsMissingClaim() {
+        IdentityClaimCache.Entry entry = createEntry(nonce(1));
+        persisted.put(Arrays.toString(nonce(1)), entry);
+
+        assertSame(cache.get(nonce(1)), entry);
+
+        persisted.clear();
+        assertNull(cache.get(nonce(1)));
+        assertEquals(cache.size(), 0);
+    }
+
+    /**
+     * Tests that an invalidated claim is no longer found.
+     */
+    @Test
+    public void testInvalidate() {
+        cache.put(createEntry(nonce(1)));
+        cache.invalidate(nonce(1));
+
+        assertNull(cache.get(nonce(1)));
+    }
+
+    /**
+     * Tests that claims expire.
+     */
+    @Test
+    public void testExpiry() {
+        cache.put(createEntry(nonce(1)));
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(EXPIRY_MINUTES) - 1);
+        assertNotNull(cache.get(nonce(1)));
+
+        nanos.addAndGet(1);
+        assertNull(cache.get(nonce(1)));
+    }
+
+    /**
+     * Tests that the number of claims held is bounded.
+     */
+    @Test
+    public void testMaximumSize() {
+        for (int i = 0; i < MAXIMUM_SIZE * 2; i++) {
+            cache.put(createEntry(nonce(i)));
+        }
+
+        assertEquals(cache.size(), MAXIMUM_SIZE);
+    }
+
+    /**
+     * Tests that every caller gets its own copy of the platform credentials.
+     */
+    @Test
+    public void testPlatformCredentialsCopied() {
+        PlatformCredential platformCredential = mock(PlatformCredential.class);
+        IdentityClaimCache.Entry entry = new IdentityClaimCache.Entry(
+                new TPM2ProvisionerState(nonce(1), new byte[] {1}),
+                ProvisionerTpm2.IdentityClaim.getDefaultInstance(), null, null, null,
+                Collections.singleton(platformCredential));
+
+        Set<PlatformCredential> platformCredentials = entry.getPlatformCredentials();
+        platformCredentials.clear();
+
+        assertNotSame(entry.getPlatformCredentials(), platformCredentials);
+        assertEquals(entry.getPlatformCredentials(), Collections.singleton(platformCredential));
+    }
+
+    private static byte[] nonce(final int value) {
+        byte[] nonce = new byte[AbstractAttestationCertificateAuthority.NONCE_LENGTH];
+        nonce[nonce.length - 1] = (byte) value;
+        return nonce;
+    }
+
+    private static IdentityClaimCache.Entry createEntry(final byte[] nonce) {
+        return new IdentityClaimCache.Entry(new TPM2ProvisionerState(nonce, new byte[] {1}),
+                ProvisionerTpm2.IdentityClaim.getDefaultInstance(), null, null, null,
+                Collections.<PlatformCredential>emptySet());
+    }
+}
@@ -0,0 +1,324 @@
+package hirs.attestationca.rest;
+
+import com.google.protobuf.ByteString;
+import hirs.attestationca.configuration.provisionerTpm2.ProvisionerTpm2;
+import hirs.attestationca.service.SupplyChainValidationService;
+import hirs.data.persist.AppraisalStatus;
+import hirs.data.persist.Device;
+import hirs.data.persist.DeviceGroup;
+import hirs.data.persist.DeviceInfoReport;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.SupplyChainValidationSummary;
+import hirs.data.persist.certificate.EndorsementCredential;
+import hirs.data.persist.certificate.IssuedAttestationCertificate;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.data.service.DeviceRegister;
+import hirs.persist.CertificateManager;
+import hirs.persist.DBCertificateManager;
+import hirs.persist.DBComponentResultManager;
+import hirs.persist.DBDeviceGroupManager;
+import hirs.persist.DBDeviceManager;
+import hirs.persist.DBManager;
+import hirs.persist.DBReferenceEventManager;
+import hirs.persist.DeviceGroupManager;
+import hirs.persist.DeviceManager;
+import hirs.persist.ReferenceDigestManager;
+import hirs.persist.ReferenceManifestManager;
+import hirs.persist.TPM2ProvisionerState;
+import hirs.structs.converters.SimpleStructConverter;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.hibernate.Session;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.security.auth.x500.X500Principal;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Concurrency tests for {@link RestfulAttestationCertificateAuthority}. Drives interleaved TPM 2.0
+ * identity claim / certificate request handshakes through a single ACA instance backed by the
+ * in-memory test database and checks that no handshake observes another's state.
+ */
+public class RestfulAttestationCertificateAuthorityTest extends SpringPersistenceTest {
+
+    private static final int HANDSHAKE_COUNT = 200;
+    private static final int THREAD_COUNT = 16;
+    private static final int TIMEOUT_MINUTES = 5;
+    private static final int VALID_DAYS = 3;
+    private static final int KEY_SIZE = 2048;
+    private static final String EK_PUBLIC_PATH = "/tpm2/ek.pub";
+    private static final String AK_PUBLIC_PATH = "/tpm2/ak.pub";
+
+    private RestfulAttestationCertificateAuthority aca;
+    private SupplyChainValidationService supplyChainValidationService;
+    private KeyPair keyPair;
+    private X509Certificate acaCertificate;
+    private DeviceManager deviceManager;
+    private DeviceGroupManager deviceGroupManager;
+    private CertificateManager certificateManager;
+    private byte[] ekPublicArea;
+    private byte[] akPublicArea;
+
+    /**
+     * Builds an ACA wired to the in-memory database. Supply chain validation is mocked to pass,
+     * and the make credential step returns the nonce in the clear so that the test can complete
+     * the handshake without a TPM. The RIM tables use MySQL specific column types, so the
+     * reference manifest and digest managers are mocked. Devices are registered into groups of
+     * their own so that the handshakes do not all update the row of the default group.
+     *
+     * @throws Exception if the test resources cannot be read or the keys cannot be generated
+     */
+    @BeforeClass
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        ekPublicArea = Files.readAllBytes(Paths.get(getClass().getResource(
+                EK_PUBLIC_PATH).toURI()));
+        akPublicArea = Files.readAllBytes(Paths.get(getClass().getResource(
+                AK_PUBLIC_PATH).toURI()));
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(KEY_SIZE);
+        keyPair = keyPairGenerator.generateKeyPair();
+        acaCertificate = mock(X509Certificate.class);
+        when(acaCertificate.getSubjectX500Principal())
+                .thenReturn(new X500Principal("CN=TEST, OU=TEST, O=TEST, C=TEST"));
+
+        SupplyChainValidationSummary summary = mock(SupplyChainValidationSummary.class);
+        when(summary.getId()).thenReturn(UUID.randomUUID());
+        when(summary.getOverallValidationResult()).thenReturn(AppraisalStatus.Status.PASS);
+        supplyChainValidationService = mock(SupplyChainValidationService.class);
+        when(supplyChainValidationService.validateSupplyChain(any(EndorsementCredential.class),
+                anySetOf(PlatformCredential.class), any(Device.class))).thenReturn(summary);
+
+        // the default table level locking of HSQLDB deadlocks concurrent provisioning
+        // transactions, use row level locking like the production database does
+        Session session = sessionFactory.openSession();
+        try {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET DATABASE TRANSACTION CONTROL MVCC");
+                }
+            });
+        } finally {
+            session.close();
+        }
+
+        deviceManager = new DBDeviceManager(sessionFactory);
+        certificateManager = new DBCertificateManager(sessionFactory);
+        deviceGroupManager = new DBDeviceGroupManager(sessionFactory);
+        aca = createAca();
+    }
+
+    /**
+     * Removes the certificates and devices created by the tests.
+     */
+    @AfterClass
+    public void teardown() {
+        new DBCertificateManager(sessionFactory).deleteAll();
+        new DBDeviceManager(sessionFactory).deleteAll();
+        new DBDeviceGroupManager(sessionFactory).deleteAll();
+    }
+
+    /**
+     * Runs many claim / certificate handshakes concurrently, each for its own device and with
+     * its own TPM quote, and verifies that every device ends up with its own quote and an
+     * attestation certificate issued for it.
+     *
+     * @throws Exception if a handshake fails
+     */
+    @Test
+    public void testConcurrentHandshakes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < HANDSHAKE_COUNT; i++) {
+                final int index = i;
+                futures.add(executor.submit(() -> {
+                    handshake(aca, aca, index);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                // rethrows any assertion failure from the handshake
+                future.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a handshake whose certificate request is processed by another ACA instance than its
+     * identity claim, as happens when the ACA is restarted in between. The second instance has
+     * to pick the claim up from the database.
+     *
+     * @throws Exception if the handshake fails
+     */
+    @Test
+    public void testCertificateRequestAfterRestart() throws Exception {
+        handshake(aca, createAca(), HANDSHAKE_COUNT);
+    }
+
+    private RestfulAttestationCertificateAuthority createAca() {
+        return new RestfulAttestationCertificateAuthority(supplyChainValidationService,
+                keyPair.getPrivate(), acaCertificate, new SimpleStructConverter(),
+                new DBComponentResultManager(sessionFactory), certificateManager,
+                mock(ReferenceManifestManager.class),
+                new GroupPerDeviceRegister(deviceManager, deviceGroupManager), deviceManager,
+                new DBManager<>(TPM2ProvisionerState.class, sessionFactory),
+                mock(ReferenceDigestManager.class),
+                new DBReferenceEventManager(sessionFactory), VALID_DAYS) {
+            @Override
+            protected ByteString tpm20MakeCredential(final RSAPublicKey ek,
+                                                     final RSAPublicKey ak,
+                                                     final byte[] secret) {
+                return ByteString.copyFrom(secret);
+            }
+        };
+    }
+
+    private void handshake(final RestfulAttestationCertificateAuthority claimAca,
+                           final RestfulAttestationCertificateAuthority requestAca,
+                           final int index) throws Exception {
+        String hostname = "concurrent-device-" + index;
+        String quoteHash = "quotehash" + index;
+        String quoteSignature = "quotesignature" + index;
+
+        ProvisionerTpm2.IdentityClaimResponse claimResponse =
+                ProvisionerTpm2.IdentityClaimResponse.parseFrom(
+                        claimAca.processIdentityClaimTpm2(createIdentityClaim(hostname)));
+        assertEquals(claimResponse.getStatus(), ProvisionerTpm2.ResponseStatus.PASS);
+
+        ProvisionerTpm2.CertificateRequest request = ProvisionerTpm2.CertificateRequest
+                .newBuilder()
+                .setNonce(claimResponse.getCredentialBlob())
+                .setQuote(ByteString.copyFromUtf8(String.format("quote:%s signature:%s",
+                        quoteHash, quoteSignature)))
+                .build();
+        ProvisionerTpm2.CertificateResponse certificateResponse =
+                ProvisionerTpm2.CertificateResponse.parseFrom(
+                        requestAca.processCertificateRequest(request.toByteArray()));
+        assertEquals(certificateResponse.getStatus(), ProvisionerTpm2.ResponseStatus.PASS);
+
+        X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(
+                        certificateResponse.getCertificate().toByteArray()));
+        Calendar expectedExpiry = Calendar.getInstance();
+        expectedExpiry.setTime(certificate.getNotBefore());
+        expectedExpiry.add(Calendar.DAY_OF_YEAR, VALID_DAYS);
+        assertTrue(Math.abs(expectedExpiry.getTimeInMillis()
+                - certificate.getNotAfter().getTime()) < TimeUnit.MINUTES.toMillis(1));
+
+        Device device = deviceManager.getDevice(hostname);
+        assertNotNull(device);
+        assertEquals(new String(device.getDeviceInfo().getTPMInfo().getTpmQuoteHash(),
+                StandardCharsets.UTF_8), quoteHash);
+        assertEquals(new String(device.getDeviceInfo().getTPMInfo().getTpmQuoteSignature(),
+                StandardCharsets.UTF_8), quoteSignature);
+
+        IssuedAttestationCertificate issued = IssuedAttestationCertificate
+                .select(certificateManager).byDeviceId(device.getId()).getCertificate();
+        assertNotNull(issued);
+        assertEquals(issued.getRawBytes(), certificateResponse.getCertificate().toByteArray());
+    }
+
+    private byte[] createIdentityClaim(final String hostname) {
+        ProvisionerTpm2.DeviceInfo deviceInfo = ProvisionerTpm2.DeviceInfo.newBuilder()
+                .setFw(ProvisionerTpm2.FirmwareInfo.newBuilder()
+                        .setBiosVendor("vendor")
+                        .setBiosVersion("1.0")
+                        .setBiosReleaseDate("01/01/2020"))
+                .setHw(ProvisionerTpm2.HardwareInfo.newBuilder()
+                        .setManufacturer("manufacturer")
+                        .setProductName("product")
+                        .setProductVersion("1.0")
+                        .setSystemSerialNumber(hostname))
+                .setNw(ProvisionerTpm2.NetworkInfo.newBuilder()
+                        .setHostname(hostname)
+                        .setIpAddress("127.0.0.1")
+                        .setMacAddress("00:11:22:33:44:55"))
+                .setOs(ProvisionerTpm2.OsInfo.newBuilder()
+                        .setOsName("Linux")
+                        .setOsVersion("1.0")
+                        .setOsArch("x86_64")
+                        .setDistribution("CentOS")
+                        .setDistributionRelease("7"))
+                .build();
+
+        return ProvisionerTpm2.IdentityClaim.newBuilder()
+                .setDv(deviceInfo)
+                .setEkPublicArea(ByteString.copyFrom(ekPublicArea))
+                .setAkPublicArea(ByteString.copyFrom(akPublicArea))
+                .setClientVersion("test")
+                .build()
+                .toByteArray();
+    }
+
+    /**
+     * Registers every device into a device group of its own.
+     */
+    private static final class GroupPerDeviceRegister implements DeviceRegister {
+
+        private final DeviceManager deviceManager;
+        private final DeviceGroupManager deviceGroupManager;
+
+        private GroupPerDeviceRegister(final DeviceManager deviceManager,
+                                       final DeviceGroupManager deviceGroupManager) {
+            this.deviceManager = deviceManager;
+            this.deviceGroupManager = deviceGroupManager;
+        }
+
+        @Override
+        public Device saveOrUpdateDevice(final DeviceInfoReport report) {
+            return register(report.getNetworkInfo().getHostname(), report);
+        }
+
+        @Override
+        public Device saveOrUpdateDevice(final String deviceName) {
+            return register(deviceName, null);
+        }
+
+        private Device register(final String deviceName, final DeviceInfoReport report) {
+            Device device = deviceManager.getDevice(deviceName);
+            if (device != null) {
+                device.setDeviceInfo(report);
+                deviceManager.updateDevice(device);
+                return device;
+            }
+
+            device = new Device(deviceName, report);
+            device.setDeviceGroup(deviceGroupManager.saveDeviceGroup(
+                    new DeviceGroup(deviceName)));
+            deviceManager.saveDevice(device);
+            return device;
+        }
+    }
+}
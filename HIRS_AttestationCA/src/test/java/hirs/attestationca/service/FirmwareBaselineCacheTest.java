@@ -0,0 +1,137 @@
+package hirs.attestationca.service;
+
+import hirs.data.persist.BaseReferenceManifest;
+import hirs.data.persist.ReferenceDigestValue;
+import hirs.data.persist.SupportReferenceManifest;
+import hirs.persist.ReferenceEventManager;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link FirmwareBaselineCache}.
+ */
+public class FirmwareBaselineCacheTest {
+
+    private static final String MANUFACTURER = "manufacturer";
+    private static final String MODEL = "model";
+    private static final String DIGEST = "0123456789abcdef";
+    private static final String[] PCR_VALUES = {"00", "ff"};
+
+    private ReferenceEventManager referenceEventManager;
+    private BaseReferenceManifest baseRim;
+    private SupportReferenceManifest supportRim;
+    private FirmwareBaselineCache cache;
+
+    /**
+     * Creates a cache over mocked RIMs whose digest values are at version 1.
+     */
+    @BeforeMethod
+    public void setup() {
+        referenceEventManager = mock(ReferenceEventManager.class);
+        baseRim = mockBaseRim(UUID.randomUUID());
+        supportRim = mockSupportRim("hash");
+
+        ReferenceDigestValue rdv = mock(ReferenceDigestValue.class);
+        when(rdv.getDigestValue()).thenReturn(DIGEST);
+        when(referenceEventManager.getValuesByRimId(baseRim))
+                .thenReturn(Collections.singletonList(rdv));
+        when(referenceEventManager.getValuesVersion(baseRim.getId())).thenReturn("1");
+
+        cache = new FirmwareBaselineCache(referenceEventManager);
+    }
+
+    /**
+     * Tests that the baseline holds the expected PCR values and the digest values of the RIMs,
+     * and that it is built only once while nothing changes.
+     */
+    @Test
+    public void testGetBaseline() {
+        FirmwareBaselineCache.Baseline baseline =
+                cache.getBaseline(MANUFACTURER, MODEL, baseRim, supportRim);
+
+        assertEquals(baseline.getExpectedPcrValues(), PCR_VALUES);
+        assertTrue(baseline.getDigestIndex().containsKey(DIGEST));
+        assertSame(cache.getBaseline(MANUFACTURER, MODEL, baseRim, supportRim), baseline);
+        verify(referenceEventManager, times(1)).getValuesByRimId(baseRim);
+        verify(supportRim, times(1)).getExpectedPCRList();
+    }
+
+    /**
+     * Tests that the baseline is rebuilt when the digest values of the base RIM change.
+     */
+    @Test
+    public void testRebuildOnNewVersion() {
+        FirmwareBaselineCache.Baseline baseline =
+                cache.getBaseline(MANUFACTURER, MODEL, baseRim, supportRim);
+        when(referenceEventManager.getValuesVersion(baseRim.getId())).thenReturn("2");
+
+        assertNotSame(cache.getBaseline(MANUFACTURER, MODEL, baseRim, supportRim), baseline);
+        verify(referenceEventManager, times(2)).getValuesByRimId(baseRim);
+    }
+
+    /**
+     * Tests that the baseline is rebuilt when the RIMs of the platform are replaced.
+     */
+    @Test
+    public void testRebuildOnNewRims() {
+        FirmwareBaselineCache.Baseline baseline =
+                cache.getBaseline(MANUFACTURER, MODEL, baseRim, supportRim);
+
+        assertNotSame(cache.getBaseline(MANUFACTURER, MODEL, baseRim,
+                mockSupportRim("other hash")), baseline);
+
+        BaseReferenceManifest otherBaseRim = mockBaseRim(UUID.randomUUID());
+        when(referenceEventManager.getValuesVersion(otherBaseRim.getId())).thenReturn("1");
+        assertNotSame(cache.getBaseline(MANUFACTURER, MODEL, otherBaseRim, supportRim),
+                baseline);
+    }
+
+    /**
+     * Tests that an invalidated baseline is rebuilt.
+     */
+    @Test
+    public void testInvalidate() {
+        FirmwareBaselineCache.Baseline baseline =
+                cache.getBaseline(MANUFACTURER, MODEL, baseRim, supportRim);
+        cache.invalidate(MANUFACTURER, MODEL);
+
+        assertNotSame(cache.getBaseline(MANUFACTURER, MODEL, baseRim, supportRim), baseline);
+    }
+
+    /**
+     * Tests that the expected PCR values handed out cannot change the cached baseline.
+     */
+    @Test
+    public void testExpectedPcrValuesAreCopied() {
+        FirmwareBaselineCache.Baseline baseline =
+                cache.getBaseline(MANUFACTURER, MODEL, baseRim, supportRim);
+        baseline.getExpectedPcrValues()[0] = "changed";
+
+        assertEquals(baseline.getExpectedPcrValues(), PCR_VALUES);
+    }
+
+    private static BaseReferenceManifest mockBaseRim(final UUID id) {
+        BaseReferenceManifest rim = mock(BaseReferenceManifest.class);
+        when(rim.getId()).thenReturn(id);
+        return rim;
+    }
+
+    private static SupportReferenceManifest mockSupportRim(final String hash) {
+        SupportReferenceManifest rim = mock(SupportReferenceManifest.class);
+        when(rim.getHexDecHash()).thenReturn(hash);
+        when(rim.getExpectedPCRList()).thenReturn(PCR_VALUES.clone());
+        return rim;
+    }
+}
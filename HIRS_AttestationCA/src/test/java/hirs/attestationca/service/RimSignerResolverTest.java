@@ -0,0 +1,101 @@
+package hirs.attestationca.service;
+
+import hirs.data.persist.BaseReferenceManifest;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.persist.CertificateManager;
+import hirs.persist.DBCertificateManager;
+import hirs.utils.ReferenceManifestValidator;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Tests for {@link RimSignerResolver}.
+ */
+public class RimSignerResolverTest extends SpringPersistenceTest {
+
+    private static final String SIGNED_RIM = "/rims/generated_user_cert.swidtag";
+    private static final String EMBEDDED_CERT_RIM = "/rims/generated_user_cert_embed.swidtag";
+    private static final String SIGNING_CERT = "/rims/RimSignCert.pem";
+    private static final String FAKE_ROOT_CA = "/certificates/fakeRootCA.cer";
+    private static final String INTEL_CA = "/certificates/IntelSigningKey_20April2017.pem";
+
+    private CertificateManager certificateManager;
+    private RimSignerResolver resolver;
+
+    /**
+     * Creates a resolver over a certificate manager backed by the test database, holding CAs
+     * that did not sign the test RIMs.
+     *
+     * @throws Exception if the certificates cannot be read
+     */
+    @BeforeMethod
+    public void setup() throws Exception {
+        certificateManager = new DBCertificateManager(sessionFactory);
+        resolver = new RimSignerResolver(new TrustAnchorIndex(certificateManager));
+        saveCa(FAKE_ROOT_CA);
+        saveCa(INTEL_CA);
+    }
+
+    /**
+     * Removes the certificates stored by a test.
+     */
+    @AfterMethod
+    public void resetTestState() {
+        new DBCertificateManager(sessionFactory).deleteAll();
+    }
+
+    /**
+     * Tests that the signer of RIMs naming the signing key by subject key identifier and by
+     * embedded certificate is found and the signature validated.
+     *
+     * @throws Exception if the RIMs or the certificate cannot be read
+     */
+    @Test
+    public void testResolve() throws Exception {
+        CertificateAuthorityCredential signingCert = saveCa(SIGNING_CERT);
+
+        for (String path : new String[] {SIGNED_RIM, EMBEDDED_CERT_RIM}) {
+            ReferenceManifestValidator validator = new ReferenceManifestValidator();
+            BaseReferenceManifest baseRim = new BaseReferenceManifest(read(path));
+            validator.setRim(baseRim);
+
+            Assert.assertEquals(resolver.resolve(baseRim, validator), signingCert, path);
+            Assert.assertTrue(validator.isSignatureValid(), path);
+        }
+    }
+
+    /**
+     * Tests that no signer is found if the signing certificate is not stored.
+     *
+     * @throws Exception if the RIMs cannot be read
+     */
+    @Test
+    public void testSignerNotStored() throws Exception {
+        for (String path : new String[] {SIGNED_RIM, EMBEDDED_CERT_RIM}) {
+            ReferenceManifestValidator validator = new ReferenceManifestValidator();
+            BaseReferenceManifest baseRim = new BaseReferenceManifest(read(path));
+            validator.setRim(baseRim);
+
+            Assert.assertNull(resolver.resolve(baseRim, validator), path);
+            Assert.assertFalse(validator.isSignatureValid(), path);
+        }
+    }
+
+    private CertificateAuthorityCredential saveCa(final String path)
+            throws IOException, URISyntaxException {
+        return (CertificateAuthorityCredential) certificateManager.save(
+                new CertificateAuthorityCredential(read(path)));
+    }
+
+    private byte[] read(final String path) throws IOException, URISyntaxException {
+        return Files.readAllBytes(Paths.get(getClass().getResource(path).toURI()));
+    }
+}
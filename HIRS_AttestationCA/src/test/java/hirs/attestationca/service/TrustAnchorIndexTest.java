@@ -0,0 +1,185 @@
+package hirs.attestationca.service;
+
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.data.persist.certificate.EndorsementCredential;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.persist.CertificateManager;
+import hirs.persist.DBCertificateManager;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Tests for {@link TrustAnchorIndex}.
+ */
+public class TrustAnchorIndexTest extends SpringPersistenceTest {
+
+    private static final String FAKE_ROOT_CA = "/certificates/fakeRootCA.cer";
+    private static final String FAKE_INTEL_INT_CA = "/certificates/fakeIntelIntermediateCA.cer";
+    private static final String FAKE_SGI_INT_CA = "/certificates/fakeSGIIntermediateCA.cer";
+    private static final String STM_INT_02_CA = "/certificates/stMicroCaCerts/stmtpmekint02.crt";
+    private static final String STM_ROOT_CA = "/certificates/stMicroCaCerts/stmtpmekroot.crt";
+    private static final String GS_ROOT_CA = "/certificates/stMicroCaCerts/gstpmroot.crt";
+    private static final String STM_EC = "/certificates/nuc-1/tpmcert.pem";
+    private static final String INTEL_CA = "/certificates/IntelSigningKey_20April2017.pem";
+    private static final String INTEL_PC = "/certificates/platform_certs_2/Intel_pc.pem";
+
+    private CertificateManager certificateManager;
+    private TrustAnchorIndex trustAnchorIndex;
+
+    /**
+     * Creates an index over a certificate manager backed by the test database.
+     */
+    @BeforeMethod
+    public void setup() {
+        certificateManager = new DBCertificateManager(sessionFactory);
+        trustAnchorIndex = new TrustAnchorIndex(certificateManager);
+    }
+
+    /**
+     * Removes the certificates stored by a test.
+     */
+    @AfterMethod
+    public void resetTestState() {
+        new DBCertificateManager(sessionFactory).deleteAll();
+    }
+
+    /**
+     * Tests that a CA is found through the authority key identifier of a credential.
+     *
+     * @throws Exception if the certificates cannot be read or the key store not assembled
+     */
+    @Test
+    public void testGetCaChainBySubjectKeyIdentifier() throws Exception {
+        CertificateAuthorityCredential intelCa = saveCa(INTEL_CA);
+        PlatformCredential platformCredential = new PlatformCredential(read(INTEL_PC));
+
+        KeyStore keyStore = trustAnchorIndex.getCaChain(platformCredential);
+
+        Assert.assertEquals(keyStore.size(), 1);
+        Assert.assertNotNull(keyStore.getCertificate(intelCa.getId().toString()));
+    }
+
+    /**
+     * Tests that the chain is followed up to the self-signed root, and that CAs outside of the
+     * chain are left out.
+     *
+     * @throws Exception if the certificates cannot be read
+     */
+    @Test
+    public void testGetCaCredentialsUpToRoot() throws Exception {
+        CertificateAuthorityCredential stmIntermediateCa = saveCa(STM_INT_02_CA);
+        CertificateAuthorityCredential stmRootCa = saveCa(STM_ROOT_CA);
+        CertificateAuthorityCredential gsRootCa = saveCa(GS_ROOT_CA);
+        saveCa(FAKE_ROOT_CA);
+        saveCa(INTEL_CA);
+        EndorsementCredential endorsementCredential = new EndorsementCredential(read(STM_EC));
+
+        Assert.assertEquals(
+                trustAnchorIndex.getSnapshot().getCaCredentials(endorsementCredential),
+                new HashSet<>(Arrays.asList(stmIntermediateCa, stmRootCa, gsRootCa)));
+    }
+
+    /**
+     * Tests that the chain walk stops at self-signed CAs.
+     *
+     * @throws Exception if the certificates cannot be read
+     */
+    @Test
+    public void testGetCaCredentialsOfRoot() throws Exception {
+        CertificateAuthorityCredential rootCa = saveCa(FAKE_ROOT_CA);
+        CertificateAuthorityCredential sgiIntermediateCa = saveCa(FAKE_SGI_INT_CA);
+
+        Assert.assertEquals(trustAnchorIndex.getSnapshot().getCaCredentials(sgiIntermediateCa),
+                new HashSet<>(Arrays.asList(rootCa)));
+        Assert.assertEquals(trustAnchorIndex.getSnapshot().getCaCredentials(rootCa),
+                new HashSet<>(Arrays.asList(rootCa)));
+    }
+
+    /**
+     * Tests that the snapshot and its key stores are reused for as long as the stored CAs do
+     * not change.
+     *
+     * @throws Exception if the certificates cannot be read or the key store not assembled
+     */
+    @Test
+    public void testSnapshotReused() throws Exception {
+        saveCa(INTEL_CA);
+        PlatformCredential platformCredential = new PlatformCredential(read(INTEL_PC));
+
+        TrustAnchorIndex.Snapshot snapshot = trustAnchorIndex.getSnapshot();
+        KeyStore keyStore = trustAnchorIndex.getCaChain(platformCredential);
+
+        certificateManager.save(platformCredential);
+
+        Assert.assertSame(trustAnchorIndex.getSnapshot(), snapshot);
+        Assert.assertSame(trustAnchorIndex.getCaChain(platformCredential), keyStore);
+    }
+
+    /**
+     * Tests that uploading, archiving and deleting CAs replaces the snapshot.
+     *
+     * @throws Exception if the certificates cannot be read or the key store not assembled
+     */
+    @Test
+    public void testSnapshotReplacedOnChange() throws Exception {
+        PlatformCredential platformCredential = new PlatformCredential(read(INTEL_PC));
+        Assert.assertEquals(trustAnchorIndex.getCaChain(platformCredential).size(), 0);
+
+        CertificateAuthorityCredential intelCa = saveCa(INTEL_CA);
+        Assert.assertEquals(trustAnchorIndex.getCaChain(platformCredential).size(), 1);
+
+        intelCa.archive();
+        certificateManager.update(intelCa);
+        Assert.assertEquals(trustAnchorIndex.getCaChain(platformCredential).size(), 0);
+
+        intelCa.restore();
+        certificateManager.update(intelCa);
+        Assert.assertEquals(trustAnchorIndex.getCaChain(platformCredential).size(), 1);
+
+        certificateManager.delete(intelCa);
+        Assert.assertEquals(trustAnchorIndex.getCaChain(platformCredential).size(), 0);
+    }
+
+    /**
+     * Tests the lookups of the snapshot.
+     *
+     * @throws Exception if the certificates cannot be read
+     */
+    @Test
+    public void testLookups() throws Exception {
+        CertificateAuthorityCredential intelCa = saveCa(INTEL_CA);
+        TrustAnchorIndex.Snapshot snapshot = trustAnchorIndex.getSnapshot();
+
+        Assert.assertEquals(snapshot.getBySubjectKeyIdentifier(
+                intelCa.getSubjectKeyIdString().toUpperCase()), intelCa);
+        Assert.assertEquals(snapshot.getBySubject(intelCa.getSubject()),
+                new HashSet<>(Arrays.asList(intelCa)));
+        Assert.assertEquals(snapshot.getBySubjectSorted(intelCa.getSubjectSorted()),
+                new HashSet<>(Arrays.asList(intelCa)));
+        Assert.assertEquals(snapshot.getByPublicKey(intelCa.getEncodedPublicKey()),
+                new HashSet<>(Arrays.asList(intelCa)));
+        Assert.assertTrue(snapshot.getBySubject("CN=unknown").isEmpty());
+        Assert.assertTrue(snapshot.getByPublicKey(new byte[] {1}).isEmpty());
+    }
+
+    private CertificateAuthorityCredential saveCa(final String path)
+            throws IOException, URISyntaxException {
+        return (CertificateAuthorityCredential) certificateManager.save(
+                new CertificateAuthorityCredential(read(path)));
+    }
+
+    private byte[] read(final String path) throws IOException, URISyntaxException {
+        return Files.readAllBytes(Paths.get(getClass().getResource(path).toURI()));
+    }
+}
@@ -1,5 +1,6 @@
 package hirs.attestationca.portal.datatables;
 
+import hirs.persist.OrderedListOptions;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.util.CollectionUtils;
@@ -10,6 +11,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Represents a data table input in a jQuery DataTable.
@@ -91,6 +93,26 @@ public class DataTableInput {
     @NotEmpty
     private List<Column> columns = new ArrayList<>();
 
+    /**
+     * Id of the last record of the previous page. If set, the page continues after this record
+     * (keyset paging) and the start indicator is ignored. This is not a DataTables parameter;
+     * tables that page through many records can send it to avoid slow deep offsets.
+     */
+    private UUID after;
+
+    /**
+     * Number of seconds the total and filtered record counts may be reused for, instead of
+     * counting the records for every draw. This is not a DataTables parameter.
+     */
+    @Min(0)
+    private int countStaleness = 0;
+
+    /**
+     * true if the global search should only match the start of columns, which can use indexes,
+     * false to match anywhere in columns. This is not a DataTables parameter.
+     */
+    private boolean prefixSearch;
+
 
     /**
      *
@@ -190,6 +212,67 @@ public class DataTableInput {
         this.columns.addAll(columns);
     }
 
+    /**
+     * Gets the id of the last record of the previous page.
+     * @return the id of the record to continue after, or null to page by the start indicator
+     */
+    public UUID getAfter() {
+        return after;
+    }
+
+    /**
+     * Sets the id of the last record of the previous page, to continue after it.
+     * @param after the id of the record to continue after, or null to page by the start
+     *              indicator
+     */
+    public void setAfter(final UUID after) {
+        this.after = after;
+    }
+
+    /**
+     * Gets the number of seconds record counts may be reused for.
+     * @return the allowed staleness of the record counts, in seconds
+     */
+    public int getCountStaleness() {
+        return countStaleness;
+    }
+
+    /**
+     * Sets the number of seconds record counts may be reused for.
+     * @param countStaleness the allowed staleness of the record counts, in seconds
+     */
+    public void setCountStaleness(final int countStaleness) {
+        this.countStaleness = countStaleness;
+    }
+
+    /**
+     *
+     * @return true if the global search only matches the start of columns
+     */
+    public boolean isPrefixSearch() {
+        return prefixSearch;
+    }
+
+    /**
+     * Sets whether the global search only matches the start of columns.
+     * @param prefixSearch true to only match the start of columns
+     */
+    public void setPrefixSearch(final boolean prefixSearch) {
+        this.prefixSearch = prefixSearch;
+    }
+
+    /**
+     * Gets the paging, counting and searching options requested for the query.
+     * @return the options of the ordered list query
+     */
+    public OrderedListOptions getOrderedListOptions() {
+        OrderedListOptions options = new OrderedListOptions();
+        options.setAfterId(after);
+        options.setCountStalenessSeconds(countStaleness);
+        options.setPrefixSearch(prefixSearch);
+        return options;
+    }
+
     /**
      *
      * @return a {@link Map} of {@link Column} indexed by name
@@ -290,6 +373,9 @@ public class DataTableInput {
                 + ", search=" + search
                 + ", order=" + order
                 + ", columns=" + columns
+                + ", after=" + after
+                + ", countStaleness=" + countStaleness
+                + ", prefixSearch=" + prefixSearch
                 + '}';
     }
 }
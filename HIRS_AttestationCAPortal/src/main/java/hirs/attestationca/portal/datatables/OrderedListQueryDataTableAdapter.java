@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import hirs.FilteredRecordsList;
 import hirs.persist.CriteriaModifier;
+import hirs.persist.OrderedListOptions;
 import hirs.persist.OrderedListQuerier;
 
 /**
@@ -70,9 +71,16 @@ public final class OrderedListQueryDataTableAdapter<T> {
             isAscending = orders.get(0).isAscending();
         }
 
+        OrderedListOptions options = dataTableInput.getOrderedListOptions();
+        if (options.isDefault()) {
+            return dbManager.getOrderedList(clazz, orderColumnName, isAscending,
+                    dataTableInput.getStart(), dataTableInput.getLength(),
+                    dataTableInput.getSearch().getValue(),
+                    searchableColumnMap, criteriaModifier);
+        }
         return dbManager.getOrderedList(clazz, orderColumnName, isAscending,
                 dataTableInput.getStart(), dataTableInput.getLength(),
                 dataTableInput.getSearch().getValue(),
-                searchableColumnMap, criteriaModifier);
+                searchableColumnMap, criteriaModifier, options);
     }
 }
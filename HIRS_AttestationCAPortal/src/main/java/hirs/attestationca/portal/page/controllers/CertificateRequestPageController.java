@@ -19,6 +19,7 @@ import hirs.persist.CriteriaModifier;
 import hirs.persist.CrudManager;
 import hirs.persist.DBManagerException;
 import hirs.persist.OrderedListQuerier;
+import hirs.persist.RawBytesIterator;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.util.encoders.DecoderException;
 import org.hibernate.Criteria;
@@ -390,35 +391,14 @@ public class CertificateRequestPageController extends PageController<NoPageParam
             throws IOException {
         LOGGER.info("Handling request to download all trust chain certificates");
         String fileName = "trust-chain.zip";
-        String zipFileName;
 
         // Set filename for download.
         response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
         response.setContentType("application/zip");
 
-        try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (CertificateAuthorityCredential ca : CertificateAuthorityCredential
-                    .select(certificateManager)
-                    .getCertificates()) {
-                zipFileName = String.format("ca-certificates[%s].cer",
-                        Integer.toHexString(ca.getCertificateHash()));
-                // configure the zip entry, the properties of the 'file'
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) ca.getRawBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(ca.getRawBytes(), zipOut);
-                zipOut.closeEntry();
-            }
-            zipOut.finish();
-            // write cert to output stream
-        } catch (IllegalArgumentException ex) {
-            String uuidError = "Failed to parse ID from: ";
-            LOGGER.error(uuidError, ex);
-            // send a 404 error when invalid certificate
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        try (RawBytesIterator<Integer> certificates = CertificateAuthorityCredential
+                .select(certificateManager).getRawBytes()) {
+            zipCertificates(certificates, "ca-certificates[%s].cer", response);
         }
     }
 
@@ -435,34 +415,14 @@ public class CertificateRequestPageController extends PageController<NoPageParam
             throws IOException {
         LOGGER.info("Handling request to download all platform certificates");
         String fileName = "platform_certificates.zip";
-        String zipFileName;
 
         // Set filename for download.
         response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
         response.setContentType("application/zip");
 
-        try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (PlatformCredential pc : PlatformCredential.select(certificateManager)
-                    .getCertificates()) {
-                zipFileName = String.format("Platform_Certificates[%s].cer",
-                        Integer.toHexString(pc.getCertificateHash()));
-                // configure the zip entry, the properties of the 'file'
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) pc.getRawBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(pc.getRawBytes(), zipOut);
-                zipOut.closeEntry();
-            }
-            zipOut.finish();
-            // write cert to output stream
-        } catch (IllegalArgumentException ex) {
-            String uuidError = "Failed to parse ID from: ";
-            LOGGER.error(uuidError, ex);
-            // send a 404 error when invalid certificate
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        try (RawBytesIterator<Integer> certificates = PlatformCredential
+                .select(certificateManager).getRawBytes()) {
+            zipCertificates(certificates, "Platform_Certificates[%s].cer", response);
         }
     }
 
@@ -479,35 +439,14 @@ public class CertificateRequestPageController extends PageController<NoPageParam
             throws IOException {
         LOGGER.info("Handling request to download all issued certificates");
         String fileName = "issued_certificates.zip";
-        String zipFileName;
 
         // Set filename for download.
         response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
         response.setContentType("application/zip");
 
-        try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (IssuedAttestationCertificate ic : IssuedAttestationCertificate
-                    .select(certificateManager)
-                    .getCertificates()) {
-                zipFileName = String.format("Issued_Certificates[%s].cer",
-                        Integer.toHexString(ic.getCertificateHash()));
-                // configure the zip entry, the properties of the 'file'
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) ic.getRawBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(ic.getRawBytes(), zipOut);
-                zipOut.closeEntry();
-            }
-            zipOut.finish();
-            // write cert to output stream
-        } catch (IllegalArgumentException ex) {
-            String uuidError = "Failed to parse ID from: ";
-            LOGGER.error(uuidError, ex);
-            // send a 404 error when invalid certificate
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        try (RawBytesIterator<Integer> certificates = IssuedAttestationCertificate
+                .select(certificateManager).getRawBytes()) {
+            zipCertificates(certificates, "Issued_Certificates[%s].cer", response);
         }
     }
 
@@ -524,26 +463,43 @@ public class CertificateRequestPageController extends PageController<NoPageParam
             throws IOException {
         LOGGER.info("Handling request to download all endorsement certificates");
         String fileName = "endorsement_certificates.zip";
-        String zipFileName;
 
         // Set filename for download.
         response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
         response.setContentType("application/zip");
 
+        try (RawBytesIterator<Integer> certificates = EndorsementCredential
+                .select(certificateManager).getRawBytes()) {
+            zipCertificates(certificates, "Endorsement_Certificates[%s].cer", response);
+        }
+    }
+
+    /**
+     * Writes certificates to the response stream as a zip file, one entry at a time as they
+     * are read from the database.
+     *
+     * @param certificates the certificates' hashes and raw bytes
+     * @param zipFileNameFormat the format of the entry names, given the hex certificate hash
+     * @param response the response object
+     * @throws java.io.IOException when writing to response output stream
+     */
+    private void zipCertificates(final RawBytesIterator<Integer> certificates,
+                                 final String zipFileNameFormat,
+                                 final HttpServletResponse response)
+            throws IOException {
         try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
             // get all files
-            for (EndorsementCredential ek : EndorsementCredential
-                    .select(certificateManager)
-                    .getCertificates()) {
-                zipFileName = String.format("Endorsement_Certificates[%s].cer",
-                        Integer.toHexString(ek.getCertificateHash()));
+            while (certificates.hasNext()) {
+                RawBytesIterator.Entry<Integer> certificate = certificates.next();
+                String zipFileName = String.format(zipFileNameFormat,
+                        Integer.toHexString(certificate.getKey()));
                 // configure the zip entry, the properties of the 'file'
                 ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) ek.getRawBytes().length * Byte.SIZE);
+                zipEntry.setSize(certificate.getRawBytes().length);
                 zipEntry.setTime(System.currentTimeMillis());
                 zipOut.putNextEntry(zipEntry);
                 // the content of the resource
-                StreamUtils.copy(ek.getRawBytes(), zipOut);
+                StreamUtils.copy(certificate.getRawBytes(), zipOut);
                 zipOut.closeEntry();
             }
             zipOut.finish();
@@ -4,9 +4,11 @@ import hirs.attestationca.portal.page.Page;
 import hirs.attestationca.portal.page.PageController;
 import hirs.attestationca.portal.page.PageMessages;
 import hirs.attestationca.portal.page.params.ReferenceManifestDetailsPageParams;
-import hirs.attestationca.service.SupplyChainValidationServiceImpl;
+import hirs.attestationca.service.RimSignerResolver;
+import hirs.attestationca.service.TrustAnchorIndex;
 import hirs.data.persist.BaseReferenceManifest;
 import hirs.data.persist.EventLogMeasurements;
+import hirs.data.persist.ParsedSwidTag;
 import hirs.data.persist.ReferenceDigestValue;
 import hirs.data.persist.ReferenceManifest;
 import hirs.data.persist.SupportReferenceManifest;
@@ -24,18 +26,24 @@ import hirs.validation.SupplyChainCredentialValidator;
 import hirs.validation.SupplyChainValidatorException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.util.encoders.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.security.KeyStore;
+import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -55,9 +63,8 @@ public class ReferenceManifestDetailsPageController
     private final ReferenceManifestManager referenceManifestManager;
     private final ReferenceDigestManager referenceDigestManager;
     private final ReferenceEventManager referenceEventManager;
-    private final CertificateManager certificateManager;
-    private static final ReferenceManifestValidator RIM_VALIDATOR
-            = new ReferenceManifestValidator();
+    private final TrustAnchorIndex trustAnchorIndex;
+    private static final String SKID_NOT_FOUND = "(not found)";
     private static final Logger LOGGER
             = LogManager.getLogger(ReferenceManifestDetailsPageController.class);
 
@@ -79,7 +86,7 @@ public class ReferenceManifestDetailsPageController
         this.referenceManifestManager = referenceManifestManager;
         this.referenceDigestManager = referenceDigestManager;
         this.referenceEventManager = referenceEventManager;
-        this.certificateManager = certificateManager;
+        this.trustAnchorIndex = new TrustAnchorIndex(certificateManager);
     }
 
     /**
@@ -110,7 +117,7 @@ public class ReferenceManifestDetailsPageController
             try {
                 UUID uuid = UUID.fromString(params.getId());
                 data.putAll(getRimDetailInfo(uuid, referenceManifestManager,
-                        referenceDigestManager, referenceEventManager, certificateManager));
+                        referenceDigestManager, referenceEventManager, trustAnchorIndex));
             } catch (IllegalArgumentException iaEx) {
                 String uuidError = "Failed to parse ID from: " + params.getId();
                 messages.addError(uuidError);
@@ -140,7 +147,7 @@ public class ReferenceManifestDetailsPageController
      * @param referenceManifestManager the reference manifest manager.
      * @param referenceDigestManager   the reference digest manager.
      * @param referenceEventManager    the reference event manager.
-     * @param certificateManager       the certificate manager.
+     * @param trustAnchorIndex         the index of the stored CA credentials.
      * @return mapping of the RIM information from the database.
      * @throws java.io.IOException      error for reading file bytes.
      * @throws NoSuchAlgorithmException If an unknown Algorithm is encountered.
@@ -150,7 +157,7 @@ public class ReferenceManifestDetailsPageController
                                            final ReferenceManifestManager referenceManifestManager,
                                            final ReferenceDigestManager referenceDigestManager,
                                            final ReferenceEventManager referenceEventManager,
-                                           final CertificateManager certificateManager)
+                                           final TrustAnchorIndex trustAnchorIndex)
                                             throws IOException,
             CertificateException, NoSuchAlgorithmException {
         HashMap<String, Object> data = new HashMap<>();
@@ -159,7 +166,7 @@ public class ReferenceManifestDetailsPageController
                 .byEntityId(uuid).getRIM();
 
         if (bRim != null) {
-            data.putAll(getBaseRimInfo(bRim, referenceManifestManager, certificateManager));
+            data.putAll(getBaseRimInfo(bRim, referenceManifestManager, trustAnchorIndex));
         }
 
         SupportReferenceManifest sRim = SupportReferenceManifest.select(referenceManifestManager)
@@ -186,7 +193,7 @@ public class ReferenceManifestDetailsPageController
      *
      * @param baseRim                  established ReferenceManifest Type.
      * @param referenceManifestManager the reference manifest manager.
-     * @param certificateManager       the certificate manager.
+     * @param trustAnchorIndex         the index of the stored CA credentials.
      * @return mapping of the RIM information from the database.
      * @throws java.io.IOException      error for reading file bytes.
      * @throws NoSuchAlgorithmException If an unknown Algorithm is encountered.
@@ -195,7 +202,7 @@ public class ReferenceManifestDetailsPageController
     private static HashMap<String, Object> getBaseRimInfo(
             final BaseReferenceManifest baseRim,
             final ReferenceManifestManager referenceManifestManager,
-            final CertificateManager certificateManager)
+            final TrustAnchorIndex trustAnchorIndex)
             throws IOException, CertificateException, NoSuchAlgorithmException {
         HashMap<String, Object> data = new HashMap<>();
 
@@ -277,13 +284,14 @@ public class ReferenceManifestDetailsPageController
         }
         // going to have to pull the filename and grab that from the DB
         // to get the id to make the link
-        RIM_VALIDATOR.setRim(baseRim);
+        ReferenceManifestValidator rimValidator = new ReferenceManifestValidator();
+        rimValidator.setRim(baseRim);
         for (SwidResource swidRes : resources) {
             if (support != null && swidRes.getHashValue()
                     .equalsIgnoreCase(support.getHexDecHash())) {
-                RIM_VALIDATOR.validateSupportRimHash(support.getRimBytes(),
+                rimValidator.validateSupportRimHash(support.getRimBytes(),
                         swidRes.getHashValue());
-                if (RIM_VALIDATOR.isSupportRimValid()) {
+                if (rimValidator.isSupportRimValid()) {
                     data.put("supportRimHashValid", true);
                 } else {
                     data.put("supportRimHashValid", false);
@@ -299,39 +307,67 @@ public class ReferenceManifestDetailsPageController
             data.put("pcrList", support.getExpectedPCRList());
         }
 
-        Set<CertificateAuthorityCredential> certificates =
-                CertificateAuthorityCredential.select(certificateManager)
-                        .getCertificates();
-        //Report invalid signature unless RIM_VALIDATOR validates it and cert path is valid
+        //Report invalid signature unless the validator validates it and cert path is valid
         data.put("signatureValid", false);
-        for (CertificateAuthorityCredential cert : certificates) {
-            SupplyChainValidationServiceImpl scvsImpl =
-                    new SupplyChainValidationServiceImpl(certificateManager);
-            KeyStore keystore = scvsImpl.getCaChain(cert);
-            if (RIM_VALIDATOR.validateXmlSignature(cert)) {
+        CertificateAuthorityCredential signingCert =
+                new RimSignerResolver(trustAnchorIndex).resolve(baseRim, rimValidator);
+        if (signingCert != null) {
+            if (rimValidator.isSignatureValid()) {
+                // only link a certificate that actually signed the RIM
+                data.put("issuerID", signingCert.getId().toString());
                 try {
                     if (SupplyChainCredentialValidator.verifyCertificate(
-                            cert.getX509Certificate(), keystore)) {
+                            signingCert.getX509Certificate(),
+                            trustAnchorIndex.getCaChain(signingCert))) {
                         data.replace("signatureValid", true);
-                        break;
                     }
-                } catch (SupplyChainValidatorException e) {
+                } catch (KeyStoreException | SupplyChainValidatorException e) {
                     LOGGER.error("Error verifying cert chain: " + e.getMessage());
                 }
             }
         }
-        data.put("skID", RIM_VALIDATOR.getSubjectKeyIdentifier());
-        try {
-            for (CertificateAuthorityCredential cert : certificates) {
-                if (Arrays.equals(cert.getEncodedPublicKey(),
-                        RIM_VALIDATOR.getPublicKey().getEncoded())) {
-                    data.put("issuerID", cert.getId().toString());
+        data.put("skID", getSigningKeyIdentifier(baseRim));
+        return data;
+    }
+
+    /**
+     * Returns the subject key identifier of the key a base RIM was signed with, from the
+     * certificate embedded in its signature or else from the key name of the signature. This
+     * does not depend on the signing certificate being stored, so that a missing signer can be
+     * looked for.
+     *
+     * @param baseRim the base RIM
+     * @return the hex encoded subject key identifier, or "(not found)"
+     */
+    private static String getSigningKeyIdentifier(final BaseReferenceManifest baseRim) {
+        ParsedSwidTag swidTag = baseRim.getSwidTag();
+        if (swidTag == null || !swidTag.isSigned()) {
+            return SKID_NOT_FOUND;
+        }
+
+        byte[] embeddedCertificate = swidTag.getEmbeddedCertificate();
+        if (embeddedCertificate != null) {
+            try {
+                X509Certificate certificate = (X509Certificate) CertificateFactory
+                        .getInstance("X.509").generateCertificate(
+                                new ByteArrayInputStream(embeddedCertificate));
+                byte[] extension = certificate.getExtensionValue(
+                        Extension.subjectKeyIdentifier.getId());
+                if (extension != null) {
+                    return Hex.toHexString(ASN1OctetString.getInstance(
+                            JcaX509ExtensionUtils.parseExtensionValue(extension)).getOctets());
                 }
+            } catch (CertificateException | IOException e) {
+                LOGGER.warn("Unable to read the certificate embedded in base RIM "
+                        + baseRim.getId() + ": " + e.getMessage());
             }
-        } catch (NullPointerException e) {
-            LOGGER.error("Unable to link signing certificate: " + e.getMessage());
+            return SKID_NOT_FOUND;
         }
-        return data;
+
+        if (swidTag.getKeyName() != null) {
+            return swidTag.getKeyName();
+        }
+        return SKID_NOT_FOUND;
     }
 
     /**
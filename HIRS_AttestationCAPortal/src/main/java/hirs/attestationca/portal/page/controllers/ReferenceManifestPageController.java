@@ -18,6 +18,7 @@ import hirs.data.persist.SwidResource;
 import hirs.data.persist.certificate.Certificate;
 import hirs.persist.CriteriaModifier;
 import hirs.persist.DBManagerException;
+import hirs.persist.RawBytesIterator;
 import hirs.persist.ReferenceEventManager;
 import hirs.persist.ReferenceManifestManager;
 import hirs.tpm.eventlog.TCGEventLog;
@@ -370,34 +371,20 @@ public class ReferenceManifestPageController
             throws IOException {
         LOGGER.info("Handling request to download all Reference Integrity Manifests");
         String fileName = "rims.zip";
-        String zipFileName;
 
         // Set filename for download.
         response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
         response.setContentType("application/zip");
 
-        List<ReferenceManifest> referenceManifestList = new LinkedList<>();
-        referenceManifestList.addAll(BaseReferenceManifest
-                .select(referenceManifestManager).getRIMs());
-        referenceManifestList.addAll(SupportReferenceManifest
-                .select(referenceManifestManager).getRIMs());
-
         try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (ReferenceManifest rim : referenceManifestList) {
-                if (rim.getFileName().isEmpty()) {
-                    zipFileName = "";
-                } else {
-                    // configure the zip entry, the properties of the 'file'
-                    zipFileName = rim.getFileName();
-                }
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) rim.getRimBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(rim.getRimBytes(), zipOut);
-                zipOut.closeEntry();
+            // get all files, reading the base RIMs and then the support RIMs a RIM at a time
+            try (RawBytesIterator<String> baseRims = BaseReferenceManifest
+                    .select(referenceManifestManager).getRimBytes()) {
+                zipRims(baseRims, zipOut);
+            }
+            try (RawBytesIterator<String> supportRims = SupportReferenceManifest
+                    .select(referenceManifestManager).getRimBytes()) {
+                zipRims(supportRims, zipOut);
             }
             zipOut.finish();
             // write cert to output stream
@@ -409,6 +396,34 @@ public class ReferenceManifestPageController
         }
     }
 
+    /**
+     * Adds an entry to a zip file for each RIM, named by the RIM's file name.
+     *
+     * @param rims the RIMs' file names and bytes
+     * @param zipOut the zip file
+     * @throws java.io.IOException when writing to the zip file
+     */
+    private void zipRims(final RawBytesIterator<String> rims, final ZipOutputStream zipOut)
+            throws IOException {
+        String zipFileName;
+        while (rims.hasNext()) {
+            RawBytesIterator.Entry<String> rim = rims.next();
+            if (rim.getKey().isEmpty()) {
+                zipFileName = "";
+            } else {
+                // configure the zip entry, the properties of the 'file'
+                zipFileName = rim.getKey();
+            }
+            ZipEntry zipEntry = new ZipEntry(zipFileName);
+            zipEntry.setSize(rim.getRawBytes().length);
+            zipEntry.setTime(System.currentTimeMillis());
+            zipOut.putNextEntry(zipEntry);
+            // the content of the resource
+            StreamUtils.copy(rim.getRawBytes(), zipOut);
+            zipOut.closeEntry();
+        }
+    }
+
     /**
      * This method takes the parameter and looks for this information in the
      * Database.
@@ -652,18 +667,17 @@ public class ReferenceManifestPageController
                 tpmEvents = referenceEventManager.getValuesByRimId(dbSupport);
                 baseRim = findBaseRim(dbSupport);
                 if (tpmEvents.isEmpty()) {
-                    ReferenceDigestValue rdv;
+                    tpmEvents = new ArrayList<>();
                     try {
                         logProcessor = new TCGEventLog(dbSupport.getRimBytes());
                         for (TpmPcrEvent tpe : logProcessor.getEventList()) {
-                            rdv = new ReferenceDigestValue(baseRim.getId(),
+                            tpmEvents.add(new ReferenceDigestValue(baseRim.getId(),
                                     dbSupport.getId(), dbSupport.getPlatformManufacturer(),
                                     dbSupport.getPlatformModel(), tpe.getPcrIndex(),
                                     tpe.getEventDigestStr(), tpe.getEventTypeStr(),
-                                    false, false, updated, tpe.getEventContent());
-
-                            this.referenceEventManager.saveValue(rdv);
+                                    false, false, updated, tpe.getEventContent()));
                         }
+                        this.referenceEventManager.saveValues(tpmEvents);
                     } catch (CertificateException e) {
                         e.printStackTrace();
                     } catch (NoSuchAlgorithmException e) {
@@ -1,5 +1,6 @@
 package hirs.attestationca.portal.page.controllers;
 
+import com.google.common.collect.Lists;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import hirs.FilteredRecordsList;
@@ -8,6 +9,7 @@ import hirs.attestationca.portal.datatables.DataTableResponse;
 import hirs.attestationca.portal.datatables.OrderedListQueryDataTableAdapter;
 import hirs.attestationca.portal.page.PageController;
 import hirs.attestationca.portal.page.params.NoPageParams;
+import hirs.data.persist.Device;
 import hirs.data.persist.SupplyChainValidationSummary;
 import hirs.data.persist.certificate.Certificate;
 import hirs.data.persist.certificate.PlatformCredential;
@@ -40,8 +42,14 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -68,6 +76,7 @@ public class ValidationReportsPageController extends PageController<NoPageParams
     private static final String DEFAULT_COMPANY = "AllDevices";
     private static final String UNDEFINED = "undefined";
     private static final String TRUE = "true";
+    private static final int EXPORT_CHUNK_SIZE = 100;
     private static final Logger LOGGER = getLogger(ValidationReportsPageController.class);
 
     /**
@@ -259,72 +268,163 @@ public class ValidationReportsPageController extends PageController<NoPageParams
             response.setHeader("Content-Disposition",
                     "attachment;filename=validation_report.csv");
         }
-        BufferedWriter bufferedWriter = new BufferedWriter(
-                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
-        StringBuilder reportData = new StringBuilder();
-        JsonArray jsonReportData = new JsonArray();
+        if (systemOnly && componentOnly) {
+            systemOnly = false;
+            componentOnly = false;
+        }
+
+        List<String> reportedDevices = new ArrayList<>();
+        boolean firstDeviceReported = false;
         for (int i = 0; i < deviceNames.length; i++) {
             if ((createTimes.get(i).isAfter(startDate) || createTimes.get(i).isEqual(startDate))
                     && (createTimes.get(i).isBefore(endDate)
                         || createTimes.get(i).isEqual(endDate))) {
-                UUID deviceId = deviceManager.getDevice(deviceNames[i]).getId();
-                PlatformCredential pc = PlatformCredential.select(certificateManager)
-                        .byDeviceId(deviceId).getCertificate();
-                if (jsonVersion) {
-                    jsonReportData.add(assembleJsonContent(pc, parseComponents(pc),
-                            company, contractNumber));
-                } else {
-                    if (i == 0) {
-                        bufferedWriter.append("Company: " + company + "\n");
-                        bufferedWriter.append("Contract number: " + contractNumber + "\n");
-                    }
-                    if (systemOnly && componentOnly) {
-                        systemOnly = false;
-                        componentOnly = false;
-                    }
-                    if ((filterManufacturer.isEmpty() || filterManufacturer.equals(
-                            pc.getManufacturer()))
-                            && (filterSerial.isEmpty() || filterSerial.equals(
-                            pc.getPlatformSerial()))) {
-                        if (!componentOnly) {
-                            reportData.append(pc.getManufacturer() + ","
-                                    + pc.getModel() + ","
-                                    + pc.getPlatformSerial() + ","
-                                    + LocalDateTime.now().toString() + ","
-                                    + pc.getDevice().getSupplyChainStatus() + ",");
-                        }
-                        if (!systemOnly) {
-                            ArrayList<ArrayList<String>> parsedComponents = parseComponents(pc);
-                            for (ArrayList<String> component : parsedComponents) {
-                                for (String data : component) {
-                                    reportData.append(data + ",");
-                                }
-                                reportData.deleteCharAt(reportData.length() - 1);
-                                reportData.append(System.lineSeparator());
-                                if (!componentOnly) {
-                                    reportData.append(",,,,,");
-                                }
-                            }
-                            reportData = reportData.delete(
-                                    reportData.lastIndexOf(System.lineSeparator()) + 1,
-                                        reportData.length());
-                        }
-                    }
+                reportedDevices.add(deviceNames[i]);
+                if (i == 0) {
+                    firstDeviceReported = true;
                 }
             }
         }
-        if (!jsonVersion) {
+
+        // the report is written as it is assembled, a chunk of devices at a time, so that
+        // reports on any number of devices take the same memory
+        BufferedWriter bufferedWriter = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        if (jsonVersion) {
+            bufferedWriter.append("[");
+        } else {
+            if (firstDeviceReported) {
+                bufferedWriter.append("Company: " + company + "\n");
+                bufferedWriter.append("Contract number: " + contractNumber + "\n");
+            }
             if (columnHeaders.isEmpty()) {
                 columnHeaders = systemColumnHeaders + "," + componentColumnHeaders;
             }
             bufferedWriter.append(columnHeaders + System.lineSeparator());
-            bufferedWriter.append(reportData.toString());
-        } else {
-            bufferedWriter.append(jsonReportData.toString());
+        }
+
+        boolean firstJsonObject = true;
+        for (List<String> chunk : Lists.partition(reportedDevices, EXPORT_CHUNK_SIZE)) {
+            Map<String, PlatformCredential> platformCredentials = getPlatformCredentials(chunk);
+            Map<String, List<PlatformCredential>> chainCertificates =
+                    getChainCertificates(platformCredentials.values());
+            for (String deviceName : chunk) {
+                PlatformCredential pc = platformCredentials.get(deviceName);
+                if (pc == null) {
+                    LOGGER.warn("No platform credential found for device " + deviceName);
+                    continue;
+                }
+                List<PlatformCredential> chain = chainCertificates.getOrDefault(
+                        pc.getPlatformSerial(), Collections.emptyList());
+                if (jsonVersion) {
+                    if (!firstJsonObject) {
+                        bufferedWriter.append(",");
+                    }
+                    firstJsonObject = false;
+                    bufferedWriter.append(assembleJsonContent(pc, parseComponents(pc, chain),
+                            company, contractNumber).toString());
+                } else if ((filterManufacturer.isEmpty() || filterManufacturer.equals(
+                        pc.getManufacturer()))
+                        && (filterSerial.isEmpty() || filterSerial.equals(
+                        pc.getPlatformSerial()))) {
+                    bufferedWriter.append(assembleCsvContent(pc, chain,
+                            systemOnly, componentOnly));
+                }
+            }
+        }
+        if (jsonVersion) {
+            bufferedWriter.append("]");
         }
         bufferedWriter.flush();
     }
 
+    /**
+     * Finds the platform credentials of a chunk of devices, with one query for the devices and
+     * one for their credentials.
+     * @param deviceNames the names of the devices
+     * @return a platform credential of each device that has one, by device name
+     */
+    private Map<String, PlatformCredential> getPlatformCredentials(
+            final List<String> deviceNames) {
+        Map<UUID, String> deviceNamesById = new HashMap<>();
+        for (Device device : deviceManager.getDevices(deviceNames)) {
+            deviceNamesById.put(device.getId(), device.getName());
+        }
+        Map<String, PlatformCredential> platformCredentials = new HashMap<>();
+        if (deviceNamesById.isEmpty()) {
+            return platformCredentials;
+        }
+        for (PlatformCredential pc : PlatformCredential.select(certificateManager)
+                .byDeviceIds(deviceNamesById.keySet()).getCertificates()) {
+            platformCredentials.putIfAbsent(deviceNamesById.get(pc.getDevice().getId()), pc);
+        }
+        return platformCredentials;
+    }
+
+    /**
+     * Finds the certificates in the chains of a chunk of platform credentials, with a single
+     * query on the platform serials of the credentials that have components.
+     * @param platformCredentials the platform credentials
+     * @return the certificates associated with each platform serial
+     */
+    private Map<String, List<PlatformCredential>> getChainCertificates(
+            final Collection<PlatformCredential> platformCredentials) {
+        Set<String> platformSerials = new HashSet<>();
+        for (PlatformCredential pc : platformCredentials) {
+            if (pc.getComponentIdentifiers() != null
+                    && pc.getComponentIdentifiers().size() > 0
+                    && pc.getPlatformSerial() != null) {
+                platformSerials.add(pc.getPlatformSerial());
+            }
+        }
+        if (platformSerials.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return PlatformCredential.select(certificateManager)
+                .byBoardSerialNumbers(platformSerials).getCertificates().stream()
+                .collect(Collectors.groupingBy(PlatformCredential::getPlatformSerial));
+    }
+
+    /**
+     * This method builds the CSV rows of a validation report for one platform credential.
+     * @param pc the platform credential used to validate.
+     * @param chainCertificates the certificates associated with the platform serial.
+     * @param systemOnly whether only the system columns are reported.
+     * @param componentOnly whether only the component columns are reported.
+     * @return the CSV rows.
+     */
+    private String assembleCsvContent(final PlatformCredential pc,
+                                      final List<PlatformCredential> chainCertificates,
+                                      final boolean systemOnly,
+                                      final boolean componentOnly) {
+        StringBuilder reportData = new StringBuilder();
+        if (!componentOnly) {
+            reportData.append(pc.getManufacturer() + ","
+                    + pc.getModel() + ","
+                    + pc.getPlatformSerial() + ","
+                    + LocalDateTime.now().toString() + ","
+                    + pc.getDevice().getSupplyChainStatus() + ",");
+        }
+        if (!systemOnly) {
+            ArrayList<ArrayList<String>> parsedComponents =
+                    parseComponents(pc, chainCertificates);
+            for (ArrayList<String> component : parsedComponents) {
+                for (String data : component) {
+                    reportData.append(data + ",");
+                }
+                reportData.deleteCharAt(reportData.length() - 1);
+                reportData.append(System.lineSeparator());
+                if (!componentOnly) {
+                    reportData.append(",,,,,");
+                }
+            }
+            reportData = reportData.delete(
+                    reportData.lastIndexOf(System.lineSeparator()) + 1,
+                        reportData.length());
+        }
+        return reportData.toString();
+    }
+
     /**
      * This method builds a JSON object from the system and component data in a
      * validation report.
@@ -373,9 +473,11 @@ public class ValidationReportsPageController extends PageController<NoPageParams
      * - Serial number
      * - Pass/fail status (based on componentFailures string)
      * @param pc the platform credential.
+     * @param chainCertificates the certificates associated with the platform serial.
      * @return the ArrayList of ArrayLists containing the parsed component data.
      */
-    private ArrayList<ArrayList<String>> parseComponents(final PlatformCredential pc) {
+    private ArrayList<ArrayList<String>> parseComponents(
+            final PlatformCredential pc, final List<PlatformCredential> chainCertificates) {
         ArrayList<ArrayList<String>> parsedComponents = new ArrayList<ArrayList<String>>();
         ArrayList<ArrayList<Object>> chainComponents = new ArrayList<>();
 
@@ -383,11 +485,6 @@ public class ValidationReportsPageController extends PageController<NoPageParams
         if (pc.getComponentIdentifiers() != null
                 && pc.getComponentIdentifiers().size() > 0) {
             componentFailureString.append(pc.getComponentFailures());
-            // get all the certificates associated with the platform serial
-            List<PlatformCredential> chainCertificates = PlatformCredential
-                    .select(certificateManager)
-                    .byBoardSerialNumber(pc.getPlatformSerial())
-                    .getCertificates().stream().collect(Collectors.toList());
             // combine all components in each certificate
             for (ComponentIdentifier ci : pc.getComponentIdentifiers()) {
                 ArrayList<Object> issuerAndComponent = new ArrayList<Object>();
@@ -3,6 +3,7 @@ package hirs.attestationca.portal.page.datatables;
 import hirs.FilteredRecordsList;
 import hirs.data.persist.Device;
 import hirs.persist.CriteriaModifier;
+import hirs.persist.OrderedListOptions;
 import hirs.persist.OrderedListQuerier;
 import hirs.attestationca.portal.datatables.Column;
 import hirs.attestationca.portal.datatables.DataTableInput;
@@ -18,8 +19,10 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -105,4 +108,45 @@ public class OrderedListQueryDataTableAdapterTest {
 
         Assert.assertEquals(captor.getValue().size(), columnMapSize);
     }
+
+    /**
+     * Tests that the paging, counting and searching options of the input are passed to the
+     * OrderedListQuerier via the adapter.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getQueryWithOptions() {
+
+        final int staleness = 30;
+        final UUID lastId = UUID.randomUUID();
+        final DataTableInput dataTableInput = new DataTableInput();
+
+        List<Column> searchColumns = new ArrayList<>();
+        searchColumns.add(new Column("name", "name", true, true, new Search()));
+        dataTableInput.setColumns(searchColumns);
+        dataTableInput.setOrder(Collections.singletonList(new Order(0, false)));
+        dataTableInput.setAfter(lastId);
+        dataTableInput.setCountStaleness(staleness);
+        dataTableInput.setPrefixSearch(true);
+
+        when(querier.getOrderedList(Matchers.<Class<Device>>any(), anyString(), anyBoolean(),
+            anyInt(), anyInt(), anyString(), anyMap(), any(CriteriaModifier.class),
+            any(OrderedListOptions.class)))
+            .thenReturn(filteredList);
+
+        FilteredRecordsList retrievedList =
+                OrderedListQueryDataTableAdapter.getOrderedList(Device.class, querier,
+                dataTableInput, "name");
+
+        ArgumentCaptor<OrderedListOptions> optionsCaptor =
+                ArgumentCaptor.forClass(OrderedListOptions.class);
+        verify(querier, times(1)).getOrderedList(Matchers.<Class<Device>>any(),
+                Matchers.eq("name"), Matchers.eq(false), anyInt(), anyInt(), anyString(),
+                anyMap(), any(CriteriaModifier.class), optionsCaptor.capture());
+
+        Assert.assertSame(retrievedList, filteredList);
+        Assert.assertEquals(optionsCaptor.getValue().getAfterId(), lastId);
+        Assert.assertEquals(optionsCaptor.getValue().getCountStalenessSeconds(), staleness);
+        Assert.assertTrue(optionsCaptor.getValue().isPrefixSearch());
+    }
 }
@@ -0,0 +1,460 @@
+package hirs.structs.converters;
+
+import hirs.structs.elements.Struct;
+import hirs.structs.elements.StructElementLength;
+import hirs.structs.elements.StructElements;
+import org.apache.commons.lang3.reflect.ConstructorUtils;
+
+import java.io.EOFException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes and de-serializes one type of {@link Struct} for the {@link SimpleStructConverter}.
+ * The fields named by the {@link StructElements} of the type are looked up once, when the codec is
+ * created, and accessed through method handles from then on. Codecs are cached per type.
+ * <p>
+ * The bytes produced and accepted, and the exceptions thrown for malformed types or data, are the
+ * same as those of the earlier field-by-field reflection over data streams.
+ */
+final class StructCodec {
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final int UNSIGNED_SHORT_MASK = 0xFFFF;
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class,
+            Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class,
+            Object.class, Object.class);
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<StructCodec> CODECS = new ClassValue<StructCodec>() {
+        @Override
+        protected StructCodec computeValue(final Class<?> type) {
+            return new StructCodec(type);
+        }
+    };
+
+    /**
+     * The supported types of elements.
+     */
+    private enum Kind {
+        BYTE, SHORT, INT, BYTES, STRUCT
+    }
+
+    /**
+     * A numeric field that holds the length of another element, set when that element is.
+     */
+    private static final class LengthField {
+        private final Class<?> type;
+        private final MethodHandle setter;
+
+        private LengthField(final Class<?> type, final MethodHandle setter) {
+            this.type = type;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * A buffer for serialized structs that grows as they are written.
+     */
+    private static final class Output {
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        /**
+         * Makes room for the given number of bytes, growing the buffer if needed.
+         */
+        private ByteBuffer reserve(final int size) {
+            if (buffer.remaining() < size) {
+                int capacity = Math.max(buffer.capacity() * 2, buffer.position() + size);
+                ByteBuffer grown = ByteBuffer.allocate(capacity);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            return buffer;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    /**
+     * An element of the struct, in the order of {@link StructElements}.
+     */
+    private static final class Element {
+        private final String name;
+        private final Kind kind;
+        private final Class<?> type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        // where the lengths read for this element, and recorded by this element, are kept
+        private int lengthSlot = -1;
+        private int recordedLengthSlot = -1;
+
+        // the field updated with the length of this element when it is set
+        private LengthField lengthField;
+
+        private Element(final String name, final Kind kind, final Field field)
+                throws IllegalAccessException {
+            this.name = name;
+            this.kind = kind;
+            this.type = field.getType();
+            field.setAccessible(true);
+            getter = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+            setter = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+        }
+    }
+
+    private final Class<?> type;
+    private final StructElements structElements;
+    private final MethodHandle constructor;
+    private final List<Element> elements = new ArrayList<>();
+    private int lengthSlots;
+
+    // the first element that cannot be converted, if any, and why
+    private String invalidElement;
+    private NoSuchFieldException missingField;
+    private Class<?> unsupportedType;
+
+    private StructCodec(final Class<?> type) {
+        this.type = type;
+        structElements = type.getAnnotation(StructElements.class);
+
+        Constructor<?> accessibleConstructor =
+                ConstructorUtils.getMatchingAccessibleConstructor(type);
+        MethodHandle handle = null;
+        if (accessibleConstructor != null) {
+            try {
+                handle = MethodHandles.lookup().unreflectConstructor(accessibleConstructor)
+                        .asType(CONSTRUCTOR_TYPE);
+            } catch (IllegalAccessException e) {
+                handle = null;
+            }
+        }
+        constructor = handle;
+
+        if (structElements != null) {
+            try {
+                createElements();
+            } catch (IllegalAccessException e) {
+                throw new StructConversionException(String.format(
+                        "Unable to access the elements of %s: %s", type.getSimpleName(),
+                        e.getMessage()), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the codec of a type of struct, creating it the first time the type is converted.
+     *
+     * @param type the type of struct
+     * @return the codec of the type
+     */
+    static StructCodec forType(final Class<?> type) {
+        return CODECS.get(type);
+    }
+
+    private void createElements() throws IllegalAccessException {
+        Map<String, Integer> slots = new HashMap<>();
+        for (String fieldName : structElements.elements()) {
+            Field field;
+            try {
+                field = type.getDeclaredField(fieldName);
+            } catch (NoSuchFieldException e) {
+                invalidElement = fieldName;
+                missingField = e;
+                return;
+            }
+
+            Kind kind = getKind(field.getType());
+            if (kind == null) {
+                invalidElement = fieldName;
+                unsupportedType = field.getType();
+                return;
+            }
+
+            Element element = new Element(fieldName, kind, field);
+            StructElementLength length = field.getAnnotation(StructElementLength.class);
+            if (length != null) {
+                element.recordedLengthSlot = getSlot(slots, length.fieldName());
+            }
+            if (kind == Kind.BYTES || kind == Kind.STRUCT) {
+                element.lengthSlot = getSlot(slots, fieldName);
+                element.lengthField = findLengthField(fieldName);
+            }
+            elements.add(element);
+        }
+    }
+
+    private int getSlot(final Map<String, Integer> slots, final String fieldName) {
+        Integer slot = slots.get(fieldName);
+        if (slot == null) {
+            slot = lengthSlots++;
+            slots.put(fieldName, slot);
+        }
+        return slot;
+    }
+
+    private static Kind getKind(final Class<?> fieldType) {
+        if (Struct.class.isAssignableFrom(fieldType)) {
+            return Kind.STRUCT;
+        } else if (int.class.isAssignableFrom(fieldType)) {
+            return Kind.INT;
+        } else if (short.class.isAssignableFrom(fieldType)) {
+            return Kind.SHORT;
+        } else if (byte[].class.isAssignableFrom(fieldType)) {
+            return Kind.BYTES;
+        } else if (byte.class.isAssignableFrom(fieldType)) {
+            return Kind.BYTE;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the field that {@link SimpleStructBuilder} would update with the length of the given
+     * field: the first declared field whose {@link StructElementLength} names it.
+     */
+    private LengthField findLengthField(final String fieldName) throws IllegalAccessException {
+        for (Field field : type.getDeclaredFields()) {
+            StructElementLength length = field.getAnnotation(StructElementLength.class);
+            if (length != null && length.fieldName().equals(fieldName)) {
+                field.setAccessible(true);
+                return new LengthField(field.getType(),
+                        MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Serializes a struct of this codec's type.
+     *
+     * @param struct the struct to serialize
+     * @return the serialized struct
+     */
+    byte[] encode(final Struct struct) {
+        Output output = new Output();
+        write(struct, output);
+        return output.toByteArray();
+    }
+
+    private void write(final Object struct, final Output output) {
+        checkElements();
+        for (Element element : elements) {
+            Object value = get(element, struct);
+            switch (element.kind) {
+                case STRUCT:
+                    if (value != null) {
+                        forType(value.getClass()).write(value, output);
+                    }
+                    break;
+                case INT:
+                    output.reserve(Integer.BYTES).putInt((int) value);
+                    break;
+                case SHORT:
+                    output.reserve(Short.BYTES).putShort((short) value);
+                    break;
+                case BYTES:
+                    byte[] bytes = (byte[]) value;
+                    output.reserve(bytes.length).put(bytes);
+                    break;
+                case BYTE:
+                    output.reserve(Byte.BYTES).put((byte) value);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown element kind " + element.kind);
+            }
+        }
+
+        if (missingField != null) {
+            throw new StructConversionException(
+                    String.format("Unexpected error converting %s into a struct: %s",
+                            type.getSimpleName(), missingField.getMessage()), missingField);
+        }
+        if (unsupportedType != null) {
+            throw unsupportedType();
+        }
+    }
+
+    /**
+     * De-serializes a struct of this codec's type from the buffer, leaving the buffer positioned
+     * after the struct.
+     *
+     * @param buffer the data to de-serialize
+     * @return the de-serialized struct
+     */
+    Struct decode(final ByteBuffer buffer) {
+        Object struct = newInstance();
+        checkElements();
+
+        Integer[] lengths = new Integer[lengthSlots];
+        for (Element element : elements) {
+            Number numericValue = 0;
+            switch (element.kind) {
+                case BYTE:
+                    require(buffer, Byte.BYTES, element);
+                    numericValue = buffer.get();
+                    set(element, struct, numericValue.byteValue());
+                    break;
+                case SHORT:
+                    require(buffer, Short.BYTES, element);
+                    numericValue = buffer.getShort() & UNSIGNED_SHORT_MASK;
+                    set(element, struct, numericValue.shortValue());
+                    break;
+                case INT:
+                    require(buffer, Integer.BYTES, element);
+                    numericValue = buffer.getInt();
+                    set(element, struct, numericValue);
+                    break;
+                case BYTES:
+                    Integer length = lengths[element.lengthSlot];
+                    if (length == null) {
+                        NullPointerException e = new NullPointerException();
+                        throw new StructConversionException(
+                                "Unexpected error processing struct for field: "
+                                        + element.name + ": " + e.getMessage(), e);
+                    }
+                    // like a stream, fill what is left of the data if it is too short
+                    byte[] value = new byte[length];
+                    buffer.get(value, 0, Math.min(length, buffer.remaining()));
+                    setLength(element, struct, value.length);
+                    set(element, struct, value);
+                    break;
+                case STRUCT:
+                    // some struct fields are variable. if there is a length and it is 0, move on
+                    Integer structLength = lengths[element.lengthSlot];
+                    if (structLength != null && structLength == 0) {
+                        continue;
+                    }
+                    Struct nested = forType(element.type).decode(buffer);
+                    setLength(element, struct, forType(nested.getClass()).encode(nested).length);
+                    set(element, struct, nested);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown element kind " + element.kind);
+            }
+
+            if (element.recordedLengthSlot >= 0) {
+                lengths[element.recordedLengthSlot] = numericValue.intValue();
+            }
+        }
+
+        if (missingField != null) {
+            throw new StructConversionException(
+                    "Unexpected error processing struct for field: "
+                            + invalidElement + ": " + missingField.getMessage(), missingField);
+        }
+        if (unsupportedType != null) {
+            throw unsupportedType();
+        }
+        return (Struct) struct;
+    }
+
+    private static void require(final ByteBuffer buffer, final int size, final Element element) {
+        if (buffer.remaining() < size) {
+            buffer.position(buffer.limit());
+            EOFException e = new EOFException();
+            throw new StructConversionException(
+                    "Unexpected error processing struct for field: "
+                            + element.name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void checkElements() {
+        if (structElements == null) {
+            throw new StructConversionException(String.format(
+                    "%s does not have the proper @StructElements definition on the class "
+                            + "type. Please see documentation on Struct interface",
+                    type.getSimpleName()));
+        }
+    }
+
+    private StructConversionException unsupportedType() {
+        return new StructConversionException(
+                "Unsupported field type for element or length: " + unsupportedType);
+    }
+
+    private Object newInstance() {
+        String message = String.format("Unexpected error constructing new instance: %s",
+                type.getSimpleName());
+        if (constructor == null) {
+            throw new StructBuilderException(message, new NoSuchMethodException(
+                    "No such accessible constructor on object: " + type.getName()));
+        }
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Error | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StructBuilderException(message, (Exception) e);
+        }
+    }
+
+    private static Object get(final Element element, final Object struct) {
+        try {
+            return (Object) element.getter.invokeExact(struct);
+        } catch (Error | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StructConversionException("Unable to read field " + element.name,
+                    (Exception) e);
+        }
+    }
+
+    private static void set(final Element element, final Object struct, final Object value) {
+        try {
+            element.setter.invokeExact(struct, value);
+        } catch (Error | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StructBuilderException("Unexpected error setting field: " + element.name,
+                    (Exception) e);
+        }
+    }
+
+    /**
+     * Updates the length field of an element, converting the length to the type of the field.
+     */
+    private static void setLength(final Element element, final Object struct, final int length) {
+        LengthField lengthField = element.lengthField;
+        if (lengthField == null) {
+            return;
+        }
+
+        Object value;
+        if (short.class.equals(lengthField.type)) {
+            value = (short) length;
+        } else if (int.class.equals(lengthField.type)) {
+            value = length;
+        } else if (byte.class.equals(lengthField.type)) {
+            value = (byte) length;
+        } else {
+            throw new StructBuilderException(String.format("Unhandled numeric field type: %s",
+                    lengthField.type.getSimpleName()));
+        }
+
+        try {
+            lengthField.setter.invokeExact(struct, value);
+        } catch (Error | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StructBuilderException("Unexpected error setting the length of field: "
+                    + element.name, (Exception) e);
+        }
+    }
+}
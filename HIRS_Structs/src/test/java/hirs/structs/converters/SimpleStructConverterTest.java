@@ -3,6 +3,8 @@ package hirs.structs.converters;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+
 /**
  * Tests suite for {@link SimpleStructConverter}.
  */
@@ -39,6 +41,38 @@ public class SimpleStructConverterTest {
         assert (struct.equals(testStruct));
     }
 
+    /**
+     * Tests that structs of the same type with different array lengths are each converted
+     * according to their own lengths, in both directions.
+     */
+    @Test
+    public final void testConvertVariableLengths() {
+        TestEmbeddedStruct shortStruct = new SimpleStructBuilder<>(TestEmbeddedStruct.class)
+                .set("embedded", new byte[]{1, 2, 3})
+                .build();
+        byte[] shortBytes = converter.convert(shortStruct);
+        Assert.assertEquals(shortBytes, new byte[]{0, 0, 0, 3, 0, 7, 1, 2, 3});
+        Assert.assertEquals(converter.convert(shortBytes, TestEmbeddedStruct.class),
+                shortStruct);
+
+        TestEmbeddedStruct defaultStruct = new TestEmbeddedStruct();
+        byte[] defaultBytes = converter.convert(defaultStruct);
+        Assert.assertEquals(defaultBytes.length, shortBytes.length + 7);
+        Assert.assertEquals(converter.convert(defaultBytes, TestEmbeddedStruct.class),
+                defaultStruct);
+    }
+
+    /**
+     * Tests {@link SimpleStructConverter#convert(byte[], Class)} where the data ends before the
+     * struct does. It is expected that a conversion exception will be thrown naming the field
+     * that could not be read.
+     */
+    @Test(expectedExceptions = StructConversionException.class,
+            expectedExceptionsMessageRegExp = ".*for field: embeddedSize.*")
+    public final void testConvertTruncatedData() {
+        converter.convert(Arrays.copyOf(EXPECTED_BYTES, 4), TestStruct.class);
+    }
+
     /**
      * Tests {@link SimpleStructConverter#convert(hirs.structs.elements.Struct)} where the
      * Struct does not have the required {@link hirs.structs.elements.StructElements}
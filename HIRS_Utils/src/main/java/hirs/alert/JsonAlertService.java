@@ -9,17 +9,23 @@ import hirs.data.persist.alert.AlertServiceConfig;
 import hirs.data.persist.alert.JsonAlertMonitor;
 import hirs.persist.AlertServiceConfigManager;
 import hirs.persist.BaselineManager;
-import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import hirs.persist.PolicyManager;
 import hirs.persist.PortalInfoManager;
@@ -28,6 +34,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import hirs.data.persist.enums.AlertSeverity;
 import java.util.Optional;
 import java.util.UUID;
@@ -36,6 +46,10 @@ import java.util.UUID;
  * Implementation of a JavaScript Object Notation (JSON) Alert Service.
  * Upon receiving an Alert, the JSON service will wrap the alert data into a JSON object
  * and forward the object to all JSON alert monitors configured for the service.
+ * <p>
+ * Each JSON object is terminated by a newline. TCP monitors are sent their alerts over a
+ * connection that is kept open between alerts and reopened if it fails, so a burst of alerts
+ * is written over a single connection. UDP monitors receive one datagram per alert.
  */
 @Service
 public class JsonAlertService extends ManagedAlertService {
@@ -46,6 +60,65 @@ public class JsonAlertService extends ManagedAlertService {
 
     private static final Logger LOGGER = getLogger(JsonAlertService.class);
 
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writer();
+    private static final byte[] DELIMITER = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int NAME_CACHE_SIZE = 1000;
+    private static final long NAME_CACHE_EXPIRY_MINUTES = 1;
+
+    /**
+     * An open TCP connection to a monitor.
+     */
+    private static final class TcpConnection {
+        private final InetAddress address;
+        private final int port;
+        private final Socket socket;
+        private final OutputStream out;
+
+        private TcpConnection(final InetAddress address, final int port) throws IOException {
+            this.address = address;
+            this.port = port;
+            socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(address, port), CONNECT_TIMEOUT_MILLIS);
+                out = new BufferedOutputStream(socket.getOutputStream());
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        private boolean isFor(final JsonAlertMonitor monitor) {
+            return address.equals(monitor.getIpAddress()) && port == monitor.getPort();
+        }
+
+        private void write(final List<byte[]> messages) throws IOException {
+            for (byte[] message : messages) {
+                out.write(message);
+                out.write(DELIMITER);
+            }
+            out.flush();
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close connection to JSON monitor", e);
+            }
+        }
+    }
+
+    /**
+     * Open TCP connections, by monitor name.
+     */
+    private final Map<String, TcpConnection> tcpConnections = new HashMap<>();
+
+    /**
+     * The socket UDP alerts are sent from, opened when first needed.
+     */
+    private DatagramSocket udpSocket;
+
     /**
      * DB Manager for Portal information.
      */
@@ -64,6 +137,22 @@ public class JsonAlertService extends ManagedAlertService {
     @Autowired
     private BaselineManager baselineManager;
 
+    /**
+     * Recently looked up policy names, by policy id.
+     */
+    private final LoadingCache<UUID, String> policyNames = CacheBuilder.newBuilder()
+            .maximumSize(NAME_CACHE_SIZE)
+            .expireAfterWrite(NAME_CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES)
+            .build(CacheLoader.from(id -> policyManager.getPolicy(id).getName()));
+
+    /**
+     * Recently looked up baseline names, by baseline id.
+     */
+    private final LoadingCache<UUID, String> baselineNames = CacheBuilder.newBuilder()
+            .maximumSize(NAME_CACHE_SIZE)
+            .expireAfterWrite(NAME_CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES)
+            .build(CacheLoader.from(id -> baselineManager.getBaseline(id).getName()));
+
     /**
      * Creates a new <code>JsonAlertService</code> for testing. The optional config
      * parameter is a file path to a Hibernate configuration file.
@@ -92,7 +181,7 @@ public class JsonAlertService extends ManagedAlertService {
         items.put("severity", AlertSeverity.INFO.toString());
         items.put("details", "This is a test alert sent by the HIRS portal.");
 
-        return send(jsonMonitor, buildJson(items));
+        return send(jsonMonitor, Collections.singletonList(buildJson(items)));
     }
 
     @Override
@@ -108,14 +197,49 @@ public class JsonAlertService extends ManagedAlertService {
      */
     @Override
     protected final void sendAlert(final AlertMonitor monitor, final Alert alert) {
-        if (isEnabled()) {
-            try {
-                if (!send((JsonAlertMonitor) monitor, convertAlert(alert))) {
-                    LOGGER.error("Alert was not sent to JSON monitor '" + monitor.getName() + ".");
-                }
-            } catch (IOException ioe) {
-                LOGGER.error("Could not use properties file: " + ioe.getMessage());
+        sendAlerts(monitor, Collections.singletonList(alert));
+    }
+
+    /**
+     * Sends a batch of JSON alerts, over a single connection for TCP monitors.
+     *
+     * @param monitor an alert monitor configuration.
+     * @param alerts the alerts to send to the remote monitor
+     * @return true if the alerts were sent, false if the service is disabled or sending failed
+     */
+    @Override
+    protected final boolean sendAlerts(final AlertMonitor monitor, final List<Alert> alerts) {
+        if (!isEnabled()) {
+            return false;
+        }
+        try {
+            List<byte[]> messages = new ArrayList<>(alerts.size());
+            for (Alert alert : alerts) {
+                messages.add(convertAlert(alert));
             }
+            if (send((JsonAlertMonitor) monitor, messages)) {
+                return true;
+            }
+            LOGGER.error("Alert was not sent to JSON monitor '" + monitor.getName() + "'.");
+        } catch (IOException ioe) {
+            LOGGER.error("Could not send alert to JSON monitor '" + monitor.getName() + "': "
+                    + ioe.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Closes the open TCP connections and the UDP socket.
+     */
+    @Override
+    protected final synchronized void closeConnections() {
+        for (TcpConnection connection : tcpConnections.values()) {
+            connection.close();
+        }
+        tcpConnections.clear();
+        if (udpSocket != null) {
+            udpSocket.close();
+            udpSocket = null;
         }
     }
 
@@ -133,10 +257,10 @@ public class JsonAlertService extends ManagedAlertService {
     /**
      * Wraps the alert data into a JSON object.
      * @param alert Alert to wrap into JSON.
-     * @return String of JSON data.
+     * @return UTF-8 encoded JSON data.
      * @throws IOException If there is a problem.
      */
-    private String convertAlert(final Alert alert) throws IOException {
+    private byte[] convertAlert(final Alert alert) throws IOException {
         LOGGER.info("Sending JSON Alert Type = " + alert.getType().toString());
         HashMap<String, String> items = new HashMap<>();
         Optional<UUID> firstUUID = alert.getBaselineIds().stream().findFirst();
@@ -149,11 +273,10 @@ public class JsonAlertService extends ManagedAlertService {
         items.put("timestamp", formatDate(alert.getCreateTime()));
         items.put("hostname", alert.getDeviceName());
         if (alert.getPolicyId() != null) {
-            items.put("policy", policyManager.getPolicy(alert.getPolicyId()).getName());
+            items.put("policy", policyNames.getUnchecked(alert.getPolicyId()));
         }
         if (firstUUID.isPresent()) {
-            items.put("baseline",
-                    baselineManager.getBaseline(firstUUID.get()).getName());
+            items.put("baseline", baselineNames.getUnchecked(firstUUID.get()));
         }
         items.put("source", alert.getSource().toString());
         items.put("type", alert.getType().toString());
@@ -167,38 +290,59 @@ public class JsonAlertService extends ManagedAlertService {
      * Makes a String of JSON data from the elements provided.
      * @param items Map<String,String> of elements to convert into a string of JSON data.
      * The keys of the map will be used as field names, and the values will be the field values.
-     * @return String of JSON data.
+     * @return UTF-8 encoded JSON data.
      */
-    private String buildJson(final Map<String, String> items) throws IOException {
-        return new ObjectMapper().writeValueAsString(items);
+    private byte[] buildJson(final Map<String, String> items) throws IOException {
+        return JSON_WRITER.writeValueAsBytes(items);
     }
 
     /**
-     * Performs the transmission of data.
+     * Performs the transmission of data. A TCP connection that fails is reopened once before
+     * giving up.
      * @param jsonMonitor configured JSON Alert Monitor.
-     * @param json String of JSON data.
+     * @param messages UTF-8 encoded JSON data, one element per alert.
      * @return True if the data was sent. Otherwise false.
      * @throws IOException If there is a problem.
      */
-    private boolean send(final JsonAlertMonitor jsonMonitor, final String json) throws IOException {
+    private synchronized boolean send(final JsonAlertMonitor jsonMonitor,
+                                      final List<byte[]> messages) throws IOException {
 
-        // Open the appropriate socket type
         // Each protocol has a different delivery process
         if (jsonMonitor.isTCP()) {
-            try (Socket tcp = new Socket(jsonMonitor.getIpAddress(), jsonMonitor.getPort())) {
-                DataOutputStream out = new DataOutputStream(tcp.getOutputStream());
-                out.writeBytes(json);
-                out.flush();
-                return true;
+            TcpConnection connection = tcpConnections.get(jsonMonitor.getName());
+            if (connection != null && !connection.isFor(jsonMonitor)) {
+                connection.close();
+                connection = null;
+            }
+            if (connection != null) {
+                try {
+                    connection.write(messages);
+                    return true;
+                } catch (IOException e) {
+                    LOGGER.info("Connection to JSON monitor '" + jsonMonitor.getName()
+                            + "' failed, reconnecting: " + e.getMessage());
+                    connection.close();
+                }
             }
+            tcpConnections.remove(jsonMonitor.getName());
+            connection = new TcpConnection(jsonMonitor.getIpAddress(), jsonMonitor.getPort());
+            try {
+                connection.write(messages);
+            } catch (IOException e) {
+                connection.close();
+                throw e;
+            }
+            tcpConnections.put(jsonMonitor.getName(), connection);
+            return true;
         } else if (jsonMonitor.isUDP()) {
-            try (DatagramSocket udp = new DatagramSocket()) {
-                DatagramPacket packet = new DatagramPacket(
-                        json.getBytes(StandardCharsets.UTF_8), json.length(),
-                        jsonMonitor.getIpAddress(), jsonMonitor.getPort());
-                udp.send(packet);
-                return true;
+            if (udpSocket == null) {
+                udpSocket = new DatagramSocket();
+            }
+            for (byte[] message : messages) {
+                udpSocket.send(new DatagramPacket(message, message.length,
+                        jsonMonitor.getIpAddress(), jsonMonitor.getPort()));
             }
+            return true;
         }
 
         return false;
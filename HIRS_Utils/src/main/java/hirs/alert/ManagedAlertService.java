@@ -1,6 +1,7 @@
 package hirs.alert;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import hirs.data.persist.Alert;
 import hirs.data.persist.ReportSummary;
 import hirs.data.persist.alert.AlertMonitor;
@@ -11,9 +12,17 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
 
@@ -23,11 +32,45 @@ import static org.apache.logging.log4j.LogManager.getLogger;
  * (e.g. IMAAppraiser)and forward the alert to all enabled alert services. Managed Alert Services
  * enable portal configuration settings to create,delete, and configure settings for remote
  * consumers of HIRS alerts.
+ * <p>
+ * Alerts are delivered asynchronously. {@link #alert(Alert)} only places the alert on a bounded
+ * queue for each enabled monitor, and a single delivery thread hands the queued alerts to
+ * {@link #sendAlerts(AlertMonitor, List)} in batches, so that the thread raising an alert never
+ * waits on a remote monitor. If the queue is full because the monitors cannot keep up, further
+ * alerts are dropped and counted rather than blocking the caller.
  */
 public abstract class ManagedAlertService implements AlertService {
 
     private static final Logger LOGGER = getLogger(ManagedAlertService.class);
 
+    /**
+     * Maximum number of alerts waiting to be delivered before further alerts are dropped.
+     */
+    static final int QUEUE_CAPACITY = 10000;
+
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int DROPPED_LOGGING_INTERVAL = 1000;
+
+    /**
+     * An alert waiting to be delivered to a monitor.
+     */
+    private static final class PendingAlert {
+        private final AlertMonitor monitor;
+        private final Alert alert;
+
+        private PendingAlert(final AlertMonitor monitor, final Alert alert) {
+            this.monitor = monitor;
+            this.alert = alert;
+        }
+    }
+
+    private final BlockingQueue<PendingAlert> pendingAlerts =
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong deliveredAlerts = new AtomicLong();
+    private final AtomicLong failedAlerts = new AtomicLong();
+    private final AtomicLong droppedAlerts = new AtomicLong();
+    private ExecutorService deliveryExecutor;
+
     /**
      * DB Manager for Alert Monitors.
      */
@@ -43,12 +86,12 @@ public abstract class ManagedAlertService implements AlertService {
     /**
      * Alert Service Configuration for this Alert Service.
      */
-    private AlertServiceConfig config;
+    private volatile AlertServiceConfig config;
 
     /**
      * Alert Monitor List for this Alert Service.
      */
-    private List<AlertMonitor> monitors = new ArrayList<>();
+    private volatile List<AlertMonitor> monitors = new ArrayList<>();
 
     private String name;
 
@@ -143,7 +186,8 @@ public abstract class ManagedAlertService implements AlertService {
     }
 
     /**
-     * Forwards an alert to a managed alert service.
+     * Forwards an alert to a managed alert service. The alert is queued for each enabled
+     * monitor and delivered on the service's delivery thread.
      *
      * @param alert alert to forward
      */
@@ -156,9 +200,121 @@ public abstract class ManagedAlertService implements AlertService {
             for (AlertMonitor currentMonitor : monitors) {
                 if (currentMonitor.isMonitorEnabled()
                         && currentMonitor.isIndividualAlertEnabled()) {
-                    sendAlert(currentMonitor, alert);
+                    enqueue(currentMonitor, alert);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of alerts waiting to be delivered.
+     *
+     * @return the number of queued alerts
+     */
+    public final int getPendingAlertCount() {
+        return pendingAlerts.size();
+    }
+
+    /**
+     * Returns the number of alerts handed to the monitors since the service started.
+     *
+     * @return the number of delivered alerts
+     */
+    public final long getDeliveredAlertCount() {
+        return deliveredAlerts.get();
+    }
+
+    /**
+     * Returns the number of alerts that could not be delivered because sending them failed.
+     *
+     * @return the number of failed alerts
+     */
+    public final long getFailedAlertCount() {
+        return failedAlerts.get();
+    }
+
+    /**
+     * Returns the number of alerts dropped because the delivery queue was full.
+     *
+     * @return the number of dropped alerts
+     */
+    public final long getDroppedAlertCount() {
+        return droppedAlerts.get();
+    }
+
+    /**
+     * Stops the delivery thread, dropping any alerts still queued, and closes the connections
+     * to the monitors.
+     */
+    @PreDestroy
+    public final void shutdown() {
+        synchronized (pendingAlerts) {
+            if (deliveryExecutor != null) {
+                deliveryExecutor.shutdownNow();
+                deliveryExecutor = null;
+            }
+        }
+        pendingAlerts.clear();
+        closeConnections();
+    }
+
+    private void enqueue(final AlertMonitor monitor, final Alert alert) {
+        if (!pendingAlerts.offer(new PendingAlert(monitor, alert))) {
+            long dropped = droppedAlerts.incrementAndGet();
+            if (dropped % DROPPED_LOGGING_INTERVAL == 1) {
+                LOGGER.warn("Alert queue of the {} alert service is full, {} alerts dropped",
+                        name, dropped);
+            }
+            return;
+        }
+
+        synchronized (pendingAlerts) {
+            if (deliveryExecutor == null) {
+                deliveryExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                        .setNameFormat("hirs-" + name.toLowerCase() + "-alert-delivery-%d")
+                        .setDaemon(true)
+                        .build());
+                deliveryExecutor.execute(this::deliverAlerts);
+            }
+        }
+    }
+
+    /**
+     * Delivers queued alerts until interrupted, taking whatever has been queued since the last
+     * batch, up to a maximum, and sending each monitor its alerts of the batch at once.
+     */
+    private void deliverAlerts() {
+        List<PendingAlert> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(pendingAlerts.take());
+                pendingAlerts.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+                Map<String, AlertMonitor> batchMonitors = new LinkedHashMap<>();
+                Map<String, List<Alert>> batchAlerts = new LinkedHashMap<>();
+                for (PendingAlert pending : batch) {
+                    String monitorName = pending.monitor.getName();
+                    batchMonitors.put(monitorName, pending.monitor);
+                    batchAlerts.computeIfAbsent(monitorName, k -> new ArrayList<>())
+                            .add(pending.alert);
+                }
+                batch.clear();
+
+                for (Map.Entry<String, List<Alert>> entry : batchAlerts.entrySet()) {
+                    try {
+                        if (sendAlerts(batchMonitors.get(entry.getKey()), entry.getValue())) {
+                            deliveredAlerts.addAndGet(entry.getValue().size());
+                        } else {
+                            failedAlerts.addAndGet(entry.getValue().size());
+                        }
+                    } catch (RuntimeException e) {
+                        failedAlerts.addAndGet(entry.getValue().size());
+                        LOGGER.error("Failed to deliver alerts to monitor " + entry.getKey(), e);
+                    }
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -197,6 +353,29 @@ public abstract class ManagedAlertService implements AlertService {
      */
     protected abstract void sendAlert(AlertMonitor monitor, Alert alert);
 
+    /**
+     * Sends a batch of alerts to a single alert monitor, in the order they were raised. This is
+     * called on the delivery thread only. Services that can send several alerts at once should
+     * override this; by default each alert is sent with {@link #sendAlert(AlertMonitor, Alert)}.
+     * Alerts that were not sent are counted as failed.
+     *
+     * @param monitor an individual alert monitor to send the alerts to
+     * @param alerts  the alerts to send to the remote monitor
+     * @return true if the alerts were sent, false otherwise
+     */
+    protected boolean sendAlerts(final AlertMonitor monitor, final List<Alert> alerts) {
+        for (Alert alert : alerts) {
+            sendAlert(monitor, alert);
+        }
+        return true;
+    }
+
+    /**
+     * Closes any connections held to the monitors. Called when the service is shut down.
+     */
+    protected void closeConnections() {
+    }
+
     /**
      * Sends an alert summary to a single alert monitor.
      *
@@ -1,28 +1,22 @@
 package hirs.data.persist;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import hirs.persist.DBReferenceManifestManager;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hirs.persist.ReferenceManifestManager;
 import hirs.persist.ReferenceManifestSelector;
-import hirs.utils.xjc.BaseElement;
-import hirs.utils.xjc.Directory;
-import hirs.utils.xjc.FilesystemItem;
-import hirs.utils.xjc.Meta;
+import hirs.utils.RimValidationEngine;
 import hirs.utils.xjc.ResourceCollection;
 import hirs.utils.xjc.SoftwareIdentity;
-import hirs.utils.xjc.SoftwareMeta;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.xml.bind.JAXBContext;
+import javax.persistence.Transient;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.UnmarshalException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.namespace.QName;
-import javax.xml.validation.Schema;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,13 +33,19 @@ import java.util.Map;
 @Entity
 public class BaseReferenceManifest extends ReferenceManifest {
     private static final Logger LOGGER = LogManager.getLogger(BaseReferenceManifest.class);
+
+    /**
+     * The number of parsed SWID tags kept for RIMs loaded from the database.
+     */
+    public static final int SWID_TAG_CACHE_SIZE = 1000;
+
+    private static final Cache<String, ParsedSwidTag> SWID_TAGS =
+            CacheBuilder.newBuilder().maximumSize(SWID_TAG_CACHE_SIZE).build();
     /**
      * Holds the name of the 'base64Hash' field.
      */
     public static final String BASE_64_HASH_FIELD = "base64Hash";
 
-    private static JAXBContext jaxbContext;
-
     @Column
     @JsonIgnore
     private String base64Hash = "";
@@ -83,6 +83,9 @@ public class BaseReferenceManifest extends ReferenceManifest {
     private String linkHref = null;
     private String linkRel = null;
 
+    @Transient
+    private transient volatile ParsedSwidTag swidTag;
+
     /**
      * This class enables the retrieval of BaseReferenceManifest by their attributes.
      */
@@ -230,45 +233,16 @@ public class BaseReferenceManifest extends ReferenceManifest {
                 this.setSwidTagVersion(si.getTagVersion().toString());
             }
 
-            for (Object object : si.getEntityOrEvidenceOrLink()) {
-                if (object instanceof JAXBElement) {
-                    JAXBElement element = (JAXBElement) object;
-                    String elementName = element.getName().getLocalPart();
-                    switch (elementName) {
-                        case "Meta":
-                            parseSoftwareMeta((SoftwareMeta) element.getValue());
-                            break;
-                        case "Entity":
-                            hirs.utils.xjc.Entity entity
-                                    = (hirs.utils.xjc.Entity) element.getValue();
-                            if (entity != null) {
-                                this.entityName = entity.getName();
-                                this.entityRegId = entity.getRegid();
-                                StringBuilder sb = new StringBuilder();
-                                for (String role : entity.getRole()) {
-                                    sb.append(String.format("%s%n", role));
-                                }
-                                this.entityRole = sb.toString();
-                                this.entityThumbprint = entity.getThumbprint();
-                            }
-                            break;
-                        case "Link":
-                            hirs.utils.xjc.Link link
-                                    = (hirs.utils.xjc.Link) element.getValue();
-                            if (link != null) {
-                                this.linkHref = link.getHref();
-                                this.linkRel = link.getRel();
-                            }
-                            break;
-                        case "Payload":
-                            parseResource((ResourceCollection) element.getValue());
-                            break;
-                        case "Signature":
-                            // left blank for a followup issue enhancement
-                        default:
-                    }
-                }
-            }
+            ParsedSwidTag tag = new ParsedSwidTag(si);
+            this.entityName = tag.getEntityName();
+            this.entityRegId = tag.getEntityRegId();
+            this.entityRole = tag.getEntityRole();
+            this.entityThumbprint = tag.getEntityThumbprint();
+            this.linkHref = tag.getLinkHref();
+            this.linkRel = tag.getLinkRel();
+            parseSoftwareMeta(tag.getSoftwareMeta());
+            this.swidTag = tag;
+            SWID_TAGS.put(getHexDecHash(), tag);
         }
     }
 
@@ -301,43 +275,43 @@ public class BaseReferenceManifest extends ReferenceManifest {
      */
     private SoftwareIdentity validateSwidTag(final InputStream fileStream) throws IOException {
         JAXBElement jaxbe = unmarshallSwidTag(fileStream);
-        SoftwareIdentity swidTag = (SoftwareIdentity) jaxbe.getValue();
+        SoftwareIdentity softwareIdentity = (SoftwareIdentity) jaxbe.getValue();
 
         LOGGER.info(String.format("SWID Tag found: %nname: %s;%ntagId:  %s%n%s",
-                swidTag.getName(), swidTag.getTagId(), SCHEMA_STATEMENT));
-        return swidTag;
+                softwareIdentity.getName(), softwareIdentity.getTagId(), SCHEMA_STATEMENT));
+        return softwareIdentity;
     }
 
     /**
-     * Helper method that is used to parse a specific element of the SwidTag
-     * based on an already established and stored byte array.
+     * Returns the parsed view of this RIM's SWID tag. The tag is unmarshalled at most once per
+     * instance, and RIMs loaded again from the database share the view of an earlier instance
+     * with the same hash for as long as it is cached.
      *
-     * @param elementName string of an xml tag in the file.
-     * @return the object value of the element, if it exists
+     * @return the parsed SWID tag, or null if the RIM bytes are not a valid SWID tag
      */
-    private BaseElement getBaseElementFromBytes(final String elementName) {
-        BaseElement baseElement = null;
-
-        if (getRimBytes() != null && elementName != null) {
-            try {
-                SoftwareIdentity si = validateSwidTag(new ByteArrayInputStream(getRimBytes()));
-                JAXBElement element;
-                for (Object object : si.getEntityOrEvidenceOrLink()) {
-                    if (object instanceof JAXBElement) {
-                        element = (JAXBElement) object;
-                        if (element.getName().getLocalPart().equals(elementName)) {
-                            // found the element
-                            baseElement = (BaseElement) element.getValue();
-                        }
-                    }
+    @JsonIgnore
+    public ParsedSwidTag getSwidTag() {
+        ParsedSwidTag tag = swidTag;
+        if (tag == null && getRimBytes() != null) {
+            String hash = getHexDecHash();
+            if (hash != null) {
+                tag = SWID_TAGS.getIfPresent(hash);
+            }
+            if (tag == null) {
+                try {
+                    tag = new ParsedSwidTag(
+                            validateSwidTag(new ByteArrayInputStream(getRimBytes())));
+                } catch (IOException ioEx) {
+                    LOGGER.error("Failed to parse Swid Tag bytes.", ioEx);
+                    return null;
+                }
+                if (hash != null) {
+                    SWID_TAGS.put(hash, tag);
                 }
-
-            } catch (IOException ioEx) {
-                LOGGER.error("Failed to parse Swid Tag bytes.", ioEx);
             }
+            swidTag = tag;
         }
-
-        return baseElement;
+        return tag;
     }
 
     /**
@@ -346,7 +320,11 @@ public class BaseReferenceManifest extends ReferenceManifest {
      * @return a collection of payload objects.
      */
     public final List<SwidResource> parseResource() {
-        return parseResource((ResourceCollection) this.getBaseElementFromBytes("Payload"));
+        ParsedSwidTag tag = getSwidTag();
+        if (tag == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(tag.getResources());
     }
 
     /**
@@ -356,33 +334,7 @@ public class BaseReferenceManifest extends ReferenceManifest {
      * @return a collection of payload objects.
      */
     public final List<SwidResource> parseResource(final ResourceCollection rc) {
-        List<SwidResource> resources = new ArrayList<>();
-
-        try {
-            if (rc != null) {
-                for (Meta meta : rc.getDirectoryOrFileOrProcess()) {
-                    if (meta != null) {
-                        if (meta instanceof Directory) {
-                            Directory directory = (Directory) meta;
-                            for (FilesystemItem fsi : directory.getDirectoryOrFile()) {
-                                if (fsi != null) {
-                                    resources.add(new SwidResource(
-                                            (hirs.utils.xjc.File) fsi, null));
-                                }
-                            }
-                        } else if (meta instanceof hirs.utils.xjc.File) {
-                            resources.add(new SwidResource((hirs.utils.xjc.File) meta, null));
-                        }
-                    }
-                }
-            }
-        } catch (ClassCastException ccEx) {
-            LOGGER.error(ccEx);
-            LOGGER.error("At this time, the code does not support the "
-                    + "particular formatting of this SwidTag's Payload.");
-        }
-
-        return resources;
+        return ParsedSwidTag.parseResources(rc);
     }
 
     /**
@@ -395,16 +347,9 @@ public class BaseReferenceManifest extends ReferenceManifest {
      */
     private JAXBElement unmarshallSwidTag(final InputStream stream) throws IOException {
         JAXBElement jaxbe = null;
-        Schema schema;
 
         try {
-            schema = DBReferenceManifestManager.getSchemaObject();
-            if (jaxbContext == null) {
-                jaxbContext = JAXBContext.newInstance(SCHEMA_PACKAGE);
-            }
-            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-            unmarshaller.setSchema(schema);
-            jaxbe = (JAXBElement) unmarshaller.unmarshal(stream);
+            jaxbe = RimValidationEngine.getInstance().unmarshal(stream);
         } catch (UnmarshalException umEx) {
             LOGGER.error(String.format("Error validating swidtag file!%n%s%n%s",
                     umEx.getMessage(), umEx.toString()));
@@ -430,13 +375,12 @@ public class BaseReferenceManifest extends ReferenceManifest {
      * This is a helper method that parses the SoftwareMeta tag and stores the
      * information in the class fields.
      *
-     * @param softwareMeta The object to parse.
+     * @param softwareMeta the attributes of the SoftwareMeta tag by local name.
      */
-    private void parseSoftwareMeta(final SoftwareMeta softwareMeta) {
+    private void parseSoftwareMeta(final Map<String, String> softwareMeta) {
         if (softwareMeta != null) {
-            for (Map.Entry<QName, String> entry
-                    : softwareMeta.getOtherAttributes().entrySet()) {
-                switch (entry.getKey().getLocalPart()) {
+            for (Map.Entry<String, String> entry : softwareMeta.entrySet()) {
+                switch (entry.getKey()) {
                     case "colloquialVersion":
                         this.colloquialVersion = entry.getValue();
                         break;
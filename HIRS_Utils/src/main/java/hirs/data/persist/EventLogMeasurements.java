@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import hirs.persist.ReferenceManifestManager;
 import hirs.persist.ReferenceManifestSelector;
 import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCursor;
 import hirs.tpm.eventlog.TpmPcrEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -145,12 +146,10 @@ public class EventLogMeasurements extends ReferenceManifest {
      * @return a string array of the pcr values.
      */
     public String[] getExpectedPCRList() {
-        try {
-            TCGEventLog logProcessor = new TCGEventLog(this.getRimBytes());
-            this.pcrHash = Arrays.hashCode(logProcessor.getExpectedPCRValues());
-            return logProcessor.getExpectedPCRValues();
-        } catch (CertificateException cEx) {
-            LOGGER.error(cEx);
+        try (TCGEventLogCursor cursor = new TCGEventLogCursor(this.getRimBytes())) {
+            String[] pcrValues = cursor.calculateExpectedPCRValues();
+            this.pcrHash = Arrays.hashCode(pcrValues);
+            return pcrValues;
         } catch (NoSuchAlgorithmException noSaEx) {
             LOGGER.error(noSaEx);
         } catch (IOException ioEx) {
@@ -4,6 +4,7 @@ import hirs.data.persist.tpm.PcrComposite;
 import hirs.data.persist.tpm.PcrInfoShort;
 import hirs.data.persist.tpm.PcrSelection;
 import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCursor;
 import hirs.tpm.eventlog.TpmPcrEvent;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
@@ -11,8 +12,10 @@ import org.apache.logging.log4j.Logger;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -130,34 +133,83 @@ public final class PCRPolicy extends Policy {
                 final Map<String, ReferenceDigestValue> eventValueMap) {
         List<TpmPcrEvent> tpmPcrEvents = new LinkedList<>();
         for (TpmPcrEvent tpe : tcgMeasurementLog.getEventList()) {
-            if (enableIgnoreIma && tpe.getPcrIndex() == IMA_PCR) {
-                LOGGER.info(String.format("IMA Ignored -> %s", tpe));
-            } else if (enableIgnoretBoot && (tpe.getPcrIndex() >= TBOOT_PCR_START
-                    && tpe.getPcrIndex() <= TBOOT_PCR_END)) {
-                LOGGER.info(String.format("TBOOT Ignored -> %s", tpe));
-            } else if (enableIgnoreOsEvt && (tpe.getPcrIndex() >= PXE_PCR_START
-                    && tpe.getPcrIndex() <= PXE_PCR_END)) {
-                LOGGER.info(String.format("OS Evt Ignored -> %s", tpe));
-            } else {
-                if (enableIgnoreGpt && tpe.getEventTypeStr().contains(EVT_EFI_GPT)) {
-                    LOGGER.info(String.format("GPT Ignored -> %s", tpe));
-                } else if (enableIgnoreOsEvt && (tpe.getEventTypeStr().contains(EVT_EFI_BOOT)
-                        || tpe.getEventTypeStr().contains(EVT_EFI_VAR))) {
-                    LOGGER.info(String.format("OS Evt Ignored -> %s", tpe));
-                } else if (enableIgnoreOsEvt && (tpe.getEventTypeStr().contains(EVT_EFI_CFG)
-                        && tpe.getEventContentStr().contains("SecureBoot"))) {
-                    LOGGER.info(String.format("OS Evt Config Ignored -> %s", tpe));
-                } else {
-                    if (!eventValueMap.containsKey(tpe.getEventDigestStr())) {
-                        tpmPcrEvents.add(tpe);
-                    }
-                }
+            String ignored = getIgnoredEventCategory(tpe.getPcrIndex(), tpe.getEventTypeStr());
+            if (ignored == null && isIgnoredConfig(tpe)) {
+                ignored = "OS Evt Config";
+            }
+            if (ignored != null) {
+                LOGGER.info(String.format("%s Ignored -> %s", ignored, tpe));
+            } else if (!eventValueMap.containsKey(tpe.getEventDigestStr())) {
+                tpmPcrEvents.add(tpe);
+            }
+        }
+
+        return tpmPcrEvents;
+    }
+
+    /**
+     * Checks that the expected FM events occurring, reading the measurement log one event at a
+     * time. Only the events that didn't pass, and the events whose variable must be checked,
+     * are fully parsed.
+     * @param measurementLog cursor over the measurement log from the client
+     * @param eventValueMap The events stored as baseline to compare
+     * @return the events that didn't pass
+     * @throws IOException if an event cannot be read
+     * @throws CertificateException if a certificate in an event cannot be parsed
+     * @throws NoSuchAlgorithmException if an event uses an unknown algorithm
+     */
+    public List<TpmPcrEvent> validateTpmEvents(final TCGEventLogCursor measurementLog,
+                final Map<String, ReferenceDigestValue> eventValueMap)
+            throws IOException, CertificateException, NoSuchAlgorithmException {
+        List<TpmPcrEvent> tpmPcrEvents = new LinkedList<>();
+        while (measurementLog.next()) {
+            String ignored = getIgnoredEventCategory(measurementLog.getPcrIndex(),
+                    measurementLog.getEventTypeStr());
+            if (ignored == null && enableIgnoreOsEvt
+                    && measurementLog.getEventTypeStr().contains(EVT_EFI_CFG)
+                    && isIgnoredConfig(measurementLog.getEvent())) {
+                ignored = "OS Evt Config";
+            }
+            if (ignored != null) {
+                LOGGER.info(String.format("%s Ignored -> Event# %d",
+                        ignored, measurementLog.getEventNumber()));
+            } else if (!eventValueMap.containsKey(measurementLog.getEventDigestStr())) {
+                tpmPcrEvents.add(measurementLog.getEvent());
             }
         }
 
         return tpmPcrEvents;
     }
 
+    /**
+     * Determines if the policy ignores events of a PCR or of an event type.
+     * @param pcrIndex PCR index of the event
+     * @param eventTypeStr formatted event type of the event
+     * @return the category of the ignored event for logging, null if the event is not ignored
+     */
+    private String getIgnoredEventCategory(final int pcrIndex, final String eventTypeStr) {
+        if (enableIgnoreIma && pcrIndex == IMA_PCR) {
+            return "IMA";
+        } else if (enableIgnoretBoot && (pcrIndex >= TBOOT_PCR_START
+                && pcrIndex <= TBOOT_PCR_END)) {
+            return "TBOOT";
+        } else if (enableIgnoreOsEvt && (pcrIndex >= PXE_PCR_START
+                && pcrIndex <= PXE_PCR_END)) {
+            return "OS Evt";
+        } else if (enableIgnoreGpt && eventTypeStr.contains(EVT_EFI_GPT)) {
+            return "GPT";
+        } else if (enableIgnoreOsEvt && (eventTypeStr.contains(EVT_EFI_BOOT)
+                || eventTypeStr.contains(EVT_EFI_VAR))) {
+            return "OS Evt";
+        }
+        return null;
+    }
+
+    private boolean isIgnoredConfig(final TpmPcrEvent tpe) {
+        return enableIgnoreOsEvt && (tpe.getEventTypeStr().contains(EVT_EFI_CFG)
+                && tpe.getEventContentStr().contains("SecureBoot"));
+    }
+
     /**
      * Compares hashs to validate the quote from the client.
      *
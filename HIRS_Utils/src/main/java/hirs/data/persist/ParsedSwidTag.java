@@ -0,0 +1,287 @@
+package hirs.data.persist;
+
+import hirs.utils.xjc.Directory;
+import hirs.utils.xjc.FilesystemItem;
+import hirs.utils.xjc.KeyInfoType;
+import hirs.utils.xjc.Meta;
+import hirs.utils.xjc.ResourceCollection;
+import hirs.utils.xjc.SignatureType;
+import hirs.utils.xjc.SoftwareIdentity;
+import hirs.utils.xjc.SoftwareMeta;
+import hirs.utils.xjc.X509DataType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable view of the parts of a SWID tag that are read after the tag was uploaded: the
+ * payload resources, the entity, link and software meta attributes, and what identifies the
+ * key the tag was signed with. A view is built from one unmarshalled tag and can be shared by
+ * any number of threads.
+ */
+public final class ParsedSwidTag {
+
+    private static final Logger LOGGER = LogManager.getLogger(ParsedSwidTag.class);
+
+    private final List<SwidResource> resources;
+    private final String entityName;
+    private final String entityRegId;
+    private final String entityRole;
+    private final String entityThumbprint;
+    private final String linkHref;
+    private final String linkRel;
+    private final Map<String, String> softwareMeta;
+    private final boolean signed;
+    private final String signatureMethod;
+    private final String keyName;
+    private final byte[] embeddedCertificate;
+
+    /**
+     * Builds the view of an unmarshalled SWID tag.
+     *
+     * @param swidTag the root element of the SWID tag
+     */
+    ParsedSwidTag(final SoftwareIdentity swidTag) {
+        List<SwidResource> payload = new ArrayList<>();
+        Map<String, String> meta = new HashMap<>();
+        String name = null;
+        String regId = null;
+        String role = null;
+        String thumbprint = null;
+        String href = null;
+        String rel = null;
+        SignatureType signature = null;
+
+        for (Object object : swidTag.getEntityOrEvidenceOrLink()) {
+            if (object instanceof SignatureType) {
+                signature = (SignatureType) object;
+                continue;
+            }
+            if (!(object instanceof JAXBElement)) {
+                continue;
+            }
+            JAXBElement element = (JAXBElement) object;
+            switch (element.getName().getLocalPart()) {
+                case "Meta":
+                    SoftwareMeta softwareMetaElement = (SoftwareMeta) element.getValue();
+                    if (softwareMetaElement != null) {
+                        for (Map.Entry<QName, String> entry
+                                : softwareMetaElement.getOtherAttributes().entrySet()) {
+                            meta.put(entry.getKey().getLocalPart(), entry.getValue());
+                        }
+                    }
+                    break;
+                case "Entity":
+                    hirs.utils.xjc.Entity entity = (hirs.utils.xjc.Entity) element.getValue();
+                    if (entity != null) {
+                        name = entity.getName();
+                        regId = entity.getRegid();
+                        StringBuilder sb = new StringBuilder();
+                        for (String entityRoleName : entity.getRole()) {
+                            sb.append(String.format("%s%n", entityRoleName));
+                        }
+                        role = sb.toString();
+                        thumbprint = entity.getThumbprint();
+                    }
+                    break;
+                case "Link":
+                    hirs.utils.xjc.Link link = (hirs.utils.xjc.Link) element.getValue();
+                    if (link != null) {
+                        href = link.getHref();
+                        rel = link.getRel();
+                    }
+                    break;
+                case "Payload":
+                    payload = parseResources((ResourceCollection) element.getValue());
+                    break;
+                case "Signature":
+                    if (element.getValue() instanceof SignatureType) {
+                        signature = (SignatureType) element.getValue();
+                    }
+                    break;
+                default:
+            }
+        }
+
+        this.resources = Collections.unmodifiableList(payload);
+        this.entityName = name;
+        this.entityRegId = regId;
+        this.entityRole = role;
+        this.entityThumbprint = thumbprint;
+        this.linkHref = href;
+        this.linkRel = rel;
+        this.softwareMeta = Collections.unmodifiableMap(meta);
+        this.signed = signature != null;
+
+        String method = null;
+        String signingKeyName = null;
+        byte[] certificate = null;
+        if (signature != null) {
+            if (signature.getSignedInfo() != null
+                    && signature.getSignedInfo().getSignatureMethod() != null) {
+                method = signature.getSignedInfo().getSignatureMethod().getAlgorithm();
+            }
+            KeyInfoType keyInfo = signature.getKeyInfo();
+            if (keyInfo != null) {
+                for (Object content : keyInfo.getContent()) {
+                    if (!(content instanceof JAXBElement)) {
+                        continue;
+                    }
+                    JAXBElement element = (JAXBElement) content;
+                    String elementName = element.getName().getLocalPart();
+                    if ("KeyName".equals(elementName) && signingKeyName == null) {
+                        signingKeyName = (String) element.getValue();
+                    } else if ("X509Data".equals(elementName) && certificate == null) {
+                        certificate = getCertificate((X509DataType) element.getValue());
+                    }
+                }
+            }
+        }
+        this.signatureMethod = method;
+        this.keyName = signingKeyName;
+        this.embeddedCertificate = certificate;
+    }
+
+    private static byte[] getCertificate(final X509DataType x509Data) {
+        for (Object object : x509Data.getX509IssuerSerialOrX509SKIOrX509SubjectName()) {
+            if (object instanceof JAXBElement
+                    && "X509Certificate".equals(
+                            ((JAXBElement) object).getName().getLocalPart())) {
+                return (byte[]) ((JAXBElement) object).getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method parses the payload method of a {@link ResourceCollection}.
+     *
+     * @param rc Resource Collection object.
+     * @return a collection of payload objects.
+     */
+    static List<SwidResource> parseResources(final ResourceCollection rc) {
+        List<SwidResource> resources = new ArrayList<>();
+
+        try {
+            if (rc != null) {
+                for (Meta meta : rc.getDirectoryOrFileOrProcess()) {
+                    if (meta != null) {
+                        if (meta instanceof Directory) {
+                            Directory directory = (Directory) meta;
+                            for (FilesystemItem fsi : directory.getDirectoryOrFile()) {
+                                if (fsi != null) {
+                                    resources.add(new SwidResource(
+                                            (hirs.utils.xjc.File) fsi, null));
+                                }
+                            }
+                        } else if (meta instanceof hirs.utils.xjc.File) {
+                            resources.add(new SwidResource((hirs.utils.xjc.File) meta, null));
+                        }
+                    }
+                }
+            }
+        } catch (ClassCastException ccEx) {
+            LOGGER.error(ccEx);
+            LOGGER.error("At this time, the code does not support the "
+                    + "particular formatting of this SwidTag's Payload.");
+        }
+
+        return resources;
+    }
+
+    /**
+     * @return the resources of the payload, which cannot be modified
+     */
+    public List<SwidResource> getResources() {
+        return resources;
+    }
+
+    /**
+     * @return the name of the entity, or null if the tag has no entity
+     */
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * @return the registration id of the entity
+     */
+    public String getEntityRegId() {
+        return entityRegId;
+    }
+
+    /**
+     * @return the roles of the entity, one per line
+     */
+    public String getEntityRole() {
+        return entityRole;
+    }
+
+    /**
+     * @return the thumbprint of the entity
+     */
+    public String getEntityThumbprint() {
+        return entityThumbprint;
+    }
+
+    /**
+     * @return the href of the link, or null if the tag has no link
+     */
+    public String getLinkHref() {
+        return linkHref;
+    }
+
+    /**
+     * @return the rel of the link
+     */
+    public String getLinkRel() {
+        return linkRel;
+    }
+
+    /**
+     * @return the attributes of the software meta element by local name, which cannot be
+     * modified
+     */
+    public Map<String, String> getSoftwareMeta() {
+        return softwareMeta;
+    }
+
+    /**
+     * @return true if the tag holds a signature element
+     */
+    public boolean isSigned() {
+        return signed;
+    }
+
+    /**
+     * @return the algorithm URI of the signature method, or null
+     */
+    public String getSignatureMethod() {
+        return signatureMethod;
+    }
+
+    /**
+     * @return the key name of the signature, which holds the subject key identifier of the
+     * signing certificate, or null
+     */
+    public String getKeyName() {
+        return keyName;
+    }
+
+    /**
+     * @return a copy of the DER encoded signing certificate embedded in the signature, or null
+     */
+    public byte[] getEmbeddedCertificate() {
+        if (embeddedCertificate == null) {
+            return null;
+        }
+        return embeddedCertificate.clone();
+    }
+}
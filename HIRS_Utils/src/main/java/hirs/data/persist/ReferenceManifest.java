@@ -35,6 +35,10 @@ public abstract class ReferenceManifest extends ArchivableEntity {
      * Holds the name of the 'hexDecHash' field.
      */
     public static final String HEX_DEC_HASH_FIELD = "hexDecHash";
+    /**
+     * Holds the name of the 'rimBytes' field.
+     */
+    public static final String RIM_BYTES_FIELD = "rimBytes";
     /**
      * String for display of a Base RIM.
      */
@@ -4,12 +4,14 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import hirs.persist.ReferenceManifestManager;
 import hirs.persist.ReferenceManifestSelector;
 import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCursor;
 import hirs.tpm.eventlog.TpmPcrEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Lob;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
@@ -23,10 +25,15 @@ import java.util.Collection;
 @Entity
 public class SupportReferenceManifest extends ReferenceManifest {
     private static final Logger LOGGER = LogManager.getLogger(SupportReferenceManifest.class);
+    private static final String PCR_VALUE_DELIMITER = ",";
     @Column
     @JsonIgnore
     private int pcrHash = 0;
     @Column
+    @Lob
+    @JsonIgnore
+    private String expectedPcrValues;
+    @Column
     private boolean updated = false;
     @Column
     private boolean processed = false;
@@ -117,6 +124,8 @@ public class SupportReferenceManifest extends ReferenceManifest {
         this.setFileName(fileName);
         this.setRimType(SUPPORT_RIM);
         this.pcrHash = 0;
+        // calculated once here so that the values are persisted with the support RIM
+        getExpectedPCRList();
     }
 
     /**
@@ -151,22 +160,26 @@ public class SupportReferenceManifest extends ReferenceManifest {
 
     /**
      * Getter method for the expected PCR values contained within the support
-     * RIM.
+     * RIM. The values are calculated from the event log the first time they are
+     * requested and kept with the support RIM afterwards.
      * @return a string array of the pcr values.
      */
     public String[] getExpectedPCRList() {
-        try {
-            TCGEventLog logProcessor = new TCGEventLog(this.getRimBytes());
-            this.pcrHash = Arrays.hashCode(logProcessor.getExpectedPCRValues());
-            return logProcessor.getExpectedPCRValues();
-        } catch (CertificateException cEx) {
-            LOGGER.error(cEx);
+        if (expectedPcrValues != null) {
+            return expectedPcrValues.split(PCR_VALUE_DELIMITER);
+        }
+        try (TCGEventLogCursor cursor = new TCGEventLogCursor(this.getRimBytes())) {
+            String[] pcrValues = cursor.calculateExpectedPCRValues();
+            this.pcrHash = Arrays.hashCode(pcrValues);
+            if (pcrValues.length > 0) {
+                this.expectedPcrValues = String.join(PCR_VALUE_DELIMITER, pcrValues);
+            }
+            return pcrValues;
         } catch (NoSuchAlgorithmException noSaEx) {
             LOGGER.error(noSaEx);
         } catch (IOException ioEx) {
             LOGGER.error(ioEx);
         }
-
         return new String[0];
     }
 
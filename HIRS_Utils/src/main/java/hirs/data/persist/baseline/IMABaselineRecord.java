@@ -82,12 +82,13 @@ public class IMABaselineRecord extends AbstractImaBaselineRecord {
     }
 
     /**
-     * Returns the 'bucket' of the given path (based on its hash).
+     * Returns the 'bucket' of the given path (based on the hash of its file name).  Paths with the
+     * same file name are always in the same bucket.
      *
      * @param path the path to hash
-     * @return the hash of the path
+     * @return the bucket of the path, from 0 to {@link #FILENAME_HASH_BUCKET_COUNT} - 1
      */
-    private static int getBucket(final String path) {
+    public static int getBucket(final String path) {
         if (path == null) {
             throw new IllegalArgumentException("Cannot get bucket for null value");
         }
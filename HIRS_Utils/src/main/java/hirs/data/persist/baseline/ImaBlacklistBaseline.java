@@ -13,6 +13,7 @@ import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -30,6 +31,10 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
     @JsonIgnore
     private Set<ImaBlacklistRecord> imaBlacklistRecords;
 
+    // matcher over imaBlacklistRecords, reused until the records or the policy change
+    @Transient
+    private volatile ImaBlacklistRecordMatcher matcher;
+
     /**
      * Construct a new ImaBlacklistBaseline.
      *
@@ -55,8 +60,12 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
             final IMAPolicy imaPolicy) {
         Preconditions.checkArgument(records != null, "Records cannot be null");
         Preconditions.checkArgument(imaPolicy != null, "IMA policy cannot be null");
-        return new ImaBlacklistRecordMatcher(imaBlacklistRecords, imaPolicy, this)
-                .batchMatch(records);
+        ImaBlacklistRecordMatcher blacklistMatcher = matcher;
+        if (blacklistMatcher == null || !blacklistMatcher.isCompiledFor(imaPolicy)) {
+            blacklistMatcher = new ImaBlacklistRecordMatcher(imaBlacklistRecords, imaPolicy, this);
+            matcher = blacklistMatcher;
+        }
+        return blacklistMatcher.batchMatch(records);
     }
 
     /**
@@ -67,6 +76,7 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
      */
     public final boolean addToBaseline(final ImaBlacklistRecord record) {
         record.setBaseline(this);
+        matcher = null;
         return imaBlacklistRecords.add(record);
     }
 
@@ -78,6 +88,7 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
      */
     public final boolean removeFromBaseline(final ImaBlacklistRecord record) {
         record.setBaseline(null);
+        matcher = null;
         return imaBlacklistRecords.remove(record);
     }
 
@@ -90,6 +101,7 @@ public class ImaBlacklistBaseline extends ImaBaseline<ImaBlacklistRecord> {
         Preconditions.checkNotNull(records);
         imaBlacklistRecords.clear();
         imaBlacklistRecords.addAll(records);
+        matcher = null;
         for (ImaBlacklistRecord record : records) {
             record.setBaseline(this);
         }
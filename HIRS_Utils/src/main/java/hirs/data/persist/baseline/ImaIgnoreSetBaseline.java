@@ -27,6 +27,7 @@ import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
 
@@ -47,6 +48,10 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
     @JsonIgnore
     private Set<ImaIgnoreSetRecord> imaIgnoreSetRecords;
 
+    // matcher over imaIgnoreSetRecords, reused until the records or the policy change
+    @Transient
+    private volatile ImaIgnoreSetRecordMatcher matcher;
+
     /**
      * Constructor used to initialize ImaIgnoreSetBaseline object. Makes an empty
      * <code>Set</code> of Strings and passes up the user provided name.
@@ -98,8 +103,8 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
             throws IllegalArgumentException {
 
         // the exception will be thrown here if a pattern cannot be added to the matcher
-        RegexFilePathMatcher matcher = new RegexFilePathMatcher("default pattern");
-        matcher.setPatterns(ignoreRecordPattern);
+        RegexFilePathMatcher patternMatcher = new RegexFilePathMatcher("default pattern");
+        patternMatcher.setPatterns(ignoreRecordPattern);
     }
 
     /**
@@ -119,6 +124,7 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
 
         boolean retVal = imaIgnoreSetRecords.remove(record);
         if (retVal) {
+            matcher = null;
             record.setBaseline(null);
         }
 
@@ -160,8 +166,12 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
     ) {
         Preconditions.checkArgument(records != null, "Records cannot be null");
         Preconditions.checkArgument(imaPolicy != null, "IMA policy cannot be null");
-        return new ImaIgnoreSetRecordMatcher(imaIgnoreSetRecords, imaPolicy, this)
-                .batchMatch(records);
+        ImaIgnoreSetRecordMatcher ignoreSetMatcher = matcher;
+        if (ignoreSetMatcher == null || !ignoreSetMatcher.isCompiledFor(imaPolicy)) {
+            ignoreSetMatcher = new ImaIgnoreSetRecordMatcher(imaIgnoreSetRecords, imaPolicy, this);
+            matcher = ignoreSetMatcher;
+        }
+        return ignoreSetMatcher.batchMatch(records);
     }
 
     /**
@@ -192,6 +202,7 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
      */
     private void setImaIgnoreSetRecords(final Set<ImaIgnoreSetRecord> imaIgnoreSetRecords) {
         this.imaIgnoreSetRecords = imaIgnoreSetRecords;
+        matcher = null;
     }
 
     /**
@@ -212,6 +223,7 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
             throw new IllegalArgumentException("null ignore set record");
         }
         if (imaIgnoreSetRecords.add(record)) {
+            matcher = null;
             LOGGER.info("added file path " + record.getPath()
                     + " to ImaIgnoreSetBaseline " + getName());
         } else {
@@ -231,6 +243,7 @@ public class ImaIgnoreSetBaseline extends ImaBaseline<ImaIgnoreSetRecord> {
      * @return a boolean indicating if the removal was successful
      */
     public final boolean removeOnlyBaseline(final ImaIgnoreSetRecord record) {
+        matcher = null;
         return imaIgnoreSetRecords.remove(record);
     }
 }
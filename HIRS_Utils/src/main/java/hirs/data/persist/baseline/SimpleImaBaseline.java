@@ -17,6 +17,7 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 import java.net.URL;
 import java.util.Collection;
 import java.util.Collections;
@@ -52,6 +53,13 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
     @Column(nullable = true)
     private URL yumRepoURL;
 
+    // matchers over imaRecords, reused until the records or the policy matching settings change
+    @Transient
+    private volatile ImaAcceptablePathAndHashRecordMatcher pathAndHashMatcher;
+
+    @Transient
+    private volatile ImaAcceptableHashRecordMatcher hashMatcher;
+
     private static final Logger LOGGER = getLogger(ImaBaseline.class);
 
     /**
@@ -133,6 +141,7 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
 
         boolean retVal = imaRecords.remove(record);
         if (retVal) {
+            resetMatchers();
             record.setBaseline(null);
         }
         LOGGER.debug("record removed: {}", record);
@@ -179,8 +188,12 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
         Preconditions.checkArgument(records != null, "Records cannot be null");
         Preconditions.checkArgument(imaPolicy != null, "IMA policy cannot be null");
 
-        return new ImaAcceptablePathAndHashRecordMatcher(imaRecords, imaPolicy, this)
-                .batchMatch(records);
+        ImaAcceptablePathAndHashRecordMatcher matcher = pathAndHashMatcher;
+        if (matcher == null || !matcher.isCompiledFor(imaPolicy)) {
+            matcher = new ImaAcceptablePathAndHashRecordMatcher(imaRecords, imaPolicy, this);
+            pathAndHashMatcher = matcher;
+        }
+        return matcher.batchMatch(records);
     }
 
 
@@ -192,8 +205,12 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
         Preconditions.checkArgument(records != null, "Records cannot be null");
         Preconditions.checkArgument(imaPolicy != null, "IMA policy cannot be null");
 
-        return new ImaAcceptableHashRecordMatcher(imaRecords, imaPolicy, this)
-                .batchMatch(records);
+        ImaAcceptableHashRecordMatcher matcher = hashMatcher;
+        if (matcher == null || !matcher.isCompiledFor(imaPolicy)) {
+            matcher = new ImaAcceptableHashRecordMatcher(imaRecords, imaPolicy, this);
+            hashMatcher = matcher;
+        }
+        return matcher.batchMatch(records);
     }
 
     @Override
@@ -260,6 +277,7 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
 
         } else  {
             imaRecords.add(record);
+            resetMatchers();
             LOGGER.debug("record added: {}", record);
         }
 
@@ -274,9 +292,18 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
      * @return a boolean indicating if the removal was successful
      */
     final boolean removeOnlyBaseline(final IMABaselineRecord record) {
+        resetMatchers();
         return imaRecords.remove(record);
     }
 
+    /**
+     * Discards the matchers built over the records so that they are rebuilt on next use.
+     */
+    private void resetMatchers() {
+        pathAndHashMatcher = null;
+        hashMatcher = null;
+    }
+
     /**
      * Returns the actual <code>Set</code> that contains the IMA records. See
      * {@link #setImaRecords(Set)} for more details on why this is needed.
@@ -304,5 +331,6 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
      */
     private void setImaRecords(final Set<IMABaselineRecord> imaRecords) {
         this.imaRecords = imaRecords;
+        resetMatchers();
     }
 }
@@ -217,6 +217,10 @@ public abstract class Certificate extends ArchivableEntity {
     @Column(nullable = false)
     private final Date endValidity;
 
+    /**
+     * Holds the name of the 'certificateBytes' field.
+     */
+    public static final String CERTIFICATE_BYTES_FIELD = "certificateBytes";
     @Column(length = MAX_CERT_LENGTH_BYTES, nullable = false)
     @JsonIgnore
     private byte[] certificateBytes;
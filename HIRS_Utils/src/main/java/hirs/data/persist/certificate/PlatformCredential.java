@@ -40,6 +40,7 @@ import javax.persistence.Entity;
 import javax.persistence.Transient;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -204,6 +205,29 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
             setFieldValue(DEVICE_ID_FIELD, device);
             return this;
         }
+
+        /**
+         * Specify device ids that certificates must have one of to be considered as matching.
+         *
+         * @param devices the device ids to query, not empty or null
+         * @return this instance (for chaining further calls)
+         */
+        public Selector byDeviceIds(final Collection<UUID> devices) {
+            setFieldValue(DEVICE_ID_FIELD, devices);
+            return this;
+        }
+
+        /**
+         * Specify board serial numbers that certificates must have one of to be considered as
+         * matching.
+         *
+         * @param boardSerialNumbers the board serial numbers to query, not empty or null
+         * @return this instance (for chaining further calls)
+         */
+        public Selector byBoardSerialNumbers(final Collection<String> boardSerialNumbers) {
+            setFieldValue(PLATFORM_SERIAL_FIELD, boardSerialNumbers);
+            return this;
+        }
     }
 
     @Column
@@ -261,6 +285,11 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     @Transient
     private EndorsementCredential endorsementCredential = null;
 
+    // the attributes parsed from the certificate bytes, which never change once set, so they
+    // are only parsed the first time they are needed
+    @Transient
+    private transient volatile Map<String, Object> parsedAttributes = null;
+
     private String platformChainType = Strings.EMPTY;
     private boolean isDeltaChain = false;
 
@@ -683,7 +712,7 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
         }
         // Get all the attributes map to check for validity
         try {
-            getAllAttributes();
+            parsedAttributes = Collections.unmodifiableMap(parseAttributes(certificate));
         } catch (IllegalArgumentException ex) {
             throw new IOException(ex.getMessage());
         }
@@ -755,17 +784,30 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     }
 
     /**
-     * Get the Platform Configuration Attribute from the Platform Certificate.
-     * @return a map with all the attributes
+     * Get the Platform Configuration Attribute from the Platform Certificate.  The attributes
+     * are parsed the first time they are requested and the same objects are returned by every
+     * later call, so they should not be modified.
+     * @return an unmodifiable map with all the attributes
      * @throws IllegalArgumentException when there is a parsing error
      * @throws IOException when reading the certificate.
      */
     public Map<String, Object> getAllAttributes()
             throws IllegalArgumentException, IOException {
+        Map<String, Object> attributes = parsedAttributes;
+        if (attributes == null) {
+            attributes = Collections.unmodifiableMap(
+                    parseAttributes(getAttributeCertificate().getAcinfo()));
+            parsedAttributes = attributes;
+        }
+        return attributes;
+    }
+
+    private Map<String, Object> parseAttributes(final AttributeCertificateInfo certificate)
+            throws IllegalArgumentException {
         Map<String, Object> attributes = new HashMap<>();
         ASN1Sequence attributeSequence;
         // Check all attributes for Platform Configuration
-        for (ASN1Encodable enc: getAttributeCertificate().getAcinfo().getAttributes().toArray()) {
+        for (ASN1Encodable enc: certificate.getAttributes().toArray()) {
             Attribute attr = Attribute.getInstance(enc);
             attributeSequence
                         = ASN1Sequence.getInstance(attr.getAttrValues().getObjectAt(0));
@@ -824,10 +866,9 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      */
     public PlatformConfiguration getPlatformConfiguration()
             throws IllegalArgumentException, IOException {
-
-        if (getAttribute("platformConfiguration") != null
-                && getAttribute("platformConfiguration") instanceof PlatformConfiguration) {
-            return (PlatformConfiguration) getAttribute("platformConfiguration");
+        Object platformConfiguration = getAttribute("platformConfiguration");
+        if (platformConfiguration instanceof PlatformConfiguration) {
+            return (PlatformConfiguration) platformConfiguration;
         }
 
         return null;
@@ -841,9 +882,9 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      */
     public URIReference getPlatformConfigurationURI()
             throws IllegalArgumentException, IOException {
-        if (getAttribute("platformConfigurationURI") != null
-                && getAttribute("platformConfigurationURI") instanceof URIReference) {
-            return (URIReference) getAttribute("platformConfigurationURI");
+        Object platformConfigurationUri = getAttribute("platformConfigurationURI");
+        if (platformConfigurationUri instanceof URIReference) {
+            return (URIReference) platformConfigurationUri;
         }
         return null;
     }
@@ -856,9 +897,9 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      */
     public TBBSecurityAssertion getTBBSecurityAssertion()
             throws IllegalArgumentException, IOException {
-        if (getAttribute("tbbSecurityAssertion") != null
-                && getAttribute("tbbSecurityAssertion") instanceof TBBSecurityAssertion) {
-            return (TBBSecurityAssertion) getAttribute("tbbSecurityAssertion");
+        Object tbbSecurityAssertion = getAttribute("tbbSecurityAssertion");
+        if (tbbSecurityAssertion instanceof TBBSecurityAssertion) {
+            return (TBBSecurityAssertion) tbbSecurityAssertion;
         }
         return null;
     }
@@ -0,0 +1,102 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.enums.DigestAlgorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An open addressing hash table from binary digests to the baseline records holding them.
+ * Lookups hash and compare the digest bytes directly, instead of building the hex string of
+ * every measured digest as a map keyed by {@link Digest#toString()} requires.
+ *
+ * @param <T> the type of the indexed records
+ */
+final class DigestIndex<T> {
+
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int BYTE_MASK = 0xff;
+
+    private final DigestAlgorithm[] algorithms;
+    private final byte[][] digests;
+    private final List<List<T>> records;
+    private final int mask;
+
+    /**
+     * Builds an index over the given digests and records, which are paired by position.
+     *
+     * @param keys the digests of the records, null entries are skipped
+     * @param values the records
+     */
+    DigestIndex(final List<Digest> keys, final List<T> values) {
+        int capacity = MINIMUM_CAPACITY;
+        // keep the table at most half full so that probe sequences stay short
+        while (capacity < keys.size() * 2) {
+            capacity <<= 1;
+        }
+        algorithms = new DigestAlgorithm[capacity];
+        digests = new byte[capacity][];
+        records = new ArrayList<>(Collections.<List<T>>nCopies(capacity, null));
+        mask = capacity - 1;
+
+        for (int i = 0; i < keys.size(); i++) {
+            Digest key = keys.get(i);
+            if (key == null) {
+                continue;
+            }
+            byte[] digest = key.getDigest();
+            int slot = find(key.getAlgorithm(), digest);
+            if (digests[slot] == null) {
+                algorithms[slot] = key.getAlgorithm();
+                digests[slot] = digest;
+                records.set(slot, new ArrayList<T>());
+            }
+            records.get(slot).add(values.get(i));
+        }
+        for (int slot = 0; slot < capacity; slot++) {
+            if (records.get(slot) != null) {
+                records.set(slot, Collections.unmodifiableList(records.get(slot)));
+            }
+        }
+    }
+
+    /**
+     * Looks up the records holding the given digest.
+     *
+     * @param digest the digest to look up
+     * @return the records holding an equal digest, in the order they were indexed; empty if none
+     */
+    List<T> get(final Digest digest) {
+        List<T> found = records.get(find(digest.getAlgorithm(), digest.getDigest()));
+        if (found == null) {
+            return Collections.emptyList();
+        }
+        return found;
+    }
+
+    /**
+     * Finds the slot holding the digest, or the empty slot where it would be inserted.
+     */
+    private int find(final DigestAlgorithm algorithm, final byte[] digest) {
+        int slot = hash(digest) & mask;
+        while (digests[slot] != null
+                && (algorithms[slot] != algorithm || !Arrays.equals(digests[slot], digest))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Digests are uniformly distributed already, so their leading bytes make a good hash.
+     */
+    private static int hash(final byte[] digest) {
+        int hash = 0;
+        for (int i = 0; i < Integer.BYTES && i < digest.length; i++) {
+            hash = (hash << Byte.SIZE) | (digest[i] & BYTE_MASK);
+        }
+        return hash ^ (hash >>> (Integer.SIZE / 2));
+    }
+}
@@ -41,9 +41,25 @@ public class ImaAcceptableHashRecordMatcher extends ImaRecordMatcher<IMABaseline
      */
     @Override
     public IMAMatchStatus<IMABaselineRecord> contains(final IMAMeasurementRecord record) {
+        return contains(record, new MatchBuffers<IMABaselineRecord>());
+    }
+
+    /**
+     * Same as {@link #contains(IMAMeasurementRecord)}, but collects the related baseline records
+     * in the given buffers.
+     *
+     * @param record the record to look up
+     * @param buffers the buffers to collect baseline records in
+     * @return an IMAMatchStatus indicating whether the record is a match, mismatch, or unknown to
+     *         the given baseline records
+     */
+    @Override
+    protected IMAMatchStatus<IMABaselineRecord> contains(final IMAMeasurementRecord record,
+            final MatchBuffers<IMABaselineRecord> buffers) {
         Preconditions.checkArgument(record != null, "Cannot match on null record.");
 
-        final Set<IMABaselineRecord> matchingRecords = getRelatedBaselineRecordsByHash(record);
+        final Set<IMABaselineRecord> matchingRecords =
+                getRelatedBaselineRecordsByHash(record, buffers);
 
         if (matchingRecords.isEmpty()) {
             return new IMAMatchStatus<>(record, ReportMatchStatus.UNKNOWN, getImaBaseline());
@@ -10,7 +10,6 @@ import hirs.data.persist.enums.ReportMatchStatus;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
@@ -48,13 +47,28 @@ public class ImaAcceptablePathAndHashRecordMatcher extends ImaRecordMatcher<IMAB
      */
     @Override
     public IMAMatchStatus<IMABaselineRecord> contains(final IMAMeasurementRecord record) {
+        return contains(record, new MatchBuffers<IMABaselineRecord>());
+    }
+
+    /**
+     * Same as {@link #contains(IMAMeasurementRecord)}, but collects the related baseline records
+     * in the given buffers.
+     *
+     * @param record the record to look up
+     * @param buffers the buffers to collect baseline records in
+     * @return an IMAMatchStatus indicating whether the record is a match, mismatch, or unknown to
+     *         the given baseline records
+     */
+    @Override
+    protected IMAMatchStatus<IMABaselineRecord> contains(final IMAMeasurementRecord record,
+            final MatchBuffers<IMABaselineRecord> buffers) {
         Preconditions.checkArgument(record != null, "Cannot match on null record.");
 
-        final Set<IMABaselineRecord> matchRecords = new HashSet<>();
-        final Set<IMABaselineRecord> mismatchRecords = new HashSet<>();
+        final Set<IMABaselineRecord> matchRecords = buffers.getMatches();
+        final Set<IMABaselineRecord> mismatchRecords = buffers.getMismatches();
 
         final Collection<IMABaselineRecord> matchingRecords = getRelatedBaselineRecordsByPath(
-                record
+                record, buffers
         );
 
         for (IMABaselineRecord baselineRecord : matchingRecords) {
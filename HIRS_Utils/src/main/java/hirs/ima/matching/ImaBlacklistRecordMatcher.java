@@ -8,7 +8,6 @@ import hirs.data.persist.enums.AlertType;
 import hirs.data.persist.enums.ReportMatchStatus;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -40,13 +39,30 @@ public class ImaBlacklistRecordMatcher extends ImaRecordMatcher<ImaBlacklistReco
      *         the given baseline records
      */
     public IMAMatchStatus<ImaBlacklistRecord> contains(final IMAMeasurementRecord record) {
+        return contains(record, new MatchBuffers<ImaBlacklistRecord>());
+    }
+
+    /**
+     * Same as {@link #contains(IMAMeasurementRecord)}, but collects the related baseline records
+     * in the given buffers.
+     *
+     * @param record the record to look up
+     * @param buffers the buffers to collect baseline records in
+     * @return an IMAMatchStatus indicating whether the record is a match, mismatch, or unknown to
+     *         the given baseline records
+     */
+    @Override
+    protected IMAMatchStatus<ImaBlacklistRecord> contains(final IMAMeasurementRecord record,
+            final MatchBuffers<ImaBlacklistRecord> buffers) {
         if (record == null) {
             throw new IllegalArgumentException("Cannot match on null record.");
         }
 
-        final Set<ImaBlacklistRecord> matchesByPath = getRelatedBaselineRecordsByPath(record);
-        final Set<ImaBlacklistRecord> matchesByHash = getRelatedBaselineRecordsByHash(record);
-        final Set<ImaBlacklistRecord> matchingRecords = new HashSet<>();
+        final Set<ImaBlacklistRecord> matchesByPath =
+                getRelatedBaselineRecordsByPath(record, buffers);
+        final Set<ImaBlacklistRecord> matchesByHash =
+                getRelatedBaselineRecordsByHash(record, buffers);
+        final Set<ImaBlacklistRecord> matchingRecords = buffers.getMatches();
 
         for (ImaBlacklistRecord blacklistRecord : matchesByPath) {
             if (blacklistRecord.getHash() == null || matchesByHash.contains(blacklistRecord)) {
@@ -59,11 +59,26 @@ public class ImaIgnoreSetRecordMatcher extends ImaRecordMatcher<ImaIgnoreSetReco
      *         the given baseline records
      */
     public IMAMatchStatus<ImaIgnoreSetRecord> contains(final IMAMeasurementRecord record) {
+        return contains(record, new MatchBuffers<ImaIgnoreSetRecord>());
+    }
+
+    /**
+     * Same as {@link #contains(IMAMeasurementRecord)}, but collects the related baseline records
+     * in the given buffers.
+     *
+     * @param record the record to look up
+     * @param buffers the buffers to collect baseline records in
+     * @return an IMAMatchStatus indicating whether the record is a match, mismatch, or unknown to
+     *         the given baseline records
+     */
+    @Override
+    protected IMAMatchStatus<ImaIgnoreSetRecord> contains(final IMAMeasurementRecord record,
+            final MatchBuffers<ImaIgnoreSetRecord> buffers) {
         if (record == null) {
             throw new IllegalArgumentException("Cannot match on null record.");
         }
 
-        Set<ImaIgnoreSetRecord> matchingRecords = getRelatedBaselineRecordsByPath(record);
+        Set<ImaIgnoreSetRecord> matchingRecords = getRelatedBaselineRecordsByPath(record, buffers);
 
         for (Map.Entry<ImaIgnoreSetRecord, RegexFilePathMatcher> recordMatcher
                 : matchers.entrySet()) {
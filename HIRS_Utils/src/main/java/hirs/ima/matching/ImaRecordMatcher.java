@@ -1,6 +1,6 @@
 package hirs.ima.matching;
 
-import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Multimap;
 import hirs.data.persist.Digest;
 import hirs.data.persist.baseline.IMABaselineRecord;
@@ -11,26 +11,56 @@ import hirs.data.persist.baseline.ImaBaseline;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * This class contains the logic used to match IMA measurement records against
  * IMA baseline records.  Given a collection of IMABaselineRecords, an IMAPolicy,
  * and an ImaBaseline, it is able to determine which measurement records should be considered
  * matches, mismatches, or unknown to the given set of baseline records.
+ * <p>
+ * The lookup indexes are built once, on first use, and are safe to share between threads, so a
+ * matcher can be reused for as long as its baseline records and the matching settings of the
+ * policy stay the same.  See {@link #isCompiledFor(IMAPolicy)}.
+ * <p>
+ * The path index is partitioned by {@link IMABaselineRecord#getBucket(String) filename bucket},
+ * so large batches of measurement records are sharded by the same buckets and each shard is
+ * matched against its own slice of the index in parallel.  Batches of at least
+ * {@link #PARTITIONED_MATCH_THRESHOLD} records are matched this way, on a pool dedicated to IMA
+ * matching that can be replaced with {@link #setMatchPool(ForkJoinPool)}; smaller batches are
+ * matched on the calling thread.
  *
  * @param <T> the type of IMA baseline record that this class matches against
  */
 public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
-    private final IMAPolicy imaPolicy;
+    /**
+     * The number of measurement records from which {@link #batchMatch(Collection)} matches the
+     * records in parallel, one shard per filename bucket.  Below it, sharding the records and
+     * handing the shards to the pool costs more than matching the records on the calling thread.
+     */
+    public static final int PARTITIONED_MATCH_THRESHOLD = 1000;
+
+    // the pool large batches are matched on; created on first use unless one is set
+    private static volatile ForkJoinPool matchPool = null;
+
     private final ImaBaseline imaBaseline;
     private final Collection<T> records;
+    private final boolean partialPathEnable;
+    private final ImmutableSetMultimap<String, String> pathEquivalences;
+    private final PathEquivalenceTrie pathEquivalenceTrie;
 
-    // lookup maps
-    private Multimap<String, T> pathMap = null;
-    private Multimap<String, T> hashMap = null;
+    // lookup indexes; the path index has one slice per filename bucket
+    private volatile List<Map<String, List<T>>> pathMaps = null;
+    private volatile DigestIndex<T> hashIndex = null;
 
     /**
      * Construct a new IMARecordMatcher.
@@ -46,8 +76,25 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
             final IMAPolicy imaPolicy,
             final ImaBaseline imaBaseline) {
         this.records = records;
-        this.imaPolicy = imaPolicy;
         this.imaBaseline = imaBaseline;
+        this.partialPathEnable = imaPolicy.isPartialPathEnable();
+        this.pathEquivalences = ImmutableSetMultimap.copyOf(imaPolicy.getPathEquivalences());
+        this.pathEquivalenceTrie = new PathEquivalenceTrie(pathEquivalences);
+    }
+
+    /**
+     * Determines whether this matcher matches records the same way a matcher newly created for
+     * the given policy would, that is whether the partial path and path equivalence settings of
+     * the policy are unchanged since this matcher was created.
+     *
+     * @param policy the IMA policy to compare the matching settings of
+     * @return true if this matcher can be reused for the given policy
+     */
+    public boolean isCompiledFor(final IMAPolicy policy) {
+        return policy != null
+                && policy.isPartialPathEnable() == partialPathEnable
+                && pathEquivalences.equals(
+                        ImmutableSetMultimap.copyOf(policy.getPathEquivalences()));
     }
 
     /**
@@ -69,20 +116,223 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
      */
     public abstract IMAMatchStatus<T> contains(IMAMeasurementRecord record);
 
+    /**
+     * Same as {@link #contains(IMAMeasurementRecord)}, but collects the related and matching
+     * baseline records in the given buffers instead of in new sets.  Batch matches call this
+     * method with one set of buffers per thread, reused for every record the thread matches.
+     * The default implementation ignores the buffers.
+     *
+     * @param record the record to look up
+     * @param buffers the buffers to collect baseline records in
+     * @return an IMAMatchStatus indicating whether the record is a match, mismatch, or unknown to
+     *         the given baseline records
+     */
+    protected IMAMatchStatus<T> contains(final IMAMeasurementRecord record,
+                                         final MatchBuffers<T> buffers) {
+        return contains(record);
+    }
+
+    /**
+     * Reusable sets for collecting the baseline records related to one measurement record at a
+     * time.  Every getter clears its set before returning it, so a set must no longer be in use
+     * when its getter is called again.  {@link IMAMatchStatus} copies the baseline records it is
+     * given, so the sets can be handed to it.  Instances are not safe to share between threads.
+     *
+     * @param <R> the type of baseline record collected
+     */
+    protected static final class MatchBuffers<R> {
+        private Set<R> pathRecords;
+        private Set<R> hashRecords;
+        private Set<R> matches;
+        private Set<R> mismatches;
+
+        /**
+         * @return an empty set for the baseline records related to a record by path
+         */
+        public Set<R> getPathRecords() {
+            pathRecords = cleared(pathRecords);
+            return pathRecords;
+        }
+
+        /**
+         * @return an empty set for the baseline records related to a record by hash
+         */
+        public Set<R> getHashRecords() {
+            hashRecords = cleared(hashRecords);
+            return hashRecords;
+        }
+
+        /**
+         * @return an empty set for the baseline records matching a record
+         */
+        public Set<R> getMatches() {
+            matches = cleared(matches);
+            return matches;
+        }
+
+        /**
+         * @return an empty set for the baseline records mismatching a record
+         */
+        public Set<R> getMismatches() {
+            mismatches = cleared(mismatches);
+            return mismatches;
+        }
+
+        private static <R> Set<R> cleared(final Set<R> buffer) {
+            if (buffer == null) {
+                return new HashSet<>();
+            }
+            buffer.clear();
+            return buffer;
+        }
+    }
+
     /**
      * Given a collection of measurement records, populate and return a BatchImaMatchStatus
      * instance containing the match results according to this ImaRecordMatcher's matching
-     * behavior and the given IMA policy, baseline, and baseline records.
+     * behavior and the given IMA policy, baseline, and baseline records.  Batches of at least
+     * {@link #PARTITIONED_MATCH_THRESHOLD} records are matched in parallel on the IMA matching
+     * pool, see {@link #batchMatch(Collection, ForkJoinPool)} and
+     * {@link #setMatchPool(ForkJoinPool)}.
      *
      * @param records the measurement records to match to baseline records
      * @return a BatchImaMatchStatus containing the match status of all the given records
      */
     public BatchImaMatchStatus<T> batchMatch(final Collection<IMAMeasurementRecord> records) {
-        List<IMAMatchStatus<T>> matchStatuses = new ArrayList<>();
+        if (records.size() >= PARTITIONED_MATCH_THRESHOLD) {
+            return batchMatch(records, getMatchPool());
+        }
+        return new BatchImaMatchStatus<>(matchAll(records));
+    }
+
+    /**
+     * Sets the pool that {@link #batchMatch(Collection)} matches large batches on, for all
+     * matchers.  By default a pool dedicated to IMA matching, with one thread per processor, is
+     * created on first use, so that matching does not compete with other users of the common
+     * fork-join pool.  The caller remains responsible for shutting down a pool it sets.
+     *
+     * @param pool the pool to match large batches on, or null to use the dedicated pool
+     */
+    public static void setMatchPool(final ForkJoinPool pool) {
+        synchronized (ImaRecordMatcher.class) {
+            matchPool = pool;
+        }
+    }
+
+    private static ForkJoinPool getMatchPool() {
+        ForkJoinPool pool = matchPool;
+        if (pool == null) {
+            synchronized (ImaRecordMatcher.class) {
+                pool = matchPool;
+                if (pool == null) {
+                    pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                            forkJoinPool -> {
+                                ForkJoinWorkerThread thread = ForkJoinPool
+                                        .defaultForkJoinWorkerThreadFactory
+                                        .newThread(forkJoinPool);
+                                thread.setName("hirs-ima-match-" + thread.getPoolIndex());
+                                return thread;
+                            }, null, false);
+                    matchPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Matches a collection of measurement records in parallel.  The records are sharded by their
+     * {@link IMABaselineRecord#getBucket(String) filename bucket}, each shard is matched against
+     * the slice of the baseline records in the same bucket as a task on the given pool, and the
+     * results of the shards are merged into a single BatchImaMatchStatus.  The result is the
+     * same as that of matching the records one at a time.
+     *
+     * @param records the measurement records to match to baseline records
+     * @param pool the pool to match the shards on
+     * @return a BatchImaMatchStatus containing the match status of all the given records
+     */
+    public BatchImaMatchStatus<T> batchMatch(
+            final Collection<IMAMeasurementRecord> records,
+            final ForkJoinPool pool) {
+        if (records == null || pool == null) {
+            throw new IllegalArgumentException("Cannot match with null records or pool.");
+        }
+
+        List<List<IMAMeasurementRecord>> shards =
+                new ArrayList<>(IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+        for (int i = 0; i < IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT; i++) {
+            shards.add(new ArrayList<IMAMeasurementRecord>());
+        }
+        for (IMAMeasurementRecord record : records) {
+            if (record == null) {
+                throw new IllegalArgumentException("Cannot match on null record.");
+            }
+            shards.get(IMABaselineRecord.getBucket(record.getPath())).add(record);
+        }
+
+        // build the indexes up front rather than in whichever shard gets to them first
+        getPathMaps();
+        getHashIndex();
+
+        return pool.invoke(new PartitionedMatchTask(shards));
+    }
+
+    private List<IMAMatchStatus<T>> matchAll(final Collection<IMAMeasurementRecord> records) {
+        List<IMAMatchStatus<T>> matchStatuses = new ArrayList<>(records.size());
+        MatchBuffers<T> buffers = new MatchBuffers<>();
         for (IMAMeasurementRecord record : records) {
-            matchStatuses.add(contains(record));
+            matchStatuses.add(contains(record, buffers));
+        }
+        return matchStatuses;
+    }
+
+    /**
+     * Forks one task per shard of measurement records and merges their results.
+     */
+    private final class PartitionedMatchTask extends RecursiveTask<BatchImaMatchStatus<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<List<IMAMeasurementRecord>> shards;
+
+        private PartitionedMatchTask(final List<List<IMAMeasurementRecord>> shards) {
+            this.shards = shards;
+        }
+
+        @Override
+        protected BatchImaMatchStatus<T> compute() {
+            List<ForkJoinTask<List<IMAMatchStatus<T>>>> tasks = new ArrayList<>(shards.size());
+            for (List<IMAMeasurementRecord> shard : shards) {
+                if (!shard.isEmpty()) {
+                    tasks.add(new ShardMatchTask(shard).fork());
+                }
+            }
+
+            BatchImaMatchStatus<T> batchStatus = new BatchImaMatchStatus<>();
+            for (ForkJoinTask<List<IMAMatchStatus<T>>> task : tasks) {
+                for (IMAMatchStatus<T> matchStatus : task.join()) {
+                    batchStatus.add(matchStatus);
+                }
+            }
+            return batchStatus;
+        }
+    }
+
+    /**
+     * Matches the measurement records of one filename bucket.
+     */
+    private final class ShardMatchTask extends RecursiveTask<List<IMAMatchStatus<T>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<IMAMeasurementRecord> shard;
+
+        private ShardMatchTask(final List<IMAMeasurementRecord> shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        protected List<IMAMatchStatus<T>> compute() {
+            return matchAll(shard);
         }
-        return new BatchImaMatchStatus<>(matchStatuses);
     }
 
     /**
@@ -94,20 +344,33 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
      * @return the resulting set of IMA baseline records
      */
     protected Set<T> getRelatedBaselineRecordsByPath(final IMAMeasurementRecord record) {
+        return addRelatedBaselineRecordsByPath(record, new HashSet<T>());
+    }
+
+    /**
+     * Same as {@link #getRelatedBaselineRecordsByPath(IMAMeasurementRecord)}, but collects the
+     * records in the path records set of the given buffers.
+     *
+     * @param record the record for which all matching IMA baseline records should be returned
+     * @param buffers the buffers to collect the records in
+     * @return the resulting set of IMA baseline records, owned by the buffers
+     */
+    protected Set<T> getRelatedBaselineRecordsByPath(final IMAMeasurementRecord record,
+                                                     final MatchBuffers<T> buffers) {
+        return addRelatedBaselineRecordsByPath(record, buffers.getPathRecords());
+    }
+
+    private Set<T> addRelatedBaselineRecordsByPath(final IMAMeasurementRecord record,
+                                                   final Set<T> matchingRecords) {
         if (record == null) {
             throw new IllegalArgumentException("Cannot match on null record.");
         }
 
-        if (pathMap == null) {
-            pathMap = createPathMap(this.records);
-        }
-
-        final Set<T> matchingRecords = new HashSet<>();
-        matchingRecords.addAll(pathMap.get(record.getPath()));
+        matchingRecords.addAll(getPathRecords(record.getPath()));
 
-        if (imaPolicy.isPartialPathEnable() && isFullPath(record.getPath())) {
+        if (partialPathEnable && isFullPath(record.getPath())) {
             for (T matchingPartialRecord
-                    : pathMap.get(IMABaselineRecord.getPartialPath(record.getPath()))) {
+                    : getPathRecords(IMABaselineRecord.getPartialPath(record.getPath()))) {
 
                 // ensure that we're not about to match two unequal full paths
                 if (isFullPath(matchingPartialRecord.getPath())
@@ -130,46 +393,111 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
      * @return the resulting set of IMA baseline records
      */
     protected Set<T> getRelatedBaselineRecordsByHash(final IMAMeasurementRecord record) {
+        return addRelatedBaselineRecordsByHash(record, new HashSet<T>());
+    }
+
+    /**
+     * Same as {@link #getRelatedBaselineRecordsByHash(IMAMeasurementRecord)}, but collects the
+     * records in the hash records set of the given buffers.
+     *
+     * @param record the record for which all matching IMA baseline records should be returned
+     * @param buffers the buffers to collect the records in
+     * @return the resulting set of IMA baseline records, owned by the buffers
+     */
+    protected Set<T> getRelatedBaselineRecordsByHash(final IMAMeasurementRecord record,
+                                                     final MatchBuffers<T> buffers) {
+        return addRelatedBaselineRecordsByHash(record, buffers.getHashRecords());
+    }
+
+    private Set<T> addRelatedBaselineRecordsByHash(final IMAMeasurementRecord record,
+                                                   final Set<T> matchingRecords) {
         if (record == null) {
             throw new IllegalArgumentException("Cannot match on null record.");
         }
 
-        if (hashMap == null) {
-            hashMap = createHashMap(this.records);
+        matchingRecords.addAll(getHashIndex().get(record.getHash()));
+        return matchingRecords;
+    }
+
+    private List<T> getPathRecords(final String path) {
+        List<T> values = getPathMaps().get(IMABaselineRecord.getBucket(path)).get(path);
+        if (values == null) {
+            return Collections.emptyList();
         }
+        return values;
+    }
 
-        return new HashSet<>(hashMap.get(record.getHash().toString()));
+    private List<Map<String, List<T>>> getPathMaps() {
+        List<Map<String, List<T>>> paths = pathMaps;
+        if (paths == null) {
+            synchronized (this) {
+                paths = pathMaps;
+                if (paths == null) {
+                    paths = createPathMaps(this.records);
+                    pathMaps = paths;
+                }
+            }
+        }
+        return paths;
+    }
+
+    private DigestIndex<T> getHashIndex() {
+        DigestIndex<T> hashes = hashIndex;
+        if (hashes == null) {
+            synchronized (this) {
+                hashes = hashIndex;
+                if (hashes == null) {
+                    hashes = createHashIndex(this.records);
+                    hashIndex = hashes;
+                }
+            }
+        }
+        return hashes;
     }
 
-    private Multimap<String, T> createPathMap(
+    private List<Map<String, List<T>>> createPathMaps(
             final Collection<T> imaBaselineRecords) {
-        ImmutableListMultimap.Builder<String, T> mapBuilder =
-                ImmutableListMultimap.builder();
+        List<Map<String, List<T>>> pathSlices =
+                new ArrayList<>(IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+        for (int i = 0; i < IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT; i++) {
+            pathSlices.add(new HashMap<String, List<T>>());
+        }
+        Set<String> matchingPaths = new HashSet<>();
 
         for (T record : imaBaselineRecords) {
             if (record.getPath() != null) {
-                for (String matchingPath : getMatchingPaths(imaPolicy, record.getPath())) {
-                    mapBuilder.put(matchingPath, record);
+                matchingPaths.clear();
+                addMatchingPaths(pathEquivalenceTrie, partialPathEnable, record.getPath(),
+                        matchingPaths);
+                for (String matchingPath : matchingPaths) {
+                    // equivalent paths may not share the file name, so each path is placed
+                    // in the slice of its own bucket
+                    Map<String, List<T>> paths =
+                            pathSlices.get(IMABaselineRecord.getBucket(matchingPath));
+                    List<T> pathRecords = paths.get(matchingPath);
+                    if (pathRecords == null) {
+                        pathRecords = new ArrayList<>(1);
+                        paths.put(matchingPath, pathRecords);
+                    }
+                    pathRecords.add(record);
                 }
             }
         }
 
-        return mapBuilder.build();
+        return pathSlices;
     }
 
-    private Multimap<String, T> createHashMap(
+    private DigestIndex<T> createHashIndex(
             final Collection<T> imaBaselineRecords) {
-        ImmutableListMultimap.Builder<String, T> mapBuilder =
-                ImmutableListMultimap.builder();
+        List<Digest> hashes = new ArrayList<>(imaBaselineRecords.size());
+        List<T> hashRecords = new ArrayList<>(imaBaselineRecords.size());
 
         for (T record : imaBaselineRecords) {
-            Digest hash = record.getHash();
-            if (hash != null) {
-                mapBuilder.put(hash.toString(), record);
-            }
+            hashes.add(record.getHash());
+            hashRecords.add(record);
         }
 
-        return mapBuilder.build();
+        return new DigestIndex<>(hashes, hashRecords);
     }
 
     /**
@@ -188,21 +516,22 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
             final String targetPath) {
         Multimap<String, String> pathEquivalences = imaPolicy.getPathEquivalences();
         Set<String> pathsToFind = new HashSet<>();
+        addMatchingPaths(new PathEquivalenceTrie(pathEquivalences),
+                imaPolicy.isPartialPathEnable(), targetPath, pathsToFind);
+        return pathsToFind;
+    }
 
+    private static void addMatchingPaths(
+            final PathEquivalenceTrie pathEquivalenceTrie,
+            final boolean partialPathEnable,
+            final String targetPath,
+            final Set<String> pathsToFind) {
         pathsToFind.add(targetPath);
-        for (String path : pathEquivalences.keySet()) {
-            if (targetPath.startsWith(path)) {
-                for (String equivalentPath : pathEquivalences.get(path)) {
-                    pathsToFind.add(targetPath.replaceFirst(path, equivalentPath));
-                }
-            }
-        }
+        pathEquivalenceTrie.addEquivalentPaths(targetPath, pathsToFind);
 
-        if (imaPolicy.isPartialPathEnable() && isFullPath(targetPath)) {
+        if (partialPathEnable && isFullPath(targetPath)) {
             pathsToFind.add(IMABaselineRecord.getPartialPath(targetPath));
         }
-
-        return pathsToFind;
     }
 
     private static boolean isFullPath(final String path) {
@@ -0,0 +1,85 @@
+package hirs.ima.matching;
+
+import com.google.common.collect.Multimap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The path equivalences of an IMA policy, compiled into a trie of the equivalent directories.
+ * Finding the equivalences that apply to a path walks the path once, instead of testing the
+ * path against every equivalent directory of the policy.
+ */
+final class PathEquivalenceTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * Compiles the given path equivalences.
+     *
+     * @param pathEquivalences directories mapped to their equivalent directories, as returned by
+     *                         {@link hirs.data.persist.IMAPolicy#getPathEquivalences()}
+     */
+    PathEquivalenceTrie(final Multimap<String, String> pathEquivalences) {
+        for (Map.Entry<String, Collection<String>> entry
+                : pathEquivalences.asMap().entrySet()) {
+            Node node = root;
+            for (int i = 0; i < entry.getKey().length(); i++) {
+                node = node.getOrAddChild(entry.getKey().charAt(i));
+            }
+            node.equivalentPaths = entry.getValue().toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Adds the paths equivalent to the given path to a collection. A path starting with a
+     * directory that has equivalent directories is equivalent to the same path starting with
+     * each of those directories instead.
+     *
+     * @param targetPath the path whose equivalent paths to add
+     * @param equivalentPaths the collection to add the paths to
+     */
+    void addEquivalentPaths(final String targetPath, final Collection<String> equivalentPaths) {
+        Node node = root;
+        for (int depth = 0; node != null; depth++) {
+            if (node.equivalentPaths != null) {
+                String remainder = targetPath.substring(depth);
+                for (String equivalentPath : node.equivalentPaths) {
+                    equivalentPaths.add(equivalentPath + remainder);
+                }
+            }
+            if (depth == targetPath.length()) {
+                break;
+            }
+            node = node.getChild(targetPath.charAt(depth));
+        }
+    }
+
+    /**
+     * A node of the trie, reached by the characters of a directory prefix.
+     */
+    private static final class Node {
+        private Map<Character, Node> children;
+        private String[] equivalentPaths;
+
+        private Node getChild(final char c) {
+            if (children == null) {
+                return null;
+            }
+            return children.get(c);
+        }
+
+        private Node getOrAddChild(final char c) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            Node child = children.get(c);
+            if (child == null) {
+                child = new Node();
+                children.put(c, child);
+            }
+            return child;
+        }
+    }
+}
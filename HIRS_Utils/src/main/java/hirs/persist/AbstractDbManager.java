@@ -1,5 +1,6 @@
 package hirs.persist;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -10,6 +11,8 @@ import org.apache.logging.log4j.Logger;
 import org.hibernate.Criteria;
 import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.StatelessSession;
@@ -20,6 +23,7 @@ import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.ProjectionList;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.internal.SessionFactoryImpl;
@@ -37,13 +41,19 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.hibernate.criterion.Restrictions.ilike;
+import static org.hibernate.criterion.Restrictions.like;
 import static org.hibernate.criterion.Restrictions.sqlRestriction;
 
 /**
@@ -57,11 +67,79 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
 
     private static final Logger LOGGER = LogManager.getLogger(AbstractDbManager.class);
     private static final int MAX_CLASS_CACHE_ENTRIES = 500;
+    private static final int MAX_RECORD_COUNT_ENTRIES = 1000;
+
+    /**
+     * A record count and when it was counted.
+     */
+    private static final class RecordCount {
+        private final Long count;
+        private final long countedAt = System.nanoTime();
+
+        private RecordCount(final Long count) {
+            this.count = count;
+        }
+    }
+
+    /**
+     * Identifies a count query by the values that determine its result: the class counted, the
+     * inputs of the criteria modifier and, for filtered counts, the search.
+     */
+    private static final class CountKey {
+        private final Class<?> searchClass;
+        private final List<Object> modifierInputs;
+        private final String search;
+        private final Map<String, Boolean> searchableColumns;
+        private final boolean prefixSearch;
+
+        private CountKey(final Class<?> searchClass, final List<Object> modifierInputs,
+                         final String search, final Map<String, Boolean> searchableColumns,
+                         final boolean prefixSearch) {
+            this.searchClass = searchClass;
+            this.modifierInputs = modifierInputs;
+            this.search = search;
+            if (searchableColumns == null) {
+                this.searchableColumns = null;
+            } else {
+                this.searchableColumns = new HashMap<>(searchableColumns);
+            }
+            this.prefixSearch = prefixSearch;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CountKey that = (CountKey) o;
+            return prefixSearch == that.prefixSearch
+                    && searchClass.equals(that.searchClass)
+                    && modifierInputs.equals(that.modifierInputs)
+                    && Objects.equals(search, that.search)
+                    && Objects.equals(searchableColumns, that.searchableColumns);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(searchClass, modifierInputs, search, searchableColumns,
+                    prefixSearch);
+        }
+    }
 
     private final Class<T> clazz;
 
     private SessionFactory factory;
 
+    /**
+     * Recent record counts of ordered list queries that allow stale counts, by query.
+     */
+    private final Cache<CountKey, RecordCount> recordCounts = CacheBuilder.newBuilder()
+            .maximumSize(MAX_RECORD_COUNT_ENTRIES)
+            .build();
+
     /**
      * Creates a new <code>AbstractDbManager</code>.
      *
@@ -760,6 +838,38 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
             final String columnToOrder, final boolean ascending, final int firstResult,
             final int maxResults, final String search, final Map<String, Boolean> searchableColumns,
             final CriteriaModifier criteriaModifier) throws DBManagerException {
+        return doGetOrderedList(clazz, columnToOrder, ascending, firstResult, maxResults, search,
+                searchableColumns, criteriaModifier, new OrderedListOptions());
+    }
+
+    /**
+     * Returns a list of all <code>T</code>s that are ordered by a column and
+     * direction (ASC, DESC) that is provided by the user, with options for paging, counting and
+     * searching large tables faster. This method helps support the server-side processing in
+     * the JQuery DataTables. For entities that support soft-deletes, the returned list does not
+     * contain <code>T</code>s that have been soft-deleted.
+     *
+     * @param clazz class type of <code>T</code>s to search for (may be null to
+     * use Class&lt;T&gt;)
+     * @param columnToOrder - Column to be ordered
+     * @param ascending - direction of sort
+     * @param firstResult starting point of first result in set, unless keyset paging is used
+     * @param maxResults total number we want returned for display in table
+     * @param search string of criteria to be matched to visible columns
+     * @param searchableColumns Map of String and boolean values with column
+     * headers and whether they should be searched. Boolean is true if field provides a
+     * typical String that can be searched by Hibernate without transformation.
+     * @param criteriaModifier - a way to modify the criteria used in the query
+     * @param options - the paging, counting and searching options
+     * @return FilteredRecordsList object with query data
+     * @throws DBManagerException if unable to create the list
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    protected FilteredRecordsList<T> doGetOrderedList(final Class<? extends T> clazz,
+            final String columnToOrder, final boolean ascending, final int firstResult,
+            final int maxResults, final String search, final Map<String, Boolean> searchableColumns,
+            final CriteriaModifier criteriaModifier, final OrderedListOptions options)
+            throws DBManagerException {
         LOGGER.debug("Getting object list");
         Class<? extends T> searchClass = clazz;
         if (clazz == null) {
@@ -770,7 +880,7 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
         if (searchableColumns != null) {
             LOGGER.info(searchClass.getName() + " querying for "
                     + Arrays.toString(searchableColumns.entrySet().toArray())
-                    + " with search strings \"" + search + "\"");
+                    + " with search strings \"" + search + "\" and " + options);
         }
 
         //Object that will store query values
@@ -788,7 +898,9 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
                     .setProjection(Projections.countDistinct("id"));
             criteriaModifier.modify(criteria);
 
-            Long totalResultCount = (Long) criteria.uniqueResult();
+            Long totalResultCount = count(criteria, new CountKey(searchClass,
+                    options.getModifierInputs(), null, null, false),
+                    options.getCountStalenessSeconds());
 
             Long recordsFiltered = totalResultCount;
             Conjunction and = Restrictions.conjunction();
@@ -796,20 +908,8 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
                 LOGGER.info("Total result count greater than 0");
                 //Builds the search criteria from all of the searchable columns
                 if (searchableColumns != null && !searchableColumns.isEmpty()) {
-                    // Search for all words in all searchable columns
-                    String[] searchWords = search.split(" ");
-                    for (String word : searchWords) {
-                        // Every word must be in at least one column
-                        Disjunction or = Restrictions.disjunction();
-                        for (Map.Entry<String, Boolean> entry : searchableColumns.entrySet()) {
-                            if (entry.getValue()) {
-                                or.add(ilike(entry.getKey(), word, MatchMode.ANYWHERE));
-                            } else {
-                                or.add(ilikeCast(entry.getKey(), word));
-                            }
-                        }
-                        and.add(or);
-                    }
+                    addSearchRestrictions(and, search, searchableColumns,
+                            options.isPrefixSearch());
                 }
 
                 LOGGER.info("Search columns filtered");
@@ -818,32 +918,54 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
                         .add(and);
                 try {
                     LOGGER.info("Get unique result from criteria object");
-                    recordsFiltered = (Long) criteria.uniqueResult();
+                    recordsFiltered = count(criteria, new CountKey(searchClass,
+                            options.getModifierInputs(), search, searchableColumns,
+                            options.isPrefixSearch()), options.getCountStalenessSeconds());
                 } catch (HibernateException e) {
                     LOGGER.error(e.getMessage());
                 }
             }
 
+            Set<Object> ids = new LinkedHashSet<>();
+            Criterion keyset = null;
             if (recordsFiltered != 0) {
                 //Generates an inner query that handles the searching, paging,
                 //and sorting of the data.  The query returns distinct ids in
-                //order based on these values
+                //order based on these values.  The ordered column is selected
+                //as well, as databases require of a distinct query
+                ProjectionList uniqueProjection = Projections.projectionList()
+                        .add(Projections.property("id"));
+                if (!"id".equals(columnToOrder)) {
+                    uniqueProjection.add(Projections.property(columnToOrder));
+                }
                 Criteria uniqueSubCriteria = session.createCriteria(searchClass)
-                        .setProjection(
-                                Projections.distinct(
-                                        Projections.property("id")))
+                        .setProjection(Projections.distinct(uniqueProjection))
                         .add(and)
-                        .setFirstResult(firstResult)
                         .setMaxResults(maxResults);
                 criteriaModifier.modify(uniqueSubCriteria);
-                if (ascending) {
-                    uniqueSubCriteria.addOrder(Order.asc(columnToOrder));
+
+                if (options.getAfterId() != null) {
+                    keyset = getKeysetRestriction(session, searchClass, columnToOrder, ascending,
+                            criteriaModifier, options.getAfterId());
+                }
+                if (keyset == null) {
+                    uniqueSubCriteria.setFirstResult(firstResult);
                 } else {
-                    uniqueSubCriteria.addOrder(Order.desc(columnToOrder));
+                    uniqueSubCriteria.add(keyset);
                 }
+                addOrder(uniqueSubCriteria, columnToOrder, ascending, keyset != null);
 
-                List ids = uniqueSubCriteria.list();
+                for (Object row : uniqueSubCriteria.list()) {
+                    if (row instanceof Object[]) {
+                        ids.add(((Object[]) row)[0]);
+                    } else {
+                        ids.add(row);
+                    }
+                }
+            }
 
+            // a keyset page after the last record is empty
+            if (!ids.isEmpty()) {
                 //Values take the unique identities that passed all other
                 //criteria and returns the desired entity.  Queries needed to be
                 //separated in order to keep pagination and distinct results
@@ -854,11 +976,7 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
                 criteriaModifier.modify(finalCriteria);
 
                 //Checks the order and validates before returning the values
-                if (ascending) {
-                    finalCriteria.addOrder(Order.asc(columnToOrder));
-                } else {
-                    finalCriteria.addOrder(Order.desc(columnToOrder));
-                }
+                addOrder(finalCriteria, columnToOrder, ascending, keyset != null);
 
                 List list = finalCriteria.list();
                 for (Object o : list) {
@@ -885,6 +1003,126 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
         return aqr;
     }
 
+    /**
+     * Adds the restrictions that require every word of the search to be in at least one of the
+     * searchable columns.
+     */
+    private void addSearchRestrictions(final Conjunction and, final String search,
+            final Map<String, Boolean> searchableColumns, final boolean prefixSearch) {
+        MatchMode matchMode = MatchMode.ANYWHERE;
+        if (prefixSearch) {
+            matchMode = MatchMode.START;
+        }
+
+        // Search for all words in all searchable columns
+        String[] searchWords = search.split(" ");
+        for (String word : searchWords) {
+            // Every word must be in at least one column
+            Disjunction or = Restrictions.disjunction();
+            for (Map.Entry<String, Boolean> entry : searchableColumns.entrySet()) {
+                if (!entry.getValue()) {
+                    or.add(ilikeCast(entry.getKey(), word, matchMode));
+                } else if (prefixSearch) {
+                    or.add(like(entry.getKey(), word, matchMode));
+                } else {
+                    or.add(ilike(entry.getKey(), word, matchMode));
+                }
+            }
+            and.add(or);
+        }
+    }
+
+    /**
+     * Runs a count query, or returns the result of the same query if it was run at most the
+     * given number of seconds ago. Queries are told apart by the given key.
+     */
+    private Long count(final Criteria criteria, final CountKey key, final int stalenessSeconds) {
+        if (stalenessSeconds == 0) {
+            return (Long) criteria.uniqueResult();
+        }
+
+        RecordCount cached = recordCounts.getIfPresent(key);
+        if (cached != null && System.nanoTime() - cached.countedAt
+                <= TimeUnit.SECONDS.toNanos(stalenessSeconds)) {
+            return cached.count;
+        }
+        Long count = (Long) criteria.uniqueResult();
+        recordCounts.put(key, new RecordCount(count));
+        return count;
+    }
+
+    /**
+     * Creates the restriction that selects the records after the given record, in the order of
+     * the ordered column and then of the id. Returns null if the record does not match the
+     * criteria, in which case there is no position to continue from.
+     */
+    private Criterion getKeysetRestriction(final Session session,
+            final Class<? extends T> searchClass, final String columnToOrder,
+            final boolean ascending, final CriteriaModifier criteriaModifier, final UUID afterId) {
+        Criteria anchorCriteria = session.createCriteria(searchClass)
+                .add(Restrictions.eq("id", afterId))
+                .setProjection(Projections.property(columnToOrder))
+                .setMaxResults(1);
+        criteriaModifier.modify(anchorCriteria);
+        List anchors = anchorCriteria.list();
+        if (anchors.isEmpty()) {
+            LOGGER.info("cannot continue after " + afterId + ", using the offset instead");
+            return null;
+        }
+
+        // MySQL sorts nulls before any value, HSQLDB first in either direction
+        boolean nullsFirst = ascending
+                || getConfiguredImplementation() == DBManager.DBImpl.HSQL;
+        Criterion idAfter;
+        if (ascending) {
+            idAfter = Restrictions.gt("id", afterId);
+        } else {
+            idAfter = Restrictions.lt("id", afterId);
+        }
+
+        Object anchor = anchors.get(0);
+        if (anchor == null) {
+            Criterion nullAfter = Restrictions.and(Restrictions.isNull(columnToOrder), idAfter);
+            if (nullsFirst) {
+                return Restrictions.or(nullAfter, Restrictions.isNotNull(columnToOrder));
+            }
+            return nullAfter;
+        }
+
+        Criterion valueAfter;
+        if (ascending) {
+            valueAfter = Restrictions.gt(columnToOrder, anchor);
+        } else {
+            valueAfter = Restrictions.lt(columnToOrder, anchor);
+        }
+        Criterion after = Restrictions.or(valueAfter,
+                Restrictions.and(Restrictions.eq(columnToOrder, anchor), idAfter));
+        if (nullsFirst) {
+            return after;
+        }
+        return Restrictions.or(after, Restrictions.isNull(columnToOrder));
+    }
+
+    /**
+     * Orders the criteria by the ordered column and, for keyset paging, then by the id so that
+     * records with equal values keep a fixed order across pages.
+     */
+    private static void addOrder(final Criteria criteria, final String columnToOrder,
+                                 final boolean ascending, final boolean orderById) {
+        if (ascending) {
+            criteria.addOrder(Order.asc(columnToOrder));
+        } else {
+            criteria.addOrder(Order.desc(columnToOrder));
+        }
+        if (orderById && !"id".equals(columnToOrder)) {
+            if (ascending) {
+                criteria.addOrder(Order.asc("id"));
+            } else {
+                criteria.addOrder(Order.desc("id"));
+            }
+        }
+    }
+
     /**
      * Returns the <code>SessionFactory</code>. The <code>SessionFactory</code>
      * can be used by sub-classes to make database calls.
@@ -904,6 +1142,57 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
         return factory.openStatelessSession();
     }
 
+    /**
+     * Opens a forward-only scroll over the id, an identifying key property and a binary
+     * property of the entities of the given class matching the given criterion. The scroll is
+     * read in its own {@link StatelessSession}, so the entities are neither loaded nor cached,
+     * and the caller must close the returned iterator to release the session.
+     *
+     * @param entityClass the class of the entities to read
+     * @param criterion the criterion the entities must match
+     * @param keyProperty the name of the identifying key property
+     * @param bytesProperty the name of the binary property
+     * @param <K> the type of the identifying key property
+     * @return an iterator over the matching rows
+     * @throws DBManagerException if the scroll cannot be opened
+     */
+    protected final <K> RawBytesIterator<K> scrollRawBytes(final Class<?> entityClass,
+                                                           final Criterion criterion,
+                                                           final String keyProperty,
+                                                           final String bytesProperty)
+            throws DBManagerException {
+        int fetchSize = 1;
+        if (getConfiguredImplementation() == DBManager.DBImpl.MYSQL) {
+            // provides a hint to the JDBC connector that records should be streamed
+            fetchSize = Integer.MIN_VALUE;
+        }
+
+        StatelessSession session = getStatelessSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            ScrollableResults results = session.createCriteria(entityClass)
+                    .add(criterion)
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.id())
+                            .add(Projections.property(keyProperty))
+                            .add(Projections.property(bytesProperty)))
+                    .setReadOnly(true)
+                    .setFetchSize(fetchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            return new RawBytesIterator<>(session, tx, results);
+        } catch (HibernateException e) {
+            final String msg = "unable to scroll over " + entityClass.getSimpleName();
+            LOGGER.error(msg, e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            session.close();
+            throw new DBManagerException(msg, e);
+        }
+    }
+
 
     /**
      * Helper method in order to properly cast columns that are not Strings into
@@ -915,8 +1204,22 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
      */
     protected Criterion ilikeCast(final String field,
                                   final String search) {
+        return ilikeCast(field, search, MatchMode.ANYWHERE);
+    }
+
+    /**
+     * Helper method in order to properly cast columns that are not Strings into
+     * characters for search comparison.
+     *
+     * @param field - the id of the column being used for comparison
+     * @param search - the String that is being searched for
+     * @param matchMode - where in the column the String must be found
+     * @return Criterion object used in a hibernate query
+     */
+    protected Criterion ilikeCast(final String field,
+                                  final String search, final MatchMode matchMode) {
         return sqlRestriction(" lower(cast(this_." + field
-                + " as char)) like '%" + search + "%' ");
+                + " as char)) like '" + matchMode.toMatchString(search) + "' ");
     }
 
     /**
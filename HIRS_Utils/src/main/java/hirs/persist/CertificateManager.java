@@ -32,6 +32,16 @@ public interface CertificateManager {
      */
     <T extends Certificate> Set<T> get(CertificateSelector certificateSelector);
 
+    /**
+     * Iterates over the id, certificate hash and raw bytes of the Certificates matching the
+     * given {@link CertificateSelector}, without loading the Certificates. The iterator must be
+     * closed once it is no longer needed.
+     *
+     * @param certificateSelector a {@link CertificateSelector} to use for querying
+     * @return an iterator over the matching Certificates' raw bytes
+     */
+    RawBytesIterator<Integer> getRawBytes(CertificateSelector certificateSelector);
+
     /**
      * Delete the given Certificate.
      *
@@ -39,4 +49,14 @@ public interface CertificateManager {
      * @return true if the deletion succeeded, false otherwise
      */
     boolean delete(Certificate certificate);
+
+    /**
+     * Returns a value describing the current set of stored certificate authority credentials.
+     * The value changes whenever a certificate authority credential is saved, archived,
+     * restored or deleted, so it can be used to tell whether anything derived from those
+     * credentials is out of date.
+     *
+     * @return the version of the stored certificate authority credentials
+     */
+    String getCertificateAuthorityVersion();
 }
@@ -15,7 +15,9 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -301,8 +303,10 @@ public abstract class CertificateSelector<T extends Certificate> {
     /**
      * Set a field name and value to match.
      *
+     * A collection of values matches any of the values.
+     *
      * @param name the field name to query
-     * @param value the value to query
+     * @param value the value to query, or the collection of values to query
      */
     protected void setFieldValue(final String name, final Object value) {
         Object valueToAssign = value;
@@ -330,6 +334,17 @@ public abstract class CertificateSelector<T extends Certificate> {
             valueToAssign = Arrays.copyOf(valueBytes, valueBytes.length);
         }
 
+        if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+
+            Preconditions.checkArgument(
+                    !values.isEmpty(),
+                    String.format("field values (%s) cannot be empty.", name)
+            );
+
+            valueToAssign = new ArrayList<>(values);
+        }
+
         fieldValueSelections.put(name, valueToAssign);
     }
 
@@ -362,6 +377,18 @@ public abstract class CertificateSelector<T extends Certificate> {
         return Collections.unmodifiableSet(new HashSet<>(execute()));
     }
 
+    /**
+     * Retrieve the id, certificate hash and raw bytes of each matching {@link Certificate}, a
+     * certificate at a time, without loading the certificates.
+     * This method is best used when the raw bytes of many certificates are needed at once, such
+     * as for bulk downloads. The returned iterator must be closed.
+     *
+     * @return an iterator over the raw bytes of the matching certificates, possibly empty
+     */
+    public RawBytesIterator<Integer> getRawBytes() {
+        return certificateManager.getRawBytes(this);
+    }
+
     /**
      * Retrieve the result set as a single {@link X509Certificate}.
      * This method is best used when selecting on a unique attribute.
@@ -432,7 +459,12 @@ public abstract class CertificateSelector<T extends Certificate> {
         Conjunction conj = new Conjunction();
 
         for (Map.Entry<String, Object> fieldValueEntry : fieldValueSelections.entrySet()) {
-            conj.add(Restrictions.eq(fieldValueEntry.getKey(), fieldValueEntry.getValue()));
+            if (fieldValueEntry.getValue() instanceof Collection) {
+                conj.add(Restrictions.in(fieldValueEntry.getKey(),
+                        (Collection<?>) fieldValueEntry.getValue()));
+            } else {
+                conj.add(Restrictions.eq(fieldValueEntry.getKey(), fieldValueEntry.getValue()));
+            }
         }
 
         if (this.excludeArchivedCertificates) {
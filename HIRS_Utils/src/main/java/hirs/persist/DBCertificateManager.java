@@ -1,11 +1,21 @@
 package hirs.persist;
 
 import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -59,6 +69,20 @@ public class DBCertificateManager extends DBManager<Certificate>
         );
     }
 
+    /**
+     * Iterates over the id, certificate hash and raw bytes of the certificates matching the
+     * given selector, a row at a time, without loading the certificates.
+     *
+     * @param certificateSelector a configured {@link CertificateSelector} to use for querying
+     * @return an iterator over the matching certificates' raw bytes, which must be closed
+     */
+    @Override
+    public RawBytesIterator<Integer> getRawBytes(final CertificateSelector certificateSelector) {
+        return scrollRawBytes(certificateSelector.getCertificateClass(),
+                certificateSelector.getCriterion(), Certificate.CERTIFICATE_HASH_FIELD,
+                Certificate.CERTIFICATE_BYTES_FIELD);
+    }
+
     /**
      * Remove a certificate from the database.
      *
@@ -68,4 +92,48 @@ public class DBCertificateManager extends DBManager<Certificate>
     public boolean deleteCertificate(final Certificate certificate) {
         return delete(certificate);
     }
+
+    /**
+     * Returns the version of the stored certificate authority credentials, a digest of the id
+     * and archive time of every credential. Saving, archiving, restoring or deleting a
+     * credential changes the id or archive time of at least one of them; only these two columns
+     * are read, not the credentials themselves.
+     *
+     * @return the version of the stored certificate authority credentials
+     */
+    @Override
+    public String getCertificateAuthorityVersion() {
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            List<?> rows = session.createCriteria(CertificateAuthorityCredential.class)
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.id())
+                            .add(Projections.property(Certificate.ARCHIVE_FIELD)))
+                    .addOrder(Order.asc("id"))
+                    .list();
+            tx.commit();
+
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            for (Object row : rows) {
+                Object[] columns = (Object[]) row;
+                String archivedTime = "";
+                if (columns[1] != null) {
+                    archivedTime = Long.toString(((Date) columns[1]).getTime());
+                }
+                digest.update((columns[0] + ":" + archivedTime + ";")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return Hex.encodeHexString(digest.digest());
+        } catch (Exception e) {
+            final String msg = "unable to retrieve certificate authority version";
+            LOGGER.error(msg, e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(msg, e);
+        }
+    }
 }
@@ -5,6 +5,7 @@ import hirs.data.persist.Device;
 import hirs.data.persist.DeviceGroup;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 
@@ -234,6 +235,52 @@ public class DBDeviceManager extends DBManager<Device> implements
         }
     }
 
+    /**
+     * Retrieves the <code>Device</code>s from the database whose names are one of
+     * <code>names</code>, with a single query.
+     *
+     * @param names
+     *            names of the devices
+     * @return the devices found, possibly empty
+     * @throws DeviceManagerException
+     *             if unable to search the database
+     */
+    @Override
+    public final List<Device> getDevices(final Collection<String> names)
+            throws DeviceManagerException {
+        LOGGER.debug("getting {} devices", names.size());
+        List<Device> devices = new ArrayList<>();
+        if (names.isEmpty()) {
+            return devices;
+        }
+
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            List list = session.createCriteria(Device.class)
+                    .add(Restrictions.in("name", names))
+                    .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+                    .list();
+            for (Object o : list) {
+                if (o instanceof Device) {
+                    devices.add((Device) o);
+                }
+            }
+            tx.commit();
+        } catch (HibernateException e) {
+            final String msg = "unable to retrieve devices";
+            LOGGER.error(msg, e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new DeviceManagerException(msg, e);
+        }
+
+        return devices;
+    }
+
     /**
      * Used to produce a list of all <code>Device</code>s associated with the Default Group.
      *
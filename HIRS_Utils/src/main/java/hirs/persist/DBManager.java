@@ -409,6 +409,49 @@ public class DBManager<T> extends AbstractDbManager<T> {
                 });
     }
 
+    /**
+     * Returns a list of all <code>T</code>s that are ordered by a column and
+     * direction (ASC, DESC) that is provided by the user, with options for paging, counting and
+     * searching large tables faster. This method helps support the server-side processing in
+     * the JQuery DataTables. For entities that support soft-deletes, the returned list does not
+     * contain <code>T</code>s that have been soft-deleted.
+     *
+     * @param clazz class type of <code>T</code>s to search for (may be null to
+     * use Class&lt;T&gt;)
+     * @param columnToOrder Column to be ordered
+     * @param ascending direction of sort
+     * @param firstResult starting point of first result in set, unless keyset paging is used
+     * @param maxResults total number we want returned for display in table
+     * @param search string of criteria to be matched to visible columns
+     * @param searchableColumns Map of String and boolean values with column
+     * headers and whether they should be searched. Boolean is true if field provides a
+     * typical String that can be searched by Hibernate without transformation.
+     * @param criteriaModifier a way to modify the criteria used in the query
+     * @param options the paging, counting and searching options
+     * @return FilteredRecordsList object with query data
+     * @throws DBManagerException if unable to create the list
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    public final FilteredRecordsList<T> getOrderedList(
+            final Class<? extends T> clazz, final String columnToOrder,
+            final boolean ascending, final int firstResult,
+            final int maxResults, final String search,
+            final Map<String, Boolean> searchableColumns, final CriteriaModifier criteriaModifier,
+            final OrderedListOptions options)
+            throws DBManagerException {
+
+        return retryTemplate.execute(
+                new RetryCallback<FilteredRecordsList<T>, DBManagerException>() {
+                    @Override
+                    public FilteredRecordsList<T> doWithRetry(final RetryContext context)
+                            throws DBManagerException {
+                        return doGetOrderedList(clazz, columnToOrder, ascending,
+                                firstResult, maxResults,
+                                search, searchableColumns, criteriaModifier, options);
+                    }
+                });
+    }
+
     /**
      * Deletes the object from the database. This removes all of the database
      * entries that stored information with regards to the this object.
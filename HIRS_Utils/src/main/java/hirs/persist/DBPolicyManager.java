@@ -1,6 +1,8 @@
 package hirs.persist;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hirs.appraiser.Appraiser;
 import hirs.data.persist.baseline.Baseline;
 import hirs.data.persist.Device;
@@ -10,7 +12,11 @@ import hirs.data.persist.Policy;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -24,11 +30,35 @@ import org.hibernate.criterion.Restrictions;
 /**
  * This class defines a <code>PolicyManager</code> that stores policies in a
  * database.
+ * <p>
+ * The policies looked up by appraiser, for the default group or for a device group, are cached.
+ * Any change to policies or policy mappings made through this manager empties the cache.
+ * Changes made any other way, such as through another manager or by another process, are seen
+ * once the cached policies expire.
  */
 public class DBPolicyManager extends DBManager<Policy> implements PolicyManager {
 
     private static final Logger LOGGER = LogManager.getLogger(DBPolicyManager.class);
 
+    /**
+     * The default number of seconds a policy looked up by appraiser and device group is cached.
+     */
+    public static final int DEFAULT_POLICY_CACHE_SECONDS = 30;
+
+    private static final int MAX_CACHED_POLICIES = 1000;
+
+    /**
+     * The policies, or their absence, by appraiser id and device group id, or by appraiser id and
+     * the name of the default group for the default policies.
+     */
+    private final Cache<List<Object>, Optional<Policy>> policyCache;
+
+    /**
+     * Incremented each time the cache is emptied, so that a policy read before a change is not
+     * cached after it. Guarded by the cache.
+     */
+    private long policyCacheGeneration = 0;
+
     /**
      * Creates a new <code>DBPolicyManager</code>. The optional SessionFactory
      * parameter is used to initialize a session factory to manage all hibernate
@@ -37,7 +67,28 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
      * @param factory session factory to manage connections to hibernate db
      */
     public DBPolicyManager(final SessionFactory factory) {
+        this(factory, DEFAULT_POLICY_CACHE_SECONDS);
+    }
+
+    /**
+     * Creates a new <code>DBPolicyManager</code> that caches the policies looked up by appraiser
+     * and device group for the given time.
+     *
+     * @param factory session factory to manage connections to hibernate db
+     * @param policyCacheSeconds the number of seconds to cache policies, or 0 to not cache them
+     */
+    public DBPolicyManager(final SessionFactory factory, final int policyCacheSeconds) {
         super(Policy.class, factory);
+        Preconditions.checkArgument(policyCacheSeconds >= 0,
+                "policy cache time cannot be negative");
+        int maximumSize = MAX_CACHED_POLICIES;
+        if (policyCacheSeconds == 0) {
+            maximumSize = 0;
+        }
+        policyCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(policyCacheSeconds, TimeUnit.SECONDS)
+                .maximumSize(maximumSize)
+                .build();
     }
 
     /**
@@ -229,6 +280,8 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
                 tx.rollback();
             }
             throw new DBManagerException(msg, e);
+        } finally {
+            invalidatePolicyCache();
         }
     }
 
@@ -258,6 +311,11 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
             return null;
         }
 
+        return getCachedPolicy(Arrays.asList(appraiser.getId(), DeviceGroup.DEFAULT_GROUP),
+                () -> queryDefaultPolicy(appraiser));
+    }
+
+    private Policy queryDefaultPolicy(final Appraiser appraiser) {
         Policy ret = null;
         final SessionFactory factory = getFactory();
         Transaction tx = null;
@@ -314,31 +372,19 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
         Preconditions.checkArgument(appraiser != null, "Appraiser must not be null");
         Preconditions.checkArgument(device != null, "Device must not be null");
 
-        Policy ret = null;
+        DeviceGroup deviceGroup = null;
         final SessionFactory factory = getFactory();
         Transaction tx = null;
         Session session = factory.getCurrentSession();
         try {
             tx = session.beginTransaction();
-            LOGGER.debug("retrieving policy mapper from db where appraiser = "
-                    + "{} and device= {}", appraiser, device);
+            LOGGER.debug("retrieving device group from db where device = {}", device);
             final Criteria deviceCr = session.createCriteria(Device.class)
                     .add(Restrictions.eq("name", device.getName()));
             final Device retrievedDevice = (Device) deviceCr.uniqueResult();
-            DeviceGroup deviceGroup = null;
             if (retrievedDevice != null) {
                 deviceGroup = retrievedDevice.getDeviceGroup();
             }
-            final Criteria cr = session.createCriteria(PolicyMapper.class)
-                    .add(Restrictions.eq("appraiser", appraiser))
-                    .add(Restrictions.eq("deviceGroup", deviceGroup));
-            final PolicyMapper mapper = (PolicyMapper) cr.uniqueResult();
-            if (mapper == null) {
-                LOGGER.debug("no policy mapper found for appraiser {} and "
-                        + "device group {}", appraiser, deviceGroup);
-            } else {
-                ret = mapper.getPolicy();
-            }
             session.getTransaction().commit();
         } catch (Exception e) {
             final String msg = "unable to get policy";
@@ -350,7 +396,9 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
             throw new DBManagerException(msg, e);
         }
 
-        return ret;
+        final DeviceGroup group = deviceGroup;
+        return getCachedPolicy(Arrays.asList(appraiser.getId(), getGroupId(group)),
+                () -> queryPolicy(appraiser, group));
     }
 
     /**
@@ -375,6 +423,23 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
             return null;
         }
 
+        Policy ret = getCachedPolicy(Arrays.asList(appraiser.getId(), getGroupId(deviceGroup)),
+                () -> queryPolicy(appraiser, deviceGroup));
+
+        if (ret == null) {
+            String groupName = "null";
+            if (deviceGroup != null) {
+                groupName = deviceGroup.getName();
+            }
+            final String msg = String.format("unable to find policy for appraiser '%s'"
+                    + " for device group '%s'", appraiser.getName(), groupName);
+            LOGGER.debug(msg);
+        }
+
+        return ret;
+    }
+
+    private Policy queryPolicy(final Appraiser appraiser, final DeviceGroup deviceGroup) {
         Policy ret = null;
         final SessionFactory factory = getFactory();
         Transaction tx = null;
@@ -403,17 +468,6 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
             }
             throw new DBManagerException(msg, e);
         }
-
-        if (ret == null) {
-            String groupName = "null";
-            if (deviceGroup != null) {
-                groupName = deviceGroup.getName();
-            }
-            final String msg = String.format("unable to find policy for appraiser '%s'"
-                    + " for device group '%s'", appraiser.getName(), groupName);
-            LOGGER.debug(msg);
-        }
-
         return ret;
     }
 
@@ -472,6 +526,8 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
                 tx.rollback();
             }
             throw new PolicyManagerException(msg, e);
+        } finally {
+            invalidatePolicyCache();
         }
     }
 
@@ -517,4 +573,96 @@ public class DBPolicyManager extends DBManager<Policy> implements PolicyManager
 
         return count;
     }
+
+    @Override
+    protected Policy doSave(final Policy object) throws DBManagerException {
+        try {
+            return super.doSave(object);
+        } finally {
+            invalidatePolicyCache();
+        }
+    }
+
+    @Override
+    protected void doUpdate(final Policy object) throws DBManagerException {
+        try {
+            super.doUpdate(object);
+        } finally {
+            invalidatePolicyCache();
+        }
+    }
+
+    @Override
+    protected boolean doDelete(final Serializable id) throws DBManagerException {
+        try {
+            return super.doDelete(id);
+        } finally {
+            invalidatePolicyCache();
+        }
+    }
+
+    @Override
+    protected boolean doDelete(final String name) throws DBManagerException {
+        try {
+            return super.doDelete(name);
+        } finally {
+            invalidatePolicyCache();
+        }
+    }
+
+    @Override
+    protected boolean doDelete(final Policy object) throws DBManagerException {
+        try {
+            return super.doDelete(object);
+        } finally {
+            invalidatePolicyCache();
+        }
+    }
+
+    @Override
+    protected int doDeleteAll() throws DBManagerException {
+        try {
+            return super.doDeleteAll();
+        } finally {
+            invalidatePolicyCache();
+        }
+    }
+
+    // returns the cached policy for the key, or looks it up and caches it; keys that contain an
+    // unsaved appraiser or device group are never cached
+    private Policy getCachedPolicy(final List<Object> key, final Supplier<Policy> lookup) {
+        if (key.contains(null)) {
+            return lookup.get();
+        }
+        Optional<Policy> cached = policyCache.getIfPresent(key);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+
+        long generation;
+        synchronized (policyCache) {
+            generation = policyCacheGeneration;
+        }
+        Policy policy = lookup.get();
+        synchronized (policyCache) {
+            if (generation == policyCacheGeneration) {
+                policyCache.put(key, Optional.ofNullable(policy));
+            }
+        }
+        return policy;
+    }
+
+    private void invalidatePolicyCache() {
+        synchronized (policyCache) {
+            policyCacheGeneration++;
+            policyCache.invalidateAll();
+        }
+    }
+
+    private static Serializable getGroupId(final DeviceGroup deviceGroup) {
+        if (deviceGroup == null) {
+            return null;
+        }
+        return deviceGroup.getId();
+    }
 }
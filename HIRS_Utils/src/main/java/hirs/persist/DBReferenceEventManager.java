@@ -9,10 +9,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -27,6 +31,10 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
 
     private static final Logger LOGGER = LogManager.getLogger(DBReferenceDigestManager.class);
 
+    private static final String BASE_RIM_ID_FIELD = "baseRimId";
+    private static final String SUPPORT_RIM_ID_FIELD = "supportRimId";
+    private static final String ARCHIVED_TIME_FIELD = "archivedTime";
+
     /**
      * Default Constructor.
      *
@@ -46,6 +54,34 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
         }
     }
 
+    @Override
+    public void saveValues(final Collection<ReferenceDigestValue> referenceDigestValues) {
+        LOGGER.debug("saving {} event digest values", referenceDigestValues.size());
+        if (referenceDigestValues.isEmpty()) {
+            return;
+        }
+
+        Transaction tx = null;
+        StatelessSession session = getStatelessSession();
+        try {
+            tx = session.beginTransaction();
+            for (ReferenceDigestValue referenceDigestValue : referenceDigestValues) {
+                session.insert(referenceDigestValue);
+            }
+            tx.commit();
+        } catch (Exception ex) {
+            final String msg = "unable to save event digest values";
+            LOGGER.error(msg, ex);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new RuntimeException(new DBManagerException(msg, ex));
+        } finally {
+            session.close();
+        }
+    }
+
     @Override
     public ReferenceDigestValue getValue(final ReferenceDigestValue referenceDigestValue) {
         LOGGER.debug("Getting record for {}", referenceDigestValue);
@@ -254,28 +290,65 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
             throw new NullPointerException("null referenceManifest ID");
         }
 
+        String rimIdField;
+        if (referenceManifest instanceof BaseReferenceManifest) {
+            rimIdField = BASE_RIM_ID_FIELD;
+        } else if (referenceManifest instanceof SupportReferenceManifest) {
+            rimIdField = SUPPORT_RIM_ID_FIELD;
+        } else {
+            return new ArrayList<>();
+        }
+
         List<ReferenceDigestValue> dbDigestValues = new ArrayList<>();
-        UUID uuid = referenceManifest.getId();
-        UUID rdvUuid = UUID.randomUUID();
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
         try {
-            final List<ReferenceDigestValue> dbTempList
-                    = super.getList(ReferenceDigestValue.class);
-            for (ReferenceDigestValue rdv : dbTempList) {
-                if (referenceManifest instanceof BaseReferenceManifest) {
-                    rdvUuid = rdv.getBaseRimId();
-                } else if (referenceManifest instanceof SupportReferenceManifest) {
-                    rdvUuid = rdv.getSupportRimId();
-                }
-                if (rdvUuid.equals(uuid)) {
-                    dbDigestValues.add(rdv);
-                }
+            tx = session.beginTransaction();
+            for (Object rdv : session.createCriteria(ReferenceDigestValue.class)
+                    .add(Restrictions.eq(rimIdField, referenceManifest.getId()))
+                    .list()) {
+                dbDigestValues.add((ReferenceDigestValue) rdv);
             }
-        } catch (DBManagerException dbMEx) {
-            throw new RuntimeException(dbMEx);
+            tx.commit();
+        } catch (Exception ex) {
+            final String msg = "unable to retrieve digest values";
+            LOGGER.error(msg, ex);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(msg, ex);
         }
         return dbDigestValues;
     }
 
+    @Override
+    public String getValuesVersion(final UUID baseRimId) {
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            Object[] version = (Object[]) session
+                    .createCriteria(ReferenceDigestValue.class)
+                    .add(Restrictions.eq(BASE_RIM_ID_FIELD, baseRimId))
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.rowCount())
+                            .add(Projections.count(ARCHIVED_TIME_FIELD))
+                            .add(Projections.max("createTime")))
+                    .uniqueResult();
+            tx.commit();
+            return Arrays.toString(version);
+        } catch (Exception e) {
+            final String msg = "unable to retrieve digest values version";
+            LOGGER.error(msg, e);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(msg, e);
+        }
+    }
+
     @Override
     public List<ReferenceDigestValue> getValueByEventType(final String eventType) {
         LOGGER.debug("Getting digest values for event type: {}", eventType);
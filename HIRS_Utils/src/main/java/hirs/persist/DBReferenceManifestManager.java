@@ -1,20 +1,17 @@
 package hirs.persist;
 
 import hirs.data.persist.ReferenceManifest;
+import hirs.utils.RimValidationEngine;
 import org.hibernate.SessionFactory;
 
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.io.InputStream;
-import java.io.IOException;
-import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.xml.sax.SAXException;
 
 /**
  * This class is used to persist and retrieve {@link ReferenceManifest}s into
@@ -30,8 +27,6 @@ public class DBReferenceManifestManager extends DBManager<ReferenceManifest>
     public static final SchemaFactory SCHEMA_FACTORY
             = SchemaFactory.newInstance(ReferenceManifest.SCHEMA_LANGUAGE);
 
-    private static Schema schema;
-
     /**
      * Default Constructor.
      *
@@ -43,35 +38,13 @@ public class DBReferenceManifestManager extends DBManager<ReferenceManifest>
     }
 
     /**
-     * This method sets the xml schema for processing RIMs.
+     * This method returns the xml schema for processing RIMs, which is compiled once and
+     * shared through the {@link RimValidationEngine}.
      *
      * @return the schema
      */
     public static final Schema getSchemaObject() {
-        if (schema == null) {
-            InputStream is = null;
-            try {
-                is = ReferenceManifest.class
-                        .getClassLoader()
-                        .getResourceAsStream(ReferenceManifest.SCHEMA_URL);
-                schema = SCHEMA_FACTORY.newSchema(new StreamSource(is));
-            } catch (SAXException saxEx) {
-                LOGGER.error(String.format("Error setting schema for validation!%n%s",
-                    saxEx.getMessage()));
-            } finally {
-                if (is != null) {
-                    try {
-                        is.close();
-                    } catch (IOException ioEx) {
-                        LOGGER.error(String.format("Error closing input stream%n%s",
-                                ioEx.getMessage()));
-                    }
-                } else {
-                    LOGGER.error("Input stream variable is null");
-                }
-            }
-        }
-        return schema;
+        return RimValidationEngine.getInstance().getSchema();
     }
 
     /**
@@ -97,6 +70,22 @@ public class DBReferenceManifestManager extends DBManager<ReferenceManifest>
         );
     }
 
+    /**
+     * Iterates over the id, file name and bytes of the RIMs matching the given selector, a row
+     * at a time, without loading the RIMs.
+     *
+     * @param referenceManifestSelector a configured
+     * {@link ReferenceManifestSelector} to use for querying
+     * @return an iterator over the matching RIMs' bytes, which must be closed
+     */
+    @Override
+    public RawBytesIterator<String> getRimBytes(
+            final ReferenceManifestSelector referenceManifestSelector) {
+        return scrollRawBytes(referenceManifestSelector.getReferenceManifestClass(),
+                referenceManifestSelector.getCriterion(),
+                ReferenceManifestSelector.RIM_FILENAME_FIELD, ReferenceManifest.RIM_BYTES_FIELD);
+    }
+
     /**
      * Remove a ReferenceManifest from the database.
      *
@@ -322,13 +322,16 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
             });
         }
 
-        JobExecutor executor = new JobExecutor();
+        // appraisals wait on the iteration, so run it ahead of background jobs
         Job<Void> job = new Job<>(tasks);
-        executor.scheduleJob(job);
+        job.setPriority(Job.Priority.HIGH);
+        JobExecutor.getShared().scheduleJob(job);
 
         try {
-            executor.shutdown();
+            job.await();
         } catch (InterruptedException e) {
+            JobExecutor.getShared().cancelJob(job);
+            Thread.currentThread().interrupt();
             throw new DBManagerException(e);
         }
 
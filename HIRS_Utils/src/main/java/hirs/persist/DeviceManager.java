@@ -3,6 +3,7 @@ package hirs.persist;
 import hirs.FilteredRecordsList;
 import hirs.data.persist.Device;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -109,6 +110,18 @@ public interface DeviceManager extends OrderedListQuerier<Device> {
      */
     Device getDevice(String name) throws DeviceManagerException;
 
+    /**
+     * Retrieves the <code>Device</code>s identified by <code>names</code> with a single query.
+     * Names that do not identify a <code>Device</code> are ignored.
+     *
+     * @param names
+     *            names of the <code>Device</code>s
+     * @return the <code>Device</code>s found, possibly empty
+     * @throws DeviceManagerException
+     *             if unable to retrieve the devices
+     */
+    List<Device> getDevices(Collection<String> names) throws DeviceManagerException;
+
     /**
      * Used to produce a list of all <code>Device</code>s associated with the Default Group.
      *
@@ -63,6 +63,9 @@ public class HibernateConfiguration {
     @Value("${persistence.hibernate.provider}")
     private String provider;
 
+    @Value("${persistence.hibernate.jdbcBatchSize:50}")
+    private String jdbcBatchSize;
+
     @Value("${persistence.db.maxTransactionRetryAttempts}")
     private int maxTransactionRetryAttempts;
 
@@ -108,6 +111,9 @@ public class HibernateConfiguration {
         properties.put("hibernate.hbm2ddl.auto", ddl);
         properties.put("hibernate.dialect", dialect);
         properties.put("hibernate.current_session_context_class", "thread");
+        properties.put("hibernate.jdbc.batch_size", jdbcBatchSize);
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
         return properties;
     }
 
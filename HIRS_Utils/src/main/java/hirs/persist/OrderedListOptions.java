@@ -0,0 +1,130 @@
+package hirs.persist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Optional settings for {@link OrderedListQuerier#getOrderedList} that trade exactness or
+ * flexibility for speed on large tables. The defaults give the same results as a query without
+ * options: offset paging, exact totals and searching for words anywhere in a column.
+ */
+public final class OrderedListOptions {
+
+    private UUID afterId;
+    private int countStalenessSeconds;
+    private List<Object> modifierInputs = Collections.emptyList();
+    private boolean prefixSearch;
+
+    /**
+     * Returns the id of the last record of the previous page, if keyset paging was requested.
+     *
+     * @return the id of the record to continue after, or null to page by offset
+     */
+    public UUID getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Requests keyset (seek) paging. Instead of skipping the first results of the query, the
+     * page starts right after the given record, in the order of the ordered column and then of
+     * the id. This stays fast however deep the page is. The offset of the query is ignored. If
+     * the record no longer matches the query, the offset is used instead.
+     * Records with a null ordered column are placed where the database sorts them: first in
+     * ascending and last in descending order on MySQL, first in either order on HSQLDB.
+     *
+     * @param afterId the id of the last record of the previous page, or null to page by offset
+     */
+    public void setAfterId(final UUID afterId) {
+        this.afterId = afterId;
+    }
+
+    /**
+     * Returns how old the total and filtered record counts may be.
+     *
+     * @return the staleness allowed for the counts, in seconds
+     */
+    public int getCountStalenessSeconds() {
+        return countStalenessSeconds;
+    }
+
+    /**
+     * Allows the total and filtered record counts to be reused from an earlier query with the
+     * same class, {@link #setModifierInputs(Object...) modifier inputs} and search, if that
+     * query was made at most this many seconds ago. Counting every record of a large table is
+     * often the slowest part of a page.
+     *
+     * @param countStalenessSeconds the staleness allowed for the counts, in seconds, or 0 to
+     *                              always count
+     */
+    public void setCountStalenessSeconds(final int countStalenessSeconds) {
+        if (countStalenessSeconds < 0) {
+            throw new IllegalArgumentException("count staleness cannot be negative");
+        }
+        this.countStalenessSeconds = countStalenessSeconds;
+    }
+
+    /**
+     * Returns the values the criteria modifier of the query depends on.
+     *
+     * @return the modifier inputs, empty if the modifier only adds fixed restrictions
+     */
+    public List<Object> getModifierInputs() {
+        return modifierInputs;
+    }
+
+    /**
+     * Names the values the criteria modifier of the query restricts it by, such as the id of a
+     * device the records must belong to. Cached counts are only reused between queries with
+     * equal modifier inputs, so these must be given if stale counts are allowed and the
+     * restrictions of the modifier vary between queries of the same class.
+     *
+     * @param modifierInputs the values the criteria modifier depends on
+     */
+    public void setModifierInputs(final Object... modifierInputs) {
+        this.modifierInputs = Collections.unmodifiableList(
+                new ArrayList<>(Arrays.asList(modifierInputs)));
+    }
+
+    /**
+     * Returns whether the search words only match the start of a column.
+     *
+     * @return true if the search is a prefix search
+     */
+    public boolean isPrefixSearch() {
+        return prefixSearch;
+    }
+
+    /**
+     * Requests that search words only match the start of a column. Text columns are then
+     * compared with a case sensitive <code>like</code>, which unlike a match anywhere can use an
+     * index on the column; MySQL still compares case insensitively under its default
+     * collation.
+     *
+     * @param prefixSearch true to only match the start of columns
+     */
+    public void setPrefixSearch(final boolean prefixSearch) {
+        this.prefixSearch = prefixSearch;
+    }
+
+    /**
+     * Returns whether these options ask for anything other than the default behavior.
+     *
+     * @return true if every option has its default value
+     */
+    public boolean isDefault() {
+        return afterId == null && countStalenessSeconds == 0 && !prefixSearch;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderedListOptions{"
+                + "afterId=" + afterId
+                + ", countStalenessSeconds=" + countStalenessSeconds
+                + ", modifierInputs=" + modifierInputs
+                + ", prefixSearch=" + prefixSearch
+                + '}';
+    }
+}
@@ -64,4 +64,34 @@ public interface OrderedListQuerier<T> {
             int maxResults, String search,
             Map<String, Boolean> searchableColumns, CriteriaModifier criteriaModifier)
             throws DBManagerException;
+
+    /**
+     * Returns a list of all <code>T</code>s that are ordered by a column and
+     * direction (ASC, DESC) that is provided by the user, as
+     * {@link #getOrderedList(Class, String, boolean, int, int, String, Map, CriteriaModifier)}
+     * does, with options for paging, counting and searching large tables faster.
+     *
+     * @param clazz class type of <code>T</code>s to search for (may be null to
+     * use Class&lt;T&gt;)
+     * @param columnToOrder Column to be ordered
+     * @param ascending direction of sort
+     * @param firstResult starting point of first result in set, unless keyset paging is used
+     * @param maxResults total number we want returned for display in table
+     * @param search string of criteria to be matched to visible columns
+     * @param searchableColumns Map of String and boolean values with column
+     * headers and whether they should be searched. Boolean is true if field provides a
+     * typical String that can be searched by Hibernate without transformation.
+     * @param criteriaModifier a way to modify the criteria used in the query
+     * @param options the paging, counting and searching options
+     * @return FilteredRecordsList object with query data
+     * @throws DBManagerException if unable to create the list
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    FilteredRecordsList<T> getOrderedList(
+            Class<? extends T> clazz, String columnToOrder,
+            boolean ascending, int firstResult,
+            int maxResults, String search,
+            Map<String, Boolean> searchableColumns, CriteriaModifier criteriaModifier,
+            OrderedListOptions options)
+            throws DBManagerException;
 }
@@ -0,0 +1,137 @@
+package hirs.persist;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Iterates over the id, an identifying key and the raw bytes of stored entities, such as
+ * certificates or RIMs, without loading the entities themselves. The rows are read through a
+ * forward-only scroll in a {@link StatelessSession}, so only the current row is held in memory
+ * however many rows match. The iterator holds a database connection until it is closed.
+ *
+ * @param <K> the type of the identifying key
+ */
+public final class RawBytesIterator<K> implements Iterator<RawBytesIterator.Entry<K>>,
+        AutoCloseable {
+
+    /**
+     * The id, identifying key and raw bytes of a stored entity.
+     *
+     * @param <K> the type of the identifying key
+     */
+    public static final class Entry<K> {
+        private final UUID id;
+        private final K key;
+        private final byte[] rawBytes;
+
+        private Entry(final UUID id, final K key, final byte[] rawBytes) {
+            this.id = id;
+            this.key = key;
+            this.rawBytes = rawBytes;
+        }
+
+        /**
+         * @return the id of the entity
+         */
+        public UUID getId() {
+            return id;
+        }
+
+        /**
+         * @return the identifying key of the entity, such as a certificate hash or a file name
+         */
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * @return the raw bytes of the entity; the array is not copied
+         */
+        @SuppressFBWarnings(
+                value = "EI_EXPOSE_REP",
+                justification = "The bytes are streamed once; copying them would double the "
+                        + "memory the iterator is meant to save")
+        public byte[] getRawBytes() {
+            return rawBytes;
+        }
+    }
+
+    private final StatelessSession session;
+    private final Transaction transaction;
+    private final ScrollableResults results;
+    private Entry<K> next;
+    private boolean closed;
+
+    /**
+     * Creates an iterator over the rows of a scroll whose columns are the id, the identifying
+     * key and the raw bytes of an entity, in that order.
+     *
+     * @param session the session the scroll was opened in, closed with the iterator
+     * @param transaction the transaction the scroll was opened in
+     * @param results the scroll
+     */
+    RawBytesIterator(final StatelessSession session, final Transaction transaction,
+                     final ScrollableResults results) {
+        this.session = session;
+        this.transaction = transaction;
+        this.results = results;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        try {
+            if (!results.next()) {
+                close();
+                return false;
+            }
+            Object[] row = results.get();
+            next = new Entry<>((UUID) row[0], (K) row[1], (byte[]) row[2]);
+            return true;
+        } catch (HibernateException e) {
+            close();
+            throw new DBManagerException("unable to read the next row", e);
+        }
+    }
+
+    @Override
+    public Entry<K> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry<K> entry = next;
+        next = null;
+        return entry;
+    }
+
+    /**
+     * Ends the scroll and releases its database connection. Closing the iterator more than
+     * once has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            results.close();
+            transaction.commit();
+        } finally {
+            session.close();
+        }
+    }
+}
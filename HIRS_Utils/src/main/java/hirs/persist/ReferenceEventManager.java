@@ -4,8 +4,10 @@ import hirs.data.persist.ReferenceDigestRecord;
 import hirs.data.persist.ReferenceDigestValue;
 import hirs.data.persist.ReferenceManifest;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * This class facilitates the persistence of {@link hirs.data.persist.ReferenceDigestValue}s
@@ -20,6 +22,15 @@ public interface ReferenceEventManager extends OrderedListQuerier<ReferenceDiges
      */
     ReferenceDigestValue saveValue(ReferenceDigestValue referenceDigestValue);
 
+    /**
+     * Persists new Reference Digest values in a single transaction. The values are inserted in
+     * JDBC batches of the configured size, so that the values of a RIM do not take a transaction
+     * each. The values are assigned their ids.
+     *
+     * @param referenceDigestValues the new ReferenceDigestValues
+     */
+    void saveValues(Collection<ReferenceDigestValue> referenceDigestValues);
+
     /**
      * Persists a new Reference Digest value.
      *
@@ -85,6 +96,17 @@ public interface ReferenceEventManager extends OrderedListQuerier<ReferenceDiges
      */
     List<ReferenceDigestValue> getValuesByRimId(ReferenceManifest referenceManifest);
 
+    /**
+     * Returns a value describing the current set of stored digest values of a base RIM.
+     * The value changes whenever a digest value of the base RIM is saved, associated with it,
+     * archived, restored or deleted, so it can be used to tell whether anything derived from
+     * those digest values is out of date.
+     *
+     * @param baseRimId the id of the base RIM
+     * @return the version of the base RIM's digest values
+     */
+    String getValuesVersion(UUID baseRimId);
+
     /**
      * Persists a new Reference Digest value.
      *
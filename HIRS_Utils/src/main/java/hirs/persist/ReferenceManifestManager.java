@@ -34,6 +34,16 @@ public interface ReferenceManifestManager extends OrderedListQuerier<ReferenceMa
      */
     <T extends ReferenceManifest> Set<T> get(ReferenceManifestSelector referenceManifestSelector);
 
+    /**
+     * Iterates over the id, file name and bytes of the RIMs matching the given
+     * {@link ReferenceManifestSelector}, without loading the RIMs. The iterator must be closed
+     * once it is no longer needed.
+     *
+     * @param referenceManifestSelector a {@link ReferenceManifestSelector} to use for querying
+     * @return an iterator over the matching RIMs' bytes
+     */
+    RawBytesIterator<String> getRimBytes(ReferenceManifestSelector referenceManifestSelector);
+
     /**
      * Delete the given RIM.
      *
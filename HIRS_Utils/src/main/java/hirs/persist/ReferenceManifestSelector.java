@@ -182,6 +182,18 @@ public abstract class ReferenceManifestSelector<T extends ReferenceManifest> {
         return Collections.unmodifiableSet(new HashSet<>(execute()));
     }
 
+    /**
+     * Retrieve the id, file name and bytes of each matching
+     * {@link hirs.data.persist.ReferenceManifest}, a RIM at a time, without loading the RIMs.
+     * This method is best used when the bytes of many RIMs are needed at once, such as for bulk
+     * downloads. The returned iterator must be closed.
+     *
+     * @return an iterator over the bytes of the matching RIMs, possibly empty
+     */
+    public RawBytesIterator<String> getRimBytes() {
+        return referenceManifestManager.getRimBytes(this);
+    }
+
     /**
      * Construct the criterion that can be used to query for rims matching the
      * configuration of this {@link ReferenceManifestSelector}.
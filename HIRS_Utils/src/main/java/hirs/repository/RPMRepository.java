@@ -5,15 +5,18 @@ import hirs.data.persist.enums.DigestAlgorithm;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.repository.measurement.PackageMeasurer;
 import hirs.repository.measurement.RPMMeasurer;
-import hirs.utils.exec.ExecBuilder;
 
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,17 +41,15 @@ public abstract class RPMRepository<T extends RPMRepoPackage> extends Repository
 
     private static final Logger LOGGER = LogManager.getLogger(RPMRepository.class);
 
-    private static final int VER_CMP_EQUAL = 0;
-    private static final int VER_CMP_FIRST_NEWER = 11;
-    private static final int VER_CMP_SECOND_NEWER = 12;
-
-
     @Column
     private URL baseUrl;
 
     @Transient
     private PackageMeasurer rpmMeasurer = new RPMMeasurer(DigestAlgorithm.SHA1);
 
+    @Transient
+    private transient volatile Map<List<String>, List<T>> packagesByNameAndArchitecture;
+
     /**
      * Construct a new Repository with a given name.
      *
@@ -99,6 +100,8 @@ public abstract class RPMRepository<T extends RPMRepoPackage> extends Repository
 
     /**
      * Search this repository for every measured package that is an update of the given package.
+     * Only the packages with the same name and architecture as the given package are compared
+     * with it.
      *
      * @param oldPackage the package to find updates for
      * @return a <code>Set</code> of <code>RepoPackage</code>s that are updates of the given package
@@ -106,14 +109,44 @@ public abstract class RPMRepository<T extends RPMRepoPackage> extends Repository
     @Override
     public final Set<RepoPackage> getUpdatedPackages(final RepoPackage oldPackage) {
         Set<RepoPackage> updatedPackages = new HashSet<>();
-        for (RepoPackage newPackage : this.getPackages()) {
-            if (isUpdatedRPMPackage((RPMRepoPackage) oldPackage, (RPMRepoPackage) newPackage)) {
+        List<T> candidates = getPackagesByNameAndArchitecture().get(
+                Arrays.asList(oldPackage.getName(), oldPackage.getArchitecture()));
+        if (candidates == null) {
+            return updatedPackages;
+        }
+        for (RPMRepoPackage newPackage : candidates) {
+            if (isUpdatedRPMPackage((RPMRepoPackage) oldPackage, newPackage)) {
                 updatedPackages.add(newPackage);
             }
         }
         return updatedPackages;
     }
 
+    /**
+     * Gets the measured packages of this repository grouped by name and architecture, indexing
+     * them on first use.
+     *
+     * @return the packages by a list of their name and architecture
+     */
+    private Map<List<String>, List<T>> getPackagesByNameAndArchitecture() {
+        Map<List<String>, List<T>> index = packagesByNameAndArchitecture;
+        if (index == null) {
+            index = new HashMap<>();
+            for (T repoPackage : getPackages()) {
+                index.computeIfAbsent(
+                        Arrays.asList(repoPackage.getName(), repoPackage.getArchitecture()),
+                        key -> new ArrayList<>()).add(repoPackage);
+            }
+            packagesByNameAndArchitecture = index;
+        }
+        return index;
+    }
+
+    @Override
+    protected final void packagesChanged() {
+        packagesByNameAndArchitecture = null;
+    }
+
     /**
      * Measures the package at the specified path.
      * @param repoPackage the repo package
@@ -148,18 +181,10 @@ public abstract class RPMRepository<T extends RPMRepoPackage> extends Repository
 
     /**
      * Compare two packages to determine if the second is an updated version of the first. First
-     * this checks whether the package name and architecture are the same. Then a version comparison
-     * binary from rpmdevtools called rpmdev-vercmp is called to check the release and version
-     * strings. This tool will give an exit status indicating which package is newer. This method
-     * examines the result and returns a boolean representing whether or not the second package is
-     * any release of a newer version or a newer release of the same version.
-     *
-     * The exit codes for rpmdev-vercmp are:
-     * <ul>
-     * <li>0 if the versions are equal</li>
-     * <li>11 if the first is newer</li>
-     * <li>12 if the second is newer</li>
-     * </ul>
+     * this checks whether the package name and architecture are the same. Then the version and
+     * release strings are compared like RPM does (see {@link RPMVersionComparator}). This method
+     * returns a boolean representing whether or not the second package is any release of a
+     * newer version or a newer release of the same version.
      *
      * @param oldPackage the old package to check against potential updates
      * @param newPackage the new package to check as a potential update of the old package
@@ -167,29 +192,13 @@ public abstract class RPMRepository<T extends RPMRepoPackage> extends Repository
      */
     private static boolean isUpdatedRPMPackage(final RPMRepoPackage oldPackage,
             final RPMRepoPackage newPackage) {
-        final int[] validExitCodes = new int[]{0, 11, 12};
         if (!oldPackage.getName().equals(newPackage.getName())
                 || !oldPackage.getArchitecture().equals(newPackage.getArchitecture())) {
             return false;
         }
 
-        int exitStatus;
-
-        try {
-            exitStatus = new ExecBuilder("rpmdev-vercmp")
-                    .args(oldPackage.getRPMIdentifier(), newPackage.getRPMIdentifier())
-                    .exitValues(validExitCodes)
-                    .exec().getExitStatus();
-        } catch (IOException e) {
-            throw new RuntimeException("Error running rpmdev-vercmp", e);
-        }
-
-        switch (exitStatus) {
-            case VER_CMP_EQUAL: return false;
-            case VER_CMP_FIRST_NEWER: return false;
-            case VER_CMP_SECOND_NEWER: return true;
-            default: throw new RuntimeException("Unexpected exit status from rpmdev-vercmp");
-        }
+        return RPMVersionComparator.compare(oldPackage.getVersion(), oldPackage.getRelease(),
+                newPackage.getVersion(), newPackage.getRelease()) < 0;
     }
 
     /**
@@ -0,0 +1,187 @@
+package hirs.repository;
+
+/**
+ * Compares RPM version and release strings the way RPM itself does, following the rpmvercmp
+ * algorithm of librpm.  Strings are split into segments of digits and segments of ASCII letters;
+ * all other characters only separate segments.  Numeric segments are compared as numbers and are
+ * newer than alphabetic segments, a tilde sorts before anything, even the end of the string, and
+ * a caret sorts after the end of the string but before anything else.
+ */
+public final class RPMVersionComparator {
+
+    private static final char TILDE = '~';
+    private static final char CARET = '^';
+
+    private RPMVersionComparator() {
+    }
+
+    /**
+     * Compares the versions and releases of two packages.  The releases are only compared if the
+     * versions are equal.
+     *
+     * @param version1 the version of the first package
+     * @param release1 the release of the first package
+     * @param version2 the version of the second package
+     * @param release2 the release of the second package
+     * @return a negative number if the first package is older, 0 if both are equal, and a
+     * positive number if the first package is newer
+     */
+    public static int compare(final String version1, final String release1,
+                              final String version2, final String release2) {
+        int result = compare(version1, version2);
+        if (result != 0) {
+            return result;
+        }
+        return compare(release1, release2);
+    }
+
+    /**
+     * Compares two version or release strings.
+     *
+     * @param first the first string
+     * @param second the second string
+     * @return -1 if the first string is older, 0 if both are equal, and 1 if the first string is
+     * newer
+     */
+    public static int compare(final String first, final String second) {
+        if (first.equals(second)) {
+            return 0;
+        }
+
+        int one = 0;
+        int two = 0;
+        while (one < first.length() || two < second.length()) {
+            one = skipSeparators(first, one);
+            two = skipSeparators(second, two);
+
+            // a tilde sorts before everything else
+            if (charAt(first, one) == TILDE || charAt(second, two) == TILDE) {
+                if (charAt(first, one) != TILDE) {
+                    return 1;
+                }
+                if (charAt(second, two) != TILDE) {
+                    return -1;
+                }
+                one++;
+                two++;
+                continue;
+            }
+
+            // a caret sorts after the end of the string, but before everything else
+            if (charAt(first, one) == CARET || charAt(second, two) == CARET) {
+                if (one == first.length()) {
+                    return -1;
+                }
+                if (two == second.length()) {
+                    return 1;
+                }
+                if (charAt(first, one) != CARET) {
+                    return 1;
+                }
+                if (charAt(second, two) != CARET) {
+                    return -1;
+                }
+                one++;
+                two++;
+                continue;
+            }
+
+            if (one == first.length() || two == second.length()) {
+                break;
+            }
+
+            // take the next segment of the first string, and the same kind from the second
+            int segmentStart1 = one;
+            int segmentStart2 = two;
+            boolean numeric = isDigit(first.charAt(one));
+            if (numeric) {
+                one = skip(first, one, true);
+                two = skip(second, two, true);
+            } else {
+                one = skip(first, one, false);
+                two = skip(second, two, false);
+            }
+
+            // numeric segments are newer than alphabetic ones
+            if (two == segmentStart2) {
+                if (numeric) {
+                    return 1;
+                }
+                return -1;
+            }
+
+            String segment1 = first.substring(segmentStart1, one);
+            String segment2 = second.substring(segmentStart2, two);
+            if (numeric) {
+                segment1 = stripLeadingZeros(segment1);
+                segment2 = stripLeadingZeros(segment2);
+                // the longer number is larger
+                if (segment1.length() != segment2.length()) {
+                    return Integer.signum(segment1.length() - segment2.length());
+                }
+            }
+            int result = segment1.compareTo(segment2);
+            if (result != 0) {
+                return Integer.signum(result);
+            }
+        }
+
+        // the string with segments left is newer
+        if (one >= first.length() && two >= second.length()) {
+            return 0;
+        }
+        if (one < first.length()) {
+            return 1;
+        }
+        return -1;
+    }
+
+    private static char charAt(final String string, final int index) {
+        if (index < string.length()) {
+            return string.charAt(index);
+        }
+        return 0;
+    }
+
+    private static int skipSeparators(final String string, final int start) {
+        int index = start;
+        while (index < string.length() && !isAlphanumeric(string.charAt(index))
+                && string.charAt(index) != TILDE && string.charAt(index) != CARET) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skip(final String string, final int start, final boolean digits) {
+        int index = start;
+        while (index < string.length()) {
+            char c = string.charAt(index);
+            if ((digits && !isDigit(c)) || (!digits && !isLetter(c))) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static String stripLeadingZeros(final String number) {
+        int index = 0;
+        while (index < number.length() && number.charAt(index) == '0') {
+            index++;
+        }
+        return number.substring(index);
+    }
+
+    // RPM only treats ASCII characters as digits and letters
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAlphanumeric(final char c) {
+        return isDigit(c) || isLetter(c);
+    }
+}
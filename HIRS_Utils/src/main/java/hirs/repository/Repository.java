@@ -99,6 +99,14 @@ public abstract class Repository<T extends RepoPackage> extends UserDefinedEntit
     public final void setPackages(final Set<T> newPackages) {
         packages.clear();
         packages.addAll(newPackages);
+        packagesChanged();
+    }
+
+    /**
+     * Called after the packages of this <code>Repository</code> were replaced, so that
+     * implementing classes can drop anything they derived from the packages.
+     */
+    protected void packagesChanged() {
     }
 
     /**
@@ -50,7 +50,7 @@ public final class RepositoryUpdateService {
     private final ConcurrentHashMap<UUID, Job<Boolean>> finishedJobs =
             new ConcurrentHashMap<>();
 
-    private final JobExecutor jobExecutor = new JobExecutor();
+    private final JobExecutor jobExecutor = JobExecutor.getShared();
 
     private RepositoryUpdateService() {
     }
@@ -89,6 +89,8 @@ public final class RepositoryUpdateService {
             return false;
         }
 
+        // updates run in the background, behind jobs that callers are waiting on
+        updateJob.setPriority(Job.Priority.LOW);
         activeJobs.put(repository.getId(), updateJob);
         jobExecutor.scheduleJob(updateJob);
         return true;
@@ -155,7 +157,10 @@ public final class RepositoryUpdateService {
     }
 
     private synchronized void shutdownNow() throws InterruptedException {
-        jobExecutor.shutdownNow();
+        // the executor is shared, so only this service's jobs are canceled
+        for (Job<Boolean> job : activeJobs.values()) {
+            jobExecutor.cancelJob(job);
+        }
     }
 
     private synchronized void cleanupJobs() {
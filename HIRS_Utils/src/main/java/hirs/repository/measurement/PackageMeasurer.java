@@ -13,6 +13,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -158,16 +159,7 @@ public abstract class PackageMeasurer {
                 }
 
                 // call all applicable chained measurers
-                for (PackageMeasurer measurer : chainedPackageMeasurers) {
-                    if (measurer.shouldMeasureFileWhenChainedMeasurer(relativePath)) {
-                        try {
-                            measurements.putAll(measurer.measure(file.toAbsolutePath()));
-                        } catch (IOException e) {
-                            LOGGER.error("Failed to measure file: " + file.toString(),
-                                    e.getMessage());
-                        }
-                    }
-                }
+                measurements.putAll(measureChained(relativePath, file));
 
                 return FileVisitResult.CONTINUE;
             }
@@ -176,6 +168,45 @@ public abstract class PackageMeasurer {
         return measurements;
     }
 
+    /**
+     * Queries all chained PackageMeasurers (as specified in this class' constructor) to check if
+     * they are capable of unpacking and/or measuring the given file, and measures the file with
+     * those that are.
+     *
+     * @param relativePath the path of the file within the package being measured
+     * @param file the absolute path of the file on disk
+     * @return the resulting Multimap of absolute file paths to their measurements, possibly empty
+     */
+    protected final Multimap<Path, Digest> measureChained(final Path relativePath,
+                                                          final Path file) {
+        Multimap<Path, Digest> measurements = HashMultimap.create();
+        for (PackageMeasurer measurer : chainedPackageMeasurers) {
+            if (measurer.shouldMeasureFileWhenChainedMeasurer(relativePath)) {
+                try {
+                    measurements.putAll(measurer.measure(file.toAbsolutePath()));
+                } catch (IOException e) {
+                    LOGGER.error("Failed to measure file: " + file.toString(), e.getMessage());
+                }
+            }
+        }
+        return measurements;
+    }
+
+    /**
+     * Reports whether any chained PackageMeasurer would measure the given file.
+     *
+     * @param relativePath the path of the file within the package being measured
+     * @return true if {@link #measureChained(Path, Path)} would measure the file
+     */
+    protected final boolean hasChainedMeasurer(final Path relativePath) {
+        for (PackageMeasurer measurer : chainedPackageMeasurers) {
+            if (measurer.shouldMeasureFileWhenChainedMeasurer(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Measures the given file according to the set digest algorithm.
      *
@@ -184,34 +215,46 @@ public abstract class PackageMeasurer {
      * @throws IOException if there is an error encountered while reading the file.
      */
      public final Digest measureFile(final Path fileLocation) throws IOException {
+        try (FileInputStream fis = new FileInputStream(fileLocation.toFile())) {
+            return measureStream(fis);
+        }
+    }
+
+    /**
+     * Measures the contents of the given stream according to the set digest algorithm.  The
+     * stream is read to its end, but not closed.
+     *
+     * @param stream the stream to measure.
+     * @return the resulting Digest
+     * @throws IOException if there is an error encountered while reading the stream.
+     */
+    public final Digest measureStream(final InputStream stream) throws IOException {
         byte[] value;
 
-        try (FileInputStream fis = new FileInputStream(fileLocation.toFile())) {
-            switch (digestAlgorithm) {
-                case MD2:
-                    value = DigestUtils.md2(fis);
-                    break;
-                case MD5:
-                    value = DigestUtils.md5(fis);
-                    break;
-                case SHA1:
-                    value = DigestUtils.sha1(fis);
-                    break;
-                case SHA256:
-                    value = DigestUtils.sha256(fis);
-                    break;
-                case SHA384:
-                    value = DigestUtils.sha384(fis);
-                    break;
-                case SHA512:
-                    value = DigestUtils.sha512(fis);
-                    break;
-                default:
-                    throw new UnsupportedOperationException(
-                            "Measurement type not supported: " + digestAlgorithm
-                                    .toString()
-                    );
-            }
+        switch (digestAlgorithm) {
+            case MD2:
+                value = DigestUtils.md2(stream);
+                break;
+            case MD5:
+                value = DigestUtils.md5(stream);
+                break;
+            case SHA1:
+                value = DigestUtils.sha1(stream);
+                break;
+            case SHA256:
+                value = DigestUtils.sha256(stream);
+                break;
+            case SHA384:
+                value = DigestUtils.sha384(stream);
+                break;
+            case SHA512:
+                value = DigestUtils.sha512(stream);
+                break;
+            default:
+                throw new UnsupportedOperationException(
+                        "Measurement type not supported: " + digestAlgorithm
+                                .toString()
+                );
         }
 
         return new Digest(digestAlgorithm, value);
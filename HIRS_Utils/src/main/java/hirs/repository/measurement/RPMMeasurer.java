@@ -1,5 +1,6 @@
 package hirs.repository.measurement;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
 import hirs.data.persist.Digest;
@@ -7,30 +8,45 @@ import hirs.data.persist.enums.DigestAlgorithm;
 import hirs.utils.exec.ExecBuilder;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
 /**
- * Extends <code>PackageMeasurer</code> to conduct the measurement of RPM content.  Requires
- * rpm2cpio and cpio to be installed.  This 'chains' {@link InitRamFsGeneratorAndMeasurer};
- * if a kernel RPM is measured, an InitRamFsGeneratorAndMeasurer will be used to generate and
- * measure an initramfs image for that kernel; these measurements be added to the measurements from
- * the RPM itself.
+ * Extends <code>PackageMeasurer</code> to conduct the measurement of RPM content.  RPM content is
+ * read and measured in-process; rpm2cpio and cpio are only required for RPMs whose payload
+ * is compressed with an algorithm {@link RPMPackageReader} does not support.  This 'chains'
+ * {@link InitRamFsGeneratorAndMeasurer}; if a kernel RPM is measured, an
+ * InitRamFsGeneratorAndMeasurer will be used to generate and measure an initramfs image for that
+ * kernel; these measurements be added to the measurements from the RPM itself.
  */
 public class RPMMeasurer extends PackageMeasurer {
     private static final Logger LOGGER = LogManager.getLogger(RPMMeasurer.class);
     private static final Pattern RPM_FILENAME = Pattern.compile(".+\\.rpm$");
     private static final int RPM_EXTRACT_TIMEOUT = 2 * 60 * 1000;
     private static final String EXTRACT_SCRIPT = "/repository/extract_rpm.sh";
+    private static final Path ROOT = FileSystems.getDefault().getPath("/");
+    private static final int ANY_EXECUTE = 0111;
+    private static final int OWNER_READ_WRITE = 0600;
 
     /**
      * Construct a new RPMMeasurer.
@@ -42,9 +58,12 @@ public class RPMMeasurer extends PackageMeasurer {
     }
 
     /**
-     * This method measures an RPM at the given file path.  It creates a temporary directory in the
-     * given RPM file's directory, extracts the RPM's files into the directory, measures them, then
-     * removes the temporary directory.
+     * This method measures an RPM at the given file path.  The RPM's payload is read and its files
+     * measured as a stream, without extracting them to disk.  Only files that a chained measurer
+     * should also measure are written to a temporary directory.  RPMs whose payload cannot be
+     * read as a stream (see {@link RPMPackageReader#isPayloadSupported()}) are extracted into a
+     * temporary directory in the given RPM file's directory, measured there, and the temporary
+     * directory removed.
      *
      * @param rpmFile the path to the package to be measured
      * @return the resulting Multimap of absolute file paths to their measurements (one or many)
@@ -52,6 +71,89 @@ public class RPMMeasurer extends PackageMeasurer {
      */
     @Override
     protected final Multimap<Path, Digest> doMeasure(final Path rpmFile) throws IOException {
+        try (RPMPackageReader reader = new RPMPackageReader(Files.newInputStream(rpmFile))) {
+            if (reader.isPayloadSupported()) {
+                return measurePayload(rpmFile, reader);
+            }
+            LOGGER.debug(String.format("Extracting %s to measure its %s compressed payload",
+                    rpmFile, reader.getPayloadCompressor()));
+        }
+        return extractAndMeasure(rpmFile);
+    }
+
+    private Multimap<Path, Digest> measurePayload(final Path rpmFile,
+                                                  final RPMPackageReader reader)
+            throws IOException {
+        Multimap<Path, Digest> measurements = HashMultimap.create();
+        Map<List<Long>, List<Path>> pendingLinks = new HashMap<>();
+
+        RPMPackageReader.Entry entry;
+        while ((entry = reader.nextEntry()) != null) {
+            // like the extracted RPM, skip directories, symbolic links and special files
+            if (!entry.isRegularFile()) {
+                continue;
+            }
+            Path path = getPath(entry);
+            List<Path> links = Collections.singletonList(path);
+            if (entry.getNumberOfLinks() > 1) {
+                // the contents of a hard linked file are held by the last of its links
+                links = pendingLinks.computeIfAbsent(entry.getFileKey(), key -> new ArrayList<>());
+                links.add(path);
+                if (entry.getSize() == 0 && links.size() < entry.getNumberOfLinks()) {
+                    continue;
+                }
+                pendingLinks.remove(entry.getFileKey());
+            }
+            measureEntry(rpmFile, links, reader.getEntryStream(), measurements);
+        }
+
+        // links whose contents were not in the payload are extracted as empty files
+        for (List<Path> links : pendingLinks.values()) {
+            measureEntry(rpmFile, links, new ByteArrayInputStream(new byte[0]), measurements);
+        }
+        return measurements;
+    }
+
+    private void measureEntry(final Path rpmFile, final List<Path> links,
+                              final InputStream contents,
+                              final Multimap<Path, Digest> measurements) throws IOException {
+        List<Path> chainedLinks = new ArrayList<>();
+        for (Path link : links) {
+            if (hasChainedMeasurer(link)) {
+                chainedLinks.add(link);
+            }
+        }
+
+        Digest digest;
+        if (chainedLinks.isEmpty()) {
+            digest = measureStream(contents);
+        } else {
+            // chained measurers need the file on disk, under its own name
+            Path tempDir = Files.createTempDirectory(rpmFile.toAbsolutePath().getParent(),
+                    "chained");
+            try {
+                Path file = tempDir.resolve(String.valueOf(links.get(0).getFileName()));
+                Files.copy(contents, file);
+                digest = measureFile(file);
+                for (Path link : chainedLinks) {
+                    measurements.putAll(measureChained(link, file));
+                }
+            } finally {
+                FileUtils.deleteQuietly(tempDir.toFile());
+            }
+        }
+
+        for (Path link : links) {
+            LOGGER.debug("Measured: " + link.toString());
+            measurements.put(link, digest);
+        }
+    }
+
+    private static Path getPath(final RPMPackageReader.Entry entry) {
+        return ROOT.resolve(entry.getName()).normalize();
+    }
+
+    private Multimap<Path, Digest> extractAndMeasure(final Path rpmFile) throws IOException {
         Path rpmRoot = null;
 
         try {
@@ -99,7 +201,10 @@ public class RPMMeasurer extends PackageMeasurer {
 
     /**
      * Extracts the contents of the RPM at the given file path to the provided rpm extraction root
-     * directory.
+     * directory.  Regular files, directories, symbolic links and hard links are extracted, and
+     * all files are made readable by their owner.  Entries outside of the root, or below a
+     * symbolic link extracted from the RPM, are refused.  RPMs whose payload cannot be read as a
+     * stream are extracted with rpm2cpio and cpio, which must be installed.
      *
      * @param rpmFile the path of the RPM to extract
      * @param rpmExtractionFakeRoot the already-created path that will serve as the fake root
@@ -118,6 +223,13 @@ public class RPMMeasurer extends PackageMeasurer {
             Files.createDirectory(rpmExtractionFakeRoot);
         }
 
+        try (RPMPackageReader reader = new RPMPackageReader(Files.newInputStream(rpmFile))) {
+            if (reader.isPayloadSupported()) {
+                extractPayload(reader, rpmExtractionFakeRoot);
+                return;
+            }
+        }
+
         Path parentDir = rpmFile.getParent();
         if (parentDir == null)  {
             throw new IllegalArgumentException("RPM file path has no parent dir");
@@ -139,6 +251,75 @@ public class RPMMeasurer extends PackageMeasurer {
                 .exec();
     }
 
+    private static void extractPayload(final RPMPackageReader reader, final Path root)
+            throws IOException {
+        Map<List<Long>, List<Path>> pendingLinks = new HashMap<>();
+        Set<Path> symbolicLinks = new HashSet<>();
+
+        RPMPackageReader.Entry entry;
+        while ((entry = reader.nextEntry()) != null) {
+            Path target = root.resolve(ROOT.relativize(getPath(entry))).normalize();
+            if (!target.startsWith(root)) {
+                throw new IOException("RPM entry outside of the extraction root: "
+                        + entry.getName());
+            }
+            // a symbolic link from the payload may point outside of the root, never write
+            // through one
+            for (Path parent = target.getParent(); parent != null && !parent.equals(root);
+                    parent = parent.getParent()) {
+                if (symbolicLinks.contains(parent)) {
+                    throw new IOException("RPM entry below a symbolic link of the RPM: "
+                            + entry.getName());
+                }
+            }
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+
+            if (entry.isDirectory()) {
+                Files.createDirectories(target);
+            } else if (entry.isSymbolicLink()) {
+                Files.deleteIfExists(target);
+                Files.createSymbolicLink(target, Paths.get(
+                        IOUtils.toString(reader.getEntryStream(), StandardCharsets.UTF_8)));
+                symbolicLinks.add(target);
+            } else if (entry.isRegularFile()) {
+                if (entry.getNumberOfLinks() > 1) {
+                    List<Path> links = pendingLinks.computeIfAbsent(entry.getFileKey(),
+                            key -> new ArrayList<>());
+                    links.add(target);
+                    if (entry.getSize() == 0 && links.size() < entry.getNumberOfLinks()) {
+                        continue;
+                    }
+                    pendingLinks.remove(entry.getFileKey());
+                    extractFile(reader.getEntryStream(), entry.getPermissions(), links);
+                } else {
+                    extractFile(reader.getEntryStream(), entry.getPermissions(),
+                            Collections.singletonList(target));
+                }
+            }
+        }
+
+        for (List<Path> links : pendingLinks.values()) {
+            extractFile(new ByteArrayInputStream(new byte[0]), OWNER_READ_WRITE, links);
+        }
+    }
+
+    private static void extractFile(final InputStream contents, final int permissions,
+                                    final List<Path> links) throws IOException {
+        Path file = links.get(0);
+        Files.copy(contents, file, StandardCopyOption.REPLACE_EXISTING);
+        // like cpio, keep the permissions of the file, and like 'chmod -R u+r', make it readable
+        if (!file.toFile().setReadable(true, true)
+                || !file.toFile().setExecutable((permissions & ANY_EXECUTE) != 0, true)) {
+            throw new IOException("Unable to set permissions of " + file);
+        }
+        for (Path link : links.subList(1, links.size())) {
+            Files.deleteIfExists(link);
+            Files.createLink(link, file);
+        }
+    }
+
     /**
      * This method will determine whether the given filepath matches the expected RPM extension.
      *
@@ -0,0 +1,468 @@
+package hirs.repository.measurement;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.util.Native;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tukaani.xz.LZMAInputStream;
+import org.tukaani.xz.XZInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the files of an RPM package as a stream, without extracting the package to disk.  The
+ * lead, signature and header of the package are parsed to find how its payload is compressed,
+ * and the payload is decompressed as its entries are read.  Payloads in the SVR4 (newc) cpio
+ * format compressed with gzip, xz, lzma or zstd are supported; see
+ * {@link #isPayloadSupported()}.
+ * <p>
+ * This class is not threadsafe.
+ */
+final class RPMPackageReader implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger(RPMPackageReader.class);
+
+    private static final int LEAD_SIZE = 96;
+    private static final int LEAD_MAGIC = 0xEDABEEDB;
+    private static final int HEADER_MAGIC = 0x8EADE8;
+    private static final int HEADER_MAGIC_SHIFT = 8;
+    private static final int HEADER_INDEX_ENTRY_SIZE = 16;
+    private static final int HEADER_MAX_INDEX_ENTRIES = 0x10000;
+    private static final int HEADER_MAX_DATA_SIZE = 256 * 1024 * 1024;
+    private static final int SIGNATURE_ALIGNMENT = 8;
+    private static final int TAG_PAYLOAD_FORMAT = 1124;
+    private static final int TAG_PAYLOAD_COMPRESSOR = 1125;
+    private static final int TYPE_STRING = 6;
+
+    private static final String DEFAULT_COMPRESSOR = "gzip";
+    private static final List<String> SUPPORTED_COMPRESSORS =
+            Arrays.asList("gzip", "xz", "lzma", "zstd");
+    private static final String CPIO_FORMAT = "cpio";
+    private static final String CPIO_MAGIC = "070701";
+    private static final String CPIO_CRC_MAGIC = "070702";
+    private static final int CPIO_MAGIC_SIZE = 6;
+    private static final int CPIO_FIELD_SIZE = 8;
+    private static final int CPIO_FIELD_COUNT = 13;
+    private static final int CPIO_ALIGNMENT = 4;
+    /** Largest entry name accepted: PATH_MAX plus the terminating null. */
+    private static final int CPIO_MAX_NAME_SIZE = 4096 + 1;
+    private static final int HEX_RADIX = 16;
+    private static final String CPIO_TRAILER = "TRAILER!!!";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataInputStream rpm;
+    private final String payloadFormat;
+    private final String payloadCompressor;
+
+    private InputStream payload;
+    private long payloadPosition;
+    private long entryRemaining;
+    private InputStream entryStream;
+
+    /**
+     * Reads the lead, signature and header of an RPM package.  The stream is positioned at the
+     * start of the payload afterwards, and is closed with this reader.
+     *
+     * @param rpmStream the RPM package
+     * @throws IOException if the package cannot be read or is not an RPM package
+     */
+    RPMPackageReader(final InputStream rpmStream) throws IOException {
+        rpm = new DataInputStream(new BufferedInputStream(rpmStream, BUFFER_SIZE));
+        try {
+            if (rpm.readInt() != LEAD_MAGIC) {
+                throw new IOException("Not an RPM package");
+            }
+            IOUtils.skipFully(rpm, LEAD_SIZE - Integer.BYTES);
+
+            // the signature header is padded to a multiple of 8 bytes
+            int signatureSize = skipHeader();
+            IOUtils.skipFully(rpm, (SIGNATURE_ALIGNMENT - signatureSize % SIGNATURE_ALIGNMENT)
+                    % SIGNATURE_ALIGNMENT);
+
+            String[] payloadTags = readHeader();
+            payloadFormat = payloadTags[0];
+            if (payloadTags[1] == null) {
+                payloadCompressor = DEFAULT_COMPRESSOR;
+            } else {
+                payloadCompressor = payloadTags[1];
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated RPM package", e);
+        }
+    }
+
+    /**
+     * Skips a header structure, returning its size.
+     */
+    private int skipHeader() throws IOException {
+        int[] sizes = readHeaderIntro();
+        IOUtils.skipFully(rpm, (long) sizes[0] * HEADER_INDEX_ENTRY_SIZE + sizes[1]);
+        return sizes[0] * HEADER_INDEX_ENTRY_SIZE + sizes[1];
+    }
+
+    /**
+     * Reads the intro of a header structure, returning the number of its index entries and the
+     * size of its data.
+     */
+    private int[] readHeaderIntro() throws IOException {
+        int magic = rpm.readInt();
+        if (magic >>> HEADER_MAGIC_SHIFT != HEADER_MAGIC) {
+            throw new IOException("Invalid RPM header");
+        }
+        // reserved
+        rpm.readInt();
+        int indexCount = rpm.readInt();
+        int dataSize = rpm.readInt();
+        if (indexCount < 0 || indexCount > HEADER_MAX_INDEX_ENTRIES
+                || dataSize < 0 || dataSize > HEADER_MAX_DATA_SIZE) {
+            throw new IOException("Invalid RPM header size");
+        }
+        return new int[] {indexCount, dataSize};
+    }
+
+    /**
+     * Reads the header structure of the package, returning its payload format and compressor.
+     */
+    private String[] readHeader() throws IOException {
+        int[] sizes = readHeaderIntro();
+        int formatOffset = -1;
+        int compressorOffset = -1;
+        for (int i = 0; i < sizes[0]; i++) {
+            int tag = rpm.readInt();
+            int type = rpm.readInt();
+            int offset = rpm.readInt();
+            // count
+            rpm.readInt();
+            if (type == TYPE_STRING && tag == TAG_PAYLOAD_FORMAT) {
+                formatOffset = offset;
+            } else if (type == TYPE_STRING && tag == TAG_PAYLOAD_COMPRESSOR) {
+                compressorOffset = offset;
+            }
+        }
+        byte[] data = new byte[sizes[1]];
+        rpm.readFully(data);
+        return new String[] {readString(data, formatOffset), readString(data, compressorOffset)};
+    }
+
+    private static String readString(final byte[] data, final int offset) throws IOException {
+        if (offset < 0) {
+            return null;
+        }
+        if (offset >= data.length) {
+            throw new IOException("Invalid RPM header string offset");
+        }
+        int end = offset;
+        while (end < data.length && data[end] != 0) {
+            end++;
+        }
+        return new String(data, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the name of the algorithm the payload is compressed with.
+     *
+     * @return the payload compressor, e.g. gzip or xz
+     */
+    String getPayloadCompressor() {
+        return payloadCompressor;
+    }
+
+    /**
+     * Reports whether the payload of the package can be read by this reader.  Packages whose
+     * payload is not a cpio archive, is compressed with an unsupported algorithm such as bzip2,
+     * or is compressed with zstd while the zstd library cannot be loaded, are not supported.
+     *
+     * @return true if the entries of the package can be read, false otherwise
+     */
+    boolean isPayloadSupported() {
+        if (payloadFormat != null && !CPIO_FORMAT.equals(payloadFormat)) {
+            return false;
+        }
+        if (!SUPPORTED_COMPRESSORS.contains(payloadCompressor)) {
+            return false;
+        }
+        return !"zstd".equals(payloadCompressor) || ZstdAvailability.AVAILABLE;
+    }
+
+    private InputStream openPayload() throws IOException {
+        if (!isPayloadSupported()) {
+            throw new IOException("Unsupported RPM payload: " + payloadFormat + ", "
+                    + payloadCompressor);
+        }
+        InputStream decompressed;
+        switch (payloadCompressor) {
+            case "xz":
+                decompressed = new XZInputStream(rpm);
+                break;
+            case "lzma":
+                decompressed = new LZMAInputStream(rpm);
+                break;
+            case "zstd":
+                decompressed = new ZstdInputStream(rpm);
+                break;
+            default:
+                decompressed = new GZIPInputStream(rpm, BUFFER_SIZE);
+                break;
+        }
+        return new BufferedInputStream(decompressed, BUFFER_SIZE);
+    }
+
+    /**
+     * Advances to the next entry of the payload, skipping what is left of the current one.
+     *
+     * @return the next entry, or null if there are no more entries
+     * @throws IOException if the payload cannot be read or is not supported
+     */
+    Entry nextEntry() throws IOException {
+        if (payload == null) {
+            payload = openPayload();
+        }
+        if (entryStream != null) {
+            skipPayload(entryRemaining);
+            entryRemaining = 0;
+            entryStream = null;
+            alignPayload();
+        }
+
+        try {
+            byte[] header = new byte[CPIO_MAGIC_SIZE + CPIO_FIELD_SIZE * CPIO_FIELD_COUNT];
+            readPayload(header);
+            String magic = new String(header, 0, CPIO_MAGIC_SIZE, StandardCharsets.US_ASCII);
+            if (!CPIO_MAGIC.equals(magic) && !CPIO_CRC_MAGIC.equals(magic)) {
+                throw new IOException("Unsupported cpio entry format: " + magic);
+            }
+            long[] fields = new long[CPIO_FIELD_COUNT];
+            for (int i = 0; i < CPIO_FIELD_COUNT; i++) {
+                fields[i] = parseHex(header, CPIO_MAGIC_SIZE + CPIO_FIELD_SIZE * i);
+            }
+            Entry entry = new Entry(fields);
+            if (entry.nameSize < 1 || entry.nameSize > CPIO_MAX_NAME_SIZE) {
+                throw new IOException("Invalid cpio header");
+            }
+
+            byte[] name = new byte[(int) entry.nameSize];
+            readPayload(name);
+            alignPayload();
+            // the name is null-terminated
+            entry.name = new String(name, 0, Math.max(name.length - 1, 0),
+                    StandardCharsets.UTF_8);
+            if (CPIO_TRAILER.equals(entry.name)) {
+                return null;
+            }
+
+            entryRemaining = entry.size;
+            entryStream = new EntryInputStream();
+            return entry;
+        } catch (EOFException e) {
+            throw new IOException("Truncated RPM payload", e);
+        }
+    }
+
+    /**
+     * Get a stream of the contents of the current entry.  The stream is valid until the next
+     * call to {@link #nextEntry()}, and closing it has no effect.
+     *
+     * @return the contents of the current entry
+     */
+    InputStream getEntryStream() {
+        if (entryStream == null) {
+            throw new IllegalStateException("No current entry");
+        }
+        return entryStream;
+    }
+
+    /**
+     * Parses an unsigned cpio header field of eight hex digits; unlike {@link Long#parseLong},
+     * a sign is rejected.
+     */
+    private static long parseHex(final byte[] header, final int offset) throws IOException {
+        long value = 0;
+        for (int i = offset; i < offset + CPIO_FIELD_SIZE; i++) {
+            int digit = Character.digit(header[i], HEX_RADIX);
+            if (digit < 0) {
+                throw new IOException("Invalid cpio header");
+            }
+            value = value * HEX_RADIX + digit;
+        }
+        return value;
+    }
+
+    private void readPayload(final byte[] buffer) throws IOException {
+        IOUtils.readFully(payload, buffer);
+        payloadPosition += buffer.length;
+    }
+
+    private void skipPayload(final long count) throws IOException {
+        IOUtils.skipFully(payload, count);
+        payloadPosition += count;
+    }
+
+    private void alignPayload() throws IOException {
+        skipPayload((CPIO_ALIGNMENT - payloadPosition % CPIO_ALIGNMENT) % CPIO_ALIGNMENT);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (payload != null) {
+            payload.close();
+        }
+        rpm.close();
+    }
+
+    /**
+     * An entry of the payload of an RPM package.
+     */
+    static final class Entry {
+        private static final int FILE_TYPE_MASK = 0170000;
+        private static final int REGULAR_FILE = 0100000;
+        private static final int DIRECTORY = 0040000;
+        private static final int SYMBOLIC_LINK = 0120000;
+        private static final int PERMISSIONS_MASK = 07777;
+
+        private final long inode;
+        private final int mode;
+        private final int numberOfLinks;
+        private final long size;
+        private final long deviceMajor;
+        private final long deviceMinor;
+        private final long nameSize;
+        private String name;
+
+        @SuppressWarnings("magicnumber")
+        private Entry(final long[] fields) {
+            inode = fields[0];
+            mode = (int) fields[1];
+            numberOfLinks = (int) fields[4];
+            size = fields[6];
+            deviceMajor = fields[7];
+            deviceMinor = fields[8];
+            nameSize = fields[11];
+        }
+
+        /**
+         * @return the path of the entry as stored in the archive, e.g. ./usr/bin/vim
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the size of the contents of the entry
+         */
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * @return the permission bits of the entry's mode
+         */
+        int getPermissions() {
+            return mode & PERMISSIONS_MASK;
+        }
+
+        /**
+         * @return the number of hard links to the entry's file within the archive
+         */
+        int getNumberOfLinks() {
+            return numberOfLinks;
+        }
+
+        /**
+         * Get a key identifying the file of the entry, which is shared by all hard links to the
+         * file.  Only the last of the hard links to a file holds its contents.
+         *
+         * @return the key of the entry's file
+         */
+        List<Long> getFileKey() {
+            return Arrays.asList(deviceMajor, deviceMinor, inode);
+        }
+
+        /**
+         * @return true if the entry is a regular file
+         */
+        boolean isRegularFile() {
+            return (mode & FILE_TYPE_MASK) == REGULAR_FILE;
+        }
+
+        /**
+         * @return true if the entry is a directory
+         */
+        boolean isDirectory() {
+            return (mode & FILE_TYPE_MASK) == DIRECTORY;
+        }
+
+        /**
+         * @return true if the entry is a symbolic link, whose contents are the link's target
+         */
+        boolean isSymbolicLink() {
+            return (mode & FILE_TYPE_MASK) == SYMBOLIC_LINK;
+        }
+    }
+
+    /**
+     * The contents of the current entry.
+     */
+    private final class EntryInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            if (entryRemaining <= 0) {
+                return -1;
+            }
+            int b = payload.read();
+            if (b < 0) {
+                throw new EOFException("Truncated RPM payload");
+            }
+            entryRemaining--;
+            payloadPosition++;
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length)
+                throws IOException {
+            if (entryRemaining <= 0) {
+                return -1;
+            }
+            int count = payload.read(buffer, offset, (int) Math.min(length, entryRemaining));
+            if (count < 0) {
+                throw new EOFException("Truncated RPM payload");
+            }
+            entryRemaining -= count;
+            payloadPosition += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // the payload is closed with the reader
+        }
+    }
+
+    /**
+     * Holds whether the native zstd library can be loaded on this platform.
+     */
+    private static final class ZstdAvailability {
+        private static final boolean AVAILABLE = load();
+
+        private static boolean load() {
+            try {
+                Native.load();
+                return true;
+            } catch (LinkageError e) {
+                // zstd-jni bundles the library for the common platforms only
+                LOGGER.warn("Unable to load the zstd library, zstd compressed RPM packages will "
+                        + "be extracted to disk: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+}
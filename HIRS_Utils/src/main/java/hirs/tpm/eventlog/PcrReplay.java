@@ -0,0 +1,148 @@
+package hirs.tpm.eventlog;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Replays the extend operations recorded in a TCG Event Log to calculate the expected PCR values.
+ * A bank of PCRs is kept for every hash algorithm the events carry digests for, so all banks of a
+ * crypto agile log are calculated in one pass over the events. Each bank is extended in place
+ * using a single digest instance for its algorithm.
+ */
+final class PcrReplay {
+
+    private static final Logger LOGGER = LogManager.getLogger(PcrReplay.class);
+
+    /** Initial value of each byte of the locality 4 PCRs. */
+    private static final byte LOCALITY4_INIT = (byte) 0xff;
+
+    /** PCR banks by TCG defined algorithm identifier, in the order they were first extended. */
+    private final Map<Integer, Bank> banks = new LinkedHashMap<>();
+
+    /**
+     * Determines if an event is extended into a PCR. Events without a PCR, which can have a PCR
+     * index of -1, and EV_NO_ACTION events are not, nor are events for PCRs out of range.
+     *
+     * @param eventNumber position of the event within the event log
+     * @param pcrIndex PCR index of the event
+     * @param eventType type of the event
+     * @return true if the event digests are extended into the PCR
+     */
+    static boolean isExtended(final int eventNumber, final int pcrIndex, final long eventType) {
+        if (pcrIndex < 0 || eventType == TCGEventLog.NO_ACTION_EVENT) {
+            return false;
+        }
+        if (pcrIndex >= TCGEventLog.PCR_COUNT) {
+            LOGGER.warn("Event " + eventNumber + " extends a PCR out of range: " + pcrIndex);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Extends a PCR of the bank of the given algorithm with an event digest, creating the bank
+     * in its initial state first if needed.
+     *
+     * @param algId TCG defined algorithm identifier of the digest
+     * @param pcrIndex PCR to extend
+     * @param digest event digest to extend the PCR with
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     */
+    void extend(final int algId, final int pcrIndex, final byte[] digest)
+            throws NoSuchAlgorithmException {
+        getBank(algId).extend(pcrIndex, digest);
+    }
+
+    /**
+     * Returns the PCRs of the bank of the given algorithm, creating the bank in its initial
+     * state if no event has been extended into it. The PCRs are returned as held by the replay,
+     * not copied.
+     *
+     * @param algId TCG defined algorithm identifier
+     * @return the PCR values of the bank
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     */
+    byte[][] getPcrs(final int algId) throws NoSuchAlgorithmException {
+        return getBank(algId).pcrs;
+    }
+
+    /**
+     * @return the TCG defined identifiers of the algorithms with a bank
+     */
+    Set<Integer> getAlgorithmIds() {
+        return Collections.unmodifiableSet(banks.keySet());
+    }
+
+    private Bank getBank(final int algId) throws NoSuchAlgorithmException {
+        Bank bank = banks.get(algId);
+        if (bank == null) {
+            bank = new Bank(algId);
+            banks.put(algId, bank);
+        }
+        return bank;
+    }
+
+    /**
+     * Returns the Java name of the digest algorithm with the given TCG defined identifier.
+     *
+     * @param algId TCG defined algorithm identifier
+     * @return digest algorithm name
+     * @throws NoSuchAlgorithmException if there is no digest algorithm with the identifier
+     */
+    private static String getDigestName(final int algId) throws NoSuchAlgorithmException {
+        switch (algId) {
+            case TcgTpmtHa.TPM_ALG_SHA1:
+                return "SHA-1";
+            case TcgTpmtHa.TPM_ALG_SHA256:
+                return "SHA-256";
+            case TcgTpmtHa.TPM_ALG_SHA384:
+                return "SHA-384";
+            case TcgTpmtHa.TPM_ALG_SHA_512:
+                return "SHA-512";
+            default:
+                throw new NoSuchAlgorithmException("Unsupported PCR bank algorithm: " + algId);
+        }
+    }
+
+    /**
+     * The PCRs of one algorithm.
+     */
+    private static final class Bank {
+
+        private final MessageDigest messageDigest;
+        private final byte[][] pcrs;
+
+        private Bank(final int algId) throws NoSuchAlgorithmException {
+            messageDigest = MessageDigest.getInstance(getDigestName(algId));
+            int length = messageDigest.getDigestLength();
+            pcrs = new byte[TCGEventLog.PCR_COUNT][length];
+            for (int i = TCGEventLog.PCR_LOCALITY4_MIN; i < TCGEventLog.PCR_LOCALITY4_MAX; i++) {
+                Arrays.fill(pcrs[i], LOCALITY4_INIT);
+            }
+        }
+
+        /**
+         * PCR[n] = Hash(PCR[n] || digest), computed straight into the PCR.
+         */
+        private void extend(final int pcrIndex, final byte[] digest) {
+            byte[] pcr = pcrs[pcrIndex];
+            messageDigest.update(pcr);
+            messageDigest.update(digest);
+            try {
+                messageDigest.digest(pcr, 0, pcr.length);
+            } catch (DigestException e) {
+                // the PCR is exactly as long as the digest
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
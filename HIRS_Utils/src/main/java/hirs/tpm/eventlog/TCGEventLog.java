@@ -4,16 +4,15 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 
-import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 
-import hirs.data.persist.AbstractDigest;
 import hirs.data.persist.Digest;
 import hirs.data.persist.TPMMeasurementRecord;
 import hirs.data.persist.baseline.TpmWhiteListBaseline;
@@ -65,12 +64,8 @@ public final class TCGEventLog {
     private LinkedHashMap<Integer, TpmPcrEvent> eventList = new LinkedHashMap<>();
     /** Length of PCR. Indicates which hash algorithm is used. */
     private int pcrLength;
-    /** Name of hash algorithm. */
-    private String hashType;
-    /** Initial PCR Value to use. */
-    private String initValue;
-    /** Initial PcR Value to use for locality 4. */
-    private String initLocalityFourValue;
+    /** Expected PCR values of every bank found in the log. */
+    private PcrReplay pcrReplay = new PcrReplay();
     /** Content Output Flag use. */
     private boolean bContent = false;
     /** Event Output Flag use. */
@@ -84,13 +79,14 @@ public final class TCGEventLog {
      * Default blank object constructor.
      */
     public TCGEventLog() {
-        this.pcrList = new byte[PCR_COUNT][EvConstants.SHA1_LENGTH];
-        initValue = INIT_SHA1_LIST;
-        initLocalityFourValue = LOCALITY4_SHA1_LIST;
         pcrLength = EvConstants.SHA1_LENGTH;
-        hashType = HASH_STRING;
         algorithm = "TPM_ALG_SHA1";
-        initPcrList();
+        try {
+            pcrList = pcrReplay.getPcrs(TcgTpmtHa.TPM_ALG_SHA1);
+        } catch (NoSuchAlgorithmException e) {
+            LOGGER.error(e);
+            pcrList = new byte[PCR_COUNT][pcrLength];
+        }
     }
 
     /**
@@ -121,19 +117,12 @@ public final class TCGEventLog {
 
         bCryptoAgile = isLogCrytoAgile(rawlog);
         if (bCryptoAgile) {
-            initValue = INIT_SHA256_LIST;
-            initLocalityFourValue = LOCALITY4_SHA256_LIST;
             algorithm = "TPM_ALG_SHA256";
-            hashType = HASH256_STRING;
             pcrLength = EvConstants.SHA256_LENGTH;
         } else {
-            initValue = INIT_SHA1_LIST;
-            initLocalityFourValue = LOCALITY4_SHA1_LIST;
-            hashType = HASH_STRING;
             algorithm = "TPM_ALG_SHA1";
             pcrLength = EvConstants.SHA1_LENGTH;
         }
-        this.pcrList = new byte[PCR_COUNT][pcrLength];
         int eventNumber = 0;
         bContent = bContentFlag;
         bEvent = bEventFlag;
@@ -153,24 +142,6 @@ public final class TCGEventLog {
         calculatePcrValues();
     }
 
-    /**
-     * This method puts blank values in the pcrList.
-     */
-    private void initPcrList() {
-            try {
-                for (int i = 0; i < PCR_COUNT; i++) {
-                    System.arraycopy(Hex.decodeHex(initValue.toCharArray()),
-                        0, pcrList[i], 0, pcrLength);
-                }
-                for (int i = PCR_LOCALITY4_MIN; i < PCR_LOCALITY4_MAX; i++) {
-                        System.arraycopy(Hex.decodeHex(initLocalityFourValue.toCharArray()),
-                            0, pcrList[i], 0, pcrLength);
-                    }
-            } catch (DecoderException deEx) {
-                LOGGER.error(deEx);
-            }
-    }
-
     /**
      * Creates a TPM baseline using the expected PCR Values.
      * Expected PCR Values were Calculated from the EventLog (RIM Support file).
@@ -201,64 +172,87 @@ public final class TCGEventLog {
 
     /**
      * Calculates the "Expected Values for TPM PCRs based upon Event digests in the Event Log.
-     * Uses the algorithm and eventList passed into the constructor,
+     * Every bank found in the log is calculated, crypto agile logs carry a digest per bank in
+     * each event. Uses the algorithm and eventList passed into the constructor for the PCR
+     * values returned by {@link #getExpectedPCRValues()}.
+     *
+     * @throws NoSuchAlgorithmException if the algorithm of the log is not supported
      */
-    private void calculatePcrValues() {
-        byte[] extendedPCR;
-        initPcrList();
+    private void calculatePcrValues() throws NoSuchAlgorithmException {
+        pcrReplay = new PcrReplay();
         for (TpmPcrEvent currentEvent : eventList.values()) {
-            if (currentEvent.getPcrIndex() >= 0) {   // Ignore NO_EVENTS which can have a PCR=-1
-                try {
-                    if (currentEvent.getEventType() != NO_ACTION_EVENT) {
-                        // Don't include EV_NO_ACTION event
-                        extendedPCR = extendPCR(pcrList[currentEvent.getPcrIndex()],
-                                currentEvent.getEventDigest());
-                        System.arraycopy(extendedPCR, 0, pcrList[currentEvent.getPcrIndex()],
-                                0, currentEvent.getDigestLength());
+            int pcrIndex = currentEvent.getPcrIndex();
+            if (!PcrReplay.isExtended(currentEvent.getEventNumber(), pcrIndex,
+                    currentEvent.getEventType())) {
+                continue;
+            }
+            if (currentEvent instanceof TpmPcrEvent2) {
+                for (TcgTpmtHa digest : ((TpmPcrEvent2) currentEvent).getDigestList()) {
+                    try {
+                        pcrReplay.extend(digest.getAlgId(), pcrIndex, digest.getDigest());
+                    } catch (NoSuchAlgorithmException e) {
+                        LOGGER.error(e);
                     }
-                } catch (NoSuchAlgorithmException e) {
-                    LOGGER.error(e);
                 }
+            } else {
+                pcrReplay.extend(TcgTpmtHa.TPM_ALG_SHA1, pcrIndex,
+                        currentEvent.getEventDigest());
             }
         }
+        pcrList = pcrReplay.getPcrs(TcgTpmtHa.tcgAlgStringtoId(algorithm));
     }
 
     /**
-     * Extends a hash with a hash of new data.
+     * Returns all 24 PCR values for display purposes.
      *
-     * @param currentValue value to extend
-     * @param newEvent     value to extend with
-     * @return new hash resultant hash
-     * @throws NoSuchAlgorithmException if hash algorithm not supported
+     * @return Returns an array of strings representing the expected hash values for all 24 PCRs
      */
-    private byte[] extendPCR(final byte[] currentValue, final byte[] newEvent)
-            throws NoSuchAlgorithmException {
-        MessageDigest md = MessageDigest.getInstance(hashType);
-        StringBuilder sb = new StringBuilder(AbstractDigest.SHA512_DIGEST_LENGTH);
-        sb.append(Hex.encodeHexString(currentValue).toCharArray());
-        sb.append(Hex.encodeHexString(newEvent).toCharArray());
-
-        try {
-            md.update(Hex.decodeHex(sb.toString().toCharArray()));
-        } catch (DecoderException deEx) {
-            LOGGER.error(deEx);
+    public String[] getExpectedPCRValues() {
+        String[] pcrs = new String[PCR_COUNT];
+        for (int i = 0; i < PCR_COUNT; i++) {
+            pcrs[i] = Hex.encodeHexString(pcrList[i]);
         }
-        return md.digest();
+        return pcrs;
     }
 
+
     /**
-     * Returns all 24 PCR values for display purposes.
+     * Returns all 24 PCR values of one bank for display purposes. Crypto agile logs hold a bank
+     * for each hash algorithm listed in their events.
      *
-     * @return Returns an array of strings representing the expected hash values for all 24 PCRs
+     * @param bankAlgorithm TCG Defined Algorithm name of the bank, for example TPM_ALG_SHA384
+     * @return the expected hash values for all 24 PCRs, or null if the log has no such bank
      */
-    public String[] getExpectedPCRValues() {
+    public String[] getExpectedPCRValues(final String bankAlgorithm) {
+        int algId = TcgTpmtHa.tcgAlgStringtoId(bankAlgorithm);
+        if (!pcrReplay.getAlgorithmIds().contains(algId)) {
+            return null;
+        }
+        byte[][] bank;
+        try {
+            bank = pcrReplay.getPcrs(algId);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
         String[] pcrs = new String[PCR_COUNT];
         for (int i = 0; i < PCR_COUNT; i++) {
-            pcrs[i] = Hex.encodeHexString(pcrList[i]);
+            pcrs[i] = Hex.encodeHexString(bank[i]);
         }
         return pcrs;
     }
 
+    /**
+     * Returns the TCG Defined Algorithm names of the PCR banks calculated from the log.
+     *
+     * @return bank algorithm names, in the order they appear in the log
+     */
+    public List<String> getPcrBankAlgorithms() {
+        List<String> bankAlgorithms = new ArrayList<>();
+        for (int algId : pcrReplay.getAlgorithmIds()) {
+            bankAlgorithms.add(TcgTpmtHa.tcgAlgIdtoString(algId));
+        }
+        return bankAlgorithms;
+    }
 
     /**
      * Returns a flag which is set if the event log follows the "Crypto Agile" Format Type.
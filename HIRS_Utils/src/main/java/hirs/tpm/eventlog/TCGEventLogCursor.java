@@ -0,0 +1,357 @@
+package hirs.tpm.eventlog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.Arrays;
+
+import org.apache.commons.codec.binary.Hex;
+
+import hirs.tpm.eventlog.events.EvConstants;
+import hirs.tpm.eventlog.uefi.UefiConstants;
+
+/**
+ * Reads the events of a TCG Event Log one at a time, as a cursor over the log.
+ * <p>
+ * Unlike {@link TCGEventLog}, which parses and describes every event of the log up front, the
+ * cursor only holds the PCR index, event type, digests and content of the event it is positioned
+ * on, so logs of any size can be processed in constant memory. The event content is only decoded
+ * into a {@link TpmPcrEvent} when {@link #getEvent()} is called.
+ * <pre>
+ * try (TCGEventLogCursor cursor = new TCGEventLogCursor(rawlog)) {
+ *     while (cursor.next()) {
+ *         cursor.getPcrIndex();
+ *         cursor.getEventDigestStr();
+ *     }
+ * }
+ * </pre>
+ */
+public final class TCGEventLogCursor implements Closeable {
+
+    /** Signature of the TCG_EfiSpecIdEvent starting a crypto agile log. */
+    private static final String SPEC_ID_SIGNATURE = "Spec ID Event03";
+    /** Digests held per event before the digest arrays are grown. */
+    private static final int DEFAULT_DIGEST_COUNT = 4;
+    /**
+     * Largest event content accepted, well above the few hundred kilobytes of the largest events
+     * of real logs, such as the UEFI signature databases, so that a corrupt event size cannot
+     * exhaust memory.
+     */
+    static final int MAX_EVENT_SIZE = 16 * 1024 * 1024;
+
+    private final DataInputStream in;
+    /** True if the log is held in memory, so the number of bytes left in it is known. */
+    private final boolean inMemory;
+    private final boolean cryptoAgile;
+    private final String algorithm;
+    /** True while the cursor has read the first event but not been advanced onto it. */
+    private boolean firstEventPending = true;
+
+    private int eventNumber = -1;
+    private int pcrIndex;
+    private long eventType;
+    private int digestCount;
+    private int[] digestAlgIds = new int[DEFAULT_DIGEST_COUNT];
+    private byte[][] digests = new byte[DEFAULT_DIGEST_COUNT][];
+    private byte[] content = new byte[0];
+    private int contentLength;
+
+    /**
+     * Creates a cursor over an event log held in memory.
+     *
+     * @param rawlog data for the event log file.
+     * @throws IOException if the first event of the log cannot be read.
+     */
+    public TCGEventLogCursor(final byte[] rawlog) throws IOException {
+        this(new ByteArrayInputStream(rawlog));
+    }
+
+    /**
+     * Creates a cursor over an event log read from a stream. The first event is read to
+     * determine the format of the log, the stream is read further as the cursor is advanced.
+     *
+     * @param log stream holding the event log, closed when the cursor is closed.
+     * @throws IOException if the first event of the log cannot be read.
+     */
+    public TCGEventLogCursor(final InputStream log) throws IOException {
+        in = new DataInputStream(log);
+        inMemory = log instanceof ByteArrayInputStream;
+        // Process the 1st entry as a SHA1 format (per the spec)
+        if (!readEvent(false)) {
+            throw new EOFException("The event log is empty");
+        }
+        cryptoAgile = isSpecIdEvent();
+        if (cryptoAgile) {
+            algorithm = "TPM_ALG_SHA256";
+        } else {
+            algorithm = "TPM_ALG_SHA1";
+        }
+    }
+
+    /**
+     * Moves the cursor to the next event of the log. The cursor is positioned before the first
+     * event when created.
+     *
+     * @return true if the cursor is on an event, false if the end of the log was reached.
+     * @throws IOException if the event cannot be read.
+     */
+    public boolean next() throws IOException {
+        if (firstEventPending) {
+            firstEventPending = false;
+            eventNumber = 0;
+            return true;
+        }
+        if (!readEvent(cryptoAgile)) {
+            return false;
+        }
+        eventNumber++;
+        return true;
+    }
+
+    /**
+     * Reads a TCG_PCR_EVENT2 for crypto agile logs, a TCG_PCR_EVENT otherwise.
+     *
+     * @return false if the end of the log was reached before the event.
+     */
+    private boolean readEvent(final boolean agileFormat) throws IOException {
+        int firstByte = in.read();
+        if (firstByte < 0) {
+            return false;
+        }
+        pcrIndex = firstByte;
+        for (int i = 1; i < UefiConstants.SIZE_4; i++) {
+            pcrIndex |= in.readUnsignedByte() << (i * Byte.SIZE);
+        }
+        eventType = Integer.toUnsignedLong(readInt());
+        if (agileFormat) {
+            digestCount = readInt();
+            if (digestCount < 0) {
+                throw new IOException("Invalid digest count in event " + (eventNumber + 1));
+            }
+            for (int i = 0; i < digestCount; i++) {
+                // grown as digests are read, as the count is not trusted
+                if (i == digests.length) {
+                    digestAlgIds = Arrays.copyOf(digestAlgIds, i * 2);
+                    digests = Arrays.copyOf(digests, i * 2);
+                }
+                digestAlgIds[i] = Short.toUnsignedInt(Short.reverseBytes(in.readShort()));
+                int length = TcgTpmtHa.tcgAlgLength(digestAlgIds[i]);
+                if (length == 0) {
+                    throw new IOException("Unsupported digest algorithm " + digestAlgIds[i]
+                            + " in event " + (eventNumber + 1));
+                }
+                readDigest(i, length);
+            }
+        } else {
+            digestCount = 1;
+            digestAlgIds[0] = TcgTpmtHa.TPM_ALG_SHA1;
+            readDigest(0, EvConstants.SHA1_LENGTH);
+        }
+        contentLength = readInt();
+        if (contentLength < 0 || contentLength > MAX_EVENT_SIZE) {
+            throw new IOException("Invalid event size " + Integer.toUnsignedString(contentLength)
+                    + " in event " + (eventNumber + 1));
+        }
+        if (inMemory && contentLength > in.available()) {
+            throw new EOFException("Event " + (eventNumber + 1) + " ends after the end of the log");
+        }
+        if (contentLength > content.length) {
+            content = new byte[contentLength];
+        }
+        in.readFully(content, 0, contentLength);
+        return true;
+    }
+
+    private void readDigest(final int index, final int length) throws IOException {
+        if (digests[index] == null || digests[index].length != length) {
+            digests[index] = new byte[length];
+        }
+        in.readFully(digests[index]);
+    }
+
+    private int readInt() throws IOException {
+        return Integer.reverseBytes(in.readInt());
+    }
+
+    /**
+     * Determines if the current event is an EfiSpecIdEvent indicating that the log format is
+     * crypto agile.
+     */
+    private boolean isSpecIdEvent() {
+        if (eventType != TCGEventLog.NO_ACTION_EVENT
+                || contentLength < SPEC_ID_SIGNATURE.length()) {
+            return false;
+        }
+        return SPEC_ID_SIGNATURE.equals(new String(content, 0, SPEC_ID_SIGNATURE.length(),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a flag which is set if the event log follows the "Crypto Agile" Format Type.
+     * A false implies the type is SHA1 format.
+     * @return true if log follows the Crypto Agile format.
+     */
+    public boolean isCryptoAgile() {
+        return cryptoAgile;
+    }
+
+    /**
+     * Returns the TCG Algorithm Registry defined string for the Digest Algorithm
+     * used in the event log.
+     * @return TCG Defined Algorithm name
+     */
+    public String getEventLogHashAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return position of the current event within the event log.
+     */
+    public int getEventNumber() {
+        return eventNumber;
+    }
+
+    /**
+     * @return PCR index of the current event, -1 for events not extended into a PCR.
+     */
+    public int getPcrIndex() {
+        return pcrIndex;
+    }
+
+    /**
+     * @return event type of the current event.
+     */
+    public long getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns a formatted string of the type for the current event.
+     * @return a string formatted to be human readable, same as
+     * {@link TpmPcrEvent#getEventTypeStr()}
+     */
+    public String getEventTypeStr() {
+        return String.format("0x%s %s", Long.toHexString(eventType),
+                TpmPcrEvent.eventString((int) eventType));
+    }
+
+    /**
+     * Returns the digest of the current event. For crypto agile logs this is the last digest
+     * listed by the event, the same digest as {@link TpmPcrEvent#getEventDigest()} returns.
+     *
+     * @return copy of the digest
+     */
+    public byte[] getEventDigest() {
+        return digests[digestCount - 1].clone();
+    }
+
+    /**
+     * Returns a hex representation of the event digest.
+     * @return hex string, same as {@link TpmPcrEvent#getEventDigestStr()}
+     */
+    public String getEventDigestStr() {
+        return Hex.encodeHexString(digests[digestCount - 1]);
+    }
+
+    /**
+     * Returns the digest of the current event for one hash algorithm.
+     *
+     * @param algId TCG defined algorithm identifier
+     * @return copy of the digest, or null if the event has no digest for the algorithm
+     */
+    public byte[] getEventDigest(final int algId) {
+        for (int i = 0; i < digestCount; i++) {
+            if (digestAlgIds[i] == algId) {
+                return digests[i].clone();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the event Content Data (not the entire event structure).
+     *
+     * @return byte array holding the events content field
+     */
+    public byte[] getEventContent() {
+        return Arrays.copyOf(content, contentLength);
+    }
+
+    /**
+     * Fully parses the current event, decoding its content.
+     *
+     * @return the current event
+     * @throws IOException if the event cannot be parsed.
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered.
+     * @throws CertificateException if a certificate in the event cannot be parsed.
+     */
+    public TpmPcrEvent getEvent()
+            throws IOException, CertificateException, NoSuchAlgorithmException {
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        writeInt(event, pcrIndex);
+        writeInt(event, (int) eventType);
+        boolean agileFormat = cryptoAgile && eventNumber > 0;
+        if (agileFormat) {
+            writeInt(event, digestCount);
+            for (int i = 0; i < digestCount; i++) {
+                event.write(digestAlgIds[i]);
+                event.write(digestAlgIds[i] >>> Byte.SIZE);
+                event.write(digests[i]);
+            }
+        } else {
+            event.write(digests[0]);
+        }
+        writeInt(event, contentLength);
+        event.write(content, 0, contentLength);
+
+        ByteArrayInputStream is = new ByteArrayInputStream(event.toByteArray());
+        if (agileFormat) {
+            return new TpmPcrEvent2(is, eventNumber);
+        }
+        return new TpmPcrEvent1(is, eventNumber);
+    }
+
+    private static void writeInt(final ByteArrayOutputStream out, final int value) {
+        for (int i = 0; i < UefiConstants.SIZE_4; i++) {
+            out.write(value >>> (i * Byte.SIZE));
+        }
+    }
+
+    /**
+     * Calculates the expected PCR values from the remaining events of the log, leaving the
+     * cursor at the end of the log.
+     *
+     * @return the expected hash values for all 24 PCRs, in the algorithm of the log
+     * @throws IOException if an event cannot be read.
+     * @throws NoSuchAlgorithmException if the algorithm of the log is not supported.
+     */
+    public String[] calculateExpectedPCRValues() throws IOException, NoSuchAlgorithmException {
+        PcrReplay replay = new PcrReplay();
+        while (next()) {
+            if (!PcrReplay.isExtended(eventNumber, pcrIndex, eventType)) {
+                continue;
+            }
+            for (int i = 0; i < digestCount; i++) {
+                replay.extend(digestAlgIds[i], pcrIndex, digests[i]);
+            }
+        }
+        byte[][] pcrs = replay.getPcrs(TcgTpmtHa.tcgAlgStringtoId(algorithm));
+        String[] pcrValues = new String[TCGEventLog.PCR_COUNT];
+        for (int i = 0; i < TCGEventLog.PCR_COUNT; i++) {
+            pcrValues[i] = Hex.encodeHexString(pcrs[i]);
+        }
+        return pcrValues;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -628,7 +628,7 @@ public class TpmPcrEvent {
      * @param event the event id.
      * @return TCG defined String that represents the event id
      */
-    private static String eventString(final long event) {
+    static String eventString(final long event) {
 
         if (event == EvConstants.EV_PREBOOT_CERT) {
             return "EV_PREBOOT_CERT";
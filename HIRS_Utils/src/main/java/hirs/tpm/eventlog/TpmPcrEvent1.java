@@ -52,7 +52,7 @@ public class TpmPcrEvent1 extends TpmPcrEvent {
         int digestSize = EvConstants.SHA1_LENGTH;
         int eventSize = 0;
         String hashName = "TPM_ALG_SHA1";
-        if (is.available() > UefiConstants.SIZE_32) {
+        if (is.available() >= UefiConstants.SIZE_32) {
             is.read(rawIndex);
             setPcrIndex(rawIndex);
             is.read(rawType);
@@ -98,9 +98,32 @@ public class Job<T> {
 
     }
 
+    /**
+     * The priority of a Job's tasks.  Queued tasks of a higher priority job are started before
+     * those of a lower priority job; tasks of the same priority are started in the order they
+     * were scheduled.
+     */
+    public enum Priority {
+        /**
+         * For jobs a caller is waiting on, such as appraisals.
+         */
+        HIGH,
+
+        /**
+         * The default priority.
+         */
+        NORMAL,
+
+        /**
+         * For background jobs, such as repository updates.
+         */
+        LOW
+    }
+
     private final List<Callable<T>> tasks;
     private final Map<Callable<T>, List<Future<T>>> results;
     private volatile State state;
+    private volatile Priority priority = Priority.NORMAL;
     private volatile AtomicInteger successfulTasks = new AtomicInteger();
     private volatile AtomicInteger failedTasks = new AtomicInteger();
     private volatile AtomicInteger canceledTasks = new AtomicInteger();
@@ -164,7 +187,12 @@ public class Job<T> {
         jobExecutorFinishHandler = finishHandler;
 
         for (final Callable<T> t : tasks) {
-            final Future<T> future = executor.submit(new Callable<T>() {
+            final Future<T> future = executor.submit(new PrioritizedTask<T>() {
+                @Override
+                public Priority getPriority() {
+                    return priority;
+                }
+
                 @Override
                 public T call() throws Exception {
                     try {
@@ -225,6 +253,7 @@ public class Job<T> {
             } else if (state == State.IN_PROGRESS) {
                 changeState(State.COMPLETED);
             }
+            notifyAll();
 
             try {
                 jobExecutorFinishHandler.call();
@@ -268,6 +297,45 @@ public class Job<T> {
         }
     }
 
+    /**
+     * Waits for the job to finish successfully, finish with errors, or be canceled.
+     *
+     * @throws InterruptedException if this thread is interrupted while waiting
+     */
+    public final synchronized void await() throws InterruptedException {
+        if (state == State.UNSTARTED) {
+            throw new IllegalStateException("Cannot wait for a job that has not been scheduled.");
+        }
+        while (!isFinishedState(state)) {
+            wait();
+        }
+    }
+
+    /**
+     * Gets the priority of this job's tasks.
+     *
+     * @return the priority of this job
+     */
+    public final Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this job's tasks.  The priority can only be set before the job is
+     * scheduled.
+     *
+     * @param priority the priority of this job, cannot be null
+     */
+    public final synchronized void setPriority(final Priority priority) {
+        if (priority == null) {
+            throw new IllegalArgumentException("Priority cannot be null.");
+        }
+        if (state != State.UNSTARTED) {
+            throw new IllegalStateException("Cannot change the priority of a started job.");
+        }
+        this.priority = priority;
+    }
+
     /**
      * Returns true if the job's tasks are currently executing, false otherwise.
      *
@@ -478,4 +546,17 @@ public class Job<T> {
 
         throw new ExecutionException("The onFinish task threw an exception", onFinishThrew);
     }
+
+    /**
+     * A task submitted by a Job, which carries the priority of the job so that a
+     * {@link JobExecutor} can order its queue.
+     *
+     * @param <V> the return type of the task
+     */
+    interface PrioritizedTask<V> extends Callable<V> {
+        /**
+         * @return the priority of the job that submitted this task
+         */
+        Priority getPriority();
+    }
 }
@@ -1,20 +1,52 @@
 package hirs.utils;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class facilitates running {@link Job}s in a parallel, asynchronous fashion.
+ * <p>
+ * Queued tasks are started in order of the {@link Job.Priority} of their jobs, and the number of
+ * queued tasks is bounded.  The executor keeps metrics of its queue depth, active tasks, and
+ * how long tasks wait in the queue and take to run.
+ * <p>
+ * Bulk jobs should be scheduled on the long-lived executor returned by {@link #getShared()}
+ * rather than on an executor of their own, and be waited on with {@link Job#await()}.  The size
+ * of the shared executor can be configured with the {@value #SHARED_THREADS_PROPERTY} and
+ * {@value #SHARED_QUEUE_CAPACITY_PROPERTY} system properties.
  */
 public class JobExecutor {
+    /**
+     * System property holding the thread count of the shared executor; defaults to twice the
+     * processor count.
+     */
+    public static final String SHARED_THREADS_PROPERTY = "hirs.jobexecutor.threads";
+
+    /**
+     * System property holding the maximum number of queued tasks of the shared executor;
+     * defaults to {@value #DEFAULT_QUEUE_CAPACITY}.
+     */
+    public static final String SHARED_QUEUE_CAPACITY_PROPERTY = "hirs.jobexecutor.queuecapacity";
+
+    /**
+     * The default maximum number of queued tasks.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 100000;
+
     /**
      * These values describe the internal state of a JobExecutor instance.
      */
@@ -38,12 +70,38 @@ public class JobExecutor {
 
     private static final int ONE_SECOND_IN_MS = 1000;
     private static final int PROC_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int SHARED_KEEP_ALIVE_SECONDS = 60;
 
     private final List<Job> runningJobs = Collections.synchronizedList(new ArrayList<Job>());
 
-    private volatile ExecutorService executorService;
+    private final int queueCapacity;
+    private final boolean shared;
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+    private final LatencyHistogram runLatency = new LatencyHistogram();
+    private volatile PriorityThreadPoolExecutor executorService;
     private volatile State state;
 
+    /**
+     * Holds the shared executor, which is created on first use.
+     */
+    private static final class SharedHolder {
+        private static final JobExecutor SHARED = new JobExecutor(
+                Integer.getInteger(SHARED_THREADS_PROPERTY, PROC_COUNT * 2),
+                Integer.getInteger(SHARED_QUEUE_CAPACITY_PROPERTY, DEFAULT_QUEUE_CAPACITY),
+                true
+        );
+    }
+
+    /**
+     * Gets the long-lived executor shared by the bulk jobs of the application.  Its threads are
+     * daemon threads which time out when idle, and it cannot be shut down.
+     *
+     * @return the shared JobExecutor
+     */
+    public static JobExecutor getShared() {
+        return SharedHolder.SHARED;
+    }
+
     /**
      * Constructs a new JobExecutor with a threadCountMultiplier of 1.  See the next constructor's
      * doc for more details.
@@ -62,26 +120,62 @@ public class JobExecutor {
      * @param threadCountMultiplier the
      */
     public JobExecutor(final int threadCountMultiplier) {
-        if (threadCountMultiplier < 1) {
-            throw new IllegalArgumentException("threadCountMultiplier argument must be at least 1");
+        this(checkMultiplier(threadCountMultiplier) * PROC_COUNT, DEFAULT_QUEUE_CAPACITY, false);
+    }
+
+    /**
+     * Constructs a new JobExecutor with the given number of threads and bound on the number of
+     * queued tasks.  Scheduling a job whose tasks do not fit in the queue is rejected.
+     *
+     * @param threadCount the number of threads running tasks, at least 1
+     * @param queueCapacity the maximum number of tasks waiting to be run, at least 1
+     */
+    public JobExecutor(final int threadCount, final int queueCapacity) {
+        this(threadCount, queueCapacity, false);
+    }
+
+    private JobExecutor(final int threadCount, final int queueCapacity, final boolean shared) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount argument must be at least 1");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity argument must be at least 1");
+        }
+
+        this.queueCapacity = queueCapacity;
+        this.shared = shared;
+
+        ThreadFactoryBuilder threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("hirs-job-executor-%d");
+        long keepAlive = ONE_SECOND_IN_MS;
+        if (shared) {
+            threadFactory.setDaemon(true).setNameFormat("hirs-shared-job-executor-%d");
+            keepAlive = TimeUnit.SECONDS.toMillis(SHARED_KEEP_ALIVE_SECONDS);
         }
 
-        executorService = new ThreadPoolExecutor(
-                PROC_COUNT,
-                PROC_COUNT * threadCountMultiplier,
-                ONE_SECOND_IN_MS,
-                TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<Runnable>()
+        // the queue is unbounded, so the pool never grows past its core size; let idle core
+        // threads time out instead
+        executorService = new PriorityThreadPoolExecutor(
+                threadCount, keepAlive, threadFactory.build()
         );
+        executorService.allowCoreThreadTimeOut(true);
 
         state = State.RUNNING;
     }
 
+    private static int checkMultiplier(final int threadCountMultiplier) {
+        if (threadCountMultiplier < 1) {
+            throw new IllegalArgumentException("threadCountMultiplier argument must be at least 1");
+        }
+        return threadCountMultiplier;
+    }
+
     /**
      * Schedule a new Job to execute using this JobExecutor.  The tasks from this Job will be queued
      * and started as soon as there are free threads available.
      *
      * @param job the job whose tasks should be scheduled
+     * @throws RejectedExecutionException if the job's tasks do not fit in the queue
      */
     public final void scheduleJob(final Job<?> job) {
         if (state != State.RUNNING) {
@@ -89,6 +183,14 @@ public class JobExecutor {
                     + " been shut down.");
         }
 
+        int queueDepth = getQueueDepth();
+        if ((long) queueDepth + job.getTotalTaskCount() > queueCapacity) {
+            throw new RejectedExecutionException(String.format(
+                    "Cannot queue %d tasks; %d of %d queued tasks are waiting to run",
+                    job.getTotalTaskCount(), queueDepth, queueCapacity
+            ));
+        }
+
         runningJobs.add(job);
 
         job.submitTasks(executorService, new Callable<Void>() {
@@ -100,6 +202,73 @@ public class JobExecutor {
         });
     }
 
+    /**
+     * Cancels a job scheduled on this executor.  Its tasks that have yet to start are removed
+     * from the queue; running tasks are not interrupted.  See {@link Job#cancel()}.
+     *
+     * @param job the job to cancel
+     */
+    public final void cancelJob(final Job<?> job) {
+        job.cancel();
+        PriorityThreadPoolExecutor executor = executorService;
+        if (executor != null) {
+            executor.purge();
+        }
+    }
+
+    /**
+     * Gets the number of tasks waiting to be run.
+     *
+     * @return the queue depth
+     */
+    public final int getQueueDepth() {
+        PriorityThreadPoolExecutor executor = executorService;
+        if (executor == null) {
+            return 0;
+        }
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the approximate number of tasks being run.
+     *
+     * @return the number of active tasks
+     */
+    public final int getActiveTaskCount() {
+        PriorityThreadPoolExecutor executor = executorService;
+        if (executor == null) {
+            return 0;
+        }
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Gets the number of jobs that have been scheduled and have not finished.
+     *
+     * @return the number of running jobs
+     */
+    public final int getRunningJobCount() {
+        return runningJobs.size();
+    }
+
+    /**
+     * Gets the histogram of the time tasks waited in the queue before being started.
+     *
+     * @return the queue latency histogram
+     */
+    public final LatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    /**
+     * Gets the histogram of the time tasks took to run.
+     *
+     * @return the run latency histogram
+     */
+    public final LatencyHistogram getRunLatency() {
+        return runLatency;
+    }
+
     /**
      * Gets the current state of this JobExecutor.
      *
@@ -115,12 +284,17 @@ public class JobExecutor {
      *
      * @throws InterruptedException if this thread is interrupted while waiting for running jobs to
      * finish execution
+     * @throws IllegalStateException if this is the shared executor
      */
     @SuppressFBWarnings(
             value = "SWL_SLEEP_WITH_LOCK_HELD",
             justification = "No resources are being consumed or waited on; reentrant threads should"
                     + "remain locked out while .")
     public final synchronized void shutdown() throws InterruptedException {
+        if (shared) {
+            throw new IllegalStateException("The shared JobExecutor cannot be shut down.");
+        }
+
         if (state == State.SHUT_DOWN) {
             return;
         }
@@ -142,8 +316,13 @@ public class JobExecutor {
      * JobExecutor instance.
      *
      * @throws InterruptedException if this thread is interrupted while attempting to terminate
+     * @throws IllegalStateException if this is the shared executor
      */
     public final void shutdownNow() throws InterruptedException {
+        if (shared) {
+            throw new IllegalStateException("The shared JobExecutor cannot be shut down.");
+        }
+
         List<Job> currentlyRunningJobs = new ArrayList<>(runningJobs);
         for (Job job : currentlyRunningJobs) {
             job.cancel();
@@ -151,4 +330,105 @@ public class JobExecutor {
 
         shutdown();
     }
+
+    /**
+     * A thread pool whose queue is ordered by the priority of the submitting job, and which
+     * records the queue and run latencies of its tasks.
+     */
+    private final class PriorityThreadPoolExecutor extends ThreadPoolExecutor {
+        private final AtomicLong sequence = new AtomicLong();
+
+        private PriorityThreadPoolExecutor(final int threadCount, final long keepAliveMillis,
+                                           final ThreadFactory threadFactory) {
+            super(threadCount, threadCount, keepAliveMillis, TimeUnit.MILLISECONDS,
+                    new PriorityBlockingQueue<Runnable>(), threadFactory);
+        }
+
+        @Override
+        protected <V> RunnableFuture<V> newTaskFor(final Callable<V> callable) {
+            Job.Priority priority = Job.Priority.NORMAL;
+            if (callable instanceof Job.PrioritizedTask) {
+                priority = ((Job.PrioritizedTask<V>) callable).getPriority();
+            }
+            return new PrioritizedFutureTask<>(callable, priority, sequence.getAndIncrement());
+        }
+
+        @Override
+        protected <V> RunnableFuture<V> newTaskFor(final Runnable runnable, final V value) {
+            return new PrioritizedFutureTask<>(
+                    Executors.callable(runnable, value),
+                    Job.Priority.NORMAL,
+                    sequence.getAndIncrement()
+            );
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            if (command instanceof PrioritizedFutureTask) {
+                super.execute(command);
+            } else {
+                super.execute(newTaskFor(command, null));
+            }
+        }
+
+        @Override
+        protected void beforeExecute(final Thread t, final Runnable r) {
+            super.beforeExecute(t, r);
+            ((PrioritizedFutureTask<?>) r).start();
+        }
+
+        @Override
+        protected void afterExecute(final Runnable r, final Throwable t) {
+            super.afterExecute(r, t);
+            ((PrioritizedFutureTask<?>) r).finish();
+        }
+    }
+
+    /**
+     * A queued task, ordered by priority and then by the order it was submitted in.
+     *
+     * @param <V> the return type of the task
+     */
+    private final class PrioritizedFutureTask<V> extends FutureTask<V>
+            implements Comparable<PrioritizedFutureTask<?>> {
+        private final Job.Priority priority;
+        private final long sequenceNumber;
+        private final long queuedNanos = System.nanoTime();
+        private long startedNanos;
+
+        private PrioritizedFutureTask(final Callable<V> callable, final Job.Priority priority,
+                                      final long sequenceNumber) {
+            super(callable);
+            this.priority = priority;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        private void start() {
+            startedNanos = System.nanoTime();
+            queueLatency.record(startedNanos - queuedNanos);
+        }
+
+        private void finish() {
+            runLatency.record(System.nanoTime() - startedNanos);
+        }
+
+        @Override
+        public int compareTo(final PrioritizedFutureTask<?> other) {
+            int comparison = priority.compareTo(other.priority);
+            if (comparison != 0) {
+                return comparison;
+            }
+            return Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return this == obj;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
 }
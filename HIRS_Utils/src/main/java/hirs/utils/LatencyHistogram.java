@@ -0,0 +1,137 @@
+package hirs.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of durations.  Durations are counted in buckets whose upper bounds
+ * double from one millisecond, so recording a duration is a constant time operation and the
+ * histogram takes a fixed amount of memory no matter how many durations are recorded.
+ * Percentiles are reported as the upper bound of the bucket holding them.
+ */
+public class LatencyHistogram {
+    /**
+     * The number of buckets; the last bucket holds all durations of 2^20 ms (about 17 minutes)
+     * or more.
+     */
+    public static final int BUCKET_COUNT = 22;
+
+    private static final double PERCENT = 100.0;
+    private static final double MEDIAN = 50.0;
+    private static final double HIGH_PERCENTILE = 99.0;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    /**
+     * Records a duration.  Negative durations are counted as zero.
+     *
+     * @param durationNanos the duration in nanoseconds
+     */
+    public final void record(final long durationNanos) {
+        long nanos = Math.max(0, durationNanos);
+        counts.incrementAndGet(getBucket(TimeUnit.NANOSECONDS.toMillis(nanos)));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+    }
+
+    private static int getBucket(final long millis) {
+        if (millis < 1) {
+            return 0;
+        }
+        // the bucket with upper bound 2^n ms holds durations from 2^(n-1) to 2^n - 1 ms
+        return Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(millis));
+    }
+
+    /**
+     * Returns the exclusive upper bound of a bucket in milliseconds.  The last bucket has no
+     * upper bound and returns {@link Long#MAX_VALUE}.
+     *
+     * @param bucket the index of the bucket
+     * @return the upper bound of the bucket in milliseconds
+     */
+    public static long getBucketUpperBoundMillis(final int bucket) {
+        if (bucket < 0 || bucket >= BUCKET_COUNT) {
+            throw new IllegalArgumentException("No such bucket: " + bucket);
+        }
+        if (bucket == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        return 1L << bucket;
+    }
+
+    /**
+     * Gets the number of durations counted in each bucket.
+     *
+     * @return the counts of the buckets, indexed as {@link #getBucketUpperBoundMillis(int)}
+     */
+    public final long[] getBucketCounts() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+        }
+        return bucketCounts;
+    }
+
+    /**
+     * Gets the number of durations recorded.
+     *
+     * @return the number of durations recorded
+     */
+    public final long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     *
+     * @return the mean duration in milliseconds, or 0 if none have been recorded
+     */
+    public final double getMeanMillis() {
+        long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+        return (double) totalNanos.get() / TimeUnit.MILLISECONDS.toNanos(1) / recorded;
+    }
+
+    /**
+     * Gets an upper bound of the given percentile of the recorded durations, that is the upper
+     * bound of the bucket holding the percentile.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the upper bound in milliseconds, or 0 if no durations have been recorded
+     */
+    public final long getPercentileMillis(final double percentile) {
+        if (percentile < 0 || percentile > PERCENT) {
+            throw new IllegalArgumentException("Percentile must be from 0 to 100");
+        }
+        long[] bucketCounts = getBucketCounts();
+        long recorded = 0;
+        for (long bucketCount : bucketCounts) {
+            recorded += bucketCount;
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / PERCENT * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return getBucketUpperBoundMillis(i);
+            }
+        }
+        return getBucketUpperBoundMillis(BUCKET_COUNT - 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.3fms, p50<%dms, p99<%dms",
+                getCount(), getMeanMillis(), getPercentileMillis(MEDIAN),
+                getPercentileMillis(HIGH_PERCENTILE));
+    }
+}
@@ -8,35 +8,18 @@ import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.UnmarshalException;
-import javax.xml.bind.Unmarshaller;
+
 import javax.xml.crypto.AlgorithmMethod;
 import javax.xml.crypto.KeySelector;
 import javax.xml.crypto.KeySelectorException;
 import javax.xml.crypto.KeySelectorResult;
-import javax.xml.crypto.MarshalException;
 import javax.xml.crypto.XMLCryptoContext;
 import javax.xml.crypto.XMLStructure;
 import javax.xml.crypto.dsig.XMLSignature;
-import javax.xml.crypto.dsig.XMLSignatureException;
-import javax.xml.crypto.dsig.XMLSignatureFactory;
 import javax.xml.crypto.dsig.dom.DOMValidateContext;
 import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.keyinfo.X509Data;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMResult;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -60,20 +43,15 @@ import java.util.Iterator;
 public class ReferenceManifestValidator {
     private static final String SIGNATURE_ALGORITHM_RSA_SHA256 =
             "http://www.w3.org/2001/04/xmldsig-more#rsa-sha256";
-    private static final String SCHEMA_PACKAGE = "hirs.utils.xjc";
-    private static final String SCHEMA_URL = "swid_schema.xsd";
-    private static final String SCHEMA_LANGUAGE = XMLConstants.W3C_XML_SCHEMA_NS_URI;
-    private static final String IDENTITY_TRANSFORM = "identity_transform.xslt";
     private static final String SHA256 = "SHA-256";
     private static final int EIGHT_BIT_MASK = 0xff;
     private static final int LEFT_SHIFT = 0x100;
     private static final int RADIX = 16;
     private static final Logger LOGGER = LogManager.getLogger(ReferenceManifestValidator.class);
 
+    private final RimValidationEngine engine;
     private Document rim;
-    private Unmarshaller unmarshaller;
     private PublicKey publicKey;
-    private Schema schema;
     private String subjectKeyIdentifier;
     private boolean signatureValid, supportRimValid;
 
@@ -85,9 +63,7 @@ public class ReferenceManifestValidator {
      */
     public void setRim(final ReferenceManifest rim) {
         try {
-            Document doc = validateSwidtagSchema(removeXMLWhitespace(new StreamSource(
-                    new ByteArrayInputStream(rim.getRimBytes()))));
-            this.rim = doc;
+            this.rim = engine.getDocument(rim);
         } catch (IOException e) {
             LOGGER.error("Error while unmarshalling rim bytes: " + e.getMessage());
         }
@@ -130,23 +106,25 @@ public class ReferenceManifestValidator {
     }
 
     /**
-     * This default constructor creates the Schema object from SCHEMA_URL immediately to save
-     * time during validation calls later.
+     * This default constructor validates RIMs with the shared {@link RimValidationEngine}, so
+     * the schema is compiled only once however many validators are created.
      */
     public ReferenceManifestValidator() {
-        try {
-            InputStream is = ReferenceManifestValidator.class
-                    .getClassLoader().getResourceAsStream(SCHEMA_URL);
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(SCHEMA_LANGUAGE);
-            schema = schemaFactory.newSchema(new StreamSource(is));
-            rim = null;
-            signatureValid = false;
-            supportRimValid = false;
-            publicKey = null;
-            subjectKeyIdentifier = "(not found)";
-        } catch (SAXException e) {
-            LOGGER.warn("Error setting schema for validation!");
-        }
+        this(RimValidationEngine.getInstance());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param engine the engine to parse RIMs and check their signatures with
+     */
+    public ReferenceManifestValidator(final RimValidationEngine engine) {
+        this.engine = engine;
+        rim = null;
+        signatureValid = false;
+        supportRimValid = false;
+        publicKey = null;
+        subjectKeyIdentifier = "(not found)";
     }
 
     /**
@@ -242,17 +220,7 @@ public class ReferenceManifestValidator {
     }
 
     private boolean validateSignedXMLDocument(final DOMValidateContext context) {
-        try {
-            XMLSignatureFactory sigFactory = XMLSignatureFactory.getInstance("DOM");
-            XMLSignature signature = sigFactory.unmarshalXMLSignature(context);
-            return signature.validate(context);
-        } catch (MarshalException e) {
-            LOGGER.warn("Error while unmarshalling XML signature: " + e.getMessage());
-        } catch (XMLSignatureException e) {
-            LOGGER.warn("Error while validating XML signature: " + e.getMessage());
-        }
-
-        return false;
+        return engine.validateSignature(context);
     }
 
     /**
@@ -392,56 +360,4 @@ public class ReferenceManifestValidator {
             return null;
         }
     }
-
-    /**
-     * This method validates the Document against the schema.
-     *
-     * @param doc of the input swidtag.
-     * @return document validated against the schema.
-     */
-    private Document validateSwidtagSchema(final Document doc) {
-        try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(SCHEMA_PACKAGE);
-            unmarshaller = jaxbContext.createUnmarshaller();
-            unmarshaller.setSchema(schema);
-            unmarshaller.unmarshal(doc);
-        } catch (UnmarshalException e) {
-            LOGGER.warn("Error validating swidtag file!");
-        } catch (IllegalArgumentException e) {
-            LOGGER.warn("Input file empty.");
-        } catch (JAXBException e) {
-            e.printStackTrace();
-        }
-
-        return doc;
-    }
-
-    /**
-     * This method strips all whitespace from an xml file, including indents and spaces
-     * added for human-readability.
-     *
-     * @param source of the input xml.
-     * @return Document representation of the xml.
-     */
-    private Document removeXMLWhitespace(final StreamSource source) throws IOException {
-        TransformerFactory tf = TransformerFactory.newInstance();
-        Source identitySource = new StreamSource(
-                ReferenceManifestValidator.class.getClassLoader()
-                        .getResourceAsStream(IDENTITY_TRANSFORM));
-        Document doc = null;
-        try {
-            Transformer transformer = tf.newTransformer(identitySource);
-            DOMResult result = new DOMResult();
-            transformer.transform(source, result);
-            doc = (Document) result.getNode();
-        } catch (TransformerConfigurationException e) {
-            LOGGER.warn("Error configuring transformer!");
-            e.printStackTrace();
-        } catch (TransformerException e) {
-            LOGGER.warn("Error transforming input!");
-            e.printStackTrace();
-        }
-
-        return doc;
-    }
 }
@@ -0,0 +1,308 @@
+package hirs.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hirs.data.persist.ReferenceManifest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.UnmarshalException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.crypto.MarshalException;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureException;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMValidateContext;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Validates RIMs against the SWID tag schema and checks their XML signatures. The schema and
+ * the JAXB context are compiled once, and the parsers, unmarshallers and signature factories,
+ * which are not thread-safe, are pooled, so a single engine is shared by every validation in
+ * an application. The whitespace stripped documents of stored RIMs are cached by RIM id, so
+ * a base RIM checked for every provisioned device is only parsed once.
+ */
+public final class RimValidationEngine {
+
+    private static final Logger LOGGER = LogManager.getLogger(RimValidationEngine.class);
+
+    /**
+     * The number of parsed RIM documents to keep.
+     */
+    public static final int DOCUMENT_CACHE_SIZE = 1000;
+
+    private static final String DEFER_NODE_EXPANSION =
+            "http://apache.org/xml/features/dom/defer-node-expansion";
+
+    private final Schema schema;
+    private final JAXBContext jaxbContext;
+    private final DocumentBuilderFactory documentBuilderFactory;
+    private final Pool<Unmarshaller> unmarshallers;
+    private final Pool<DocumentBuilder> documentBuilders;
+    private final Pool<XMLSignatureFactory> signatureFactories;
+    private final Cache<UUID, ParsedRim> documents;
+
+    /**
+     * Holds the engine shared by the application.
+     */
+    private static final class Holder {
+        private static final RimValidationEngine INSTANCE = new RimValidationEngine();
+    }
+
+    /**
+     * Returns the engine shared by the application.
+     *
+     * @return the shared engine
+     */
+    public static RimValidationEngine getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private RimValidationEngine() {
+        schema = compileSchema();
+        try {
+            jaxbContext = JAXBContext.newInstance(ReferenceManifest.SCHEMA_PACKAGE);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Unable to create the SWID tag JAXB context", e);
+        }
+        documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        try {
+            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            // a fully expanded document can be read, and so cloned, by several threads
+            documentBuilderFactory.setFeature(DEFER_NODE_EXPANSION, false);
+        } catch (ParserConfigurationException e) {
+            LOGGER.debug("Unable to configure the document builder factory", e);
+        }
+        unmarshallers = new Pool<>(this::createUnmarshaller);
+        documentBuilders = new Pool<>(this::createDocumentBuilder);
+        signatureFactories = new Pool<>(() -> XMLSignatureFactory.getInstance("DOM"));
+        documents = CacheBuilder.newBuilder().maximumSize(DOCUMENT_CACHE_SIZE).build();
+    }
+
+    private static Schema compileSchema() {
+        try (InputStream is = RimValidationEngine.class.getClassLoader()
+                .getResourceAsStream(ReferenceManifest.SCHEMA_URL)) {
+            return SchemaFactory.newInstance(ReferenceManifest.SCHEMA_LANGUAGE)
+                    .newSchema(new StreamSource(is));
+        } catch (SAXException | IOException e) {
+            LOGGER.error(String.format("Error setting schema for validation!%n%s",
+                    e.getMessage()));
+            return null;
+        }
+    }
+
+    private Unmarshaller createUnmarshaller() {
+        try {
+            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+            unmarshaller.setSchema(schema);
+            return unmarshaller;
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Unable to create a SWID tag unmarshaller", e);
+        }
+    }
+
+    private DocumentBuilder createDocumentBuilder() {
+        try {
+            return documentBuilderFactory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Unable to create a document builder", e);
+        }
+    }
+
+    /**
+     * Returns the compiled SWID tag schema, which can be used by several threads at once.
+     *
+     * @return the schema, or null if it could not be compiled
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Unmarshals a SWID tag, validating it against the schema.
+     *
+     * @param stream the SWID tag
+     * @return the root element of the SWID tag
+     * @throws JAXBException if the SWID tag is invalid
+     */
+    public JAXBElement unmarshal(final InputStream stream) throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallers.borrow();
+        try {
+            return (JAXBElement) unmarshaller.unmarshal(stream);
+        } finally {
+            unmarshallers.release(unmarshaller);
+        }
+    }
+
+    /**
+     * Returns the document of a RIM with all whitespace between elements removed, as is
+     * needed to check the RIM's signature. A RIM that fails schema validation is logged and
+     * still returned. Each call returns a document of its own, which the caller may modify.
+     *
+     * @param rim the RIM
+     * @return the document of the RIM
+     * @throws IOException if the RIM is not well formed XML
+     */
+    public Document getDocument(final ReferenceManifest rim) throws IOException {
+        UUID id = rim.getId();
+        ParsedRim parsed = null;
+        if (id != null) {
+            parsed = documents.getIfPresent(id);
+            // ids are only reused if the RIM changed in place, so check its contents too
+            if (parsed != null && !Objects.equals(parsed.hash, rim.getHexDecHash())) {
+                parsed = null;
+            }
+        }
+        if (parsed == null) {
+            parsed = new ParsedRim(rim.getHexDecHash(), parse(rim.getRimBytes()));
+            if (id != null) {
+                documents.put(id, parsed);
+            }
+        }
+        return parsed.copy();
+    }
+
+    /**
+     * Drops the cached document of a RIM, if any.
+     *
+     * @param rimId the id of the RIM
+     */
+    public void invalidate(final UUID rimId) {
+        documents.invalidate(rimId);
+    }
+
+    private Document parse(final byte[] rimBytes) throws IOException {
+        Document doc;
+        DocumentBuilder builder = documentBuilders.borrow();
+        try {
+            doc = builder.parse(new ByteArrayInputStream(rimBytes));
+        } catch (SAXException e) {
+            throw new IOException("Unable to parse RIM: " + e.getMessage(), e);
+        } finally {
+            builder.reset();
+            documentBuilders.release(builder);
+        }
+        removeWhitespace(doc.getDocumentElement());
+
+        Unmarshaller unmarshaller = unmarshallers.borrow();
+        try {
+            unmarshaller.unmarshal(doc);
+        } catch (UnmarshalException e) {
+            LOGGER.warn("Error validating swidtag file!");
+        } catch (JAXBException e) {
+            LOGGER.warn("Error validating swidtag file: " + e.getMessage());
+        } finally {
+            unmarshallers.release(unmarshaller);
+        }
+        return doc;
+    }
+
+    /**
+     * Removes the whitespace only text between elements, like the identity transform with
+     * xsl:strip-space elements="*" that the signatures of RIMs are checked against.
+     */
+    private static void removeWhitespace(final Node node) {
+        Node child = node.getFirstChild();
+        while (child != null) {
+            Node next = child.getNextSibling();
+            if (child.getNodeType() == Node.TEXT_NODE
+                    || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                if (child.getNodeValue().trim().isEmpty()) {
+                    node.removeChild(child);
+                }
+            } else if (child.getNodeType() == Node.ELEMENT_NODE) {
+                removeWhitespace(child);
+            }
+            child = next;
+        }
+    }
+
+    /**
+     * Checks an XML signature.
+     *
+     * @param context the context holding the signature element and the key to check it with
+     * @return true if the signature is valid, false otherwise
+     */
+    public boolean validateSignature(final DOMValidateContext context) {
+        XMLSignatureFactory sigFactory = signatureFactories.borrow();
+        try {
+            XMLSignature signature = sigFactory.unmarshalXMLSignature(context);
+            return signature.validate(context);
+        } catch (MarshalException e) {
+            LOGGER.warn("Error while unmarshalling XML signature: " + e.getMessage());
+        } catch (XMLSignatureException e) {
+            LOGGER.warn("Error while validating XML signature: " + e.getMessage());
+        } finally {
+            signatureFactories.release(sigFactory);
+        }
+
+        return false;
+    }
+
+    /**
+     * A parsed RIM document, copied for every use since DOM documents are not thread-safe.
+     */
+    private static final class ParsedRim {
+        private final String hash;
+        private final Document document;
+
+        private ParsedRim(final String hash, final Document document) {
+            this.hash = hash;
+            this.document = document;
+        }
+
+        private Document copy() {
+            synchronized (document) {
+                return (Document) document.cloneNode(true);
+            }
+        }
+    }
+
+    /**
+     * An unbounded pool of objects that are not thread-safe. Objects are created when none is
+     * free, so the pool grows to the number of threads using it at once.
+     *
+     * @param <T> the type of the pooled objects
+     */
+    private static final class Pool<T> {
+        private final Queue<T> free = new ConcurrentLinkedQueue<>();
+        private final Supplier<T> factory;
+
+        private Pool(final Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        private T borrow() {
+            T object = free.poll();
+            if (object == null) {
+                object = factory.get();
+            }
+            return object;
+        }
+
+        private void release(final T object) {
+            free.offer(object);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package hirs.validation;
+
+import hirs.data.persist.certificate.attributes.ComponentIdentifier;
+import hirs.data.persist.info.ComponentInfo;
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.DERUTF8String;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the components of a device info report by manufacturer, model, serial and revision,
+ * so that the components matching a platform credential component can be looked up instead of
+ * comparing the platform credential component with every component of the report. Fields are
+ * compared the same way as {@link SupplyChainCredentialValidator#isMatch(java.util.UUID,
+ * ComponentIdentifier, ComponentInfo)} compares them: a field that is empty in the platform
+ * credential component matches any value, any other field must be equal. Components can be
+ * removed from the index once they have been matched. Lookups list the remaining components in
+ * the order they were given.
+ */
+final class ComponentIndex {
+
+    // the positions of the fields in the keys of the index
+    private static final int SERIAL = 2;
+    private static final int REVISION = 3;
+    private static final int FIELD_COUNT = 4;
+
+    private final List<ComponentInfo> components;
+
+    /**
+     * The components by the values of the fields that are set in a platform credential
+     * component, by the set of those fields. Built the first time a set of fields is looked up.
+     */
+    private final Map<Integer, Map<List<String>, List<ComponentInfo>>> byFields =
+            new HashMap<>();
+
+    private final Set<ComponentInfo> removed =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Constructor.
+     *
+     * @param components the components reported by the device
+     */
+    ComponentIndex(final List<ComponentInfo> components) {
+        this.components = components;
+    }
+
+    /**
+     * Returns the remaining components that match every field set in the given platform
+     * credential component.
+     *
+     * @param pcComponent the platform credential component
+     * @return the matching components, in the order they were given
+     */
+    List<ComponentInfo> getMatches(final ComponentIdentifier pcComponent) {
+        String[] values = {
+                valueOf(pcComponent.getComponentManufacturer()),
+                valueOf(pcComponent.getComponentModel()),
+                valueOf(pcComponent.getComponentSerial()),
+                valueOf(pcComponent.getComponentRevision())
+        };
+        int fields = 0;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (values[i] != null) {
+                fields |= 1 << i;
+            }
+        }
+        return remaining(byFields.computeIfAbsent(fields, this::index)
+                .get(Arrays.asList(values)));
+    }
+
+    /**
+     * Returns the first remaining component with the given serial number.
+     *
+     * @param serial a non-empty serial number
+     * @return the component, or null if no remaining component has the serial number
+     */
+    ComponentInfo getFirstWithSerial(final String serial) {
+        return first(byFields.computeIfAbsent(1 << SERIAL, this::index)
+                .get(Arrays.asList(null, null, serial, null)));
+    }
+
+    /**
+     * Returns the first remaining component with the given revision.
+     *
+     * @param revision a non-empty revision
+     * @return the component, or null if no remaining component has the revision
+     */
+    ComponentInfo getFirstWithRevision(final String revision) {
+        return first(byFields.computeIfAbsent(1 << REVISION, this::index)
+                .get(Arrays.asList(null, null, null, revision)));
+    }
+
+    /**
+     * Removes a component from the index, so that it is not returned by later lookups.
+     *
+     * @param component a component given to the index
+     */
+    void remove(final ComponentInfo component) {
+        removed.add(component);
+    }
+
+    private Map<List<String>, List<ComponentInfo>> index(final int fields) {
+        Map<List<String>, List<ComponentInfo>> index = new HashMap<>();
+        for (ComponentInfo component : components) {
+            String[] values = {
+                    component.getComponentManufacturer(),
+                    component.getComponentModel(),
+                    component.getComponentSerial(),
+                    component.getComponentRevision()
+            };
+            for (int i = 0; i < FIELD_COUNT; i++) {
+                if ((fields & (1 << i)) == 0) {
+                    values[i] = null;
+                }
+            }
+            index.computeIfAbsent(Arrays.asList(values), key -> new ArrayList<>())
+                    .add(component);
+        }
+        return index;
+    }
+
+    private List<ComponentInfo> remaining(final List<ComponentInfo> candidates) {
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        List<ComponentInfo> remaining = new ArrayList<>(candidates.size());
+        for (ComponentInfo candidate : candidates) {
+            if (!removed.contains(candidate)) {
+                remaining.add(candidate);
+            }
+        }
+        return remaining;
+    }
+
+    private ComponentInfo first(final List<ComponentInfo> candidates) {
+        if (candidates != null) {
+            for (ComponentInfo candidate : candidates) {
+                if (!removed.contains(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    // an empty field in the platform credential matches anything, like a missing one
+    private static String valueOf(final DERUTF8String field) {
+        if (field == null || StringUtils.isEmpty(field.getString())) {
+            return null;
+        }
+        return field.getString();
+    }
+}
@@ -0,0 +1,142 @@
+package hirs.validation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.cert.X509AttributeCertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+
+import javax.security.auth.x500.X500Principal;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes a set of certificates by subject, so that the candidates for the issuer of a
+ * certificate can be looked up instead of trying every certificate in the set. Subjects are
+ * compared the same way as {@link SupplyChainCredentialValidator#issuerMatchesSubjectDN}
+ * compares them, so the candidates for a certificate are exactly the certificates that method
+ * accepts. Candidates whose subject key identifier matches the certificate's authority key
+ * identifier are listed first.
+ */
+final class IssuerIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(IssuerIndex.class);
+
+    /**
+     * Subjects in the form compared against the issuers of public-key certificates.
+     */
+    private final Map<X500Name, List<X509Certificate>> byRfc1779Subject = new HashMap<>();
+
+    /**
+     * Subjects in the form compared against the issuers of attribute certificates.
+     */
+    private final Map<X500Name, List<X509Certificate>> byRfc2253Subject = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param certificates the certificates that may issue other certificates
+     */
+    IssuerIndex(final Collection<X509Certificate> certificates) {
+        for (X509Certificate certificate : certificates) {
+            X500Principal subject = certificate.getSubjectX500Principal();
+            byRfc1779Subject.computeIfAbsent(
+                    new X500Name(subject.getName(X500Principal.RFC1779)),
+                    key -> new ArrayList<>()).add(certificate);
+            byRfc2253Subject.computeIfAbsent(new X500Name(subject.getName()),
+                    key -> new ArrayList<>()).add(certificate);
+        }
+    }
+
+    /**
+     * Looks up the certificates that may have issued a public-key certificate.
+     *
+     * @param certificate the issued certificate
+     * @return the certificates whose subject matches the issuer, possibly empty
+     */
+    List<X509Certificate> getIssuerCandidates(final X509Certificate certificate) {
+        List<X509Certificate> candidates = byRfc1779Subject.get(
+                new X500Name(certificate.getIssuerDN().getName()));
+        return orderByKeyIdentifier(candidates, getAuthorityKeyIdentifier(
+                certificate.getExtensionValue(Extension.authorityKeyIdentifier.getId())));
+    }
+
+    /**
+     * Looks up the certificates that may have issued an attribute certificate.
+     *
+     * @param certificate the issued certificate
+     * @return the certificates whose subject matches the issuer, possibly empty
+     */
+    List<X509Certificate> getIssuerCandidates(final X509AttributeCertificateHolder certificate) {
+        List<X509Certificate> candidates = byRfc2253Subject.get(
+                certificate.getIssuer().getNames()[0]);
+        byte[] keyIdentifier = null;
+        if (certificate.hasExtensions()) {
+            AuthorityKeyIdentifier authorityKeyIdentifier =
+                    AuthorityKeyIdentifier.fromExtensions(certificate.getExtensions());
+            if (authorityKeyIdentifier != null) {
+                keyIdentifier = authorityKeyIdentifier.getKeyIdentifier();
+            }
+        }
+        return orderByKeyIdentifier(candidates, keyIdentifier);
+    }
+
+    private static List<X509Certificate> orderByKeyIdentifier(
+            final List<X509Certificate> candidates, final byte[] authorityKeyIdentifier) {
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        if (authorityKeyIdentifier == null || candidates.size() == 1) {
+            return candidates;
+        }
+        List<X509Certificate> ordered = new ArrayList<>(candidates.size());
+        for (X509Certificate candidate : candidates) {
+            if (Arrays.equals(authorityKeyIdentifier, getSubjectKeyIdentifier(candidate))) {
+                ordered.add(0, candidate);
+            } else {
+                ordered.add(candidate);
+            }
+        }
+        return ordered;
+    }
+
+    private static byte[] getAuthorityKeyIdentifier(final byte[] extensionValue) {
+        if (extensionValue == null) {
+            return null;
+        }
+        try {
+            return AuthorityKeyIdentifier.getInstance(
+                    JcaX509ExtensionUtils.parseExtensionValue(extensionValue))
+                    .getKeyIdentifier();
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.debug("Unable to parse authority key identifier", e);
+            return null;
+        }
+    }
+
+    private static byte[] getSubjectKeyIdentifier(final X509Certificate certificate) {
+        byte[] extensionValue = certificate.getExtensionValue(
+                Extension.subjectKeyIdentifier.getId());
+        if (extensionValue == null) {
+            return null;
+        }
+        try {
+            return SubjectKeyIdentifier.getInstance(
+                    JcaX509ExtensionUtils.parseExtensionValue(extensionValue))
+                    .getKeyIdentifier();
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.debug("Unable to parse subject key identifier", e);
+            return null;
+        }
+    }
+}
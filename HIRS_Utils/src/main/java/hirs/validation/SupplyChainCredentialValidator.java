@@ -3,6 +3,8 @@ package hirs.validation;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hirs.data.persist.AppraisalStatus;
 import hirs.data.persist.ArchivableEntity;
 import hirs.data.persist.DeviceInfoReport;
@@ -42,6 +44,7 @@ import java.security.NoSuchProviderException;
 import java.security.PublicKey;
 import java.security.Security;
 import java.security.SignatureException;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
@@ -57,7 +60,6 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -100,6 +102,24 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
 
     private static List<ComponentResult> componentResultList = new LinkedList<>();;
 
+    /**
+     * The maximum number of signature verification results remembered.
+     */
+    private static final long VERIFIED_SIGNATURES_SIZE = 10000;
+
+    /**
+     * Results of verifying a certificate's signature with the public key of a CA certificate,
+     * keyed by the fingerprints of both. The same chains are validated over and over again, so
+     * this saves repeating the signature verifications.
+     */
+    private static final Cache<String, Boolean> VERIFIED_SIGNATURES = CacheBuilder.newBuilder()
+            .maximumSize(VERIFIED_SIGNATURES_SIZE)
+            .build();
+
+    private static final String ISSUER_MISMATCH_ERROR = "Issuer DN does not match Subject DN";
+    private static final String SIGNATURE_ERROR = "Certificate signature failed to verify";
+    private static final String CHAIN_LOOP_ERROR = "Certificate chain contains a loop";
+
     /**
      * Ensure that BouncyCastle is configured as a javax.security.Security provider, as this
      * class expects it to be available.
@@ -769,21 +789,19 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         StringBuilder invalidPcIds = new StringBuilder();
         List<ComponentIdentifier> subCompIdList = fullDeltaChainComponents
                 .stream().collect(Collectors.toList());
-        List<ComponentInfo> subCompInfoList = allDeviceInfoComponents
-                .stream().collect(Collectors.toList());
+        ComponentIndex componentInfoIndex = new ComponentIndex(allDeviceInfoComponents);
 
-        // Delta is the baseline
-        for (ComponentInfo cInfo : allDeviceInfoComponents) {
-            for (ComponentIdentifier cId : fullDeltaChainComponents) {
-                ciV2 = (ComponentIdentifierV2) cId;
+        // Delta is the baseline. Every pair of a component and a matching device component
+        // removes one occurrence of the component, so the pairs can be visited in any order.
+        for (ComponentIdentifier cId : fullDeltaChainComponents) {
+            ciV2 = (ComponentIdentifierV2) cId;
+            for (ComponentInfo cInfo : componentInfoIndex.getMatches(cId)) {
                 if (cInfo.getComponentClass().contains(
                         ciV2.getComponentClass().getValue())
                         && isMatch(certificateId, cId, cInfo)) {
                     subCompIdList.remove(cId);
-                    subCompInfoList.remove(cInfo);
                 }
-            } // I have to get the unmatched from here,
-            // maybe create a list of component result and use that
+            }
         }
 
         if (subCompIdList.isEmpty()) {
@@ -853,27 +871,34 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             pcComponents.add(component);
         }
 
-        LOGGER.info("Validating the following Platform Cert components...");
-        pcComponents.forEach(component -> LOGGER.info(component.toString()));
-        LOGGER.info("...against the the following DeviceInfoReport components:");
-        allDeviceInfoComponents.forEach(component -> LOGGER.info(component.toString()));
-        Set<DERUTF8String> manufacturerSet = new HashSet<>();
-        pcComponents.forEach(pcComp -> manufacturerSet.add(pcComp.getComponentManufacturer()));
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Validating the following Platform Cert components...");
+            pcComponents.forEach(component -> LOGGER.debug(component.toString()));
+            LOGGER.debug("...against the the following DeviceInfoReport components:");
+            allDeviceInfoComponents.forEach(component -> LOGGER.debug(component.toString()));
+        }
+        // group the components by manufacturer once, iterating the manufacturers in the same
+        // order as a HashSet of them would
+        Map<DERUTF8String, List<ComponentIdentifier>> pcComponentsByManufacturer =
+                new HashMap<>();
+        pcComponents.forEach(pcComp -> pcComponentsByManufacturer.computeIfAbsent(
+                pcComp.getComponentManufacturer(), key -> new ArrayList<>()).add(pcComp));
+        Map<String, List<ComponentInfo>> deviceInfoComponentsByManufacturer = new HashMap<>();
+        allDeviceInfoComponents.forEach(componentInfo -> deviceInfoComponentsByManufacturer
+                .computeIfAbsent(componentInfo.getComponentManufacturer(),
+                        key -> new ArrayList<>()).add(componentInfo));
 
         // Create a list for unmatched components across all manufacturers to display at the end.
         List<ComponentIdentifier> pcUnmatchedComponents = new ArrayList<>();
 
-        for (DERUTF8String derUtf8Manufacturer : manufacturerSet) {
-            List<ComponentIdentifier> pcComponentsFromManufacturer
-                    = pcComponents.stream().filter(compIdentifier
-                    -> compIdentifier.getComponentManufacturer().equals(derUtf8Manufacturer))
-                    .collect(Collectors.toList());
+        for (Map.Entry<DERUTF8String, List<ComponentIdentifier>> entry
+                : pcComponentsByManufacturer.entrySet()) {
+            List<ComponentIdentifier> pcComponentsFromManufacturer = entry.getValue();
 
-            String pcManufacturer = derUtf8Manufacturer.getString();
-            List<ComponentInfo> deviceInfoComponentsFromManufacturer
-                    = allDeviceInfoComponents.stream().filter(componentInfo
-                    -> componentInfo.getComponentManufacturer().equals(pcManufacturer))
-                    .collect(Collectors.toList());
+            String pcManufacturer = entry.getKey().getString();
+            ComponentIndex deviceInfoComponentsFromManufacturer = new ComponentIndex(
+                    deviceInfoComponentsByManufacturer.getOrDefault(pcManufacturer,
+                            Collections.emptyList()));
             // For each component listed in the platform credential from this manufacturer
             // find the ones that specify a serial number so we can match the most specific ones
             // first.
@@ -887,19 +912,13 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             // both lists.
             for (ComponentIdentifier pcComponent
                     : pcComponentsFromManufacturerWithSerialNumber) {
-                Optional<ComponentInfo> first
-                        = deviceInfoComponentsFromManufacturer.stream()
-                        .filter(componentInfo
-                                -> StringUtils.isNotEmpty(componentInfo.getComponentSerial()))
-                        .filter(componentInfo -> componentInfo.getComponentSerial()
-                                .equals(pcComponent.getComponentSerial().getString())).findFirst();
-
-                if (first.isPresent()) {
-                    ComponentInfo potentialMatch = first.get();
-                    if (isMatch(certificateId, pcComponent, potentialMatch)) {
-                        pcComponentsFromManufacturer.remove(pcComponent);
-                        deviceInfoComponentsFromManufacturer.remove(potentialMatch);
-                    }
+                ComponentInfo potentialMatch = deviceInfoComponentsFromManufacturer
+                        .getFirstWithSerial(pcComponent.getComponentSerial().getString());
+
+                if (potentialMatch != null
+                        && isMatch(certificateId, pcComponent, potentialMatch)) {
+                    pcComponentsFromManufacturer.remove(pcComponent);
+                    deviceInfoComponentsFromManufacturer.remove(potentialMatch);
                 }
             }
             // For each component listed in the platform credential from this manufacturer
@@ -915,32 +934,24 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             // remove them from both lists.
             for (ComponentIdentifier pcComponent
                     : pcComponentsFromManufacturerWithRevision) {
-                Optional<ComponentInfo> first
-                        = deviceInfoComponentsFromManufacturer.stream()
-                        .filter(info -> StringUtils.isNotEmpty(info.getComponentRevision()))
-                        .filter(info -> info.getComponentRevision()
-                                .equals(pcComponent.getComponentRevision().getString()))
-                        .findFirst();
-
-                if (first.isPresent()) {
-                    ComponentInfo potentialMatch = first.get();
-                    if (isMatch(certificateId, pcComponent, potentialMatch)) {
-                        pcComponentsFromManufacturer.remove(pcComponent);
-                        deviceInfoComponentsFromManufacturer.remove(potentialMatch);
-                    }
+                ComponentInfo potentialMatch = deviceInfoComponentsFromManufacturer
+                        .getFirstWithRevision(pcComponent.getComponentRevision().getString());
+
+                if (potentialMatch != null
+                        && isMatch(certificateId, pcComponent, potentialMatch)) {
+                    pcComponentsFromManufacturer.remove(pcComponent);
+                    deviceInfoComponentsFromManufacturer.remove(potentialMatch);
                 }
             }
             // The remaining components from the manufacturer have only the 2 required fields so
             // just match them.
             List<ComponentIdentifier> templist = new ArrayList<>(pcComponentsFromManufacturer);
             for (ComponentIdentifier ci : templist) {
-                Iterator<ComponentInfo> diComponentIter
-                        = deviceInfoComponentsFromManufacturer.iterator();
-                while (diComponentIter.hasNext()) {
-                    ComponentInfo potentialMatch = diComponentIter.next();
+                for (ComponentInfo potentialMatch
+                        : deviceInfoComponentsFromManufacturer.getMatches(ci)) {
                     if (isMatch(certificateId, ci, potentialMatch)) {
                         pcComponentsFromManufacturer.remove(ci);
-                        diComponentIter.remove();
+                        deviceInfoComponentsFromManufacturer.remove(potentialMatch);
                     }
                 }
             }
@@ -1405,45 +1416,46 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             throw new SupplyChainValidatorException(
                     "Certificate or validation certificates are null");
         }
-        final String intCAError = "Intermediate signing cert found, check for CA cert";
-        String foundRootOfCertChain = "";
-        X509Certificate nextInChain = null;
-
-        do {
-            for (X509Certificate trustedCert : additionalCerts) {
-                boolean issuerMatchesSubject = false;
-                boolean signatureMatchesPublicKey = false;
-                if (nextInChain != null) {
-                    issuerMatchesSubject = issuerMatchesSubjectDN(nextInChain, trustedCert);
-                    signatureMatchesPublicKey = signatureMatchesPublicKey(nextInChain,
-                            trustedCert);
-                } else {
-                    issuerMatchesSubject = issuerMatchesSubjectDN(cert, trustedCert);
-                    signatureMatchesPublicKey = signatureMatchesPublicKey(cert, trustedCert);
-                }
+        IssuerIndex issuerIndex = new IssuerIndex(additionalCerts);
 
-                if (issuerMatchesSubject && signatureMatchesPublicKey) {
-                    if (isSelfSigned(trustedCert)) {
-                        LOGGER.info("CA Root found.");
-                        return "";
-                    } else {
-                        foundRootOfCertChain = intCAError;
-                        nextInChain = trustedCert;
-                        break;
-                    }
-                } else {
-                    if (!issuerMatchesSubject) {
-                        foundRootOfCertChain = "Issuer DN does not match Subject DN";
-                    }
-                    if (!signatureMatchesPublicKey) {
-                        foundRootOfCertChain = "Certificate signature failed to verify";
-                    }
+        X509Certificate signingCert = null;
+        String attributeFingerprint = fingerprint(cert);
+        List<X509Certificate> candidates = issuerIndex.getIssuerCandidates(cert);
+        for (X509Certificate candidate : candidates) {
+            String key = signatureKey(attributeFingerprint, candidate);
+            Boolean verified = null;
+            if (key != null) {
+                verified = VERIFIED_SIGNATURES.getIfPresent(key);
+            }
+            if (verified == null) {
+                verified = signatureMatchesPublicKey(cert, candidate);
+                if (key != null) {
+                    VERIFIED_SIGNATURES.put(key, verified);
                 }
             }
-        } while (foundRootOfCertChain.equals(intCAError));
+            if (verified) {
+                signingCert = candidate;
+                break;
+            }
+        }
+
+        String result;
+        if (candidates.isEmpty()) {
+            result = ISSUER_MISMATCH_ERROR;
+        } else if (signingCert == null) {
+            result = SIGNATURE_ERROR;
+        } else if (isSelfSignedCached(signingCert)) {
+            LOGGER.info("CA Root found.");
+            return "";
+        } else {
+            result = validateCertChain(signingCert, issuerIndex);
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
 
-        LOGGER.error(foundRootOfCertChain);
-        return foundRootOfCertChain;
+        LOGGER.error(result);
+        return result;
     }
 
     /**
@@ -1467,37 +1479,119 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             throw new SupplyChainValidatorException(
                     "Certificate or validation certificates are null");
         }
-        final String intCAError = "Intermediate signing cert found, check for CA cert";
-        String foundRootOfCertChain = "";
+        String result = validateCertChain(cert, new IssuerIndex(additionalCerts));
+        if (!result.isEmpty()) {
+            LOGGER.warn(result);
+        }
+        return result;
+    }
+
+    /**
+     * Follows the chain of a public-key certificate up to a root (self-signed) cert. Only the
+     * certificates whose subject matches the issuer of the certificate at hand are checked
+     * against its signature.
+     *
+     * @param cert certificate to validate
+     * @param issuerIndex the certificates to validate against
+     * @return blank if successful, error message otherwise
+     * @throws SupplyChainValidatorException tried to validate using null certificates
+     */
+    private static String validateCertChain(final X509Certificate cert,
+            final IssuerIndex issuerIndex) throws SupplyChainValidatorException {
+        Set<X509Certificate> chain = new HashSet<>();
         X509Certificate startOfChain = cert;
 
-        do {
-            for (X509Certificate trustedCert : additionalCerts) {
-                boolean issuerMatchesSubject = issuerMatchesSubjectDN(startOfChain, trustedCert);
-                boolean signatureMatchesPublicKey = signatureMatchesPublicKey(startOfChain,
-                                                                                trustedCert);
-                if (issuerMatchesSubject && signatureMatchesPublicKey) {
-                    if (isSelfSigned(trustedCert)) {
-                        LOGGER.info("CA Root found.");
-                        return "";
-                    } else {
-                        foundRootOfCertChain = intCAError;
-                        startOfChain = trustedCert;
-                        break;
-                    }
-                } else {
-                    if (!issuerMatchesSubject) {
-                        foundRootOfCertChain = "Issuer DN does not match Subject DN";
-                    }
-                    if (!signatureMatchesPublicKey) {
-                        foundRootOfCertChain = "Certificate signature failed to verify";
-                    }
+        while (chain.add(startOfChain)) {
+            List<X509Certificate> candidates = issuerIndex.getIssuerCandidates(startOfChain);
+            if (candidates.isEmpty()) {
+                return ISSUER_MISMATCH_ERROR;
+            }
+            X509Certificate signingCert = null;
+            for (X509Certificate candidate : candidates) {
+                if (signatureMatchesPublicKeyCached(startOfChain, candidate)) {
+                    signingCert = candidate;
+                    break;
                 }
             }
-        } while (foundRootOfCertChain.equals(intCAError));
+            if (signingCert == null) {
+                return SIGNATURE_ERROR;
+            }
+            if (isSelfSignedCached(signingCert)) {
+                LOGGER.info("CA Root found.");
+                return "";
+            }
+            startOfChain = signingCert;
+        }
+        return CHAIN_LOOP_ERROR;
+    }
 
-        LOGGER.warn(foundRootOfCertChain);
-        return foundRootOfCertChain;
+    /**
+     * Same as {@link #signatureMatchesPublicKey(X509Certificate, X509Certificate)}, but only
+     * verifies the signature if it has not been verified before.
+     */
+    private static boolean signatureMatchesPublicKeyCached(final X509Certificate cert,
+            final X509Certificate signingCert) throws SupplyChainValidatorException {
+        String key = signatureKey(fingerprint(cert), signingCert);
+        Boolean verified = null;
+        if (key != null) {
+            verified = VERIFIED_SIGNATURES.getIfPresent(key);
+        }
+        if (verified == null) {
+            verified = signatureMatchesPublicKey(cert, signingCert);
+            if (key != null) {
+                VERIFIED_SIGNATURES.put(key, verified);
+            }
+        }
+        return verified;
+    }
+
+    /**
+     * Same as {@link #isSelfSigned(X509Certificate)}, but only verifies the signature if it has
+     * not been verified before.
+     */
+    private static boolean isSelfSignedCached(final X509Certificate cert)
+            throws SupplyChainValidatorException {
+        String fingerprint = fingerprint(cert);
+        String key = null;
+        Boolean selfSigned = null;
+        if (fingerprint != null) {
+            key = fingerprint + ":self";
+            selfSigned = VERIFIED_SIGNATURES.getIfPresent(key);
+        }
+        if (selfSigned == null) {
+            selfSigned = isSelfSigned(cert);
+            if (key != null) {
+                VERIFIED_SIGNATURES.put(key, selfSigned);
+            }
+        }
+        return selfSigned;
+    }
+
+    private static String signatureKey(final String fingerprint,
+                                       final X509Certificate signingCert) {
+        String signingFingerprint = fingerprint(signingCert);
+        if (fingerprint == null || signingFingerprint == null) {
+            return null;
+        }
+        return fingerprint + ":" + signingFingerprint;
+    }
+
+    private static String fingerprint(final X509Certificate cert) {
+        try {
+            return DigestUtils.sha256Hex(cert.getEncoded());
+        } catch (CertificateEncodingException e) {
+            LOGGER.debug("Unable to encode certificate", e);
+            return null;
+        }
+    }
+
+    private static String fingerprint(final X509AttributeCertificateHolder cert) {
+        try {
+            return DigestUtils.sha256Hex(cert.getEncoded());
+        } catch (IOException e) {
+            LOGGER.debug("Unable to encode attribute certificate", e);
+            return null;
+        }
     }
 
     private static String validateDeltaChain(
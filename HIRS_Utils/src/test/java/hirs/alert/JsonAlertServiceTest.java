@@ -1,15 +1,29 @@
 package hirs.alert;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.logging.log4j.Logger;
 import hirs.appraiser.HIRSAppraiser;
@@ -22,10 +36,12 @@ import hirs.data.persist.alert.AlertServiceConfig;
 import hirs.data.persist.alert.JsonAlertMonitor;
 import hirs.persist.AlertMonitorManager;
 import hirs.persist.AlertServiceConfigManager;
+import hirs.persist.PortalInfoManager;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -35,6 +51,8 @@ import org.testng.annotations.Test;
 public class JsonAlertServiceTest {
 
     private static final Logger LOGGER = getLogger(JsonAlertServiceTest.class);
+    private static final int SOCKET_TIMEOUT_MILLIS = 10000;
+    private static final long TIMEOUT_SECONDS = 10;
 
     @InjectMocks
     private JsonAlertService service;
@@ -45,6 +63,9 @@ public class JsonAlertServiceTest {
     @Mock
     private AlertServiceConfigManager configManager;
 
+    @Mock
+    private PortalInfoManager portalInfoManager;
+
     /**
      * Prepares a testing environment.
      */
@@ -54,6 +75,14 @@ public class JsonAlertServiceTest {
         MockitoAnnotations.initMocks(this);
     }
 
+    /**
+     * Stops the delivery thread and closes the connections to the monitors.
+     */
+    @AfterMethod
+    public void afterMethod() {
+        service.shutdown();
+    }
+
     /**
      * Test the addMonitor() and getMonitor() methods.
      */
@@ -93,6 +122,100 @@ public class JsonAlertServiceTest {
         verifyNoMoreInteractions(monitorManager, configManager);
     }
 
+    /**
+     * Tests that alerts raised together are delivered to a TCP monitor as newline delimited
+     * JSON over a single connection.
+     *
+     * @throws IOException if the test monitor fails
+     * @throws InterruptedException if interrupted while waiting for the delivery
+     */
+    @Test
+    public final void alertTcpBatch() throws IOException, InterruptedException {
+        final int alertCount = 3;
+        AlertServiceConfig config = new AlertServiceConfig(JsonAlertService.NAME);
+        config.enable();
+        List<AlertServiceConfig> configs = Collections.singletonList(config);
+        when(configManager.getAlertServiceConfigList(AlertServiceConfig.class)).thenReturn(configs);
+        when(portalInfoManager.getPortalUrlBase()).thenReturn("https://localhost/HIRS_Portal/");
+
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+            JsonAlertMonitor monitor = new JsonAlertMonitor("Test TCP Monitor");
+            monitor.setIpAddress(InetAddress.getLoopbackAddress());
+            monitor.setPort(server.getLocalPort());
+            monitor.setTCP();
+            monitor.enable();
+            monitor.enableIndividualAlert();
+            List<AlertMonitor> monitors = Collections.singletonList(monitor);
+            when(monitorManager.getAlertMonitorList(AlertMonitor.class)).thenReturn(monitors);
+
+            for (int i = 0; i < alertCount; i++) {
+                Alert alert = spy(new Alert("Test JSON Alert " + i));
+                doReturn(UUID.randomUUID()).when(alert).getId();
+                service.alert(alert);
+            }
+
+            try (Socket connection = server.accept()) {
+                connection.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        connection.getInputStream(), StandardCharsets.UTF_8));
+                ObjectMapper mapper = new ObjectMapper();
+                for (int i = 0; i < alertCount; i++) {
+                    Map<?, ?> json = mapper.readValue(in.readLine(), Map.class);
+                    Assert.assertEquals(json.get("details"), "Test JSON Alert " + i);
+                }
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (service.getDeliveredAlertCount() < alertCount && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(service.getDeliveredAlertCount(), alertCount);
+        Assert.assertEquals(service.getDroppedAlertCount(), 0);
+    }
+
+    /**
+     * Tests that alerts that cannot be sent to a TCP monitor are counted as failed rather than
+     * delivered.
+     *
+     * @throws IOException if no free port can be found
+     * @throws InterruptedException if interrupted while waiting for the delivery
+     */
+    @Test
+    public final void alertTcpUnreachable() throws IOException, InterruptedException {
+        AlertServiceConfig config = new AlertServiceConfig(JsonAlertService.NAME);
+        config.enable();
+        List<AlertServiceConfig> configs = Collections.singletonList(config);
+        when(configManager.getAlertServiceConfigList(AlertServiceConfig.class)).thenReturn(configs);
+        when(portalInfoManager.getPortalUrlBase()).thenReturn("https://localhost/HIRS_Portal/");
+
+        // nothing listens on the port once the server socket is closed
+        int port;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = server.getLocalPort();
+        }
+        JsonAlertMonitor monitor = new JsonAlertMonitor("Test Unreachable Monitor");
+        monitor.setIpAddress(InetAddress.getLoopbackAddress());
+        monitor.setPort(port);
+        monitor.setTCP();
+        monitor.enable();
+        monitor.enableIndividualAlert();
+        List<AlertMonitor> monitors = Collections.singletonList(monitor);
+        when(monitorManager.getAlertMonitorList(AlertMonitor.class)).thenReturn(monitors);
+
+        Alert alert = spy(new Alert("Test Unreachable JSON Alert"));
+        doReturn(UUID.randomUUID()).when(alert).getId();
+        service.alert(alert);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (service.getFailedAlertCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(service.getFailedAlertCount(), 1);
+        Assert.assertEquals(service.getDeliveredAlertCount(), 0);
+    }
+
     /**
      * Tests the alert notification to alert services.
      */
@@ -0,0 +1,137 @@
+package hirs.alert;
+
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import hirs.data.persist.Alert;
+import hirs.data.persist.ReportSummary;
+import hirs.data.persist.alert.AlertMonitor;
+import hirs.data.persist.alert.AlertServiceConfig;
+import hirs.data.persist.alert.JsonAlertMonitor;
+import hirs.persist.AlertMonitorManager;
+import hirs.persist.AlertServiceConfigManager;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Provides tests for the asynchronous delivery of {@link ManagedAlertService}.
+ */
+public class ManagedAlertServiceTest {
+
+    private static final String NAME = "TEST";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /**
+     * Alert service whose delivery blocks until released.
+     */
+    private static final class BlockingAlertService extends ManagedAlertService {
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingAlertService() {
+            super(NAME);
+        }
+
+        @Override
+        public void persist(final AlertServiceConfigManager alertServiceConfigManager) {
+        }
+
+        @Override
+        protected void sendAlert(final AlertMonitor monitor, final Alert alert) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        protected void sendAlertSummary(final AlertMonitor monitor, final ReportSummary summary) {
+        }
+    }
+
+    @InjectMocks
+    private BlockingAlertService service;
+
+    @Mock
+    private AlertMonitorManager monitorManager;
+
+    @Mock
+    private AlertServiceConfigManager configManager;
+
+    /**
+     * Prepares a service with a single enabled monitor.
+     */
+    @BeforeMethod
+    public void beforeMethod() {
+        service = new BlockingAlertService();
+        MockitoAnnotations.initMocks(this);
+
+        AlertServiceConfig config = new AlertServiceConfig(NAME);
+        config.enable();
+        List<AlertServiceConfig> configs = Collections.singletonList(config);
+        when(configManager.getAlertServiceConfigList(AlertServiceConfig.class)).thenReturn(configs);
+
+        AlertMonitor monitor = new JsonAlertMonitor("Test Monitor");
+        monitor.setAlertServiceType(NAME);
+        monitor.enable();
+        monitor.enableIndividualAlert();
+        List<AlertMonitor> monitors = Collections.singletonList(monitor);
+        when(monitorManager.getAlertMonitorList(AlertMonitor.class)).thenReturn(monitors);
+    }
+
+    /**
+     * Stops the delivery thread.
+     */
+    @AfterMethod
+    public void afterMethod() {
+        service.release.countDown();
+        service.shutdown();
+    }
+
+    /**
+     * Tests that raising an alert does not wait for its delivery, that alerts are dropped and
+     * counted once the queue is full, and that the queued alerts are delivered once the
+     * monitor catches up.
+     *
+     * @throws InterruptedException if interrupted while waiting for the delivery
+     */
+    @Test
+    public final void testDropWhenQueueFull() throws InterruptedException {
+        final int extraAlerts = 5;
+        Alert alert = new Alert("Test Managed Alert Service Alert");
+
+        // the first alert is taken off the queue and blocks the delivery thread
+        service.alert(alert);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (service.getPendingAlertCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(service.getPendingAlertCount(), 0);
+
+        for (int i = 0; i < ManagedAlertService.QUEUE_CAPACITY + extraAlerts; i++) {
+            service.alert(alert);
+        }
+        Assert.assertEquals(service.getPendingAlertCount(), ManagedAlertService.QUEUE_CAPACITY);
+        Assert.assertEquals(service.getDroppedAlertCount(), extraAlerts);
+        Assert.assertEquals(service.getDeliveredAlertCount(), 0);
+
+        service.release.countDown();
+        while (service.getDeliveredAlertCount() < ManagedAlertService.QUEUE_CAPACITY + 1
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(service.getDeliveredAlertCount(),
+                ManagedAlertService.QUEUE_CAPACITY + 1);
+        Assert.assertEquals(service.getFailedAlertCount(), 0);
+        Assert.assertEquals(service.getDroppedAlertCount(), extraAlerts);
+    }
+}
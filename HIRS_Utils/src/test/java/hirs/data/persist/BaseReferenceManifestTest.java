@@ -0,0 +1,100 @@
+package hirs.data.persist;
+
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Tests for {@link BaseReferenceManifest}.
+ */
+public class BaseReferenceManifestTest {
+
+    private static final String SIGNED_RIM = "/rims/generated_user_cert.swidtag";
+    private static final String EMBEDDED_CERT_RIM = "/rims/generated_user_cert_embed.swidtag";
+    private static final String SIGNING_CERT = "/rims/RimSignCert.pem";
+
+    /**
+     * Tests that the parsed SWID tag holds the payload, entity, link and software meta of the
+     * tag, and that the RIM's fields are taken from it.
+     *
+     * @throws IOException if the RIM cannot be read
+     */
+    @Test
+    public void testParsedSwidTag() throws IOException {
+        BaseReferenceManifest rim = new BaseReferenceManifest(read(SIGNED_RIM));
+        ParsedSwidTag tag = rim.getSwidTag();
+
+        Assert.assertEquals(tag.getEntityName(), "Example Inc");
+        Assert.assertEquals(tag.getEntityName(), rim.getEntityName());
+        Assert.assertEquals(tag.getEntityRole(), rim.getEntityRole());
+        Assert.assertEquals(tag.getLinkRel(), "installationmedia");
+        Assert.assertEquals(tag.getLinkHref(), rim.getLinkHref());
+        Assert.assertEquals(tag.getSoftwareMeta().get("platformModel"), rim.getPlatformModel());
+        Assert.assertEquals(tag.getSoftwareMeta().get("bindingSpec"), rim.getBindingSpec());
+
+        List<SwidResource> resources = rim.parseResource();
+        Assert.assertFalse(resources.isEmpty());
+        Assert.assertEquals(resources.size(), tag.getResources().size());
+        Assert.assertNotNull(resources.get(0).getHashValue());
+    }
+
+    /**
+     * Tests that the signature metadata identifies the signing key by key name, or by the
+     * embedded certificate.
+     *
+     * @throws Exception if the RIMs or the certificate cannot be read
+     */
+    @Test
+    public void testSignatureMetadata() throws Exception {
+        CertificateAuthorityCredential signingCert =
+                new CertificateAuthorityCredential(read(SIGNING_CERT));
+
+        ParsedSwidTag keyNameTag = new BaseReferenceManifest(read(SIGNED_RIM)).getSwidTag();
+        Assert.assertTrue(keyNameTag.isSigned());
+        Assert.assertEquals(keyNameTag.getKeyName(), signingCert.getSubjectKeyIdString());
+        Assert.assertNull(keyNameTag.getEmbeddedCertificate());
+        Assert.assertNotNull(keyNameTag.getSignatureMethod());
+
+        ParsedSwidTag embeddedTag =
+                new BaseReferenceManifest(read(EMBEDDED_CERT_RIM)).getSwidTag();
+        Assert.assertTrue(embeddedTag.isSigned());
+        Assert.assertEquals(embeddedTag.getEmbeddedCertificate(),
+                signingCert.getRawBytes());
+    }
+
+    /**
+     * Tests that the SWID tag is parsed once per instance, and that an instance without a
+     * parsed tag, as loaded from the database, shares the tag of an earlier instance.
+     *
+     * @throws Exception if the RIM cannot be read
+     */
+    @Test
+    public void testSwidTagParsedOnce() throws Exception {
+        BaseReferenceManifest rim = new BaseReferenceManifest(read(SIGNED_RIM));
+        ParsedSwidTag tag = rim.getSwidTag();
+        Assert.assertSame(rim.getSwidTag(), tag);
+
+        // the list handed out is a copy
+        rim.parseResource().clear();
+        Assert.assertFalse(rim.parseResource().isEmpty());
+
+        BaseReferenceManifest loaded = new BaseReferenceManifest(read(SIGNED_RIM));
+        Field swidTag = BaseReferenceManifest.class.getDeclaredField("swidTag");
+        swidTag.setAccessible(true);
+        swidTag.set(loaded, null);
+        swidTag.set(rim, null);
+        Assert.assertSame(loaded.getSwidTag(), rim.getSwidTag());
+    }
+
+    private byte[] read(final String path) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(path)) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import hirs.data.persist.baseline.ImaBlacklistBaseline;
 import hirs.data.persist.enums.ReportMatchStatus;
 import hirs.ima.matching.BatchImaMatchStatus;
 import hirs.ima.matching.IMAMatchStatus;
+import hirs.ima.matching.ImaBlacklistRecordMatcher;
+import hirs.ima.matching.ImaRecordMatcher;
 import hirs.persist.BaselineManager;
 import hirs.persist.DBBaselineManager;
 
@@ -12,6 +14,7 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -704,6 +707,52 @@ public class ImaBlacklistBaselineTest extends SpringPersistenceTest {
         );
     }
 
+    /**
+     * Tests that a batch large enough to be matched in parallel, one shard per filename bucket,
+     * gives the same results as matching the records one at a time, including matches of
+     * blacklist records without a path whose hashes are found in every bucket.
+     */
+    @Test
+    public void testContainsPartitionedBatch() {
+        ImaBlacklistBaseline baseline = new ImaBlacklistBaseline(TEST_NAME);
+        ImaBlacklistRecord pathRecord = new ImaBlacklistRecord("/usr/bin/evil");
+        ImaBlacklistRecord hashRecord =
+                new ImaBlacklistRecord(SimpleImaBaselineTest.getDigest(String.format("%040x", 1)));
+        baseline.addToBaseline(pathRecord);
+        baseline.addToBaseline(hashRecord);
+
+        List<IMAMeasurementRecord> measurementRecords = new ArrayList<>();
+        for (int i = 0; i < ImaRecordMatcher.PARTITIONED_MATCH_THRESHOLD; i++) {
+            measurementRecords.add(new IMAMeasurementRecord(
+                    "/usr/bin/file" + i,
+                    SimpleImaBaselineTest.getDigest(String.format("%040x", i % SEVEN))
+            ));
+        }
+        measurementRecords.add(new IMAMeasurementRecord(
+                "/bin/evil", SimpleImaBaselineTest.getDigest(String.format("%040x", 0))
+        ));
+
+        BatchImaMatchStatus<ImaBlacklistRecord> matches = baseline.contains(
+                measurementRecords, null, policyDisabledPartialPath
+        );
+        ImaBlacklistRecordMatcher matcher = new ImaBlacklistRecordMatcher(
+                baseline.getRecords(), policyDisabledPartialPath, baseline
+        );
+        int matchCount = 0;
+        for (IMAMeasurementRecord measurementRecord : measurementRecords) {
+            IMAMatchStatus<ImaBlacklistRecord> expected = matcher.contains(measurementRecord);
+            Assert.assertEquals(
+                    matches.getIMAMatchStatuses(measurementRecord),
+                    Collections.singleton(expected)
+            );
+            if (expected.getStatus() == ReportMatchStatus.MATCH) {
+                matchCount++;
+            }
+        }
+        Assert.assertEquals(matchCount,
+                ImaRecordMatcher.PARTITIONED_MATCH_THRESHOLD / SEVEN + 2);
+    }
+
     private void assertFoundNoMatch(
             final BatchImaMatchStatus<ImaBlacklistRecord> matches,
             final IMAMeasurementRecord measurementRecord,
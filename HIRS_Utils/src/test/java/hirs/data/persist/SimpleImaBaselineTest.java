@@ -221,6 +221,47 @@ public class SimpleImaBaselineTest extends SpringPersistenceTest {
         );
     }
 
+    /**
+     * Tests that the records added to and removed from a baseline are seen by subsequent calls
+     * to contains with the same policy.
+     */
+    @Test
+    public final void containsAfterUpdatingBaseline() {
+        final SimpleImaBaseline baseline = new SimpleImaBaseline("TestBaseline");
+        final IMAPolicy imaPolicy = getTestImaPolicy(false);
+        final String binGradle = "/usr/bin/gradle";
+        final Digest binGradleHash = getDigest("33333c2f7f3003d2e4baddc46ed4763a49543333");
+        final IMABaselineRecord baselineRecord = new IMABaselineRecord(binGradle, binGradleHash);
+        IMAMeasurementRecord measurementRecord =
+                new IMAMeasurementRecord(binGradle, binGradleHash);
+
+        Assert.assertEquals(
+                baselineContains(baseline, measurementRecord, imaPolicy),
+                new IMAMatchStatus<>(measurementRecord, ReportMatchStatus.UNKNOWN, baseline)
+        );
+
+        baseline.addToBaseline(baselineRecord);
+        Assert.assertEquals(
+                baselineContains(baseline, measurementRecord, imaPolicy),
+                new IMAMatchStatus<>(
+                        measurementRecord, ReportMatchStatus.MATCH, baselineRecord, baseline
+                )
+        );
+        Assert.assertEquals(
+                baselineContainsHashes(baseline, measurementRecord, imaPolicy)
+                        .getIMAMatchStatuses(measurementRecord).iterator().next(),
+                new IMAMatchStatus<>(
+                        measurementRecord, ReportMatchStatus.MATCH, baselineRecord, baseline
+                )
+        );
+
+        baseline.removeFromBaseline(baselineRecord);
+        Assert.assertEquals(
+                baselineContains(baseline, measurementRecord, imaPolicy),
+                new IMAMatchStatus<>(measurementRecord, ReportMatchStatus.UNKNOWN, baseline)
+        );
+    }
+
     private IMAMatchStatus<IMABaselineRecord> baselineContains(
             final SimpleImaBaseline baseline,
             final IMAMeasurementRecord record,
@@ -0,0 +1,59 @@
+package hirs.data.persist;
+
+import hirs.tpm.eventlog.TCGEventLog;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link SupportReferenceManifest}.
+ */
+public class SupportReferenceManifestTest {
+
+    private static final String DEFAULT_EVENT_LOG = "/tcgeventlog/TpmLog.bin";
+
+    /**
+     * Tests that the expected PCR values are calculated when the support RIM is created, and
+     * are kept with it afterwards.
+     *
+     * @throws Exception if the event log cannot be read
+     */
+    @Test
+    public void testExpectedPcrValuesKept() throws Exception {
+        byte[] rimBytes = read(DEFAULT_EVENT_LOG);
+        String[] expected = new TCGEventLog(rimBytes).getExpectedPCRValues();
+
+        SupportReferenceManifest supportRim =
+                new SupportReferenceManifest("TpmLog.rimel", rimBytes);
+        Assert.assertEquals(supportRim.getPcrHash(), Arrays.hashCode(expected));
+
+        // the persisted values are used rather than the event log
+        Field rimBytesField = ReferenceManifest.class.getDeclaredField("rimBytes");
+        rimBytesField.setAccessible(true);
+        rimBytesField.set(supportRim, new byte[0]);
+        Assert.assertEquals(supportRim.getExpectedPCRList(), expected);
+    }
+
+    /**
+     * Tests that no PCR values are expected from a support RIM without a valid event log.
+     *
+     * @throws Exception if the support RIM cannot be created
+     */
+    @Test
+    public void testInvalidEventLog() throws Exception {
+        SupportReferenceManifest supportRim =
+                new SupportReferenceManifest("invalid.rimel", new byte[] {1, 2, 2, 1});
+        Assert.assertEquals(supportRim.getExpectedPCRList().length, 0);
+    }
+
+    private byte[] read(final String path) throws IOException {
+        try (InputStream log = getClass().getResourceAsStream(path)) {
+            return IOUtils.toByteArray(log);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Calendar;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 
 import static org.testng.Assert.fail;
@@ -751,6 +752,39 @@ public class PlatformCredentialTest {
 
     }
 
+    /**
+     * Tests that the attributes are only parsed once, and that every getter returns the same
+     * parsed objects.
+     *
+     * @throws IOException if an IO error occurs during processing
+     * @throws URISyntaxException if there is a problem constructing the cert's URI
+     */
+    @Test
+    public final void testAttributesParsedOnce() throws IOException, URISyntaxException {
+        URL resource = this.getClass().getResource(TEST_PLATFORM_CERT2_3);
+        Path certPath = Paths.get(resource.toURI());
+
+        PlatformCredential platformCert = new PlatformCredential(certPath);
+        Map<String, Object> attributes = platformCert.getAllAttributes();
+
+        Assert.assertSame(platformCert.getAllAttributes(), attributes);
+        Assert.assertSame(platformCert.getPlatformConfiguration(),
+                attributes.get("platformConfiguration"));
+        Assert.assertSame(platformCert.getTBBSecurityAssertion(),
+                attributes.get("tbbSecurityAssertion"));
+        Assert.assertNotNull(platformCert.getTBBSecurityAssertion());
+        Assert.assertFalse(platformCert.getComponentIdentifiers().isEmpty());
+        Assert.assertSame(platformCert.getComponentIdentifiers().get(0),
+                platformCert.getPlatformConfiguration().getComponentIdentifier().get(0));
+
+        try {
+            attributes.clear();
+            fail("The attributes should not be modifiable.");
+        } catch (UnsupportedOperationException e) {
+            Assert.assertFalse(platformCert.getAllAttributes().isEmpty());
+        }
+    }
+
     /**
      * Tests Platform Configuration Values. View platform Properties
      *
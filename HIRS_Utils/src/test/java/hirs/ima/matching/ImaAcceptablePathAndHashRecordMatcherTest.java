@@ -11,9 +11,14 @@ import hirs.data.persist.SimpleImaBaselineTest;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Tests ImaAcceptablePathAndHashRecordMatcher.  These are very basic tests of its functionality;
@@ -206,6 +211,171 @@ public class ImaAcceptablePathAndHashRecordMatcherTest {
         );
     }
 
+    /**
+     * Tests that a record is matched by a baseline record at an equivalent path, and not by one
+     * at a path that is only equivalent through another equivalent directory.
+     */
+    @Test
+    public void testContainsEquivalentPath() {
+        SimpleImaBaseline baseline = getTestSimpleImaBaseline();
+        IMABaselineRecord baselineRecord = new IMABaselineRecord(FILE_1, HASH_1);
+        ImaAcceptablePathAndHashRecordMatcher matcher = new ImaAcceptablePathAndHashRecordMatcher(
+                Collections.singletonList(baselineRecord),
+                SimpleImaBaselineTest.getTestImaPolicy(false),
+                baseline);
+
+        IMAMeasurementRecord usrBinRecord = new IMAMeasurementRecord("/usr/bin/ls", HASH_1);
+        Assert.assertEquals(
+                matcher.contains(usrBinRecord),
+                new IMAMatchStatus<>(
+                        usrBinRecord, ReportMatchStatus.MATCH, baselineRecord, baseline
+                )
+        );
+
+        IMAMeasurementRecord usrSbinRecord = new IMAMeasurementRecord("/usr/sbin/ls", HASH_1);
+        Assert.assertEquals(
+                matcher.contains(usrSbinRecord),
+                new IMAMatchStatus<>(usrSbinRecord, ReportMatchStatus.UNKNOWN, baseline)
+        );
+    }
+
+    /**
+     * Tests that the matching paths of a path are the path, the paths at each equivalent
+     * directory, and the file name when partial paths are enabled.
+     */
+    @Test
+    public void testGetMatchingPaths() {
+        Assert.assertEquals(
+                ImaRecordMatcher.getMatchingPaths(
+                        SimpleImaBaselineTest.getTestImaPolicy(true), "/usr/bin/ls"),
+                new HashSet<>(Arrays.asList("/usr/bin/ls", "/bin/ls", "/usr/sbin/ls", "ls"))
+        );
+        Assert.assertEquals(
+                ImaRecordMatcher.getMatchingPaths(
+                        SimpleImaBaselineTest.getTestImaPolicy(false), "/opt/ls"),
+                Collections.singleton("/opt/ls")
+        );
+    }
+
+    /**
+     * Tests that a matcher is only reusable for policies with the same matching settings.
+     */
+    @Test
+    public void testIsCompiledFor() {
+        ImaAcceptablePathAndHashRecordMatcher matcher = new ImaAcceptablePathAndHashRecordMatcher(
+                Collections.<IMABaselineRecord>emptyList(),
+                SimpleImaBaselineTest.getTestImaPolicy(false),
+                getTestSimpleImaBaseline());
+        Assert.assertTrue(matcher.isCompiledFor(SimpleImaBaselineTest.getTestImaPolicy(false)));
+        Assert.assertFalse(matcher.isCompiledFor(SimpleImaBaselineTest.getTestImaPolicy(true)));
+        Assert.assertFalse(matcher.isCompiledFor(null));
+    }
+
+    /**
+     * Tests that matching a batch of records in parallel, one shard per filename bucket, gives the
+     * same results as matching the records one at a time.
+     */
+    @Test
+    public void testBatchMatchPartitioned() {
+        SimpleImaBaseline baseline = getTestSimpleImaBaseline();
+        List<IMABaselineRecord> baselineRecords = new ArrayList<>();
+        List<IMAMeasurementRecord> measurementRecords = new ArrayList<>();
+        final int fileCount = 100;
+        for (int i = 0; i < fileCount; i++) {
+            baselineRecords.add(new IMABaselineRecord("/bin/file" + i, HASH_1));
+            measurementRecords.add(new IMAMeasurementRecord("/usr/bin/file" + i, HASH_1));
+            measurementRecords.add(new IMAMeasurementRecord("/bin/file" + i, ONES));
+            measurementRecords.add(new IMAMeasurementRecord("/opt/file" + i, HASH_1));
+            measurementRecords.add(new IMAMeasurementRecord("file" + i, HASH_1));
+        }
+
+        ImaAcceptablePathAndHashRecordMatcher matcher = new ImaAcceptablePathAndHashRecordMatcher(
+                baselineRecords, SimpleImaBaselineTest.getTestImaPolicy(true), baseline);
+        ForkJoinPool pool = new ForkJoinPool(IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+        try {
+            BatchImaMatchStatus<IMABaselineRecord> batchMatchStatus =
+                    matcher.batchMatch(measurementRecords, pool);
+            Assert.assertEquals(batchMatchStatus.getAppraisedMeasurementRecords().size(),
+                    measurementRecords.size());
+            for (IMAMeasurementRecord measurementRecord : measurementRecords) {
+                Assert.assertEquals(
+                        batchMatchStatus.getIMAMatchStatuses(measurementRecord),
+                        Collections.singleton(matcher.contains(measurementRecord))
+                );
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that batches of at least the partitioned match threshold are matched on the pool set
+     * for IMA matching, and smaller batches on the calling thread.
+     */
+    @Test
+    public void testBatchMatchOnMatchPool() {
+        SimpleImaBaseline baseline = getTestSimpleImaBaseline();
+        List<IMAMeasurementRecord> measurementRecords = new ArrayList<>();
+        for (int i = 0; i < ImaRecordMatcher.PARTITIONED_MATCH_THRESHOLD; i++) {
+            measurementRecords.add(new IMAMeasurementRecord("/bin/file" + i, HASH_1));
+        }
+        ImaAcceptablePathAndHashRecordMatcher matcher = new ImaAcceptablePathAndHashRecordMatcher(
+                Collections.singletonList(new IMABaselineRecord("/bin/file0", HASH_1)),
+                SimpleImaBaselineTest.getTestImaPolicy(false), baseline);
+
+        final AtomicInteger threads = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(2, forkJoinPool -> {
+            threads.incrementAndGet();
+            return new ForkJoinWorkerThread(forkJoinPool) { };
+        }, null, false);
+        ImaRecordMatcher.setMatchPool(pool);
+        try {
+            matcher.batchMatch(measurementRecords.subList(0, 1));
+            Assert.assertEquals(threads.get(), 0);
+
+            BatchImaMatchStatus<IMABaselineRecord> batchMatchStatus =
+                    matcher.batchMatch(measurementRecords);
+            Assert.assertTrue(threads.get() > 0);
+            Assert.assertEquals(batchMatchStatus.getAppraisedMeasurementRecords().size(),
+                    measurementRecords.size());
+        } finally {
+            ImaRecordMatcher.setMatchPool(null);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that the match statuses of a batch keep their own baseline records, although the
+     * records are collected in the same buffers for every measurement record of the batch.
+     */
+    @Test
+    public void testBatchMatchReusesBuffers() {
+        SimpleImaBaseline baseline = getTestSimpleImaBaseline();
+        List<IMABaselineRecord> baselineRecords = Arrays.asList(
+                new IMABaselineRecord(FILE_1, HASH_1),
+                new IMABaselineRecord(USR_LIB64_LD_FILE, USR_LIB64_LD_HASH),
+                new IMABaselineRecord(LIB64_LD_FILE, LIB64_LD_HASH));
+        List<IMAMeasurementRecord> measurementRecords = Arrays.asList(
+                new IMAMeasurementRecord(FILE_1, HASH_1),
+                new IMAMeasurementRecord(USR_LIB64_LD_FILE, ONES),
+                new IMAMeasurementRecord(LIB64_LD_FILE, LIB64_LD_HASH),
+                new IMAMeasurementRecord("/opt/unknown", HASH_1));
+
+        ImaAcceptablePathAndHashRecordMatcher matcher = new ImaAcceptablePathAndHashRecordMatcher(
+                baselineRecords, SimpleImaBaselineTest.getTestImaPolicy(false), baseline);
+        BatchImaMatchStatus<IMABaselineRecord> batchMatchStatus =
+                matcher.batchMatch(measurementRecords);
+        for (IMAMeasurementRecord measurementRecord : measurementRecords) {
+            Assert.assertEquals(
+                    batchMatchStatus.getIMAMatchStatuses(measurementRecord),
+                    Collections.singleton(matcher.contains(measurementRecord))
+            );
+        }
+        Assert.assertEquals(batchMatchStatus.getIMAMatchStatuses(measurementRecords.get(0))
+                .iterator().next().getBaselineRecords(),
+                Collections.singleton(baselineRecords.get(0)));
+    }
+
     private static SimpleImaBaseline getTestSimpleImaBaseline() {
         return new SimpleImaBaseline("Test IMA Baseline");
     }
@@ -44,6 +44,8 @@ import static hirs.data.persist.certificate.CertificateTest.ISSUED_CLIENT_CERT;
  */
 public class DBCertificateManagerTest extends SpringPersistenceTest {
     private static final Logger LOGGER = LogManager.getLogger(DBCertificateManagerTest.class);
+    private static final String PLATFORM_CERT_WITH_SERIAL =
+            "/validation/platform_credentials/Intel_pc4.pem";
 
     private Certificate rootCert;
     private Certificate intelIntermediateCert;
@@ -232,6 +234,43 @@ public class DBCertificateManagerTest extends SpringPersistenceTest {
 
     }
 
+    /**
+     * Tests that the raw bytes of stored Certificates are read a row at a time, by type, with
+     * their ids and hashes.
+     * @throws IOException if there is a problem creating the certificate
+     */
+    @Test
+    public void testGetRawBytes() throws IOException {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        saveTestCertsToDb(certMan);
+
+        Certificate caCert = testCertificates.get(CertificateAuthorityCredential.class);
+        try (RawBytesIterator<Integer> rawBytes =
+                     CertificateAuthorityCredential.select(certMan).getRawBytes()) {
+            Assert.assertTrue(rawBytes.hasNext());
+            RawBytesIterator.Entry<Integer> entry = rawBytes.next();
+            Assert.assertEquals(entry.getId(), caCert.getId());
+            Assert.assertEquals(entry.getKey().intValue(), caCert.getCertificateHash());
+            Assert.assertEquals(entry.getRawBytes(), caCert.getRawBytes());
+            Assert.assertFalse(rawBytes.hasNext());
+        }
+
+        Set<UUID> platformIds = new HashSet<>();
+        try (RawBytesIterator<Integer> rawBytes =
+                     PlatformCredential.select(certMan).getRawBytes()) {
+            while (rawBytes.hasNext()) {
+                platformIds.add(rawBytes.next().getId());
+            }
+        }
+        Assert.assertEquals(platformIds, Collections.singleton(
+                testCertificates.get(PlatformCredential.class).getId()));
+
+        try (RawBytesIterator<Integer> rawBytes = CertificateAuthorityCredential.select(certMan)
+                .bySubject("CN=Nobody").getRawBytes()) {
+            Assert.assertFalse(rawBytes.hasNext());
+        }
+    }
+
     private void saveTestCertsToDb(final CertificateManager certMan) {
         saveTestCertsToDb(certMan, false);
     }
@@ -486,6 +525,44 @@ public class DBCertificateManagerTest extends SpringPersistenceTest {
     }
 
 
+    /**
+     * Tests that Platform Credentials can be retrieved by any of several device ids or platform
+     * serials.
+     * @throws IOException if there is a problem creating the certificate
+     * @throws CertificateException if there is a problem deserializing the original X509Certificate
+     */
+    @Test
+    public void testGetPlatformByDeviceIdsAndSerials() throws IOException, CertificateException {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        DeviceManager deviceManager = new DBDeviceManager(sessionFactory);
+        DeviceGroupManager deviceGroupManager = new DBDeviceGroupManager(sessionFactory);
+
+        Device device = new Device("test_device");
+        DeviceGroup savedDg = deviceGroupManager.saveDeviceGroup(new DeviceGroup("Default"));
+        device.setDeviceGroup(savedDg);
+        Device savedDevice = deviceManager.saveDevice(device);
+
+        PlatformCredential platformCert = (PlatformCredential) CertificateTest.getTestCertificate(
+                PlatformCredential.class, PLATFORM_CERT_WITH_SERIAL);
+        platformCert.setDevice(savedDevice);
+        Certificate savedCert = certMan.save(platformCert);
+
+        Set<PlatformCredential> byDeviceIds = PlatformCredential.select(certMan)
+                .byDeviceIds(Arrays.asList(savedDevice.getId(), UUID.randomUUID()))
+                .getCertificates();
+        Assert.assertEquals(byDeviceIds.size(), 1);
+        Assert.assertEquals(byDeviceIds.iterator().next().getId(), savedCert.getId());
+
+        Set<PlatformCredential> bySerials = PlatformCredential.select(certMan)
+                .byBoardSerialNumbers(Arrays.asList(platformCert.getPlatformSerial(), "other"))
+                .getCertificates();
+        Assert.assertEquals(bySerials.size(), 1);
+        Assert.assertEquals(bySerials.iterator().next().getId(), savedCert.getId());
+
+        Assert.assertTrue(PlatformCredential.select(certMan)
+                .byBoardSerialNumbers(Collections.singleton("other")).getCertificates().isEmpty());
+    }
+
     /**
      * Tests that a single Certificate can be retrieved amongst many stored Certificates according
      * to its type and subject.
@@ -880,4 +957,59 @@ public class DBCertificateManagerTest extends SpringPersistenceTest {
                 .getCertificate();
         Assert.assertEquals(retrievedSGICert, sgiIntermediateCert);
     }
+
+    /**
+     * Tests that the certificate authority version changes when a CA credential is saved,
+     * archived, restored or deleted, and only then.
+     */
+    @Test
+    public void testGetCertificateAuthorityVersion() {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        String emptyVersion = certMan.getCertificateAuthorityVersion();
+
+        certMan.save(rootCert);
+        String savedVersion = certMan.getCertificateAuthorityVersion();
+        Assert.assertNotEquals(savedVersion, emptyVersion);
+
+        certMan.save(stmEkCert);
+        Assert.assertEquals(certMan.getCertificateAuthorityVersion(), savedVersion);
+
+        rootCert.archive();
+        certMan.update(rootCert);
+        String archivedVersion = certMan.getCertificateAuthorityVersion();
+        Assert.assertNotEquals(archivedVersion, savedVersion);
+
+        rootCert.restore();
+        certMan.update(rootCert);
+        String restoredVersion = certMan.getCertificateAuthorityVersion();
+        Assert.assertNotEquals(restoredVersion, archivedVersion);
+
+        certMan.delete(rootCert);
+        Assert.assertNotEquals(certMan.getCertificateAuthorityVersion(), restoredVersion);
+    }
+
+    /**
+     * Tests that the certificate authority version tells apart sets of active credentials with
+     * the same number of credentials, archived credentials and creation times.
+     */
+    @Test
+    public void testGetCertificateAuthorityVersionArchiveRestoreArchive() {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        certMan.save(rootCert);
+        certMan.save(intelIntermediateCert);
+
+        rootCert.archive();
+        certMan.update(rootCert);
+        String rootArchivedVersion = certMan.getCertificateAuthorityVersion();
+
+        rootCert.restore();
+        certMan.update(rootCert);
+        intelIntermediateCert.archive();
+        certMan.update(intelIntermediateCert);
+        String intermediateArchivedVersion = certMan.getCertificateAuthorityVersion();
+        Assert.assertNotEquals(intermediateArchivedVersion, rootArchivedVersion);
+
+        Assert.assertEquals(certMan.getCertificateAuthorityVersion(),
+                intermediateArchivedVersion);
+    }
 }
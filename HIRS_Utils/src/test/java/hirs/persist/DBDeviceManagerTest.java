@@ -1,13 +1,17 @@
 package hirs.persist;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+import hirs.FilteredRecordsList;
 import hirs.data.persist.Device;
 import hirs.data.persist.DeviceGroup;
 import hirs.data.persist.DeviceInfoReport;
@@ -17,6 +21,7 @@ import hirs.data.persist.info.NetworkInfo;
 import hirs.data.persist.SpringPersistenceTest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.criterion.Restrictions;
 
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -149,6 +154,185 @@ public final class DBDeviceManagerTest extends SpringPersistenceTest {
         Assert.fail("save did not fail");
     }
 
+    /**
+     * Tests that the <code>DBDeviceManager</code> retrieves several
+     * <code>Device</code>s by name, ignoring names without a device.
+     *
+     * @throws Exception if error occurs while creating test devices
+     */
+    @Test
+    public void testGetDevices() throws Exception {
+        LOGGER.debug("testGetDevices test started");
+        final DeviceManager mgr = new DBDeviceManager(sessionFactory);
+        final DeviceGroup group = createGroup(DeviceGroup.DEFAULT_GROUP);
+        final String[] names = {"Device1", "Device2", "Device3"};
+        for (String name : names) {
+            final Device device = new Device(name);
+            device.setDeviceGroup(group);
+            mgr.saveDevice(device);
+        }
+
+        final List<Device> devices = mgr.getDevices(Arrays.asList(names[0], names[2], "Other"));
+        final Set<String> retrievedNames = new HashSet<>();
+        for (Device device : devices) {
+            retrievedNames.add(device.getName());
+        }
+        Assert.assertEquals(devices.size(), 2);
+        Assert.assertEquals(retrievedNames, new HashSet<>(Arrays.asList(names[0], names[2])));
+        Assert.assertTrue(mgr.getDevices(Collections.<String>emptyList()).isEmpty());
+    }
+
+    /**
+     * Tests that an ordered list continues after the last device of the previous page when
+     * keyset paging is requested, ignoring the offset.
+     *
+     * @throws Exception if error occurs while creating test devices
+     */
+    @Test
+    public void testGetOrderedListKeyset() throws Exception {
+        LOGGER.debug("testGetOrderedListKeyset test started");
+        final DBDeviceManager mgr = new DBDeviceManager(sessionFactory);
+        saveDevices(mgr, "Device1", "Device2", "Device3", "Device4", "Device5");
+        final int pageSize = 2;
+
+        final FilteredRecordsList<Device> firstPage = mgr.getOrderedList(Device.class, "name",
+                true, 0, pageSize, "", null, criteria -> { }, new OrderedListOptions());
+        Assert.assertEquals(getNames(firstPage), Arrays.asList("Device1", "Device2"));
+
+        final OrderedListOptions options = new OrderedListOptions();
+        options.setAfterId(firstPage.get(1).getId());
+        final FilteredRecordsList<Device> secondPage = mgr.getOrderedList(Device.class, "name",
+                true, 0, pageSize, "", null, criteria -> { }, options);
+        Assert.assertEquals(getNames(secondPage), Arrays.asList("Device3", "Device4"));
+        Assert.assertEquals(secondPage.getRecordsTotal(), 5);
+        Assert.assertEquals(secondPage.getRecordsFiltered(), 5);
+
+        options.setAfterId(secondPage.get(0).getId());
+        final FilteredRecordsList<Device> descendingPage = mgr.getOrderedList(Device.class,
+                "name", false, 0, pageSize, "", null, criteria -> { }, options);
+        Assert.assertEquals(getNames(descendingPage), Arrays.asList("Device2", "Device1"));
+
+        // nothing follows the last device
+        options.setAfterId(mgr.getDevice("Device5").getId());
+        Assert.assertTrue(mgr.getOrderedList(Device.class, "name", true, 0, pageSize, "", null,
+                criteria -> { }, options).isEmpty());
+
+        // an unknown device falls back to the offset
+        options.setAfterId(UUID.randomUUID());
+        final FilteredRecordsList<Device> offsetPage = mgr.getOrderedList(Device.class, "name",
+                true, pageSize, pageSize, "", null, criteria -> { }, options);
+        Assert.assertEquals(getNames(offsetPage), Arrays.asList("Device3", "Device4"));
+    }
+
+    /**
+     * Tests that keyset paging continues across devices with a null ordered column, which
+     * HSQLDB sorts first in either order.
+     *
+     * @throws Exception if error occurs while creating test devices
+     */
+    @Test
+    public void testGetOrderedListKeysetNulls() throws Exception {
+        LOGGER.debug("testGetOrderedListKeysetNulls test started");
+        final DBDeviceManager mgr = new DBDeviceManager(sessionFactory);
+        saveDevices(mgr, "Null1", "Null2", "SummaryA", "SummaryB");
+        for (String name : new String[] {"SummaryA", "SummaryB"}) {
+            final Device device = mgr.getDevice(name);
+            device.setSummaryId(name.substring(name.length() - 1));
+            mgr.updateDevice(device);
+        }
+        final int pageSize = 10;
+        final OrderedListOptions options = new OrderedListOptions();
+
+        options.setAfterId(mgr.getDevice("SummaryA").getId());
+        Assert.assertEquals(getNames(mgr.getOrderedList(Device.class, "summaryId", true, 0,
+                pageSize, "", null, criteria -> { }, options)),
+                Collections.singletonList("SummaryB"));
+        options.setAfterId(mgr.getDevice("SummaryB").getId());
+        Assert.assertEquals(getNames(mgr.getOrderedList(Device.class, "summaryId", false, 0,
+                pageSize, "", null, criteria -> { }, options)),
+                Collections.singletonList("SummaryA"));
+
+        // of the two devices without a summary, exactly one follows the other
+        int nullsFollowing = 0;
+        for (boolean ascending : new boolean[] {true, false}) {
+            List<String> expectedValues = Arrays.asList("SummaryA", "SummaryB");
+            if (!ascending) {
+                expectedValues = Arrays.asList("SummaryB", "SummaryA");
+            }
+            for (String name : new String[] {"Null1", "Null2"}) {
+                options.setAfterId(mgr.getDevice(name).getId());
+                final List<String> page = getNames(mgr.getOrderedList(Device.class,
+                        "summaryId", ascending, 0, pageSize, "", null, criteria -> { },
+                        options));
+                Assert.assertFalse(page.contains(name));
+                Assert.assertEquals(page.subList(page.size() - 2, page.size()),
+                        expectedValues);
+                nullsFollowing += page.size() - 2;
+            }
+        }
+        Assert.assertEquals(nullsFollowing, 2);
+    }
+
+    /**
+     * Tests that record counts are reused only when stale counts are allowed.
+     *
+     * @throws Exception if error occurs while creating test devices
+     */
+    @Test
+    public void testGetOrderedListCachedCount() throws Exception {
+        LOGGER.debug("testGetOrderedListCachedCount test started");
+        final DBDeviceManager mgr = new DBDeviceManager(sessionFactory);
+        saveDevices(mgr, "Device1", "Device2");
+        final OrderedListOptions options = new OrderedListOptions();
+        options.setCountStalenessSeconds((int) TimeUnit.HOURS.toSeconds(1));
+
+        Assert.assertEquals(mgr.getOrderedList(Device.class, "name", true, 0, 1, "", null,
+                criteria -> { }, options).getRecordsTotal(), 2);
+        saveDevices(mgr, "Device3");
+        Assert.assertEquals(mgr.getOrderedList(Device.class, "name", true, 0, 1, "", null,
+                criteria -> { }, options).getRecordsTotal(), 2);
+        Assert.assertEquals(mgr.getOrderedList(Device.class, "name", true, 0, 1, "", null,
+                criteria -> { }, new OrderedListOptions()).getRecordsTotal(), 3);
+
+        // counts of queries whose modifier depends on other values are not reused
+        options.setModifierInputs("Device1");
+        Assert.assertEquals(mgr.getOrderedList(Device.class, "name", true, 0, 1, "", null,
+                criteria -> criteria.add(Restrictions.eq("name", "Device1")), options)
+                .getRecordsTotal(), 1);
+        options.setModifierInputs("Device2");
+        Assert.assertEquals(mgr.getOrderedList(Device.class, "name", true, 0, 1, "", null,
+                criteria -> criteria.add(Restrictions.ne("name", "Device1")), options)
+                .getRecordsTotal(), 2);
+    }
+
+    /**
+     * Tests that a prefix search only matches the start of a column.
+     *
+     * @throws Exception if error occurs while creating test devices
+     */
+    @Test
+    public void testGetOrderedListPrefixSearch() throws Exception {
+        LOGGER.debug("testGetOrderedListPrefixSearch test started");
+        final DBDeviceManager mgr = new DBDeviceManager(sessionFactory);
+        saveDevices(mgr, "alpha-device", "beta-alpha-device", "gamma-device");
+        final Map<String, Boolean> searchableColumns = Collections.singletonMap("name", true);
+        final int pageSize = 10;
+
+        final FilteredRecordsList<Device> anywhere = mgr.getOrderedList(Device.class, "name",
+                true, 0, pageSize, "alpha", searchableColumns, criteria -> { },
+                new OrderedListOptions());
+        Assert.assertEquals(getNames(anywhere), Arrays.asList("alpha-device",
+                "beta-alpha-device"));
+
+        final OrderedListOptions options = new OrderedListOptions();
+        options.setPrefixSearch(true);
+        final FilteredRecordsList<Device> prefix = mgr.getOrderedList(Device.class, "name",
+                true, 0, pageSize, "alpha", searchableColumns, criteria -> { }, options);
+        Assert.assertEquals(getNames(prefix), Collections.singletonList("alpha-device"));
+        Assert.assertEquals(prefix.getRecordsTotal(), 3);
+        Assert.assertEquals(prefix.getRecordsFiltered(), 1);
+    }
+
     /**
      * Tests that when a <code>Device</code> is deleted, the
      * <code>Device</code> is removed from the DB.
@@ -425,6 +609,28 @@ public final class DBDeviceManagerTest extends SpringPersistenceTest {
         Assert.assertEquals(devices, devicesList);
     }
 
+    private void saveDevices(final DeviceManager mgr, final String... names)
+            throws Exception {
+        final DeviceGroupManager groupManager = new DBDeviceGroupManager(sessionFactory);
+        DeviceGroup group = groupManager.getDeviceGroup(DeviceGroup.DEFAULT_GROUP);
+        if (group == null) {
+            group = createGroup(DeviceGroup.DEFAULT_GROUP);
+        }
+        for (String name : names) {
+            final Device device = new Device(name);
+            device.setDeviceGroup(group);
+            mgr.saveDevice(device);
+        }
+    }
+
+    private static List<String> getNames(final List<Device> devices) {
+        final List<String> names = new LinkedList<>();
+        for (Device device : devices) {
+            names.add(device.getName());
+        }
+        return names;
+    }
+
     private DeviceGroup createGroup(final String name) throws Exception {
         DeviceGroup group = new DeviceGroup(name);
         final DeviceGroupManager groupManager = new DBDeviceGroupManager(sessionFactory);
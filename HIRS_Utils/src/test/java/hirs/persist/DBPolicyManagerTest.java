@@ -639,6 +639,37 @@ public final class DBPolicyManagerTest extends SpringPersistenceTest {
         Assert.assertEquals(defaultPolicy, policy);
     }
 
+    /**
+     * Tests that default policies are cached until they are changed through the same manager,
+     * and are not cached when the cache time is 0.
+     *
+     * @throws Exception
+     *      occurs if device/deviceGroup could not be persisted
+     */
+    @Test
+    public void testGetDefaultPolicyCached() throws Exception {
+        TestPolicy policy = new TestPolicy(POLICY_NAME);
+        final PolicyManager mgr = new DBPolicyManager(sessionFactory);
+        final PolicyManager otherMgr = new DBPolicyManager(sessionFactory);
+        final PolicyManager uncachedMgr = new DBPolicyManager(sessionFactory, 0);
+        policy = (TestPolicy) mgr.savePolicy(policy);
+        TestPolicy2 policy2 = (TestPolicy2) mgr.savePolicy(new TestPolicy2("Other Policy"));
+        createDeviceGroupWithDevice(DeviceGroup.DEFAULT_GROUP, "Test Device");
+        mgr.setDefaultPolicy(appraiser, policy);
+        Assert.assertEquals(mgr.getDefaultPolicy(appraiser), policy);
+
+        // a change made through another manager is not seen until the cached policy expires
+        otherMgr.setDefaultPolicy(appraiser, policy2);
+        Assert.assertEquals(mgr.getDefaultPolicy(appraiser), policy);
+        Assert.assertEquals(uncachedMgr.getDefaultPolicy(appraiser), policy2);
+
+        // a change made through the manager is seen immediately
+        mgr.setDefaultPolicy(appraiser, null);
+        Assert.assertNull(mgr.getDefaultPolicy(appraiser));
+        mgr.setDefaultPolicy(appraiser, policy2);
+        Assert.assertEquals(mgr.getDefaultPolicy(appraiser), policy2);
+    }
+
     /**
      * Tests that default policy can be removed for an appraiser.
      *
@@ -0,0 +1,78 @@
+package hirs.persist;
+
+import hirs.data.persist.ReferenceDigestValue;
+import hirs.data.persist.SpringPersistenceTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tests for the {@link DBReferenceEventManager}.
+ */
+public class DBReferenceEventManagerTest extends SpringPersistenceTest {
+
+    private static final String MANUFACTURER = "manufacturer";
+    private static final String MODEL = "model";
+    private static final String EVENT_TYPE = "EV_POST_CODE";
+    private static final int VALUE_COUNT = 120;
+
+    /**
+     * Cleans up the DB after each test.
+     */
+    @AfterMethod
+    public final void afterMethod() {
+        DBUtility.removeAllInstances(sessionFactory, ReferenceDigestValue.class);
+    }
+
+    /**
+     * Tests that values saved in bulk, over more than one JDBC batch, are assigned ids and
+     * stored.
+     */
+    @Test
+    public final void testSaveValues() {
+        ReferenceEventManager manager = new DBReferenceEventManager(sessionFactory);
+        UUID baseRimId = UUID.randomUUID();
+        UUID supportRimId = UUID.randomUUID();
+        List<ReferenceDigestValue> values = new ArrayList<>();
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values.add(new ReferenceDigestValue(baseRimId, supportRimId, MANUFACTURER, MODEL,
+                    i, String.format("%040x", i), EVENT_TYPE, false, false, true,
+                    new byte[] {(byte) i}));
+        }
+
+        manager.saveValues(values);
+
+        Set<UUID> ids = new HashSet<>();
+        for (ReferenceDigestValue value : values) {
+            Assert.assertNotNull(value.getId());
+            ids.add(value.getId());
+        }
+        Assert.assertEquals(ids.size(), VALUE_COUNT);
+
+        List<ReferenceDigestValue> stored =
+                manager.getValueByManufacturerModel(MANUFACTURER, MODEL);
+        Assert.assertEquals(stored.size(), VALUE_COUNT);
+        for (ReferenceDigestValue value : stored) {
+            Assert.assertTrue(ids.contains(value.getId()));
+            Assert.assertEquals(value.getBaseRimId(), baseRimId);
+            Assert.assertEquals(value.getSupportRimId(), supportRimId);
+        }
+    }
+
+    /**
+     * Tests that saving no values is a no-op.
+     */
+    @Test
+    public final void testSaveNoValues() {
+        ReferenceEventManager manager = new DBReferenceEventManager(sessionFactory);
+        manager.saveValues(Collections.<ReferenceDigestValue>emptyList());
+        Assert.assertTrue(manager.getEventList().isEmpty());
+    }
+}
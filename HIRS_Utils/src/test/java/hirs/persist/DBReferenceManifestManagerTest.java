@@ -0,0 +1,107 @@
+package hirs.persist;
+
+import hirs.data.persist.ReferenceManifest;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.SupportReferenceManifest;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Tests for the {@link DBReferenceManifestManager}.
+ */
+public class DBReferenceManifestManagerTest extends SpringPersistenceTest {
+
+    private static final String FILE_NAME_1 = "first.rimel";
+    private static final String FILE_NAME_2 = "second.rimel";
+
+    static {
+        declareMediumBlob();
+    }
+
+    /**
+     * The RIM bytes are mapped to the MySQL mediumblob column type, which HSQLDB does not know.
+     * Declares it in the in-memory test database before the schema is exported; the type
+     * outlives the tables, so it is only created once per JVM.
+     */
+    private static void declareMediumBlob() {
+        Properties properties = new Properties();
+        try (InputStream in = DBReferenceManifestManagerTest.class
+                .getResourceAsStream("/persistence.properties")) {
+            properties.load(in);
+            try (Connection connection = DriverManager.getConnection(
+                    properties.getProperty("persistence.db.url"),
+                    properties.getProperty("persistence.db.username"),
+                    properties.getProperty("persistence.db.password"));
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TYPE MEDIUMBLOB AS BLOB(16M)");
+            }
+        } catch (SQLException e) {
+            // the type was already declared by an earlier run in this JVM
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to read the test persistence properties", e);
+        }
+    }
+
+    /**
+     * Cleans up the DB after each test.
+     */
+    @AfterMethod
+    public final void afterMethod() {
+        DBUtility.removeAllInstances(sessionFactory, ReferenceManifest.class);
+    }
+
+    /**
+     * Tests that the raw bytes of stored RIMs are read a row at a time, by selector, with their
+     * ids and file names.
+     *
+     * @throws IOException if a support RIM cannot be created
+     */
+    @Test
+    public final void testGetRimBytes() throws IOException {
+        ReferenceManifestManager rimMan = new DBReferenceManifestManager(sessionFactory);
+        ReferenceManifest first = rimMan.save(
+                new SupportReferenceManifest(FILE_NAME_1, new byte[] {1, 2, 3}));
+        ReferenceManifest second = rimMan.save(
+                new SupportReferenceManifest(FILE_NAME_2, new byte[] {4, 5}));
+
+        Map<UUID, RawBytesIterator.Entry<String>> entries = new HashMap<>();
+        try (RawBytesIterator<String> rimBytes =
+                     SupportReferenceManifest.select(rimMan).getRimBytes()) {
+            while (rimBytes.hasNext()) {
+                RawBytesIterator.Entry<String> entry = rimBytes.next();
+                entries.put(entry.getId(), entry);
+            }
+        }
+        Assert.assertEquals(entries.size(), 2);
+        for (ReferenceManifest rim : new ReferenceManifest[] {first, second}) {
+            RawBytesIterator.Entry<String> entry = entries.get(rim.getId());
+            Assert.assertNotNull(entry);
+            Assert.assertEquals(entry.getKey(), rim.getFileName());
+            Assert.assertEquals(entry.getRawBytes(), rim.getRimBytes());
+        }
+
+        try (RawBytesIterator<String> rimBytes = SupportReferenceManifest.select(rimMan)
+                .byFileName(FILE_NAME_2).getRimBytes()) {
+            Assert.assertTrue(rimBytes.hasNext());
+            Assert.assertEquals(rimBytes.next().getId(), second.getId());
+            Assert.assertFalse(rimBytes.hasNext());
+        }
+
+        try (RawBytesIterator<String> rimBytes = SupportReferenceManifest.select(rimMan)
+                .byFileName("missing.rimel").getRimBytes()) {
+            Assert.assertFalse(rimBytes.hasNext());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package hirs.repository;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Conformance tests for {@link RPMVersionComparator}, using the comparisons that RPM's own test
+ * suite checks rpmvercmp against.
+ */
+public class RPMVersionComparatorTest {
+
+    /**
+     * Provides pairs of versions and the result of comparing them.
+     *
+     * @return the first version, the second version and the expected result
+     */
+    @DataProvider(name = "vercmp")
+    public Object[][] getVercmpVectors() {
+        return new Object[][] {
+                {"1.0", "1.0", 0},
+                {"1.0", "2.0", -1},
+                {"2.0", "1.0", 1},
+                {"2.0.1", "2.0.1", 0},
+                {"2.0", "2.0.1", -1},
+                {"2.0.1", "2.0", 1},
+                {"2.0.1a", "2.0.1a", 0},
+                {"2.0.1a", "2.0.1", 1},
+                {"2.0.1", "2.0.1a", -1},
+                {"5.5p1", "5.5p1", 0},
+                {"5.5p1", "5.5p2", -1},
+                {"5.5p2", "5.5p1", 1},
+                {"5.5p10", "5.5p10", 0},
+                {"5.5p1", "5.5p10", -1},
+                {"5.5p10", "5.5p1", 1},
+                {"10xyz", "10.1xyz", -1},
+                {"10.1xyz", "10xyz", 1},
+                {"xyz10", "xyz10", 0},
+                {"xyz10", "xyz10.1", -1},
+                {"xyz10.1", "xyz10", 1},
+                {"xyz.4", "xyz.4", 0},
+                {"xyz.4", "8", -1},
+                {"8", "xyz.4", 1},
+                {"xyz.4", "2", -1},
+                {"2", "xyz.4", 1},
+                {"5.5p2", "5.6p1", -1},
+                {"5.6p1", "5.5p2", 1},
+                {"5.6p1", "6.5p1", -1},
+                {"6.5p1", "5.6p1", 1},
+                {"6.0.rc1", "6.0", 1},
+                {"6.0", "6.0.rc1", -1},
+                {"10b2", "10a1", 1},
+                {"10a2", "10b2", -1},
+                {"1.0aa", "1.0aa", 0},
+                {"1.0a", "1.0aa", -1},
+                {"1.0aa", "1.0a", 1},
+                {"10.0001", "10.0001", 0},
+                {"10.0001", "10.1", 0},
+                {"10.1", "10.0001", 0},
+                {"10.0001", "10.0039", -1},
+                {"10.0039", "10.0001", 1},
+                {"4.999.9", "5.0", -1},
+                {"5.0", "4.999.9", 1},
+                {"20101121", "20101121", 0},
+                {"20101121", "20101122", -1},
+                {"20101122", "20101121", 1},
+                {"2_0", "2_0", 0},
+                {"2.0", "2_0", 0},
+                {"2_0", "2.0", 0},
+                {"a", "a", 0},
+                {"a+", "a+", 0},
+                {"a+", "a_", 0},
+                {"a_", "a+", 0},
+                {"+a", "+a", 0},
+                {"+a", "_a", 0},
+                {"_a", "+a", 0},
+                {"+_", "+_", 0},
+                {"_+", "+_", 0},
+                {"_+", "_+", 0},
+                {"+", "_", 0},
+                {"_", "+", 0},
+                {"1.0~rc1", "1.0~rc1", 0},
+                {"1.0~rc1", "1.0", -1},
+                {"1.0", "1.0~rc1", 1},
+                {"1.0~rc1", "1.0~rc2", -1},
+                {"1.0~rc2", "1.0~rc1", 1},
+                {"1.0~rc1~git123", "1.0~rc1~git123", 0},
+                {"1.0~rc1~git123", "1.0~rc1", -1},
+                {"1.0~rc1", "1.0~rc1~git123", 1},
+                {"1.0^", "1.0^", 0},
+                {"1.0^", "1.0", 1},
+                {"1.0", "1.0^", -1},
+                {"1.0^git1", "1.0^git1", 0},
+                {"1.0^git1", "1.0", 1},
+                {"1.0", "1.0^git1", -1},
+                {"1.0^git1", "1.0^git2", -1},
+                {"1.0^git2", "1.0^git1", 1},
+                {"1.0^git1", "1.01", -1},
+                {"1.01", "1.0^git1", 1},
+                {"1.0^20160101", "1.0^20160101", 0},
+                {"1.0^20160101", "1.0.1", -1},
+                {"1.0.1", "1.0^20160101", 1},
+                {"1.0^20160101^git1", "1.0^20160101^git1", 0},
+                {"1.0^20160102", "1.0^20160101^git1", 1},
+                {"1.0^20160101^git1", "1.0^20160102", -1},
+                {"1.0~rc1^git1", "1.0~rc1^git1", 0},
+                {"1.0~rc1^git1", "1.0~rc1", 1},
+                {"1.0~rc1", "1.0~rc1^git1", -1},
+                {"1.0^git1~pre", "1.0^git1~pre", 0},
+                {"1.0^git1", "1.0^git1~pre", 1},
+                {"1.0^git1~pre", "1.0^git1", -1},
+                {"1b.fc17", "1b.fc17", 0},
+                {"1b.fc17", "1.fc17", -1},
+                {"1.fc17", "1b.fc17", 1},
+                {"1g.fc17", "1g.fc17", 0},
+                {"1g.fc17", "1.fc17", 1},
+                {"1.fc17", "1g.fc17", -1},
+        };
+    }
+
+    /**
+     * Tests comparing two versions.
+     *
+     * @param first the first version
+     * @param second the second version
+     * @param expected the expected result
+     */
+    @Test(dataProvider = "vercmp")
+    public void testCompare(final String first, final String second, final int expected) {
+        Assert.assertEquals(RPMVersionComparator.compare(first, second), expected,
+                first + " <=> " + second);
+    }
+
+    /**
+     * Tests that releases are only compared if the versions are equal.
+     */
+    @Test
+    public void testCompareVersionAndRelease() {
+        Assert.assertEquals(RPMVersionComparator.compare("2.0", "1.el6", "1.0", "9.el6"), 1);
+        Assert.assertEquals(RPMVersionComparator.compare("1.0", "1.el6", "1.0", "2.el6"), -1);
+        Assert.assertEquals(RPMVersionComparator.compare("1.0", "1.el6", "1.0", "1.el6"), 0);
+        Assert.assertEquals(RPMVersionComparator.compare("1.0", "1.el6", "1.0", "1.el6_4"), -1);
+    }
+}
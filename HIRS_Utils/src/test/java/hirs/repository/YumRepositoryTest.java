@@ -269,6 +269,34 @@ public final class YumRepositoryTest extends SpringPersistenceTest {
         Assert.assertEquals(loadedRepo.getUpdatedPackages(packageThree), correctPackages);
     }
 
+    /**
+     * Tests that getUpdatedPackages only returns newer versions of the same name and
+     * architecture, and that replacing the packages of the repository is taken into account.
+     */
+    @Test
+    public void testGetUpdatedPackagesByNameAndArchitecture() {
+        RPMRepoPackage otherArchitecture = new RPMRepoPackage(PACKAGE_NAME,
+                PACKAGE_THREE_VERSION, PACKAGE_THREE_RELEASE, "i686", repo);
+        RPMRepoPackage otherName = new RPMRepoPackage("goodbye_world", PACKAGE_THREE_VERSION,
+                PACKAGE_THREE_RELEASE, PACKAGE_ARCHITECTURE, repo);
+        Set<RPMRepoPackage> packages = new HashSet<>();
+        packages.add((RPMRepoPackage) packageOne);
+        packages.add((RPMRepoPackage) packageTwo);
+        packages.add(otherArchitecture);
+        packages.add(otherName);
+        repo.setPackages(packages);
+
+        Set<RepoPackage> correctPackages = new HashSet<>();
+        correctPackages.add(packageTwo);
+        Assert.assertEquals(repo.getUpdatedPackages(packageOne), correctPackages);
+        Assert.assertTrue(repo.getUpdatedPackages(packageTwo).isEmpty());
+
+        packages.add((RPMRepoPackage) packageThree);
+        repo.setPackages(packages);
+        correctPackages.add(packageThree);
+        Assert.assertEquals(repo.getUpdatedPackages(packageOne), correctPackages);
+    }
+
     /**
      * Tests that packages contain the correct records once the repository has been saved and
      * loaded from the database.
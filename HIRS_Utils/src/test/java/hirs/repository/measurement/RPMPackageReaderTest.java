@@ -0,0 +1,332 @@
+package hirs.repository.measurement;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.google.common.collect.Multimap;
+import hirs.data.persist.Digest;
+import hirs.data.persist.enums.DigestAlgorithm;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Unit tests for {@link RPMPackageReader} and the in-process measurement and extraction of RPMs
+ * by {@link RPMMeasurer}.
+ */
+public class RPMPackageReaderTest {
+    private static final String TEST_RPM_RESOURCE =
+            "/testrepo/hello_world-1.0-1.el6.x86_64.rpm";
+    private static final String TEST_RPM_FILEPATH = "/tmp/hello";
+    private static final String TEST_RPM_SHA1_DIGEST = "e68d50b1a81359a5e6a37813d475ece07ce3a850";
+
+    private static final int REGULAR_FILE = 0100644;
+    private static final int EXECUTABLE_FILE = 0100755;
+    private static final int DIRECTORY = 040755;
+    private static final int SYMBOLIC_LINK = 0120777;
+    private static final int TAG_PAYLOAD_COMPRESSOR = 1125;
+    private static final int TYPE_STRING = 6;
+    private static final int LEAD_MAGIC = 0xEDABEEDB;
+    private static final int LEAD_SIZE = 96;
+    private static final int HEADER_MAGIC = 0x8EADE801;
+    private static final int CPIO_ALIGNMENT = 4;
+    private static final int LINKS_RPM_ENTRY_COUNT = 6;
+
+    private Path rpmDir;
+
+    /**
+     * Creates a temporary directory for RPMs.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @BeforeMethod
+    public void setup() throws IOException {
+        rpmDir = Files.createTempDirectory("rpmReader");
+    }
+
+    /**
+     * Removes the temporary directory.
+     *
+     * @throws IOException if the directory cannot be removed
+     */
+    @AfterMethod
+    public void teardown() throws IOException {
+        FileUtils.deleteDirectory(rpmDir.toFile());
+    }
+
+    /**
+     * Tests that the entries of an RPM with an xz compressed payload are read.
+     *
+     * @throws IOException if the RPM cannot be read
+     */
+    @Test
+    public void testReadXzPayload() throws IOException {
+        try (RPMPackageReader reader = new RPMPackageReader(
+                getClass().getResourceAsStream(TEST_RPM_RESOURCE))) {
+            Assert.assertEquals(reader.getPayloadCompressor(), "xz");
+            Assert.assertTrue(reader.isPayloadSupported());
+
+            RPMPackageReader.Entry entry = reader.nextEntry();
+            Assert.assertEquals(entry.getName(), "." + TEST_RPM_FILEPATH);
+            Assert.assertTrue(entry.isRegularFile());
+            Assert.assertEquals(DigestUtils.sha1Hex(reader.getEntryStream()),
+                    TEST_RPM_SHA1_DIGEST);
+            Assert.assertNull(reader.nextEntry());
+        }
+    }
+
+    /**
+     * Tests that an RPM is measured without extracting it.
+     *
+     * @throws IOException if the RPM cannot be measured
+     */
+    @Test
+    public void testMeasureRPM() throws IOException {
+        Path rpmFile = rpmDir.resolve("hello_world-1.0-1.el6.x86_64.rpm");
+        FileUtils.copyURLToFile(getClass().getResource(TEST_RPM_RESOURCE), rpmFile.toFile());
+
+        Multimap<Path, Digest> measurements = new RPMMeasurer(DigestAlgorithm.SHA1)
+                .measure(rpmFile);
+
+        Assert.assertEquals(measurements.size(), 1);
+        Assert.assertEquals(measurements.get(Paths.get(TEST_RPM_FILEPATH)).iterator().next()
+                .getDigestString(), TEST_RPM_SHA1_DIGEST);
+        // nothing was extracted next to the RPM
+        Assert.assertEquals(rpmDir.toFile().list().length, 1);
+    }
+
+    /**
+     * Tests that regular files and hard links of a gzip compressed payload are measured, and
+     * that directories and symbolic links are not, as when the RPM was extracted.
+     *
+     * @throws IOException if the RPM cannot be measured
+     */
+    @Test
+    public void testMeasureLinks() throws IOException {
+        Path rpmFile = rpmDir.resolve("links.rpm");
+        Files.write(rpmFile, createLinksRpm("gzip"));
+
+        Multimap<Path, Digest> measurements = new RPMMeasurer(DigestAlgorithm.SHA1)
+                .measure(rpmFile);
+
+        String fileDigest = DigestUtils.sha1Hex("file");
+        String linkedDigest = DigestUtils.sha1Hex("linked");
+        Assert.assertEquals(measurements.size(), 4);
+        Assert.assertEquals(digestOf(measurements, "/usr/bin/file"), fileDigest);
+        Assert.assertEquals(digestOf(measurements, "/usr/bin/link1"), linkedDigest);
+        Assert.assertEquals(digestOf(measurements, "/usr/bin/link2"), linkedDigest);
+        Assert.assertEquals(digestOf(measurements, "/usr/bin/empty"), DigestUtils.sha1Hex(""));
+    }
+
+    /**
+     * Tests that the entries of an RPM with a zstd compressed payload are read.
+     *
+     * @throws IOException if the RPM cannot be read
+     */
+    @Test
+    public void testReadZstdPayload() throws IOException {
+        try (RPMPackageReader reader = new RPMPackageReader(
+                new ByteArrayInputStream(createLinksRpm("zstd")))) {
+            Assert.assertEquals(reader.getPayloadCompressor(), "zstd");
+            Assert.assertTrue(reader.isPayloadSupported());
+
+            int entries = 0;
+            while (reader.nextEntry() != null) {
+                entries++;
+            }
+            Assert.assertEquals(entries, LINKS_RPM_ENTRY_COUNT);
+        }
+    }
+
+    /**
+     * Tests that an RPM is extracted with its directories, files, hard links and symbolic links.
+     *
+     * @throws IOException if the RPM cannot be extracted
+     */
+    @Test
+    public void testExtractRpm() throws IOException {
+        Path rpmFile = rpmDir.resolve("links.rpm");
+        Files.write(rpmFile, createLinksRpm("gzip"));
+        Path root = RPMMeasurer.createRpmExtractionFakeRoot(rpmFile);
+
+        RPMMeasurer.extractRpm(rpmFile, root);
+
+        Path bin = root.resolve("usr/bin");
+        Assert.assertTrue(Files.isDirectory(bin));
+        Assert.assertEquals(new String(Files.readAllBytes(bin.resolve("file")),
+                StandardCharsets.UTF_8), "file");
+        Assert.assertTrue(Files.isExecutable(bin.resolve("file")));
+        Assert.assertTrue(Files.isSameFile(bin.resolve("link1"), bin.resolve("link2")));
+        Assert.assertEquals(new String(Files.readAllBytes(bin.resolve("link1")),
+                StandardCharsets.UTF_8), "linked");
+        Assert.assertTrue(Files.isSymbolicLink(bin.resolve("symlink")));
+        Assert.assertEquals(Files.readSymbolicLink(bin.resolve("symlink")), Paths.get("file"));
+        Assert.assertEquals(Files.size(bin.resolve("empty")), 0);
+    }
+
+    /**
+     * Tests that a file is not extracted through a symbolic link of the RPM which points outside
+     * of the extraction root.
+     *
+     * @throws IOException if the RPM cannot be written
+     */
+    @Test
+    public void testExtractRpmBelowSymbolicLink() throws IOException {
+        Path outside = rpmDir.resolve("outside");
+        Files.createDirectory(outside);
+        ByteArrayOutputStream cpio = new ByteArrayOutputStream();
+        writeCpioEntry(cpio, 1, DIRECTORY, 1, "./usr", "");
+        writeCpioEntry(cpio, 2, SYMBOLIC_LINK, 1, "./usr/escape", outside.toString());
+        writeCpioEntry(cpio, 3, REGULAR_FILE, 1, "./usr/escape/file", "file");
+        writeCpioEntry(cpio, 0, 0, 1, "TRAILER!!!", "");
+        Path rpmFile = rpmDir.resolve("escape.rpm");
+        Files.write(rpmFile, createRpm("gzip", cpio));
+        Path root = RPMMeasurer.createRpmExtractionFakeRoot(rpmFile);
+
+        try {
+            RPMMeasurer.extractRpm(rpmFile, root);
+            Assert.fail("RPM entry below a symbolic link was extracted");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("usr/escape/file"), e.getMessage());
+        }
+        Assert.assertFalse(Files.exists(outside.resolve("file")));
+    }
+
+    /**
+     * Tests that a file which is not an RPM is rejected.
+     *
+     * @throws IOException as expected
+     */
+    @Test(expectedExceptions = IOException.class)
+    public void testNotAnRpm() throws IOException {
+        InputStream notAnRpm = new ByteArrayInputStream(new byte[LEAD_SIZE]);
+        new RPMPackageReader(notAnRpm).close();
+    }
+
+    /**
+     * Tests that cpio entries with a negative, empty or oversized name size are rejected as
+     * invalid rather than allocated.
+     *
+     * @throws IOException if the RPM cannot be written
+     */
+    @Test
+    public void testMalformedCpioEntry() throws IOException {
+        final int nameSizeOffset = 6 + 8 * 11;
+        for (String nameSize : new String[] {"-0000001", "00000000", "ffffffff", "00001002"}) {
+            ByteArrayOutputStream cpio = new ByteArrayOutputStream();
+            writeCpioEntry(cpio, 1, REGULAR_FILE, 1, "./usr/file", "file");
+            byte[] entry = cpio.toByteArray();
+            System.arraycopy(nameSize.getBytes(StandardCharsets.US_ASCII), 0, entry,
+                    nameSizeOffset, nameSize.length());
+            cpio.reset();
+            cpio.write(entry);
+
+            try (RPMPackageReader reader = new RPMPackageReader(
+                    new ByteArrayInputStream(createRpm("gzip", cpio)))) {
+                reader.nextEntry();
+                Assert.fail("cpio entry with name size " + nameSize + " was read");
+            } catch (IOException e) {
+                Assert.assertEquals(e.getMessage(), "Invalid cpio header");
+            }
+        }
+    }
+
+    private static String digestOf(final Multimap<Path, Digest> measurements,
+                                   final String path) {
+        Assert.assertEquals(measurements.get(Paths.get(path)).size(), 1, path);
+        return measurements.get(Paths.get(path)).iterator().next().getDigestString();
+    }
+
+    /**
+     * Creates an RPM with a gzip or zstd compressed payload holding a directory, a file, a hard
+     * linked file whose contents are held by its second link, a symbolic link and an empty file.
+     */
+    private static byte[] createLinksRpm(final String compressorName) throws IOException {
+        ByteArrayOutputStream cpio = new ByteArrayOutputStream();
+        int inode = 1;
+        writeCpioEntry(cpio, inode++, DIRECTORY, 1, "./usr/bin", "");
+        writeCpioEntry(cpio, inode++, EXECUTABLE_FILE, 1, "./usr/bin/file", "file");
+        writeCpioEntry(cpio, inode, REGULAR_FILE, 2, "./usr/bin/link1", "");
+        writeCpioEntry(cpio, inode++, REGULAR_FILE, 2, "./usr/bin/link2", "linked");
+        writeCpioEntry(cpio, inode++, SYMBOLIC_LINK, 1, "./usr/bin/symlink", "file");
+        writeCpioEntry(cpio, inode, REGULAR_FILE, 1, "./usr/bin/empty", "");
+        writeCpioEntry(cpio, 0, 0, 1, "TRAILER!!!", "");
+        return createRpm(compressorName, cpio);
+    }
+
+    private static byte[] createRpm(final String compressorName,
+                                    final ByteArrayOutputStream cpio) throws IOException {
+        ByteArrayOutputStream rpm = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(rpm);
+        out.writeInt(LEAD_MAGIC);
+        out.write(new byte[LEAD_SIZE - Integer.BYTES]);
+
+        // empty signature header, which needs no padding
+        out.writeInt(HEADER_MAGIC);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+
+        byte[] compressor = (compressorName + "\0").getBytes(StandardCharsets.US_ASCII);
+        out.writeInt(HEADER_MAGIC);
+        out.writeInt(0);
+        out.writeInt(1);
+        out.writeInt(compressor.length);
+        out.writeInt(TAG_PAYLOAD_COMPRESSOR);
+        out.writeInt(TYPE_STRING);
+        out.writeInt(0);
+        out.writeInt(1);
+        out.write(compressor);
+
+        OutputStream payload;
+        if ("zstd".equals(compressorName)) {
+            payload = new ZstdOutputStream(out);
+        } else {
+            payload = new GZIPOutputStream(out);
+        }
+        try {
+            payload.write(cpio.toByteArray());
+        } finally {
+            payload.close();
+        }
+        return rpm.toByteArray();
+    }
+
+    private static void writeCpioEntry(final ByteArrayOutputStream cpio, final int inode,
+                                       final int mode, final int links, final String name,
+                                       final String contents) throws IOException {
+        byte[] nameBytes = (name + "\0").getBytes(StandardCharsets.UTF_8);
+        byte[] contentBytes = contents.getBytes(StandardCharsets.UTF_8);
+        StringBuilder header = new StringBuilder("070701");
+        int[] fields = {inode, mode, 0, 0, links, 0, contentBytes.length, 0, 0, 0, 0,
+                nameBytes.length, 0};
+        for (int field : fields) {
+            header.append(String.format("%08x", field));
+        }
+        cpio.write(header.toString().getBytes(StandardCharsets.US_ASCII));
+        cpio.write(nameBytes);
+        pad(cpio);
+        IOUtils.write(contentBytes, cpio);
+        pad(cpio);
+    }
+
+    private static void pad(final ByteArrayOutputStream cpio) {
+        while (cpio.size() % CPIO_ALIGNMENT != 0) {
+            cpio.write(0);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package hirs.tpm.eventlog;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link TCGEventLogCursor}.
+ */
+public class TCGEventLogCursorTest {
+
+    private static final String DEFAULT_EVENT_LOG = "/tcgeventlog/TpmLog.bin";
+    private static final String SHA1_EVENT_LOG = "/tcgeventlog/TpmLogSHA1.bin";
+
+    /**
+     * Tests that the cursor reads the same events as the fully parsed crypto agile log.
+     *
+     * @throws Exception when processing the test fails
+     */
+    @Test
+    public final void testCryptoAgileEvents() throws Exception {
+        assertSameEvents(DEFAULT_EVENT_LOG, true);
+    }
+
+    /**
+     * Tests that the cursor reads the same events as the fully parsed SHA1 formatted log.
+     *
+     * @throws Exception when processing the test fails
+     */
+    @Test
+    public final void testSHA1Events() throws Exception {
+        assertSameEvents(SHA1_EVENT_LOG, false);
+    }
+
+    /**
+     * Tests that the PCR values calculated while reading the log match those of the fully
+     * parsed log.
+     *
+     * @throws Exception when processing the test fails
+     */
+    @Test
+    public final void testCalculateExpectedPCRValues() throws Exception {
+        for (String path : new String[] {DEFAULT_EVENT_LOG, SHA1_EVENT_LOG}) {
+            TCGEventLog evlog = new TCGEventLog(read(path));
+            try (TCGEventLogCursor cursor = new TCGEventLogCursor(
+                    getClass().getResourceAsStream(path))) {
+                Assert.assertEquals(cursor.calculateExpectedPCRValues(),
+                        evlog.getExpectedPCRValues());
+                Assert.assertFalse(cursor.next());
+            }
+        }
+    }
+
+    /**
+     * Tests that digests are looked up by algorithm.
+     *
+     * @throws Exception when processing the test fails
+     */
+    @Test
+    public final void testGetEventDigestByAlgorithm() throws Exception {
+        try (TCGEventLogCursor cursor = new TCGEventLogCursor(read(DEFAULT_EVENT_LOG))) {
+            Assert.assertTrue(cursor.next());
+            // the first event is always in the SHA1 format
+            Assert.assertEquals(cursor.getEventDigest(TcgTpmtHa.TPM_ALG_SHA1),
+                    cursor.getEventDigest());
+            Assert.assertTrue(cursor.next());
+            Assert.assertEquals(cursor.getEventDigest(TcgTpmtHa.TPM_ALG_SHA256),
+                    cursor.getEventDigest());
+            Assert.assertNull(cursor.getEventDigest(TcgTpmtHa.TPM_ALG_SHA384));
+        }
+    }
+
+    /**
+     * Tests that empty and truncated logs are rejected.
+     *
+     * @throws Exception when processing the test fails
+     */
+    @Test
+    public final void testTruncatedLog() throws Exception {
+        try {
+            new TCGEventLogCursor(new byte[0]);
+            Assert.fail("Empty log was accepted");
+        } catch (EOFException e) {
+            // expected
+        }
+
+        byte[] rawLogBytes = read(DEFAULT_EVENT_LOG);
+        try (TCGEventLogCursor cursor = new TCGEventLogCursor(
+                Arrays.copyOf(rawLogBytes, rawLogBytes.length - 1))) {
+            while (cursor.next()) {
+                cursor.getEventDigestStr();
+            }
+            Assert.fail("Truncated log was read to the end");
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that an event size larger than the maximum is rejected before its content is
+     * allocated, and that an in memory log is not read past its end.
+     *
+     * @throws Exception when processing the test fails
+     */
+    @Test
+    public final void testOversizedEvent() throws Exception {
+        final int sizeOffset = 28;
+        // a SHA1 formatted event: PCR index, event type, SHA1 digest, then the event size
+        byte[] rawLogBytes = new byte[sizeOffset + Integer.BYTES];
+        ByteBuffer.wrap(rawLogBytes).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(sizeOffset, TCGEventLogCursor.MAX_EVENT_SIZE + 1);
+        try {
+            new TCGEventLogCursor(new BufferedInputStream(new ByteArrayInputStream(rawLogBytes)));
+            Assert.fail("Oversized event was accepted");
+        } catch (IOException e) {
+            Assert.assertFalse(e instanceof EOFException);
+        }
+
+        // an event size within the maximum but past the end of an in memory log
+        ByteBuffer.wrap(rawLogBytes).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(sizeOffset, TCGEventLogCursor.MAX_EVENT_SIZE);
+        try {
+            new TCGEventLogCursor(rawLogBytes);
+            Assert.fail("Event past the end of the log was accepted");
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    private void assertSameEvents(final String path, final boolean cryptoAgile)
+            throws Exception {
+        byte[] rawLogBytes = read(path);
+        TCGEventLog evlog = new TCGEventLog(rawLogBytes);
+        Iterator<TpmPcrEvent> events = evlog.getEventList().iterator();
+        try (TCGEventLogCursor cursor = new TCGEventLogCursor(rawLogBytes)) {
+            Assert.assertEquals(cursor.isCryptoAgile(), cryptoAgile);
+            Assert.assertEquals(cursor.getEventLogHashAlgorithm(),
+                    evlog.getEventLogHashAlgorithm());
+            while (cursor.next()) {
+                Assert.assertTrue(events.hasNext());
+                TpmPcrEvent event = events.next();
+                Assert.assertEquals(cursor.getEventNumber(), event.getEventNumber());
+                Assert.assertEquals(cursor.getPcrIndex(), event.getPcrIndex());
+                Assert.assertEquals(cursor.getEventType(), event.getEventType());
+                Assert.assertEquals(cursor.getEventTypeStr(), event.getEventTypeStr());
+                Assert.assertEquals(cursor.getEventDigestStr(), event.getEventDigestStr());
+                Assert.assertEquals(cursor.getEventContent(), event.getEventContent());
+
+                TpmPcrEvent decoded = cursor.getEvent();
+                Assert.assertEquals(decoded.getClass(), event.getClass());
+                Assert.assertEquals(decoded.toString(), event.toString());
+            }
+            Assert.assertFalse(events.hasNext());
+        }
+    }
+
+    private byte[] read(final String path) throws IOException {
+        try (InputStream log = getClass().getResourceAsStream(path)) {
+            return IOUtils.toByteArray(log);
+        }
+    }
+}
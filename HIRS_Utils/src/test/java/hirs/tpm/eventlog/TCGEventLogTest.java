@@ -2,12 +2,18 @@ package hirs.tpm.eventlog;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 //import java.util.List;
 //import java.util.Set;
 
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -151,6 +157,106 @@ public class TCGEventLogTest {
        LOGGER.debug("OK. Parsing of a SHA1 formatted TCG Event Log Success");
       }
 
+    /**
+     * Tests that every PCR bank of a crypto agile log is calculated, and that each bank matches
+     * extending the PCRs one event digest at a time.
+     * @throws Exception when processing the test fails
+     */
+    @Test
+    public final void testCryptoAgilePcrBanks() throws Exception {
+      InputStream log = this.getClass().getResourceAsStream(DEFAULT_EVENT_LOG);
+      TCGEventLog evlog = new TCGEventLog(IOUtils.toByteArray(log));
+      List<String> banks = evlog.getPcrBankAlgorithms();
+      Assert.assertTrue(banks.contains("TPM_ALG_SHA256"));
+      Assert.assertEquals(evlog.getExpectedPCRValues("TPM_ALG_SHA256"),
+              evlog.getExpectedPCRValues());
+      for (String bank : banks) {
+          Assert.assertEquals(evlog.getExpectedPCRValues(bank), extendEachEvent(evlog, bank));
+      }
+      Assert.assertNull(evlog.getExpectedPCRValues("TPM_ALG_SHA512"));
+    }
+
+    /**
+     * Compares the time taken to calculate the expected PCR values by extending the PCRs one
+     * event digest at a time with the time taken by the log itself, for both sample logs.
+     * @throws Exception when processing the test fails
+     */
+    @Test(groups = { "performance" })
+    public final void testPcrReplayPerformance() throws Exception {
+      final int iterations = 2000;
+      for (String path : new String[] {DEFAULT_EVENT_LOG, SHA1_EVENT_LOG}) {
+          byte[] rawLogBytes = IOUtils.toByteArray(this.getClass().getResourceAsStream(path));
+          TCGEventLog evlog = new TCGEventLog(rawLogBytes);
+          String algorithm = evlog.getEventLogHashAlgorithm();
+
+          long startTime = System.nanoTime();
+          for (int i = 0; i < iterations; i++) {
+              extendEachEvent(evlog, algorithm);
+          }
+          long eachEventTime = System.nanoTime() - startTime;
+
+          Method calculatePcrValues = TCGEventLog.class.getDeclaredMethod("calculatePcrValues");
+          calculatePcrValues.setAccessible(true);
+          startTime = System.nanoTime();
+          for (int i = 0; i < iterations; i++) {
+              calculatePcrValues.invoke(evlog);
+          }
+          long replayTime = System.nanoTime() - startTime;
+
+          LOGGER.info("{}: {} events, {} us per log extending each event, {} us per log"
+                  + " replaying all banks", path, evlog.getEventList().size(),
+                  eachEventTime / iterations / 1000, replayTime / iterations / 1000);
+          Assert.assertEquals(evlog.getExpectedPCRValues(), extendEachEvent(evlog, algorithm));
+      }
+    }
+
+    /**
+     * Calculates the PCR values of one bank the way they were calculated before the replay:
+     * looking up the digest algorithm and hex encoding the values for every event.
+     */
+    private static String[] extendEachEvent(final TCGEventLog evlog, final String bank)
+            throws NoSuchAlgorithmException, DecoderException {
+      int algId = TcgTpmtHa.tcgAlgStringtoId(bank);
+      byte[][] pcrList = new byte[TCGEventLog.PCR_COUNT][TcgTpmtHa.tcgAlgLength(algId)];
+      for (int i = TCGEventLog.PCR_LOCALITY4_MIN; i < TCGEventLog.PCR_LOCALITY4_MAX; i++) {
+          Arrays.fill(pcrList[i], (byte) 0xff);
+      }
+      for (TpmPcrEvent event : evlog.getEventList()) {
+          if (event.getPcrIndex() < 0 || event.getEventType() == TCGEventLog.NO_ACTION_EVENT) {
+              continue;
+          }
+          List<TcgTpmtHa> digests = Collections.emptyList();
+          if (event instanceof TpmPcrEvent2) {
+              digests = ((TpmPcrEvent2) event).getDigestList();
+          }
+          for (TcgTpmtHa digest : digests) {
+              if (digest.getAlgId() == algId) {
+                  extend(pcrList, event.getPcrIndex(), algId, digest.getDigest());
+              }
+          }
+          if (!(event instanceof TpmPcrEvent2) && algId == TcgTpmtHa.TPM_ALG_SHA1) {
+              extend(pcrList, event.getPcrIndex(), algId, event.getEventDigest());
+          }
+      }
+      String[] pcrs = new String[TCGEventLog.PCR_COUNT];
+      for (int i = 0; i < TCGEventLog.PCR_COUNT; i++) {
+          pcrs[i] = Hex.encodeHexString(pcrList[i]);
+      }
+      return pcrs;
+    }
+
+    private static void extend(final byte[][] pcrList, final int pcrIndex, final int algId,
+                               final byte[] digest)
+            throws NoSuchAlgorithmException, DecoderException {
+      String name = TcgTpmtHa.tcgAlgIdtoString(algId).replace("TPM_ALG_SHA", "SHA-");
+      MessageDigest md = MessageDigest.getInstance(name);
+      StringBuilder sb = new StringBuilder();
+      sb.append(Hex.encodeHexString(pcrList[pcrIndex]).toCharArray());
+      sb.append(Hex.encodeHexString(digest).toCharArray());
+      md.update(Hex.decodeHex(sb.toString().toCharArray()));
+      pcrList[pcrIndex] = md.digest();
+    }
+
     /**
      * Tests TPM Baseline creation from a EventLog.
      * @throws IOException when processing the test fails
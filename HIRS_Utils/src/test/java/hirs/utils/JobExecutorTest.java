@@ -9,8 +9,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Collections;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -648,4 +651,201 @@ public class JobExecutorTest {
         Assert.assertFalse(job.isRunning());
         Assert.assertTrue(job.isFinished());
     }
+
+    /**
+     * Tests that queued tasks of higher priority jobs are started first.
+     *
+     * @throws InterruptedException if a job is interrupted while being waited on
+     */
+    @Test
+    public final void testJobPriority() throws InterruptedException {
+        JobExecutor singleThreadExecutor = new JobExecutor(1, ONE_HUNDRED);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Job<Void> blockingJob = getBlockingJob(started, release);
+            singleThreadExecutor.scheduleJob(blockingJob);
+            started.await();
+
+            List<String> order = Collections.synchronizedList(new ArrayList<String>());
+            Job<Void> lowJob = getRecordingJob(order, "low");
+            lowJob.setPriority(Job.Priority.LOW);
+            Job<Void> normalJob = getRecordingJob(order, "normal");
+            Job<Void> highJob = getRecordingJob(order, "high");
+            highJob.setPriority(Job.Priority.HIGH);
+            singleThreadExecutor.scheduleJob(lowJob);
+            singleThreadExecutor.scheduleJob(normalJob);
+            singleThreadExecutor.scheduleJob(highJob);
+            Assert.assertEquals(singleThreadExecutor.getQueueDepth(), 3);
+
+            release.countDown();
+            lowJob.await();
+            Assert.assertEquals(order, Arrays.asList("high", "normal", "low"));
+        } finally {
+            singleThreadExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a job's priority cannot be changed once it has been scheduled.
+     */
+    @Test(expectedExceptions = IllegalStateException.class)
+    public final void testSetPriorityOfStartedJob() {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(incrementTask);
+        Job<Integer> job = new Job<>(tasks);
+        jobExecutor.scheduleJob(job);
+        job.setPriority(Job.Priority.HIGH);
+    }
+
+    /**
+     * Tests that a job whose tasks do not fit in the queue is rejected.
+     *
+     * @throws InterruptedException if a job is interrupted while being waited on
+     */
+    @Test
+    public final void testQueueCapacity() throws InterruptedException {
+        JobExecutor singleThreadExecutor = new JobExecutor(1, 2);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            singleThreadExecutor.scheduleJob(getBlockingJob(started, release));
+            started.await();
+
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            tasks.add(incrementTask);
+            tasks.add(incrementTask);
+            Job<Integer> fittingJob = new Job<>(tasks);
+            singleThreadExecutor.scheduleJob(fittingJob);
+
+            Job<Integer> rejectedJob = new Job<>(Collections.singletonList(incrementTask));
+            try {
+                singleThreadExecutor.scheduleJob(rejectedJob);
+                Assert.fail("Job exceeding the queue capacity was scheduled");
+            } catch (RejectedExecutionException e) {
+                Assert.assertEquals(rejectedJob.getState(), Job.State.UNSTARTED);
+            }
+
+            release.countDown();
+            fittingJob.await();
+            Assert.assertEquals(fittingJob.getState(), Job.State.COMPLETED);
+        } finally {
+            singleThreadExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that canceling a job through its executor removes its queued tasks from the queue.
+     *
+     * @throws InterruptedException if a job is interrupted while being waited on
+     */
+    @Test
+    public final void testCancelJobThroughExecutor() throws InterruptedException {
+        JobExecutor singleThreadExecutor = new JobExecutor(1, ONE_HUNDRED);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            singleThreadExecutor.scheduleJob(getBlockingJob(started, release));
+            started.await();
+
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < TEN; i++) {
+                tasks.add(incrementTask);
+            }
+            Job<Integer> job = new Job<>(tasks);
+            singleThreadExecutor.scheduleJob(job);
+            Assert.assertEquals(singleThreadExecutor.getQueueDepth(), TEN);
+
+            singleThreadExecutor.cancelJob(job);
+            Assert.assertEquals(singleThreadExecutor.getQueueDepth(), 0);
+            job.await();
+            Assert.assertEquals(job.getState(), Job.State.CANCELED);
+            Assert.assertEquals(job.getCanceledTaskCount(), TEN);
+
+            release.countDown();
+        } finally {
+            singleThreadExecutor.shutdown();
+        }
+        Assert.assertEquals(counter.get(), 0);
+    }
+
+    /**
+     * Tests that the executor records the latencies of its tasks.
+     *
+     * @throws InterruptedException if a job is interrupted while being waited on
+     */
+    @Test
+    public final void testMetrics() throws InterruptedException {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < TEN; i++) {
+            tasks.add(incrementTask);
+        }
+        Job<Integer> job = new Job<>(tasks);
+        jobExecutor.scheduleJob(job);
+        job.await();
+
+        // run latencies are recorded after a task completes, and so after the job is released
+        long deadline = System.currentTimeMillis() + TEN_SECONDS_MS;
+        while ((jobExecutor.getRunLatency().getCount() < TEN
+                || jobExecutor.getActiveTaskCount() > 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        Assert.assertEquals(jobExecutor.getQueueLatency().getCount(), TEN);
+        Assert.assertEquals(jobExecutor.getRunLatency().getCount(), TEN);
+        Assert.assertEquals(jobExecutor.getQueueDepth(), 0);
+        Assert.assertEquals(jobExecutor.getActiveTaskCount(), 0);
+        Assert.assertEquals(jobExecutor.getRunningJobCount(), 0);
+    }
+
+    /**
+     * Tests that jobs can be run on and waited for on the shared executor, which cannot be shut
+     * down.
+     *
+     * @throws InterruptedException if a job is interrupted while being waited on
+     */
+    @Test
+    public final void testSharedExecutor() throws InterruptedException {
+        Assert.assertSame(JobExecutor.getShared(), JobExecutor.getShared());
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < TEN; i++) {
+            tasks.add(incrementTask);
+        }
+        Job<Integer> job = new Job<>(tasks);
+        JobExecutor.getShared().scheduleJob(job);
+        job.await();
+        Assert.assertEquals(job.getState(), Job.State.COMPLETED);
+        Assert.assertEquals(counter.get(), TEN);
+
+        try {
+            JobExecutor.getShared().shutdown();
+            Assert.fail("The shared executor was shut down");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(JobExecutor.getShared().getState(), JobExecutor.State.RUNNING);
+        }
+    }
+
+    private static Job<Void> getBlockingJob(final CountDownLatch started,
+                                            final CountDownLatch release) {
+        return new Job<>(Collections.<Callable<Void>>singletonList(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                release.await();
+                return null;
+            }
+        }));
+    }
+
+    private static Job<Void> getRecordingJob(final List<String> order, final String name) {
+        return new Job<>(Collections.<Callable<Void>>singletonList(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                order.add(name);
+                return null;
+            }
+        }));
+    }
 }
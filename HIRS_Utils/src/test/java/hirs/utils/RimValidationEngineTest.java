@@ -0,0 +1,165 @@
+package hirs.utils;
+
+import hirs.data.persist.BaseReferenceManifest;
+import hirs.data.persist.ReferenceManifest;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link RimValidationEngine}.
+ */
+public class RimValidationEngineTest {
+
+    private static final Logger LOGGER = LogManager.getLogger(RimValidationEngineTest.class);
+
+    private static final String SIGNED_RIM = "/rims/generated_user_cert.swidtag";
+    private static final String EMBEDDED_CERT_RIM = "/rims/generated_user_cert_embed.swidtag";
+    private static final String SIGNING_CERT = "/rims/RimSignCert.pem";
+    private static final String IDENTITY_TRANSFORM = "identity_transform.xslt";
+
+    private RimValidationEngine engine;
+    private CertificateAuthorityCredential signingCert;
+
+    /**
+     * Reads the certificate the test RIMs are signed with.
+     *
+     * @throws IOException if the certificate cannot be read
+     */
+    @BeforeClass(alwaysRun = true)
+    public void setup() throws IOException {
+        engine = RimValidationEngine.getInstance();
+        signingCert = new CertificateAuthorityCredential(read(SIGNING_CERT));
+    }
+
+    /**
+     * Tests that the documents of RIMs are stripped of whitespace exactly like the identity
+     * transform the signatures were checked against before.
+     *
+     * @throws Exception if a RIM cannot be read or transformed
+     */
+    @Test
+    public void testWhitespaceRemovedLikeIdentityTransform() throws Exception {
+        for (String path : new String[] {SIGNED_RIM, EMBEDDED_CERT_RIM}) {
+            byte[] rimBytes = read(path);
+            Document document = engine.getDocument(new BaseReferenceManifest(rimBytes));
+
+            Transformer transformer = TransformerFactory.newInstance().newTransformer(
+                    new StreamSource(getClass().getClassLoader()
+                            .getResourceAsStream(IDENTITY_TRANSFORM)));
+            DOMResult result = new DOMResult();
+            transformer.transform(new StreamSource(new ByteArrayInputStream(rimBytes)), result);
+
+            Assert.assertTrue(document.getDocumentElement().isEqualNode(
+                    ((Document) result.getNode()).getDocumentElement()), path);
+        }
+    }
+
+    /**
+     * Tests that the signatures of RIMs signed with a subject key identifier and with an
+     * embedded certificate are valid.
+     *
+     * @throws Exception if a RIM cannot be read
+     */
+    @Test
+    public void testValidateXmlSignature() throws Exception {
+        for (String path : new String[] {SIGNED_RIM, EMBEDDED_CERT_RIM}) {
+            ReferenceManifestValidator validator = new ReferenceManifestValidator(engine);
+            validator.setRim(new BaseReferenceManifest(read(path)));
+            Assert.assertTrue(validator.validateXmlSignature(signingCert), path);
+            Assert.assertTrue(validator.isSignatureValid(), path);
+        }
+    }
+
+    /**
+     * Tests that a stored RIM is parsed once, that every caller gets a document of its own,
+     * and that a RIM whose contents changed is parsed again.
+     *
+     * @throws Exception if a RIM cannot be read
+     */
+    @Test
+    public void testDocumentCachedById() throws Exception {
+        UUID id = UUID.randomUUID();
+        ReferenceManifest rim = mockRim(id, "hash", read(SIGNED_RIM));
+
+        Document first = engine.getDocument(rim);
+        Document second = engine.getDocument(rim);
+        Assert.assertNotSame(first, second);
+        Assert.assertTrue(first.isEqualNode(second));
+
+        // a cached document is used although the bytes can no longer be parsed
+        when(rim.getRimBytes()).thenReturn(new byte[] {1});
+        Assert.assertTrue(engine.getDocument(rim).isEqualNode(first));
+
+        ReferenceManifest changed = mockRim(id, "other hash", read(EMBEDDED_CERT_RIM));
+        Assert.assertFalse(engine.getDocument(changed).isEqualNode(first));
+
+        engine.invalidate(id);
+        try {
+            engine.getDocument(rim);
+            Assert.fail("Invalid RIM was parsed");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Measures validating the signature of 1,000 stored base RIMs, each with a fresh validator
+     * as the supply chain validation does for every device.
+     *
+     * @throws Exception if a RIM cannot be read
+     */
+    @Test(groups = { "performance" })
+    public void testValidationPerformance() throws Exception {
+        final int rimCount = 1000;
+        ReferenceManifest[] rims = new ReferenceManifest[rimCount];
+        byte[] rimBytes = read(SIGNED_RIM);
+        for (int i = 0; i < rimCount; i++) {
+            rims[i] = mockRim(UUID.randomUUID(), Integer.toString(i), rimBytes);
+        }
+
+        for (String pass : new String[] {"uncached", "cached"}) {
+            long startTime = System.nanoTime();
+            for (ReferenceManifest rim : rims) {
+                ReferenceManifestValidator validator = new ReferenceManifestValidator();
+                validator.setRim(rim);
+                Assert.assertTrue(validator.validateXmlSignature(signingCert));
+            }
+            long elapsed = System.nanoTime() - startTime;
+            LOGGER.info("{} base RIMs {}: {} us per RIM", rimCount, pass,
+                    elapsed / rimCount / 1000);
+        }
+    }
+
+    private static ReferenceManifest mockRim(final UUID id, final String hash,
+                                             final byte[] rimBytes) {
+        ReferenceManifest rim = mock(ReferenceManifest.class);
+        when(rim.getId()).thenReturn(id);
+        when(rim.getHexDecHash()).thenReturn(hash);
+        when(rim.getRimBytes()).thenReturn(rimBytes);
+        return rim;
+    }
+
+    private byte[] read(final String path) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(path)) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
@@ -79,6 +79,7 @@ import java.security.cert.X509Certificate;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -1103,6 +1104,70 @@ public class SupplyChainCredentialValidatorTest {
     }
 
 
+    /**
+     * Tests that the signing cert is found among several CA certs with the same subject.
+     *
+     * @throws SupplyChainValidatorException if error occurs due to using null certificates
+     */
+    @Test
+    public final void verifyX509CertificateAgainstCAsWithSameSubject()
+            throws SupplyChainValidatorException {
+        KeyPair otherCaKeyPair = createKeyPair();
+        KeyPair caKeyPair = createKeyPair();
+        KeyPair targetKeyPair = createKeyPair();
+        Set<X509Certificate> trustedCerts = new HashSet<X509Certificate>();
+
+        X509Certificate otherCaCert = createSelfSignedCertificate(otherCaKeyPair);
+        X509Certificate caCert = createSelfSignedCertificate(caKeyPair);
+        X509Certificate targetCert =
+                createCertSignedByAnotherCert(targetKeyPair, caKeyPair.getPrivate(), caCert);
+        X509AttributeCertificateHolder attrCert =
+                createAttributeCert(targetCert, caCert, caKeyPair.getPrivate());
+
+        trustedCerts.add(otherCaCert);
+        trustedCerts.add(caCert);
+
+        Assert.assertEquals(SupplyChainCredentialValidator.validateCertChain(targetCert,
+                trustedCerts), "");
+        Assert.assertEquals(SupplyChainCredentialValidator.validateCertChain(attrCert,
+                trustedCerts), "");
+    }
+
+    /**
+     * Tests that validation reports whether no CA cert matches the issuer of a cert or whether
+     * none of the matching CA certs signed it, and that the signature verification results are
+     * not confused between the two CA certs.
+     *
+     * @throws SupplyChainValidatorException if error occurs due to using null certificates
+     */
+    @Test
+    public final void verifyX509CertificateFailureMessages()
+            throws SupplyChainValidatorException {
+        KeyPair otherCaKeyPair = createKeyPair();
+        KeyPair caKeyPair = createKeyPair();
+        KeyPair intermediateKeyPair = createKeyPair();
+        KeyPair targetKeyPair = createKeyPair();
+
+        X509Certificate otherCaCert = createSelfSignedCertificate(otherCaKeyPair);
+        X509Certificate caCert = createSelfSignedCertificate(caKeyPair);
+        X509Certificate intermediateCert =
+                createCertSignedByAnotherCert(intermediateKeyPair, caKeyPair.getPrivate(), caCert);
+        X509Certificate targetCert =
+                createCertSignedByAnotherCert(targetKeyPair, intermediateKeyPair.getPrivate(),
+                        intermediateCert);
+
+        Assert.assertEquals(SupplyChainCredentialValidator.validateCertChain(targetCert,
+                new HashSet<>(Arrays.asList(caCert))), "Issuer DN does not match Subject DN");
+        Assert.assertEquals(SupplyChainCredentialValidator.validateCertChain(intermediateCert,
+                new HashSet<>(Arrays.asList(otherCaCert))),
+                "Certificate signature failed to verify");
+        Assert.assertEquals(SupplyChainCredentialValidator.validateCertChain(intermediateCert,
+                new HashSet<>(Arrays.asList(caCert))), "");
+        Assert.assertEquals(SupplyChainCredentialValidator.validateCertChain(intermediateCert,
+                new HashSet<>(Arrays.asList(otherCaCert))),
+                "Certificate signature failed to verify");
+    }
+
     /**
      * Verifies that when the test device's serial number does not match the platform credential's
      * board serial number, validation fails.
@@ -1873,6 +1938,42 @@ public class SupplyChainCredentialValidatorTest {
                 SupplyChainCredentialValidator.PLATFORM_ATTRIBUTES_VALID);
     }
 
+    /**
+     * Tests that SupplyChainCredentialValidator fails when the platform credential lists a
+     * component twice but the device info report only contains it once, as each component in the
+     * device info report can only match one component of the platform credential.
+     * @throws IOException if unable to set up DeviceInfoReport from resource file
+     */
+    @Test
+    public final void testValidatePlatformCredentialAttributesV2p0DuplicateComponent()
+            throws IOException {
+        DeviceInfoReport deviceInfoReport = setupDeviceInfoReportWithComponents();
+        PlatformCredential platformCredential = setupMatchingPlatformCredential(deviceInfoReport);
+
+        List<ComponentIdentifier> modifiedIdentifiers
+                = new ArrayList<>(platformCredential.getComponentIdentifiers());
+        ComponentIdentifier duplicated = modifiedIdentifiers.get(0);
+        modifiedIdentifiers.add(new ComponentIdentifier(
+                duplicated.getComponentManufacturer(),
+                duplicated.getComponentModel(),
+                duplicated.getComponentSerial(),
+                duplicated.getComponentRevision(),
+                null,
+                ASN1Boolean.TRUE,
+                Collections.emptyList()
+        ));
+        when(platformCredential.getComponentIdentifiers()).thenReturn(modifiedIdentifiers);
+
+        AppraisalStatus result = SupplyChainCredentialValidator
+                .validatePlatformCredentialAttributesV2p0(platformCredential,
+                        deviceInfoReport);
+        Assert.assertEquals(result.getAppStatus(), AppraisalStatus.Status.FAIL);
+        Assert.assertEquals(result.getMessage(), String.format("There are unmatched components:\n"
+                + "Manufacturer=%s, Model=%s, Serial=%s, Revision=%s;%n",
+                duplicated.getComponentManufacturer(), duplicated.getComponentModel(),
+                duplicated.getComponentSerial(), duplicated.getComponentRevision()));
+    }
+
     /**
      * Tests that SupplyChainCredentialValidator fails when a component is found in the platform
      * credential without a manufacturer or model.
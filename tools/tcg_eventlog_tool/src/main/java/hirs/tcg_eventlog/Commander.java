@@ -12,6 +12,7 @@ public class Commander {
 
     private static final String COMMAND_PREFIX = "-";
     private static final String FULL_COMMAND_PREFIX = "--";
+    private static final String BATCH_STRING = "batch";
     private static final String CONTENT_STRING = "contenthex";
     private static final String DIFF_STRING = "diff";
     private static final String EVENTIDS_STRING = "event";
@@ -28,6 +29,7 @@ public class Commander {
 
     private boolean hasArguments = false;
     private boolean bValidArgs = true;
+    private boolean bBatch = false;
     private boolean bContentHex = false;
     private boolean bDiff = false;
     private boolean bEventIds = false;
@@ -42,6 +44,7 @@ public class Commander {
 
     private String inFile = "";
     private String inFile2  = "";
+    private String batchDir = "";
     private String outFile = "";
     private String eventFilter = "";
     private String pcrFilter = "";
@@ -123,6 +126,20 @@ public class Commander {
                         bDiff = true;
                     }
                     break;
+                case FULL_COMMAND_PREFIX + BATCH_STRING:
+                case COMMAND_PREFIX + "b":
+                    if ((args.length < i + 2 + 1) || (args[i + 1].charAt(0) == '-')
+                                              || (args[i + 2].charAt(0) == '-')) {
+                        printHelp("tcg_eventlog_tool command line error:"
+                                        +  " 2 parameters needed for -batch." + "\n");
+                        bValidArgs = false;
+                        bDone = true;
+                    } else {
+                        inFile = args[i++  + 1];
+                        batchDir = args[i++ + 1];
+                        bBatch = true;
+                    }
+                    break;
                 case FULL_COMMAND_PREFIX + FILE_STRING:
                 case COMMAND_PREFIX + "f":
                    if (i == args.length - 1) {
@@ -282,6 +299,13 @@ public class Commander {
     public final boolean getDiffFlag() {
         return bDiff;
     }
+    /**
+     * Getter for the input associated with the batch flag.
+     * @return true if the batch flag was set
+     */
+    public final boolean getBatchFlag() {
+        return bBatch;
+    }
     /**
      * Getter for the input associated with the Verify flag.
      * @return true if the verify flag was set
@@ -303,6 +327,13 @@ public class Commander {
     public final String getInFile2Name() {
         return inFile2;
     }
+    /**
+     * Returns the name of the directory of logs to compare in batch mode, if provided.
+     * @return name of the batch directory.
+     */
+    public final String getBatchDirName() {
+        return batchDir;
+    }
     /**
      * Returns the name of the 2nd input file, if provided.
      * @return name of the 2nd input file.
@@ -411,6 +442,12 @@ public class Commander {
                 + " file that do not match."
                 + "\n\t\t\t example: elt [-d|--diff] /path/to/eventlogfile1 "
                 + "/path/to/eventlogfile2\n"
+                + "  -b\t--batch\t Compares every TCG Event Log in a directory to a reference"
+                + " Event Log"
+                + "\n\t\t\t and writes one CSV line per log with the number of events that do"
+                + " not match."
+                + "\n\t\t\t example: elt [-b|--batch] /path/to/referencelogfile "
+                + "/path/to/logdirectory\n"
                 + "  -o\t--output\t Redirect output to a specified path/file."
                 + "\n\t\t\t example: elt [-o|--output] /path/to/outputfile\n"
                 + "  -p\t--pcr\t\t Display all expected PCR values calculated from the TCG Log "
@@ -3,14 +3,22 @@ package hirs.tcg_eventlog;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import hirs.tpm.eventlog.TCGEventLog;
 import hirs.tpm.eventlog.TpmPcrEvent;
 import hirs.utils.HexUtils;
@@ -67,6 +75,10 @@ final class Main {
                 writeOut(results);
                 System.exit(0);
             }
+            if (commander.getBatchFlag()) {
+                batchCompareLogs(commander.getInFileName(), commander.getBatchDirName());
+                System.exit(0);
+            }
             if (commander.getEventIdsFlag()) {
                 bEventFlag = true;
             }
@@ -281,6 +293,115 @@ final class Main {
         return sb.toString();
     }
 
+    /**
+     * Compares every Event Log in a directory against a reference Event Log and writes a
+     * summary with one CSV line per log: the log file name, MATCH, MISMATCH or ERROR, the
+     * number of events compared and the number of events whose digest was not found in the
+     * reference log. For logs that could not be processed the last column holds the error.
+     * The reference log is parsed and indexed once and the logs are compared in parallel.
+     *
+     * @param referenceLogName Log file to use as a reference.
+     * @param logDirName Directory holding the log files to compare to the reference.
+     */
+    public static void batchCompareLogs(final String referenceLogName, final String logDirName) {
+        Set<String> referenceDigests;
+        try {
+            referenceDigests = indexDigests(new TCGEventLog(
+                    Files.readAllBytes(Paths.get(referenceLogName))).getEventList());
+        } catch (Exception e) {
+            System.out.print("Error processing event log " + referenceLogName + " : "
+                    + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        List<Path> logFiles = new ArrayList<Path>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get(logDirName))) {
+            for (Path logFile : dir) {
+                if (Files.isRegularFile(logFile)) {
+                    logFiles.add(logFile);
+                }
+            }
+        } catch (Exception e) {
+            System.out.print("Error reading event log directory " + logDirName + " : "
+                    + e.toString());
+            System.exit(1);
+        }
+        Collections.sort(logFiles);
+
+        final int pcr = commander.getPcrNumber();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        List<Future<String>> results = new ArrayList<Future<String>>(logFiles.size());
+        for (final Path logFile : logFiles) {
+            results.add(executor.submit(() -> compareToReference(referenceDigests, logFile,
+                    pcr)));
+        }
+        executor.shutdown();
+        writeOut("log,result,events,mismatches,error\n");
+        for (int i = 0; i < logFiles.size(); i++) {
+            String line;
+            try {
+                line = results.get(i).get();
+            } catch (InterruptedException | ExecutionException e) {
+                line = csvLine(logFiles.get(i), "ERROR", 0, 0, e.toString());
+            }
+            writeOut(line);
+        }
+    }
+
+    /**
+     * Compares a single log file against the indexed digests of a reference log.
+     *
+     * @param referenceDigests digests of the reference log, as built by indexDigests.
+     * @param logFile the log file to compare.
+     * @param pcr used as a filter. Use -1 to check all pcrs.
+     * @return the CSV summary line for the log file.
+     */
+    private static String compareToReference(final Set<String> referenceDigests,
+                                             final Path logFile, final int pcr) {
+        try {
+            Collection<TpmPcrEvent> events =
+                    new TCGEventLog(Files.readAllBytes(logFile)).getEventList();
+            int mismatches = diffEventLogs(referenceDigests, events, pcr).size();
+            String result = "MATCH";
+            if (mismatches > 0) {
+                result = "MISMATCH";
+            }
+            return csvLine(logFile, result, events.size(), mismatches, "");
+        } catch (Exception e) {
+            return csvLine(logFile, "ERROR", 0, 0, e.toString());
+        }
+    }
+
+    /**
+     * Formats a line of the batch summary, quoting the text columns.
+     *
+     * @param logFile the log file the line is for.
+     * @param result MATCH, MISMATCH or ERROR.
+     * @param events number of events in the log.
+     * @param mismatches number of events not found in the reference log.
+     * @param error the error processing the log, or an empty string.
+     * @return the CSV line.
+     */
+    private static String csvLine(final Path logFile, final String result, final int events,
+                                  final int mismatches, final String error) {
+        return csvField(logFile.getFileName().toString()) + "," + result + "," + events
+                + "," + mismatches + "," + csvField(error) + "\n";
+    }
+
+    /**
+     * Quotes a CSV field if it holds a separator, quote or line break.
+     *
+     * @param field the field value.
+     * @return the field as written to the CSV.
+     */
+    private static String csvField(final String field) {
+        if (field.matches("(?s).*[,\"\r\n].*")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        return field;
+    }
+
     /**
      * Compare this event log against a second event log.
      * Returns a String Array of event descriptions in which the digests from the first
@@ -294,41 +415,58 @@ final class Main {
     public static ArrayList<TpmPcrEvent> diffEventLogs(final Collection<TpmPcrEvent> eventList,
                                                        final Collection<TpmPcrEvent> eventList2,
                                                        final int pcr) {
+        return diffEventLogs(indexDigests(eventList), eventList2, pcr);
+    }
+
+    /**
+     * Compare the indexed digests of a reference event log against a second event log.
+     * Each event is looked up in the index, so the comparison takes time proportional to the
+     * number of events in the second log.
+     *
+     * @param referenceDigests digests of the reference log, as built by indexDigests.
+     * @param eventList2 events to compare against.
+     * @param pcr        used as a filter. Use -1 to check all pcrs.
+     * @return the events from the second log whose digest is not in the reference log.
+     */
+    private static ArrayList<TpmPcrEvent> diffEventLogs(final Set<String> referenceDigests,
+                                                        final Collection<TpmPcrEvent> eventList2,
+                                                        final int pcr) {
         ArrayList<TpmPcrEvent> results = new ArrayList<TpmPcrEvent>();
         for (TpmPcrEvent event2 : eventList2) {
-            if (pcr >= 0) {
-                if (event2.getPcrIndex() == pcr) {
-                    if (!digestMatch(eventList, event2)) {
-                        results.add(event2);
-                    }
-                }
-            } else {
-                if (!digestMatch(eventList, event2)) {
-                    results.add(event2);
-                }
+            if (pcr >= 0 && event2.getPcrIndex() != pcr) {
+                continue;
+            }
+            if (!referenceDigests.contains(digestKey(event2))) {
+                results.add(event2);
             }
         }
         return results;
     }
 
     /**
-     * Checks a digest from a single event against all digests with the same index in an Event Log.
+     * Builds the set of PCR index and digest pairs found in a reference Event Log.
      *
      * @param eventLog The Reference Event log.
-     * @param event    single event to match.
-     * @return
+     * @return a set holding the digest key of every event.
      */
-    private static boolean digestMatch(final Collection<TpmPcrEvent> eventLog,
-                                       final TpmPcrEvent event) {
-        boolean matchFound = false;
-        for (TpmPcrEvent event2 : eventLog) {
-            if ((event.getPcrIndex() == event2.getPcrIndex())
-                    && (Arrays.equals(event.getEventDigest(), event2.getEventDigest()))) {
-                matchFound = true;
-            }
+    private static Set<String> indexDigests(final Collection<TpmPcrEvent> eventLog) {
+        Set<String> digests = new HashSet<String>(eventLog.size() * 2);
+        for (TpmPcrEvent event : eventLog) {
+            digests.add(digestKey(event));
         }
-        return matchFound;
+        return digests;
     }
+
+    /**
+     * Returns the key an event is indexed by: its PCR index and its digest.
+     *
+     * @param event single event.
+     * @return the PCR index and hex encoded digest of the event.
+     */
+    private static String digestKey(final TpmPcrEvent event) {
+        return event.getPcrIndex() + ":" + HexUtils.byteArrayToHexString(event.getEventDigest());
+    }
+
     /**
      * Diagnostic method for detecting flag settings.
      */